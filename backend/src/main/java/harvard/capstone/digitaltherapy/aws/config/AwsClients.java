@@ -0,0 +1,134 @@
+package harvard.capstone.digitaltherapy.aws.config;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.BackoffStrategy;
+import software.amazon.awssdk.core.retry.conditions.RetryCondition;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.polly.PollyAsyncClient;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.transcribe.TranscribeAsyncClient;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Process-wide AWS SDK v2 clients.
+ *
+ * Every async client runs on one Netty connection pool and event loop, and every sync client
+ * on one Apache connection pool, so adding a client does not add threads or sockets. Clients
+ * are created on first use and cached per region. They are shared by the Spring beans in
+ * {@link AwsConfig} and by code created outside Spring (the workers and static helpers), and
+ * live as long as the JVM; do not close them.
+ */
+public final class AwsClients {
+
+    public static final Region DEFAULT_REGION = Region.US_EAST_1;
+
+    // Connections per endpoint for each pool
+    static final int MAX_CONNECTIONS = 64;
+
+    private static final AwsCredentialsProvider CREDENTIALS = DefaultCredentialsProvider.create();
+    private static final Map<String, Object> CLIENTS = new ConcurrentHashMap<>();
+
+    private AwsClients() {
+    }
+
+    // Created on first use so that merely loading the class does not start the event loop
+    private static final class HttpClients {
+        static final SdkAsyncHttpClient ASYNC = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(MAX_CONNECTIONS)
+                .connectionAcquisitionTimeout(Duration.ofSeconds(30))
+                .build();
+        static final SdkHttpClient SYNC = ApacheHttpClient.builder()
+                .maxConnections(MAX_CONNECTIONS)
+                .build();
+    }
+
+    public static SdkAsyncHttpClient asyncHttpClient() {
+        return HttpClients.ASYNC;
+    }
+
+    public static SdkHttpClient httpClient() {
+        return HttpClients.SYNC;
+    }
+
+    public static S3Client s3(Region region) {
+        return shared("s3", region, r -> S3Client.builder()
+                .region(r)
+                .credentialsProvider(CREDENTIALS)
+                .httpClient(httpClient())
+                .overrideConfiguration(s3Overrides())
+                .build());
+    }
+
+    public static S3AsyncClient s3Async(Region region) {
+        return shared("s3-async", region, r -> S3AsyncClient.builder()
+                .region(r)
+                .credentialsProvider(CREDENTIALS)
+                .httpClient(asyncHttpClient())
+                .overrideConfiguration(s3Overrides())
+                .build());
+    }
+
+    public static S3Presigner s3Presigner(Region region) {
+        // Signing is local, so the presigner needs credentials but no HTTP client
+        return shared("s3-presigner", region, r -> S3Presigner.builder()
+                .region(r)
+                .credentialsProvider(CREDENTIALS)
+                .build());
+    }
+
+    public static PollyAsyncClient polly(Region region) {
+        return shared("polly", region, r -> PollyAsyncClient.builder()
+                .region(r)
+                .credentialsProvider(CREDENTIALS)
+                .httpClient(asyncHttpClient())
+                .build());
+    }
+
+    public static TranscribeAsyncClient transcribe(Region region) {
+        return shared("transcribe", region, r -> TranscribeAsyncClient.builder()
+                .region(r)
+                .credentialsProvider(CREDENTIALS)
+                .httpClient(asyncHttpClient())
+                .build());
+    }
+
+    public static RekognitionClient rekognition(Region region) {
+        return shared("rekognition", region, r -> RekognitionClient.builder()
+                .region(r)
+                .credentialsProvider(CREDENTIALS)
+                .httpClient(httpClient())
+                .build());
+    }
+
+    // Media uploads can be large, so S3 calls get generous timeouts and retries
+    private static ClientOverrideConfiguration s3Overrides() {
+        return ClientOverrideConfiguration.builder()
+                .retryPolicy(RetryPolicy.builder()
+                        .numRetries(3)
+                        .retryCondition(RetryCondition.defaultRetryCondition())
+                        .backoffStrategy(BackoffStrategy.defaultStrategy())
+                        .build())
+                .apiCallTimeout(Duration.ofMinutes(30))
+                .apiCallAttemptTimeout(Duration.ofMinutes(20))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T shared(String service, Region region, Function<Region, T> factory) {
+        return (T) CLIENTS.computeIfAbsent(service + "@" + region.id(), key -> factory.apply(region));
+    }
+}
@@ -1,53 +1,58 @@
 package harvard.capstone.digitaltherapy.aws.config;
 
-import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
-import com.amazonaws.regions.Regions;
-import com.amazonaws.services.polly.AmazonPolly;
-import com.amazonaws.services.polly.AmazonPollyClient;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3Client;
-import com.amazonaws.services.transcribe.AmazonTranscribe;
-import com.amazonaws.services.transcribe.AmazonTranscribeClient;
-
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.polly.PollyAsyncClient;
 import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.transcribe.TranscribeAsyncClient;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * Exposes the shared clients from {@link AwsClients} as beans. The clients outlive the
+ * application context, so Spring must not close them (destroyMethod is empty).
+ */
 @Configuration
 public class AwsConfig {
 
-    @Bean
-    public AmazonPolly amazonPolly() {
-        return AmazonPollyClient.builder()
-                .withCredentials(DefaultAWSCredentialsProviderChain.getInstance())
-                .withRegion(Regions.US_EAST_1)
-                .build();
+    @Value("${aws.region:us-east-1}")
+    private String region;
+
+    @Bean(destroyMethod = "")
+    public PollyAsyncClient pollyAsyncClient() {
+        return AwsClients.polly(region());
+    }
+
+    @Bean(destroyMethod = "")
+    public TranscribeAsyncClient transcribeAsyncClient() {
+        return AwsClients.transcribe(region());
     }
 
-    @Bean
-    public AmazonTranscribe amazonTranscribe() {
-        return AmazonTranscribeClient.builder()
-                .withCredentials(DefaultAWSCredentialsProviderChain.getInstance())
-                .withRegion(Regions.US_EAST_1)
-                .build();
+    @Bean(destroyMethod = "")
+    public S3Client s3Client() {
+        return AwsClients.s3(region());
     }
 
-    @Bean
-    public AmazonS3 amazonS3() {
-        return AmazonS3Client.builder()
-                .withCredentials(DefaultAWSCredentialsProviderChain.getInstance())
-                .withRegion(Regions.US_EAST_1)
-                .build();
+    @Bean(destroyMethod = "")
+    public S3AsyncClient s3AsyncClient() {
+        return AwsClients.s3Async(region());
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
+    public S3Presigner s3Presigner() {
+        return AwsClients.s3Presigner(region());
+    }
+
+    @Bean(destroyMethod = "")
     public RekognitionClient rekognitionClient(){
-        return RekognitionClient.builder()
-            .credentialsProvider(DefaultCredentialsProvider.create())
-            .region(Region.US_EAST_1)
-            .build();
+        return AwsClients.rekognition(region());
+    }
+
+    private Region region() {
+        return Region.of(region);
     }
 }
@@ -1,121 +1,157 @@
 package harvard.capstone.digitaltherapy.aws.service;
 
-import com.amazonaws.services.polly.AmazonPolly;
-import com.amazonaws.services.polly.model.SynthesizeSpeechRequest;
-import com.amazonaws.services.polly.model.SynthesizeSpeechResult;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.GetObjectRequest;
-import com.amazonaws.services.s3.model.PutObjectRequest;
-import org.springframework.beans.factory.annotation.Autowired;
+import harvard.capstone.digitaltherapy.utility.S3Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.polly.PollyAsyncClient;
+import software.amazon.awssdk.services.polly.model.OutputFormat;
+import software.amazon.awssdk.services.polly.model.SynthesizeSpeechRequest;
+import software.amazon.awssdk.services.polly.model.VoiceId;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
-import java.io.InputStream;
 import java.io.IOException;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
+import java.util.stream.Collectors;
 
 @Service
 public class PollyService {
+    private static final Logger logger = LoggerFactory.getLogger(PollyService.class);
 
-    @Autowired
-    private AmazonPolly amazonPolly;
+    private final PollyAsyncClient pollyClient;
+    private final S3AsyncClient s3Client;
+    // Text is read through S3Utils and its cache
+    private final S3Utils s3Utils;
+    // Synthesized audio goes to the configured bucket
+    private final String bucketName;
 
-    @Autowired
-    private AmazonS3 amazonS3;
+    // Cache misses block on a GET, so reads run here rather than on the SDK event loop
+    private static final ExecutorService TEXT_READS = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "polly-text-read");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private static final String S3_BUCKET_NAME = "dta-root";
     private static final String S3_BUCKET_FOLDER = "dta-speech-translation-storage/";
+    private static final Pattern TRANSCRIPT_PATTERN = Pattern.compile("\\*\\*Transcript:\\*\\*\\s*\"([^\"]+)\"");
+
+    public PollyService(PollyAsyncClient pollyClient, S3AsyncClient s3Client, S3Utils s3Utils) {
+        this.pollyClient = pollyClient;
+        this.s3Client = s3Client;
+        this.s3Utils = s3Utils;
+        this.bucketName = s3Utils.getBucketName();
+    }
 
     /**
      * Text-to-Speech service function
      *
      * @param s3Url The S3 URL where the text is stored
      * @param fileName File name to upload to S3. Should uniquely identify the file by user.
-     * @return The synthesized S3 .mp3 file location
+     * @return The synthesized S3 .mp3 file location, or null if the text could not be downloaded
      */
     public String convertTextToSpeech(String s3Url, String fileName) {
+        try {
+            return convertTextToSpeechAsync(s3Url, fileName).join();
+        } catch (CompletionException e) {
+            // Handle Polly failure (no S3 upload happens)
+            throw new RuntimeException("Polly service failure", e.getCause());
+        }
+    }
+
+    /**
+     * Non-blocking form of {@link #convertTextToSpeech}. The text is read through the S3
+     * object cache on a small pool; synthesis and upload run on the SDK's event loop.
+     *
+     * @return A future for the synthesized S3 .mp3 file location, completing with null if the
+     *         text could not be downloaded
+     */
+    public CompletableFuture<String> convertTextToSpeechAsync(String s3Url, String fileName) {
         if (s3Url == null || s3Url.isEmpty()) {
             throw new IllegalArgumentException("S3 URL input is empty");
         }
         if (fileName == null || fileName.isEmpty()) {
             throw new IllegalArgumentException("Invalid file name");
         }
+        String s3Key = S3_BUCKET_FOLDER + fileName + ".mp3";
 
-        String text = null;
-        try {
-            // Download the text content from the provided S3 URL
-            text = downloadTextFromS3(s3Url);
-        } catch (IOException e) {
-            System.err.println("Error downloading text from S3: " + e.getMessage());
-            return null;  // Return null or handle the error as needed
-        }
-
-        try {
+        return downloadTextFromS3(s3Url).<String>thenCompose(text -> {
+            if (text == null) {
+                return CompletableFuture.<String>completedFuture(null);
+            }
             // Synthesize speech from text
-            SynthesizeSpeechRequest synthesizeSpeechRequest = new SynthesizeSpeechRequest()
-                    .withText(text)
-                    .withVoiceId("Joanna")
-                    .withOutputFormat("mp3");
-    
-            SynthesizeSpeechResult synthesizeSpeechResult = amazonPolly.synthesizeSpeech(synthesizeSpeechRequest);
-    
-            // Get the audio stream
-            InputStream audioStream = synthesizeSpeechResult.getAudioStream();
-    
-            // Upload to S3
-            String s3Key = S3_BUCKET_FOLDER + fileName + ".mp3";
-            amazonS3.putObject(new PutObjectRequest(S3_BUCKET_NAME, s3Key, audioStream, null));
-    
-            // Return the S3 URL
-            return "https://dta-root.s3.amazonaws.com/" + s3Key;
-        } catch (RuntimeException e) {
-            // Handle Polly failure (no S3 interactions should happen)
-            throw new RuntimeException("Polly service failure", e); // Make sure to include the error message here
-        }
+            SynthesizeSpeechRequest synthesizeSpeechRequest = SynthesizeSpeechRequest.builder()
+                    .text(text)
+                    .voiceId(VoiceId.JOANNA)
+                    .outputFormat(OutputFormat.MP3)
+                    .build();
+
+            return pollyClient.synthesizeSpeech(synthesizeSpeechRequest, AsyncResponseTransformer.toBytes())
+                    // Upload the audio to S3 straight from the response buffer
+                    .thenCompose(audio -> s3Client.putObject(PutObjectRequest.builder()
+                                    .bucket(bucketName)
+                                    .key(s3Key)
+                                    .contentType("audio/mpeg")
+                                    .build(),
+                            AsyncRequestBody.fromByteBuffer(audio.asByteBuffer())))
+                    // Return the S3 URL
+                    .thenApply(response -> {
+                        // The key is reused for the session, so drop any cached copy of the last turn's audio
+                        s3Utils.invalidateCached(bucketName, s3Key);
+                        return "https://" + bucketName + ".s3.amazonaws.com/" + s3Key;
+                    });
+        });
     }
 
     /**
-     * Downloads the text file from the specified S3 URL
+     * Downloads the text file from the specified S3 URL, through the S3 object cache
      *
      * @param s3Url The S3 URL where the text is stored
-     * @return The text content as a string
-     * @throws IOException if there is an issue with reading the file
+     * @return A future for the text content, completing with null if the download failed
      */
-    private String downloadTextFromS3(String s3Url) throws IOException {
-        // Extract bucket and key from S3 URL
-        String[] urlParts = s3Url.replace("s3://", "").split("/");
-        String bucketName = urlParts[0];
-        String key = String.join("/", urlParts).substring(bucketName.length() + 1);
-    
-        // Retrieve the S3 object
-        InputStream inputStream = amazonS3.getObject(new GetObjectRequest(bucketName, key)).getObjectContent();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-    
-        // Read full content
-        StringBuilder fileContent = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            fileContent.append(line).append("\n");
-        }
-        String fileText = fileContent.toString().trim();
-    
-        // Debug: Print file content
-        System.out.println("Full File Content:\n" + fileText);
-    
+    private CompletableFuture<String> downloadTextFromS3(String s3Url) {
+        // Extract bucket and key from S3 URL; a bare key is in the configured bucket
+        String urlBucket = S3Utils.bucketOf(s3Url);
+        String textBucket = urlBucket != null ? urlBucket : bucketName;
+        String key = S3Utils.keyOf(s3Url);
+
+        return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return extractTranscript(StandardCharsets.UTF_8.decode(s3Utils.read(textBucket, key)).toString());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, TEXT_READS)
+                .exceptionally(e -> {
+                    logger.warn("Error downloading text from S3: {}", e.getMessage());
+                    return null;
+                });
+    }
+
+    private static String extractTranscript(String content) {
+        String fileText = content.lines().collect(Collectors.joining("\n")).trim();
+
         // Detect transcript format
-        Pattern transcriptPattern = Pattern.compile("\\*\\*Transcript:\\*\\*\\s*\"([^\"]+)\"");
-        Matcher matcher = transcriptPattern.matcher(fileText);
-    
+        Matcher matcher = TRANSCRIPT_PATTERN.matcher(fileText);
+
         if (matcher.find()) {
             String transcript = matcher.group(1);
-            System.out.println("Extracted Transcript: " + transcript);
+            // Lengths only: the text is the user's own words
+            logger.debug("Extracted transcript ({} of {} chars)", transcript.length(), fileText.length());
             return transcript; // Return extracted text
         }
-    
+
         // If no transcript found, return the entire file text
-        System.out.println("No transcript found, returning full file.");
+        logger.debug("No transcript found, returning full file ({} chars)", fileText.length());
         return fileText;
-    }        
+    }
 }
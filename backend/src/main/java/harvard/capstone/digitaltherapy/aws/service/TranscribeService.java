@@ -1,31 +1,69 @@
 package harvard.capstone.digitaltherapy.aws.service;
 
-import com.amazonaws.services.transcribe.AmazonTranscribe;
-import com.amazonaws.services.transcribe.model.StartTranscriptionJobRequest;
-import com.amazonaws.services.transcribe.model.StartTranscriptionJobResult;
-import com.amazonaws.services.transcribe.model.DeleteTranscriptionJobRequest;
-import com.amazonaws.services.transcribe.model.TranscriptionJob;
-import com.amazonaws.services.transcribe.model.Media;
-import com.amazonaws.services.transcribe.model.GetTranscriptionJobRequest;
-import com.amazonaws.services.transcribe.model.GetTranscriptionJobResult;
-
-import org.springframework.beans.factory.annotation.Autowired;
+import software.amazon.awssdk.services.transcribe.TranscribeAsyncClient;
+import software.amazon.awssdk.services.transcribe.model.StartTranscriptionJobRequest;
+import software.amazon.awssdk.services.transcribe.model.DeleteTranscriptionJobRequest;
+import software.amazon.awssdk.services.transcribe.model.TranscriptionJob;
+import software.amazon.awssdk.services.transcribe.model.TranscriptionJobStatus;
+import software.amazon.awssdk.services.transcribe.model.LanguageCode;
+import software.amazon.awssdk.services.transcribe.model.Media;
+import software.amazon.awssdk.services.transcribe.model.GetTranscriptionJobRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class TranscribeService {
+    private static final Logger logger = LoggerFactory.getLogger(TranscribeService.class);
+
+    private static final int INITIAL_POLL_DELAY_MS = 200;
+    private static final int MAX_POLL_DELAY_MS = 5000;
 
-    @Autowired
-    private AmazonTranscribe amazonTranscribe;
+    private final TranscribeAsyncClient transcribeClient;
+    // Transcripts are written to the configured bucket
+    private final String outputBucket;
+
+    public TranscribeService(TranscribeAsyncClient transcribeClient,
+                             @Value("${aws.s3.bucketName}") String outputBucket) {
+        this.transcribeClient = transcribeClient;
+        this.outputBucket = outputBucket;
+    }
 
     /**
      * Speech-to-Text service function
      *
-     * @param mediUri .mp3 S3 asset URI. Expected format: s3://dta-root/dta-speech-translation-storage/[autiofileID].mp3
+     * @param mediUri .mp3 S3 asset URI. Expected format: s3://[bucket]/dta-speech-translation-storage/[autiofileID].mp3
      * @param jobName user/job id string for the AWS Transcribe service
      * @return The URL for the translated file from the Transcribe job
      */
     public String startTranscriptionJob(String mediaUri, String jobName) {
+        try {
+            return startTranscriptionJobAsync(mediaUri, jobName).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Job interrupted";
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Non-blocking form of {@link #startTranscriptionJob}. The job status is polled with
+     * delayed tasks rather than a sleeping thread.
+     *
+     * @return A future for the URL of the transcribed file, or "Transcription job failed."
+     */
+    public CompletableFuture<String> startTranscriptionJobAsync(String mediaUri, String jobName) {
         if (mediaUri == null || mediaUri.isEmpty()) {
             throw new IllegalArgumentException("Invalid media URI");
         }
@@ -33,84 +71,78 @@ public class TranscribeService {
             throw new IllegalArgumentException("Invalid job name");
         }
 
-        // Check if a transcription job already exists with the given jobName
-        GetTranscriptionJobRequest getRequest = new GetTranscriptionJobRequest().withTranscriptionJobName(jobName);
-        try {
-            // Check the status of the existing transcription job
-            GetTranscriptionJobResult result = amazonTranscribe.getTranscriptionJob(getRequest);
-            TranscriptionJob existingJob = result.getTranscriptionJob();
-
-            // If the job is in "COMPLETED" or "FAILED" state, delete the existing job results
-            if ("COMPLETED".equals(existingJob.getTranscriptionJobStatus()) || 
-                "FAILED".equals(existingJob.getTranscriptionJobStatus())) {
-                deleteTranscriptionJob(jobName); // Delete existing job results
-            }
-        } catch (Exception e) {
-            // Job not found, continue to create a new job
-            // Do not throw any exceptions
-        }
-
         // Create request object for starting the job
-        StartTranscriptionJobRequest request = new StartTranscriptionJobRequest()
-                .withTranscriptionJobName(jobName)
-                .withLanguageCode("en-US")
-                .withMedia(new Media().withMediaFileUri(mediaUri))
-                .withOutputBucketName("dta-root");
-
-        // Start the transcription job
-        StartTranscriptionJobResult result = amazonTranscribe.startTranscriptionJob(request);
-        TranscriptionJob job = result.getTranscriptionJob();
-
-        // Wait for the job to complete
-        int requestDelayMs = 200;
-        int maxDelayMs = 5000;
-        while (!job.getTranscriptionJobStatus().equals("COMPLETED") && 
-               !job.getTranscriptionJobStatus().equals("FAILED")) {
-            try {
-                // Sleep for a short interval before checking the status again
-                Thread.sleep(requestDelayMs);  // Wait request delay
-                if (requestDelayMs < maxDelayMs)
-                    requestDelayMs += 500;
-                else
-                    requestDelayMs = maxDelayMs;
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-                return "Job interrupted";
-            }
-
-            // Create a request to fetch the current status of the transcription job
-            getRequest = new GetTranscriptionJobRequest()
-                    .withTranscriptionJobName(jobName);
-
-            // Retrieve the updated job status
-            job = amazonTranscribe.getTranscriptionJob(getRequest).getTranscriptionJob();
-        }
+        StartTranscriptionJobRequest request = StartTranscriptionJobRequest.builder()
+                .transcriptionJobName(jobName)
+                .languageCode(LanguageCode.EN_US)
+                .media(Media.builder().mediaFileUri(mediaUri).build())
+                .outputBucketName(outputBucket)
+                .build();
 
-        // If the job is completed, get the URL of the transcribed file
-        if ("COMPLETED".equals(job.getTranscriptionJobStatus())) {
-            String bucketName = "dta-root";
-            String fileKey = job.getTranscript().getTranscriptFileUri().substring(job.getTranscript().getTranscriptFileUri().lastIndexOf('/') + 1);
-            String fileUrl = "https://s3.amazonaws.com/" + bucketName + "/" + fileKey;
-            return fileUrl;
-        } else {
-            return "Transcription job failed.";
-        }
+        // Check if a transcription job already exists with the given jobName
+        return transcribeClient.getTranscriptionJob(getRequest(jobName))
+                .thenCompose(result -> {
+                    // If the job is in "COMPLETED" or "FAILED" state, delete the existing job results
+                    return isFinished(result.transcriptionJob())
+                            ? deleteTranscriptionJobAsync(jobName)
+                            : CompletableFuture.<Void>completedFuture(null);
+                })
+                // Job not found, continue to create a new job
+                .exceptionally(e -> null)
+                // Start the transcription job and wait for it to complete
+                .thenCompose(ignored -> transcribeClient.startTranscriptionJob(request))
+                .thenCompose(result -> awaitJob(jobName, result.transcriptionJob(), INITIAL_POLL_DELAY_MS))
+                .thenApply(job -> {
+                    // If the job is completed, get the URL of the transcribed file
+                    if (job.transcriptionJobStatus() == TranscriptionJobStatus.COMPLETED) {
+                        String transcriptUri = job.transcript().transcriptFileUri();
+                        String fileKey = transcriptUri.substring(transcriptUri.lastIndexOf('/') + 1);
+                        return "https://s3.amazonaws.com/" + outputBucket + "/" + fileKey;
+                    }
+                    return "Transcription job failed.";
+                });
     }
 
     // Method to delete the transcription job if it's completed or failed
     public void deleteTranscriptionJob(String jobName) {
+        deleteTranscriptionJobAsync(jobName).join();
+    }
+
+    private CompletableFuture<Void> deleteTranscriptionJobAsync(String jobName) {
         // Create the delete request for the transcription job
-        DeleteTranscriptionJobRequest deleteRequest = new DeleteTranscriptionJobRequest()
-                .withTranscriptionJobName(jobName);
+        DeleteTranscriptionJobRequest deleteRequest = DeleteTranscriptionJobRequest.builder()
+                .transcriptionJobName(jobName)
+                .build();
 
-        // Delete the transcription job
-        try {
-            // Delete the transcription job and get the result
-            amazonTranscribe.deleteTranscriptionJob(deleteRequest);
-            System.out.println("Transcription job " + jobName + " deleted successfully.");
-        } catch (Exception e) {
-            // Handle any errors that may occur when deleting the job
-            System.out.println("Failed to delete transcription job " + jobName + ": " + e.getMessage());
+        // Delete the transcription job, logging rather than failing on errors
+        return transcribeClient.deleteTranscriptionJob(deleteRequest).handle((response, e) -> {
+            if (e == null) {
+                logger.debug("Transcription job {} deleted", jobName);
+            } else {
+                logger.debug("Failed to delete transcription job {}: {}", jobName, e.getMessage());
+            }
+            return null;
+        });
+    }
+
+    // Polls until the job finishes, backing off from 200 ms to 5 s between checks
+    private CompletableFuture<TranscriptionJob> awaitJob(String jobName, TranscriptionJob job, int delayMs) {
+        if (isFinished(job)) {
+            return CompletableFuture.completedFuture(job);
         }
+        Executor delayed = CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
+        int nextDelayMs = Math.min(delayMs + 500, MAX_POLL_DELAY_MS);
+        return CompletableFuture.runAsync(() -> { }, delayed)
+                .thenCompose(ignored -> transcribeClient.getTranscriptionJob(getRequest(jobName)))
+                .thenCompose(result -> awaitJob(jobName, result.transcriptionJob(), nextDelayMs));
+    }
+
+    private static GetTranscriptionJobRequest getRequest(String jobName) {
+        return GetTranscriptionJobRequest.builder().transcriptionJobName(jobName).build();
+    }
+
+    private static boolean isFinished(TranscriptionJob job) {
+        return job.transcriptionJobStatus() == TranscriptionJobStatus.COMPLETED
+                || job.transcriptionJobStatus() == TranscriptionJobStatus.FAILED;
     }
 }
@@ -0,0 +1,23 @@
+package harvard.capstone.digitaltherapy.burnout.ai;
+
+import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.V;
+
+/**
+ * Interface for the AI service that explains a burnout score computed locally.
+ */
+public interface BurnoutScoreExplainer {
+    @SystemMessage("You are a mental health professional specializing in burnout assessment scoring. "
+            + "Your task is to explain a burnout score that has already been calculated from the responses to burnout assessment questions. "
+            + "Responses are rated on a 0-6 scale (0 = Never, 6 = Every day), and some may include multimodal insights such as text, voice tone, and facial expressions. "
+            + "Do not recalculate or change the score.")
+    @UserMessage("Review the following burnout assessment responses rated on a 0–6 scale (0 = Never, 6 = Every day):\n"
+            + "{{questionsAndResponses}}\n\n"
+            + "The overall burnout score on a scale of 0–10 is {{score}}. "
+            + "Provide a 3-sentence explanation for the score based on the overall patterns in the responses and multimodal insights. "
+            + "The explanation should be concise. Return only the explanation text.")
+    String explainBurnoutScore(
+            @V("questionsAndResponses") String questionsAndResponses,
+            @V("score") String score);
+}
@@ -11,6 +11,7 @@ import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentResult;
 import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
@@ -29,7 +30,11 @@ public class BurnoutController {
     private final ObjectMapper objectMapper;
     private final BurnoutAssessmentOrchestrator burnoutAssessmentOrchestrator;
     private final S3Utils s3Service;
-    private final BurnoutFhirService burnoutFhirService; // Keeping the service in the class
+    private final BurnoutFhirService burnoutFhirService;
+
+    // Off by default: storing the FHIR documents is opt-in; the bulk export reads them
+    @Value("${burnout.fhir.store-on-completion:false}")
+    private boolean storeFhirOnCompletion;
 
     @Autowired
     public BurnoutController(ObjectMapper objectMapper,
@@ -39,7 +44,7 @@ public class BurnoutController {
         this.objectMapper = objectMapper;
         this.burnoutAssessmentOrchestrator = burnoutAssessmentOrchestrator;
         this.s3Service = s3Service;
-        this.burnoutFhirService = burnoutFhirService; // Still injecting it for future use
+        this.burnoutFhirService = burnoutFhirService;
     }
 
     /**
@@ -116,15 +121,21 @@ public class BurnoutController {
      * @param sessionId the assessment session ID
      * @param questionId the question ID this audio relates to
      * @param message the binary audio data
+     * @return the S3 URL of the audio, or null if the upload failed or the response was not recorded
      */
-    public void handleAudioMessage(WebSocketSession session, String sessionId, String questionId, BinaryMessage message) {
+    public String handleAudioMessage(WebSocketSession session, String sessionId, String questionId, BinaryMessage message) {
         try {
             String s3Key = "audio_" + sessionId + "_" + questionId + ".mp3";
             String audioUrl = s3Service.uploadAudioBinaryFile(message, s3Key);
-            burnoutAssessmentOrchestrator.recordResponse(sessionId, questionId, "", null, audioUrl);
+            if (!burnoutAssessmentOrchestrator.recordResponse(sessionId, questionId, "", null, audioUrl)) {
+                sendErrorMessage(session, "handleAudioMessage_recordResponse", null);
+                return null;
+            }
             logger.info("Audio uploaded and recorded for session {}, question {}", sessionId, questionId);
+            return audioUrl;
         } catch (Exception e) {
             sendErrorMessage(session, "handleAudioMessage", e);
+            return null;
         }
     }
 
@@ -136,15 +147,21 @@ public class BurnoutController {
      * @param sessionId the assessment session ID
      * @param questionId the question ID this video relates to
      * @param message the binary video data
+     * @return the S3 URL of the video, or null if the upload failed or the response was not recorded
      */
-    public void handleVideoMessage(WebSocketSession session, String sessionId, String questionId, BinaryMessage message) {
+    public String handleVideoMessage(WebSocketSession session, String sessionId, String questionId, BinaryMessage message) {
         try {
             String s3Key = "video_" + sessionId + "_" + questionId + ".mp4";
             String videoUrl = s3Service.uploadVideoBinaryFile(message, s3Key);
-            burnoutAssessmentOrchestrator.recordResponse(sessionId, questionId, "", videoUrl, null);
+            if (!burnoutAssessmentOrchestrator.recordResponse(sessionId, questionId, "", videoUrl, null)) {
+                sendErrorMessage(session, "handleVideoMessage_recordResponse", null);
+                return null;
+            }
             logger.info("Video uploaded and recorded for session {}, question {}", sessionId, questionId);
+            return videoUrl;
         } catch (Exception e) {
             sendErrorMessage(session, "handleVideoMessage", e);
+            return null;
         }
     }
 
@@ -160,12 +177,9 @@ public class BurnoutController {
             String sessionId = requestJson.get("sessionId").asText();
             BurnoutAssessmentResult result = burnoutAssessmentOrchestrator.completeAssessment(sessionId);
 
-            // Comment out FHIR service usage but keep the code for future reference
-            // String fhirDocumentUrl = burnoutFhirService.processAndStoreAssessment(result);
-
-            // Use a placeholder instead
-            String fhirDocumentUrl = "fhir-document-not-stored"; // Placeholder value
-            logger.info("FHIR document storage skipped as requested");
+            if (storeFhirOnCompletion) {
+                storeFhirDocument(result);
+            }
 
             ObjectNode response = objectMapper.createObjectNode();
             response.put("type", "assessment-result");
@@ -173,16 +187,23 @@ public class BurnoutController {
             response.put("score", result.getScore().getOverallScore());
             response.put("summary", result.getSummary());
 
-            // uncomment to include in the response.
-//            response.put("fhirDocumentUrl", fhirDocumentUrl);
-
             session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
-            logger.info("Assessment completed. FHIR document storage skipped.");
+            logger.info("Assessment completed for session {}", sessionId);
         } catch (Exception e) {
             sendErrorMessage(session, "handleCompleteAssessment", e);
         }
     }
 
+    // A storage failure must not cost the user their result, so it is only logged
+    private void storeFhirDocument(BurnoutAssessmentResult result) {
+        try {
+            String fhirDocumentUrl = burnoutFhirService.processAndStoreAssessment(result);
+            logger.info("FHIR document stored at {}", fhirDocumentUrl);
+        } catch (Exception e) {
+            logger.error("Failed to store FHIR document for session {}: {}", result.getSessionId(), e.getMessage());
+        }
+    }
+
     /**
      * Sends a structured error message to the client over WebSocket,
      * including a reference to the method of origin and exception details.
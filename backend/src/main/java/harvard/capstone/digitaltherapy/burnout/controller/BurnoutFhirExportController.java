@@ -0,0 +1,67 @@
+package harvard.capstone.digitaltherapy.burnout.controller;
+
+import harvard.capstone.digitaltherapy.burnout.service.BurnoutFhirExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts a bulk FHIR export of the caller's stored burnout assessments.
+ *
+ * Only documents stored while burnout.fhir.store-on-completion is on are exported.
+ */
+@RestController
+@RequestMapping("/api/burnout/fhir")
+public class BurnoutFhirExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BurnoutFhirExportController.class);
+
+    private final BurnoutFhirExportService exportService;
+
+    @Autowired
+    public BurnoutFhirExportController(BurnoutFhirExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Exports the caller's assessments completed within [from, to) as one NDJSON object.
+     *
+     * @param from Optional ISO date-time lower bound, inclusive
+     * @param to Optional ISO date-time upper bound, exclusive
+     * @return The export's S3 location and the number of resources exported and skipped
+     */
+    @PostMapping("/export")
+    public ResponseEntity<Map<String, Object>> export(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Authentication authentication) {
+        // Users only ever export their own assessments
+        BurnoutFhirExportService.Criteria criteria = new BurnoutFhirExportService.Criteria(
+                from, to, Collections.singletonList(authentication.getName()));
+        Map<String, Object> body = new LinkedHashMap<>();
+        try {
+            BurnoutFhirExportService.Result result = exportService.export(criteria);
+            body.put("location", result.getLocation());
+            body.put("exported", result.getExported());
+            body.put("failed", result.getFailed());
+            return ResponseEntity.ok(body);
+        } catch (RuntimeException e) {
+            logger.error("FHIR export failed for {}: {}", authentication.getName(), e.getMessage());
+            body.put("error", "FHIR export failed");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+        }
+    }
+}
@@ -1,24 +1,25 @@
 package harvard.capstone.digitaltherapy.burnout.model;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BurnoutAssessmentSession {
     private final String sessionId;
     private final String userId;
     private final BurnoutAssessment assessment;
+    // Written by request threads and by async media analysis callbacks
     private final Map<String, BurnoutUserResponse> responses;
-    private LocalDateTime completedAt;
-    private boolean completed;
-    private BurnoutScore score;
-    private BurnoutSummary summary;
+    private volatile LocalDateTime completedAt;
+    private volatile boolean completed;
+    private volatile BurnoutScore score;
+    private volatile BurnoutSummary summary;
 
     public BurnoutAssessmentSession(String sessionId, String userId, BurnoutAssessment assessment, LocalDateTime createdAt) {
         this.sessionId = sessionId;
         this.userId = userId;
         this.assessment = assessment;
-        this.responses = new HashMap<>();
+        this.responses = new ConcurrentHashMap<>();
         this.completed = false;
     }
 
@@ -2,6 +2,7 @@ package harvard.capstone.digitaltherapy.burnout.model;
 
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,6 +11,8 @@ public class BurnoutScore {
     private final String userId;
     private final double overallScore;
     private final String explanation;
+    // Mean 0-6 answer per domain; empty when the score came from the LLM alone
+    private final Map<AssessmentDomain, Double> domainScores;
 
     public BurnoutScore(String sessionId, String userId,
                         double overallScore) {
@@ -18,10 +21,19 @@ public class BurnoutScore {
 
     public BurnoutScore(String sessionId, String userId,
                         double overallScore, String explanation) {
+        this(sessionId, userId, overallScore, explanation, null);
+    }
+
+    public BurnoutScore(String sessionId, String userId,
+                        double overallScore, String explanation,
+                        Map<AssessmentDomain, Double> domainScores) {
         this.sessionId = sessionId;
         this.userId = userId;
         this.overallScore = overallScore;
         this.explanation = explanation;
+        this.domainScores = domainScores == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new HashMap<>(domainScores));
     }
 
     public String getSessionId() {
@@ -40,4 +52,8 @@ public class BurnoutScore {
     public String getExplanation() {
         return explanation;
     }
+
+    public Map<AssessmentDomain, Double> getDomainScores() {
+        return domainScores;
+    }
 }
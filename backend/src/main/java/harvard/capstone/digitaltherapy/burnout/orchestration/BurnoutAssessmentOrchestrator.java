@@ -1,18 +1,33 @@
 package harvard.capstone.digitaltherapy.burnout.orchestration;
 
 import harvard.capstone.digitaltherapy.burnout.model.*;
+import harvard.capstone.digitaltherapy.burnout.persistence.BurnoutSessionStore;
+import harvard.capstone.digitaltherapy.burnout.persistence.InMemoryBurnoutSessionStore;
+import harvard.capstone.digitaltherapy.burnout.persistence.RedisBurnoutSessionStore;
+import harvard.capstone.digitaltherapy.burnout.prompt.BurnoutPromptBuilder;
+import harvard.capstone.digitaltherapy.burnout.scoring.BurnoutScoringModel;
+import harvard.capstone.digitaltherapy.burnout.scoring.IncrementalBurnoutScoring;
+import harvard.capstone.digitaltherapy.burnout.scoring.LocalBurnoutScoreEngine;
 import harvard.capstone.digitaltherapy.burnout.workers.BurnoutWorker;
 
 import java.time.LocalDateTime;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.List;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import harvard.capstone.digitaltherapy.workers.AudioAnalysisWorker;
 import harvard.capstone.digitaltherapy.workers.VideoAnalysisWorker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,17 +49,132 @@ public class BurnoutAssessmentOrchestrator {
     private final BurnoutWorker burnoutWorker;
     private final VideoAnalysisWorker videoAnalysisWorker;
     private final AudioAnalysisWorker audioAnalysisWorker;
-    private final Map<String, BurnoutAssessmentSession> activeSessions;
+    private final BurnoutSessionStore sessionStore;
+    // Null unless incremental scoring is enabled
+    private final IncrementalBurnoutScoring incrementalScoring;
+    private final long draftWaitMillis;
+    // Null unless burnout.scoring.mode=local; the LLM then only explains the score
+    private final LocalBurnoutScoreEngine localScoreEngine;
+    // Video and audio analyses still running, awaited at completion
+    private final PendingAnalyses pendingAnalyses = new PendingAnalyses();
+    private final long analysisWaitMillis;
+    private final BurnoutPromptBuilder promptBuilder;
+
+    private static final ExecutorService SCORING_EXECUTOR = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "burnout-scoring");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Duration DEFAULT_SESSION_TTL = Duration.ofMinutes(60);
+    private static final Duration DEFAULT_COMPLETED_TTL = Duration.ofMinutes(15);
+    private static final long DEFAULT_ANALYSIS_WAIT_MILLIS = 20_000;
 
     public BurnoutAssessmentOrchestrator() {
+        this(new InMemoryBurnoutSessionStore(DEFAULT_SESSION_TTL, DEFAULT_COMPLETED_TTL));
+    }
+
+    /**
+     * Constructor used by Spring. Sessions go to Redis when a RedisTemplate is available,
+     * so any node can serve the next request of an assessment.
+     *
+     * @param redisTemplateProvider Optional Redis template
+     * @param sessionTtlMinutes Idle time before an abandoned session is evicted
+     * @param completedTtlMinutes Time a completed session is kept
+     * @param incrementalScoringEnabled Whether to score while answers arrive instead of at completion
+     * @param draftThreshold Fraction of questions answered before draft scores are generated
+     * @param draftWaitMillis Longest time completion waits for a running draft
+     * @param scoringMode "llm" to have the LLM score, "local" to score with the weighted domain model
+     * @param workWeight Weight of the work domain in local scoring
+     * @param personalWeight Weight of the personal domain in local scoring
+     * @param lifestyleWeight Weight of the lifestyle domain in local scoring
+     * @param multimodalWeight Share of the local score taken from video and audio emotion signals
+     * @param analysisWaitMillis Longest time completion waits for running video and audio analyses
+     * @param promptTokenBudget Maximum estimated tokens of the responses sent to the score and summary prompts
+     */
+    @Autowired
+    public BurnoutAssessmentOrchestrator(ObjectProvider<RedisTemplate<String, String>> redisTemplateProvider,
+                                         @Value("${burnout.session.ttl-minutes:60}") long sessionTtlMinutes,
+                                         @Value("${burnout.session.completed-ttl-minutes:15}") long completedTtlMinutes,
+                                         @Value("${burnout.scoring.incremental:false}") boolean incrementalScoringEnabled,
+                                         @Value("${burnout.scoring.draft-threshold:0.75}") double draftThreshold,
+                                         @Value("${burnout.scoring.draft-wait-ms:2000}") long draftWaitMillis,
+                                         @Value("${burnout.scoring.mode:llm}") String scoringMode,
+                                         @Value("${burnout.scoring.weights.work:1.0}") double workWeight,
+                                         @Value("${burnout.scoring.weights.personal:1.0}") double personalWeight,
+                                         @Value("${burnout.scoring.weights.lifestyle:1.0}") double lifestyleWeight,
+                                         @Value("${burnout.scoring.multimodal-weight:0.15}") double multimodalWeight,
+                                         @Value("${burnout.analysis.await-ms:20000}") long analysisWaitMillis,
+                                         @Value("${burnout.prompt.token-budget:1500}") int promptTokenBudget) {
+        this(createSessionStore(redisTemplateProvider.getIfAvailable(),
+                        Duration.ofMinutes(sessionTtlMinutes), Duration.ofMinutes(completedTtlMinutes)),
+                incrementalScoringEnabled
+                        ? new IncrementalBurnoutScoring(draftThreshold, Duration.ofMinutes(sessionTtlMinutes))
+                        : null,
+                draftWaitMillis,
+                "local".equalsIgnoreCase(scoringMode)
+                        ? new LocalBurnoutScoreEngine(createScoringModel(workWeight, personalWeight, lifestyleWeight, multimodalWeight))
+                        : null,
+                analysisWaitMillis,
+                new BurnoutPromptBuilder(promptTokenBudget));
+    }
+
+    /**
+     * Constructor with an explicit session store
+     *
+     * @param sessionStore Store holding the assessment sessions
+     */
+    public BurnoutAssessmentOrchestrator(BurnoutSessionStore sessionStore) {
+        this(sessionStore, null, 0, null, DEFAULT_ANALYSIS_WAIT_MILLIS,
+                new BurnoutPromptBuilder(BurnoutPromptBuilder.DEFAULT_TOKEN_BUDGET));
+    }
+
+    /**
+     * Constructor with an explicit session store and incremental scoring
+     *
+     * @param sessionStore Store holding the assessment sessions
+     * @param incrementalScoring Scoring updated as answers arrive, or null to score at completion
+     * @param draftWaitMillis Longest time completion waits for a running draft
+     * @param localScoreEngine Engine computing the score locally, or null to have the LLM score
+     * @param analysisWaitMillis Longest time completion waits for running video and audio analyses
+     * @param promptBuilder Formats the responses for the score and summary prompts
+     */
+    public BurnoutAssessmentOrchestrator(BurnoutSessionStore sessionStore,
+                                         IncrementalBurnoutScoring incrementalScoring,
+                                         long draftWaitMillis,
+                                         LocalBurnoutScoreEngine localScoreEngine,
+                                         long analysisWaitMillis,
+                                         BurnoutPromptBuilder promptBuilder) {
         logger.info("Initializing BurnoutAssessmentOrchestrator");
         this.burnoutWorker = new BurnoutWorker();
         this.videoAnalysisWorker = new VideoAnalysisWorker();
         this.audioAnalysisWorker = new AudioAnalysisWorker();
-        this.activeSessions = new HashMap<>();
+        this.sessionStore = sessionStore;
+        this.incrementalScoring = incrementalScoring;
+        this.draftWaitMillis = draftWaitMillis;
+        this.localScoreEngine = localScoreEngine;
+        this.analysisWaitMillis = analysisWaitMillis;
+        this.promptBuilder = promptBuilder;
         logger.debug("BurnoutAssessmentOrchestrator components initialized successfully");
     }
 
+    private static BurnoutSessionStore createSessionStore(RedisTemplate<String, String> redisTemplate,
+                                                          Duration sessionTtl, Duration completedTtl) {
+        if (redisTemplate == null) {
+            return new InMemoryBurnoutSessionStore(sessionTtl, completedTtl);
+        }
+        return new RedisBurnoutSessionStore(redisTemplate, sessionTtl, completedTtl);
+    }
+
+    private static BurnoutScoringModel createScoringModel(double workWeight, double personalWeight,
+                                                          double lifestyleWeight, double multimodalWeight) {
+        Map<AssessmentDomain, Double> weights = new EnumMap<>(AssessmentDomain.class);
+        weights.put(AssessmentDomain.WORK, workWeight);
+        weights.put(AssessmentDomain.PERSONAL, personalWeight);
+        weights.put(AssessmentDomain.LIFESTYLE, lifestyleWeight);
+        return new BurnoutScoringModel(weights, multimodalWeight);
+    }
+
 
     /**
      * Creates a new burnout assessment session and returns the session details including questions
@@ -75,7 +205,7 @@ public class BurnoutAssessmentOrchestrator {
             );
 
             // Store the session
-            activeSessions.put(sessionId, session);
+            sessionStore.save(session);
 
             Instant endTime = Instant.now();
             logger.info("Created session {} for user {} with {} questions. Operation took {} ms",
@@ -125,7 +255,23 @@ public class BurnoutAssessmentOrchestrator {
             return false;
         }
 
-        Map<String, Object> multimodalInsights = new HashMap<>();
+        // Record the response first so analysis results always find it when they complete
+        try {
+            BurnoutUserResponse burnoutResponse = sessionStore.putResponse(sessionId, questionId, response);
+            if (burnoutResponse == null) {
+                logger.warn("Session {} expired before the response to question {} was recorded", sessionId, questionId);
+                return false;
+            }
+            logger.info("Response successfully recorded for question {} in session {}", questionId, sessionId);
+            if (incrementalScoring != null) {
+                incrementalScoring.recordAnswer(session, question, response);
+                refreshDraft(sessionId);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to record response for session {}, question {}: {}",
+                    sessionId, questionId, e.getMessage(), e);
+            return false;
+        }
 
         // Process multimodal content only if URLs are provided
         if (videoUrl != null || audioUrl != null) {
@@ -146,29 +292,7 @@ public class BurnoutAssessmentOrchestrator {
             logger.debug("No multimodal content provided for question {} in session {}", questionId, sessionId);
         }
 
-        // Record the response immediately with empty multimodal insights
-        try {
-            BurnoutUserResponse burnoutResponse = new BurnoutUserResponse(
-                    questionId,
-                    response,
-                    multimodalInsights
-            );
-
-            session.getResponses().put(questionId, burnoutResponse);
-            logger.info("Response successfully recorded for question {} in session {}", questionId, sessionId);
-
-            // Log the total number of responses collected so far
-            logger.debug("Session {} now has {} responses out of {} questions",
-                    sessionId,
-                    session.getResponses().size(),
-                    session.getAssessment().getQuestions().size());
-
-            return true;
-        } catch (Exception e) {
-            logger.error("Failed to record response for session {}, question {}: {}",
-                    sessionId, questionId, e.getMessage(), e);
-            return false;
-        }
+        return true;
     }
 
     /**
@@ -178,19 +302,26 @@ public class BurnoutAssessmentOrchestrator {
         try {
             // Start async video analysis
             logger.debug("Submitting video for analysis - session: {}, question: {}", sessionId, questionId);
-            videoAnalysisWorker.detectFacesFromVideoAsync(videoUrl)
+            CompletableFuture<String> analysis = videoAnalysisWorker.detectFacesFromVideoAsync(videoUrl);
+            CompletableFuture<Void> stored = analysis
                     .thenAccept(jsonResult -> {
                         logger.info("Video analysis completed for session: {}, question: {}, result size: {} bytes",
                                 sessionId, questionId, jsonResult.getBytes().length);
                         logger.debug("Video analysis result sample (first 100 chars): {}",
                                 jsonResult.length() > 100 ? jsonResult.substring(0, 100) + "..." : jsonResult);
                         updateResponseWithVideoAnalysis(sessionId, questionId, jsonResult);
-                    })
-                    .exceptionally(ex -> {
-                        logger.error("Video analysis failed for session {}, question {}: {}",
-                                sessionId, questionId, ex.getMessage(), ex);
-                        return null;
                     });
+            // Track the writing stage itself: cancelling it keeps a late result out of the session
+            pendingAnalyses.track(sessionId, questionId + ":video", analysis, stored);
+            stored.exceptionally(ex -> {
+                if (ex instanceof CancellationException || ex.getCause() instanceof CancellationException) {
+                    logger.info("Video analysis cancelled for session {}, question {}", sessionId, questionId);
+                } else {
+                    logger.error("Video analysis failed for session {}, question {}: {}",
+                            sessionId, questionId, ex.getMessage(), ex);
+                }
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Error initiating video analysis for session {}, question {}: {}",
                     sessionId, questionId, e.getMessage(), e);
@@ -204,19 +335,25 @@ public class BurnoutAssessmentOrchestrator {
         try {
             // Start async audio analysis
             logger.debug("Submitting audio for analysis - session: {}, question: {}", sessionId, questionId);
-            audioAnalysisWorker.analyzeAudioAsync(audioUrl)
+            CompletableFuture<String> analysis = audioAnalysisWorker.analyzeAudioAsync(audioUrl);
+            CompletableFuture<Void> stored = analysis
                     .thenAccept(jsonResult -> {
                         logger.info("Audio analysis completed for session: {}, question: {}, result size: {} bytes",
                                 sessionId, questionId, jsonResult.getBytes().length);
                         logger.debug("Audio analysis result sample (first 100 chars): {}",
                                 jsonResult.length() > 100 ? jsonResult.substring(0, 100) + "..." : jsonResult);
                         updateResponseWithAudioAnalysis(sessionId, questionId, jsonResult);
-                    })
-                    .exceptionally(ex -> {
-                        logger.error("Audio analysis failed for session {}, question {}: {}",
-                                sessionId, questionId, ex.getMessage(), ex);
-                        return null;
                     });
+            pendingAnalyses.track(sessionId, questionId + ":audio", analysis, stored);
+            stored.exceptionally(ex -> {
+                if (ex instanceof CancellationException || ex.getCause() instanceof CancellationException) {
+                    logger.info("Audio analysis cancelled for session {}, question {}", sessionId, questionId);
+                } else {
+                    logger.error("Audio analysis failed for session {}, question {}: {}",
+                            sessionId, questionId, ex.getMessage(), ex);
+                }
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Error initiating audio analysis for session {}, question {}: {}",
                     sessionId, questionId, e.getMessage(), e);
@@ -228,19 +365,17 @@ public class BurnoutAssessmentOrchestrator {
      */
     private void updateResponseWithVideoAnalysis(String sessionId, String questionId, String analysisJson) {
         logger.info("Applying video analysis results to session {}, question {}", sessionId, questionId);
-        BurnoutAssessmentSession session = getSession(sessionId);
-        if (session != null && session.getResponses().containsKey(questionId)) {
-            try {
-                BurnoutUserResponse response = session.getResponses().get(questionId);
-                response.getMultimodalInsights().put("video", analysisJson);
+        try {
+            if (sessionStore.putInsight(sessionId, questionId, "video", analysisJson)) {
                 logger.info("Successfully updated response with video analysis for question {} in session {}",
                         questionId, sessionId);
-            } catch (Exception e) {
-                logger.error("Failed to update response with video analysis for session {}, question {}: {}",
-                        sessionId, questionId, e.getMessage(), e);
+                refreshDraft(sessionId);
+            } else {
+                logger.warn("Cannot update video analysis - session {} or question {} not found", sessionId, questionId);
             }
-        } else {
-            logger.warn("Cannot update video analysis - session {} or question {} not found", sessionId, questionId);
+        } catch (Exception e) {
+            logger.error("Failed to update response with video analysis for session {}, question {}: {}",
+                    sessionId, questionId, e.getMessage(), e);
         }
     }
 
@@ -249,48 +384,117 @@ public class BurnoutAssessmentOrchestrator {
      */
     private void updateResponseWithAudioAnalysis(String sessionId, String questionId, String analysisJson) {
         logger.info("Applying audio analysis results to session {}, question {}", sessionId, questionId);
-        BurnoutAssessmentSession session = getSession(sessionId);
-        if (session != null && session.getResponses().containsKey(questionId)) {
-            try {
-                BurnoutUserResponse response = session.getResponses().get(questionId);
-                response.getMultimodalInsights().put("audio", analysisJson);
+        try {
+            if (sessionStore.putInsight(sessionId, questionId, "audio", analysisJson)) {
                 logger.info("Successfully updated response with audio analysis for question {} in session {}",
                         questionId, sessionId);
-            } catch (Exception e) {
-                logger.error("Failed to update response with audio analysis for session {}, question {}: {}",
-                        sessionId, questionId, e.getMessage(), e);
+                refreshDraft(sessionId);
+            } else {
+                logger.warn("Cannot update audio analysis - session {} or question {} not found", sessionId, questionId);
             }
-        } else {
-            logger.warn("Cannot update audio analysis - session {} or question {} not found", sessionId, questionId);
+        } catch (Exception e) {
+            logger.error("Failed to update response with audio analysis for session {}, question {}: {}",
+                    sessionId, questionId, e.getMessage(), e);
         }
     }
 
-    private String formatUserResponsesForWorker(BurnoutAssessmentSession session) {
-        logger.debug("Formatting responses for worker processing - session: {}", session.getSessionId());
-        List<BurnoutQuestion> questions = session.getAssessment().getQuestions();
-        Map<String, BurnoutUserResponse> responses = session.getResponses();
+    /**
+     * Regenerates the draft score and summary in the background once enough questions are answered
+     */
+    private void refreshDraft(String sessionId) {
+        if (incrementalScoring == null) {
+            return;
+        }
+        BurnoutAssessmentSession session = sessionStore.get(sessionId);
+        if (session != null && !session.isCompleted()) {
+            incrementalScoring.sessionChanged(session, () -> generateDraft(sessionId));
+        }
+    }
 
-        StringBuilder formattedInput = new StringBuilder();
-        for (BurnoutQuestion question : questions) {
-            String questionId = question.getQuestionId();
-            BurnoutUserResponse response = responses.get(questionId);
+    private IncrementalBurnoutScoring.Draft generateDraft(String sessionId) {
+        BurnoutAssessmentSession session = getSession(sessionId);
+        if (session == null) {
+            throw new IllegalStateException("No session found");
+        }
+        String formattedInput = formatUserResponsesForWorker(session);
+        LocalBurnoutScoreEngine.Result local = localScoreEngine == null ? null : localScoreEngine.score(session);
+        if (local != null) {
+            String overallInsight = burnoutWorker.generateBurnoutSummary(formattedInput);
+            String explanation = explainLocalScore(formattedInput, local);
+            logger.debug("Draft local score {} generated for session {}", local.getScore(), sessionId);
+            return new IncrementalBurnoutScoring.Draft(formattedInput, local.getScore(), explanation, overallInsight);
+        }
+        Map<String, Object> resultMap = burnoutWorker.generateBurnoutScore(formattedInput);
+        String overallInsight = burnoutWorker.generateBurnoutSummary(formattedInput);
+        logger.debug("Draft score {} generated for session {}", resultMap.get("score"), sessionId);
+        return new IncrementalBurnoutScoring.Draft(formattedInput,
+                (double) resultMap.get("score"), (String) resultMap.get("explanation"), overallInsight);
+    }
 
-            formattedInput.append("Q: ").append(question.getQuestion()).append("\n");
+    /**
+     * Scores the session locally and has the LLM explain the score while the summary is
+     * generated, if the summary is still missing
+     *
+     * @return The score, or null if the session has no numeric answers to score locally
+     */
+    private BurnoutScore calculateLocalScore(BurnoutAssessmentSession session) {
+        String sessionId = session.getSessionId();
+        LocalBurnoutScoreEngine.Result local = localScoreEngine.score(session);
+        if (local == null) {
+            logger.debug("No numeric answers in session {}, falling back to LLM scoring", sessionId);
+            return null;
+        }
+        logger.info("Local score for session {}: {} (negative affect: {})",
+                sessionId, local.getScore(), local.getNegativeAffect());
+
+        String formattedInput = formatUserResponsesForWorker(session);
+        CompletableFuture<String> explanation = CompletableFuture.supplyAsync(
+                () -> explainLocalScore(formattedInput, local), SCORING_EXECUTOR);
+        if (session.getSummary() == null) {
+            logger.debug("Generating summary for session {} while the score is explained", sessionId);
+            session.setSummary(new BurnoutSummary(sessionId, burnoutWorker.generateBurnoutSummary(formattedInput)));
+        }
 
-            if (response != null) {
-                formattedInput.append("A: ").append(response.getTextResponse()).append("\n");
+        // explainLocalScore falls back to the local description, so join does not throw
+        BurnoutScore score = new BurnoutScore(sessionId, session.getUserId(), local.getScore(),
+                explanation.join(), local.getDomainAverages());
+        session.setScore(score);
+        sessionStore.save(session);
+        return score;
+    }
 
-                if (response.getMultimodalInsights() != null && !response.getMultimodalInsights().isEmpty()) {
-                    formattedInput.append("Multimodal: ").append(response.getMultimodalInsights().toString()).append("\n");
-                }
-            } else {
-                formattedInput.append("A: [No response]\n");
-            }
+    private String explainLocalScore(String formattedInput, LocalBurnoutScoreEngine.Result local) {
+        try {
+            return burnoutWorker.generateBurnoutExplanation(formattedInput, local.getScore());
+        } catch (Exception e) {
+            logger.warn("Score explanation failed, using the local description: {}", e.getMessage());
+            return local.describe();
+        }
+    }
 
-            formattedInput.append("---\n");
+    /**
+     * Uses a background draft generated from the session's current responses, if there is one
+     *
+     * @return True if the session's score and summary were taken from the draft
+     */
+    private boolean applyDraft(BurnoutAssessmentSession session) {
+        String sessionId = session.getSessionId();
+        IncrementalBurnoutScoring.Draft draft = incrementalScoring.draftFor(
+                sessionId, formatUserResponsesForWorker(session), draftWaitMillis);
+        if (draft == null) {
+            logger.debug("No current draft for session {}, scoring at completion", sessionId);
+            return false;
         }
+        session.setScore(new BurnoutScore(sessionId, session.getUserId(), draft.getScore(),
+                draft.getExplanation(), incrementalScoring.getDomainAverages(session)));
+        session.setSummary(new BurnoutSummary(sessionId, draft.getSummary()));
+        sessionStore.save(session);
+        return true;
+    }
 
-        String formatted = formattedInput.toString();
+    private String formatUserResponsesForWorker(BurnoutAssessmentSession session) {
+        logger.debug("Formatting responses for worker processing - session: {}", session.getSessionId());
+        String formatted = promptBuilder.build(session);
         logger.debug("Formatted worker input ({} characters): {}",
                 formatted.length(),
                 formatted.substring(0, Math.min(200, formatted.length())) + "...");
@@ -315,28 +519,14 @@ public class BurnoutAssessmentOrchestrator {
         }
 
         try {
-            String formattedInput = formatUserResponsesForWorker(session);
-            logger.debug("Requesting burnout score calculation from BurnoutWorker");
-
-            Map<String, Object> resultMap = burnoutWorker.generateBurnoutScore(formattedInput);
-
-            double scoreValue = (double) resultMap.get("score");
-            String explanation = (String) resultMap.get("explanation");
-            logger.debug("Received score calculation: {} with explanation length: {} characters",
-                    scoreValue, explanation.length());
-
-            BurnoutScore score = new BurnoutScore(
-                    sessionId,
-                    session.getUserId(),
-                    scoreValue,
-                    explanation
-            );
+            BurnoutScore score = requestScore(session, formatUserResponsesForWorker(session));
 
             session.setScore(score);
+            sessionStore.save(session);
 
             Instant endTime = Instant.now();
             logger.info("Score calculated for session {}: {}. Operation took {} ms",
-                    sessionId, scoreValue, Duration.between(startTime, endTime).toMillis());
+                    sessionId, score.getOverallScore(), Duration.between(startTime, endTime).toMillis());
 
             return score;
         } catch (Exception e) {
@@ -363,16 +553,11 @@ public class BurnoutAssessmentOrchestrator {
         }
 
         try {
-            String formattedInput = formatUserResponsesForWorker(session);
-            logger.debug("Requesting burnout summary generation from BurnoutWorker");
-
-            String overallInsight = burnoutWorker.generateBurnoutSummary(formattedInput);
-            logger.debug("Received summary of length: {} characters", overallInsight.length());
-
-            BurnoutSummary summary = new BurnoutSummary(sessionId, overallInsight);
+            BurnoutSummary summary = requestSummary(sessionId, formatUserResponsesForWorker(session));
 
             // Save the summary to the session
             session.setSummary(summary);
+            sessionStore.save(session);
 
             Instant endTime = Instant.now();
             logger.info("Summary generated for session {}. Operation took {} ms",
@@ -385,6 +570,77 @@ public class BurnoutAssessmentOrchestrator {
         }
     }
 
+    /**
+     * Asks the worker for the score; the caller stores it
+     */
+    private BurnoutScore requestScore(BurnoutAssessmentSession session, String formattedInput) {
+        logger.debug("Requesting burnout score calculation from BurnoutWorker");
+        Map<String, Object> resultMap = burnoutWorker.generateBurnoutScore(formattedInput);
+
+        double scoreValue = (double) resultMap.get("score");
+        String explanation = (String) resultMap.get("explanation");
+        logger.debug("Received score calculation: {} with explanation length: {} characters",
+                scoreValue, explanation.length());
+
+        return new BurnoutScore(
+                session.getSessionId(),
+                session.getUserId(),
+                scoreValue,
+                explanation,
+                incrementalScoring == null ? null : incrementalScoring.getDomainAverages(session)
+        );
+    }
+
+    /**
+     * Asks the worker for the summary; the caller stores it
+     */
+    private BurnoutSummary requestSummary(String sessionId, String formattedInput) {
+        logger.debug("Requesting burnout summary generation from BurnoutWorker");
+        String overallInsight = burnoutWorker.generateBurnoutSummary(formattedInput);
+        logger.debug("Received summary of length: {} characters", overallInsight.length());
+        return new BurnoutSummary(sessionId, overallInsight);
+    }
+
+    /**
+     * Generates the score and the summary concurrently from one formatted input. The two
+     * calls do not depend on each other; both results are stored together.
+     */
+    private void generateScoreAndSummary(BurnoutAssessmentSession session) {
+        String sessionId = session.getSessionId();
+        if (session.getResponses().isEmpty()) {
+            logger.error("Cannot calculate score - session {} has no responses", sessionId);
+            throw new IllegalStateException("No session found or no responses recorded");
+        }
+        logger.info("Calculating burnout score and summary in parallel for session {}", sessionId);
+        Instant startTime = Instant.now();
+
+        String formattedInput = formatUserResponsesForWorker(session);
+        CompletableFuture<BurnoutScore> scoreFuture = CompletableFuture.supplyAsync(
+                () -> requestScore(session, formattedInput), SCORING_EXECUTOR);
+
+        BurnoutSummary summary;
+        BurnoutScore score;
+        try {
+            summary = requestSummary(sessionId, formattedInput);
+            score = scoreFuture.join();
+        } catch (CompletionException e) {
+            logger.error("Failed to calculate score for session {}: {}", sessionId, e.getCause().getMessage(), e.getCause());
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } catch (RuntimeException e) {
+            scoreFuture.cancel(true);
+            logger.error("Failed to generate summary for session {}: {}", sessionId, e.getMessage(), e);
+            throw e;
+        }
+
+        session.setScore(score);
+        session.setSummary(summary);
+        sessionStore.save(session);
+
+        Instant endTime = Instant.now();
+        logger.info("Score and summary generated for session {}: {}. Operation took {} ms",
+                sessionId, score.getOverallScore(), Duration.between(startTime, endTime).toMillis());
+    }
+
     /**
      * Completes the burnout assessment process, calculating scores and generating a summary
      *
@@ -402,6 +658,21 @@ public class BurnoutAssessmentOrchestrator {
             throw new IllegalStateException("No session found");
         }
 
+        // Use the video and audio analyses that finish in time; cancel the rest
+        int running = pendingAnalyses.pendingCount(sessionId);
+        if (running > 0) {
+            logger.info("Waiting up to {} ms for {} running analyses in session {}",
+                    analysisWaitMillis, running, sessionId);
+            int dropped = pendingAnalyses.awaitAll(sessionId, analysisWaitMillis);
+            if (dropped > 0) {
+                logger.warn("Cancelled {} analyses that did not finish in time for session {}", dropped, sessionId);
+            }
+            session = getSession(sessionId);
+            if (session == null) {
+                throw new IllegalStateException("No session found");
+            }
+        }
+
         try {
             // Log the number of responses received vs expected
             logger.debug("Session {} has {} responses out of {} questions",
@@ -409,6 +680,22 @@ public class BurnoutAssessmentOrchestrator {
                     session.getResponses().size(),
                     session.getAssessment().getQuestions().size());
 
+            // Finalize from the background draft when it covers the current responses
+            if (incrementalScoring != null && (session.getScore() == null || session.getSummary() == null)
+                    && applyDraft(session)) {
+                logger.info("Using draft score and summary for session {}", sessionId);
+            }
+
+            // Score locally when configured; the explanation and summary run in parallel
+            if (localScoreEngine != null && session.getScore() == null) {
+                calculateLocalScore(session);
+            }
+
+            // Neither is cached: run both LLM calls at once
+            if (session.getScore() == null && session.getSummary() == null) {
+                generateScoreAndSummary(session);
+            }
+
             // Calculate score if not already done
             BurnoutScore score = session.getScore();
             if (score == null) {
@@ -438,9 +725,15 @@ public class BurnoutAssessmentOrchestrator {
                     LocalDateTime.now()
             );
 
-            // Mark session as complete
+            // Mark session as complete; the store keeps it for the completed retention only
+            session.setScore(score);
+            session.setSummary(summary);
             session.setCompleted(true);
             session.setCompletedAt(LocalDateTime.now());
+            sessionStore.save(session);
+            if (incrementalScoring != null) {
+                incrementalScoring.remove(sessionId);
+            }
 
             Instant endTime = Instant.now();
             logger.info("Assessment completed for session {}. Score: {}. Operation took {} ms",
@@ -460,7 +753,7 @@ public class BurnoutAssessmentOrchestrator {
      * @return The BurnoutAssessmentSession object
      */
     private BurnoutAssessmentSession getSession(String sessionId) {
-        BurnoutAssessmentSession session = activeSessions.get(sessionId);
+        BurnoutAssessmentSession session = sessionStore.get(sessionId);
         if (session == null) {
             logger.warn("Session not found: {}", sessionId);
         }
@@ -0,0 +1,167 @@
+package harvard.capstone.digitaltherapy.burnout.orchestration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PendingAnalyses
+ *
+ * Tracks the video and audio analyses still running for each burnout session, so that
+ * completion can wait for them instead of scoring without their results.
+ *
+ * Each analysis is tracked as two futures: the provider future returned by the worker, and
+ * the stage that stores its result in the session. Completion waits for the storing stages
+ * up to a deadline; the provider futures of analyses that did not finish in time are
+ * cancelled, which stops the workers from polling and fetching results nobody will use.
+ *
+ * The per-session maps are only read and changed inside the outer map's compute calls.
+ */
+public class PendingAnalyses {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingAnalyses.class);
+
+    private final Map<String, Map<String, Pending>> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong completedInTime = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * Tracks an analysis. A new analysis for the same question and modality replaces and
+     * cancels the previous one.
+     *
+     * @param sessionId The session ID
+     * @param key Identifies the analysis within the session, e.g. questionId + ":video"
+     * @param source The worker's future, cancelled if the analysis is not waited for
+     * @param stored The stage that stores the result in the session. It must be the stage
+     *               that performs the write, not one chained after it, so that cancelling it
+     *               keeps a late result out of the session.
+     */
+    public void track(String sessionId, String key, CompletableFuture<?> source, CompletableFuture<?> stored) {
+        Pending pending = new Pending(source, stored);
+        Pending[] previous = new Pending[1];
+        sessions.compute(sessionId, (id, analyses) -> {
+            Map<String, Pending> updated = analyses == null ? new HashMap<>() : analyses;
+            previous[0] = updated.put(key, pending);
+            return updated;
+        });
+        if (previous[0] != null && previous[0].cancel()) {
+            cancelled.incrementAndGet();
+            logger.debug("Replaced running analysis {} in session {}", key, sessionId);
+        }
+        // Finished analyses untrack themselves; the session entry goes with its last one
+        stored.whenComplete((result, error) -> sessions.computeIfPresent(sessionId, (id, analyses) -> {
+            analyses.remove(key, pending);
+            return analyses.isEmpty() ? null : analyses;
+        }));
+    }
+
+    /**
+     * @param sessionId The session ID
+     * @return Number of analyses still running for the session
+     */
+    public int pendingCount(String sessionId) {
+        int[] count = new int[1];
+        sessions.computeIfPresent(sessionId, (id, analyses) -> {
+            count[0] = analyses.size();
+            return analyses;
+        });
+        return count[0];
+    }
+
+    /**
+     * Waits for the session's running analyses until the deadline, then cancels the rest
+     * and stops tracking the session
+     *
+     * @param sessionId The session ID
+     * @param maxWaitMillis Longest time to wait for all analyses together
+     * @return Number of analyses cancelled because they did not finish in time
+     */
+    public int awaitAll(String sessionId, long maxWaitMillis) {
+        Map<String, Pending> analyses = sessions.remove(sessionId);
+        if (analyses == null || analyses.isEmpty()) {
+            return 0;
+        }
+        List<Pending> waiting = new ArrayList<>(analyses.values());
+        CompletableFuture<?>[] stored = new CompletableFuture<?>[waiting.size()];
+        for (int i = 0; i < waiting.size(); i++) {
+            stored[i] = waiting.get(i).stored;
+        }
+
+        try {
+            CompletableFuture.allOf(stored).get(Math.max(0, maxWaitMillis), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.info("Analyses for session {} did not all finish within {} ms", sessionId, maxWaitMillis);
+        } catch (ExecutionException e) {
+            // A failed analysis is logged by its own stage; the others are still used
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int dropped = 0;
+        for (Pending pending : waiting) {
+            if (pending.stored.isDone()) {
+                completedInTime.incrementAndGet();
+            } else {
+                pending.cancel();
+                dropped++;
+            }
+        }
+        cancelled.addAndGet(dropped);
+        return dropped;
+    }
+
+    /**
+     * Cancels and forgets all analyses of a session
+     *
+     * @param sessionId The session ID
+     */
+    public void cancelAll(String sessionId) {
+        Map<String, Pending> analyses = sessions.remove(sessionId);
+        if (analyses != null) {
+            for (Pending pending : analyses.values()) {
+                if (pending.cancel()) {
+                    cancelled.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Snapshot of the wait counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("completedInTime", completedInTime.get());
+        stats.put("cancelled", cancelled.get());
+        return stats;
+    }
+
+    private static final class Pending {
+        private final CompletableFuture<?> source;
+        private final CompletableFuture<?> stored;
+
+        private Pending(CompletableFuture<?> source, CompletableFuture<?> stored) {
+            this.source = source;
+            this.stored = stored;
+        }
+
+        // A cancelled storing stage never runs, even if the provider completes anyway
+        private boolean cancel() {
+            boolean stopped = stored.cancel(true);
+            source.cancel(true);
+            return stopped;
+        }
+    }
+}
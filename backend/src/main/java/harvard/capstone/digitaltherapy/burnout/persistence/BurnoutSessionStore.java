@@ -0,0 +1,66 @@
+package harvard.capstone.digitaltherapy.burnout.persistence;
+
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+
+import java.util.Map;
+
+/**
+ * BurnoutSessionStore
+ *
+ * Holds burnout assessment sessions while they are in progress. Implementations are safe
+ * to call from request threads and from the async video and audio analysis callbacks.
+ *
+ * Responses are updated per question, so concurrent answers and analysis results for
+ * different questions (or different modalities of the same question) never overwrite each
+ * other. Sessions that see no update for the idle TTL are evicted; completed sessions are
+ * kept for a shorter retention period so the result can still be read.
+ */
+public interface BurnoutSessionStore {
+
+    /**
+     * Creates a session or updates its session-level state (score, summary, completion).
+     * Recorded responses are not touched.
+     *
+     * @param session The session to store
+     */
+    void save(BurnoutAssessmentSession session);
+
+    /**
+     * @param sessionId The session ID
+     * @return The session with all recorded responses, or null if it does not exist or expired
+     */
+    BurnoutAssessmentSession get(String sessionId);
+
+    /**
+     * Records the answer to a question. A blank answer (sent with an audio or video upload)
+     * keeps any text already recorded; analysis results already attached are kept.
+     *
+     * @param sessionId The session ID
+     * @param questionId The question ID
+     * @param textResponse The answer text
+     * @return The response as stored, or null if the session does not exist
+     */
+    BurnoutUserResponse putResponse(String sessionId, String questionId, String textResponse);
+
+    /**
+     * Attaches one modality's analysis result to a recorded response
+     *
+     * @param sessionId The session ID
+     * @param questionId The question ID
+     * @param modality The modality, e.g. "video" or "audio"
+     * @param insight The analysis result
+     * @return True if the response exists and was updated
+     */
+    boolean putInsight(String sessionId, String questionId, String modality, String insight);
+
+    /**
+     * @param sessionId The session to remove
+     */
+    void remove(String sessionId);
+
+    /**
+     * @return Snapshot of the store counters
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,177 @@
+package harvard.capstone.digitaltherapy.burnout.persistence;
+
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * InMemoryBurnoutSessionStore
+ *
+ * BurnoutSessionStore for a single node, backed by a ConcurrentHashMap. Expired sessions
+ * are swept lazily, at most once per sweep interval, by whichever call comes first.
+ */
+public class InMemoryBurnoutSessionStore implements BurnoutSessionStore {
+
+    private static final long MAX_SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+    private final long idleTtlMillis;
+    private final long completedTtlMillis;
+    private final long sweepIntervalMillis;
+    private final LongSupplier clock;
+    private final AtomicLong lastSweep;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param idleTtl Time without updates before an in-progress session is evicted
+     * @param completedTtl Time a completed session is kept after its last update
+     */
+    public InMemoryBurnoutSessionStore(Duration idleTtl, Duration completedTtl) {
+        this(idleTtl, completedTtl, System::currentTimeMillis);
+    }
+
+    InMemoryBurnoutSessionStore(Duration idleTtl, Duration completedTtl, LongSupplier clock) {
+        this.idleTtlMillis = idleTtl.toMillis();
+        this.completedTtlMillis = completedTtl.toMillis();
+        this.sweepIntervalMillis = Math.min(MAX_SWEEP_INTERVAL_MILLIS, Math.min(idleTtlMillis, completedTtlMillis));
+        this.clock = clock;
+        this.lastSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    @Override
+    public void save(BurnoutAssessmentSession session) {
+        sweepIfDue();
+        long now = clock.getAsLong();
+        Entry entry = sessions.compute(session.getSessionId(), (id, existing) -> {
+            if (existing == null) {
+                return new Entry(session, now);
+            }
+            if (existing.session != session) {
+                // A different instance of the same session: keep the recorded responses
+                session.getResponses().putAll(existing.session.getResponses());
+                return new Entry(session, now);
+            }
+            return existing;
+        });
+        entry.touch(now);
+    }
+
+    @Override
+    public BurnoutAssessmentSession get(String sessionId) {
+        sweepIfDue();
+        Entry entry = sessions.get(sessionId);
+        if (entry == null || isExpired(entry, clock.getAsLong())) {
+            return null;
+        }
+        return entry.session;
+    }
+
+    @Override
+    public BurnoutUserResponse putResponse(String sessionId, String questionId, String textResponse) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null || isExpired(entry, clock.getAsLong())) {
+            return null;
+        }
+        BurnoutUserResponse stored = entry.session.getResponses().compute(questionId, (id, existing) -> {
+            if (existing == null) {
+                return new BurnoutUserResponse(questionId, textResponse, new ConcurrentHashMap<>());
+            }
+            String text = textResponse == null || textResponse.isBlank() ? existing.getTextResponse() : textResponse;
+            return new BurnoutUserResponse(questionId, text, existing.getMultimodalInsights());
+        });
+        entry.touch(clock.getAsLong());
+        return stored;
+    }
+
+    @Override
+    public boolean putInsight(String sessionId, String questionId, String modality, String insight) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null || isExpired(entry, clock.getAsLong())) {
+            return false;
+        }
+        // computeIfPresent serializes with putResponse for the same question
+        BurnoutUserResponse updated = entry.session.getResponses().computeIfPresent(questionId, (id, existing) -> {
+            existing.getMultimodalInsights().put(modality, insight);
+            return existing;
+        });
+        entry.touch(clock.getAsLong());
+        return updated != null;
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Removes all expired sessions
+     *
+     * @return Number of sessions removed
+     */
+    public int evictExpired() {
+        long now = clock.getAsLong();
+        lastSweep.set(now);
+        int removed = 0;
+        Iterator<Entry> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (isExpired(iterator.next(), now)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        evictions.addAndGet(removed);
+        return removed;
+    }
+
+    /**
+     * @return Number of sessions held, including expired ones not yet swept
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private void sweepIfDue() {
+        long now = clock.getAsLong();
+        long last = lastSweep.get();
+        if (now - last >= sweepIntervalMillis && lastSweep.compareAndSet(last, now)) {
+            evictExpired();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        long ttl = entry.session.isCompleted() ? completedTtlMillis : idleTtlMillis;
+        return now - entry.lastUpdate >= ttl;
+    }
+
+    private static final class Entry {
+        private final BurnoutAssessmentSession session;
+        private volatile long lastUpdate;
+
+        private Entry(BurnoutAssessmentSession session, long now) {
+            this.session = session;
+            this.lastUpdate = now;
+        }
+
+        private void touch(long now) {
+            lastUpdate = now;
+        }
+    }
+}
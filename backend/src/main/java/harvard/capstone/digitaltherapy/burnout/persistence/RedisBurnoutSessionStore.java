@@ -0,0 +1,288 @@
+package harvard.capstone.digitaltherapy.burnout.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessment;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutScore;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutSummary;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RedisBurnoutSessionStore
+ *
+ * BurnoutSessionStore shared by all nodes. Each session is one Redis hash under
+ * burnout:session:{id}:
+ * - "meta": JSON with the user, questions, score, summary and completion state
+ * - "response:{questionId}": the answer text
+ * - "insight:{questionId}:{modality}": one analysis result
+ *
+ * Every response and insight is its own hash field, so concurrent updates are single
+ * atomic HSETs and never read-modify-write the session. The key expiry is reset on every
+ * write (idle TTL, or the completed retention once the session is completed); responses and
+ * insights read the completion state from "meta", so a late write keeps the completed retention.
+ *
+ * If Redis is unavailable, sessions are kept in a node-local fallback store.
+ */
+public class RedisBurnoutSessionStore implements BurnoutSessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisBurnoutSessionStore.class);
+
+    private static final String KEY_PREFIX = "burnout:session:";
+    private static final String META_FIELD = "meta";
+    private static final String RESPONSE_PREFIX = "response:";
+    private static final String INSIGHT_PREFIX = "insight:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Duration idleTtl;
+    private final Duration completedTtl;
+    private final InMemoryBurnoutSessionStore fallback;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong redisFailures = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param redisTemplate Redis template with string serializers
+     * @param idleTtl Time without updates before an in-progress session expires
+     * @param completedTtl Time a completed session is kept after its last update
+     */
+    public RedisBurnoutSessionStore(RedisTemplate<String, String> redisTemplate, Duration idleTtl, Duration completedTtl) {
+        this.redisTemplate = redisTemplate;
+        this.idleTtl = idleTtl;
+        this.completedTtl = completedTtl;
+        this.fallback = new InMemoryBurnoutSessionStore(idleTtl, completedTtl);
+    }
+
+    @Override
+    public void save(BurnoutAssessmentSession session) {
+        String key = key(session.getSessionId());
+        try {
+            hash().put(key, META_FIELD, writeMeta(session));
+            expire(key, session.isCompleted());
+        } catch (DataAccessException e) {
+            redisFailures.incrementAndGet();
+            logger.warn("Redis unavailable saving burnout session {}, keeping it on this node: {}",
+                    session.getSessionId(), e.getMessage());
+            fallback.save(session);
+        }
+    }
+
+    @Override
+    public BurnoutAssessmentSession get(String sessionId) {
+        try {
+            Map<String, String> fields = hash().entries(key(sessionId));
+            if (fields == null || !fields.containsKey(META_FIELD)) {
+                return fallback.get(sessionId);
+            }
+            return readSession(sessionId, fields);
+        } catch (DataAccessException e) {
+            redisFailures.incrementAndGet();
+            logger.warn("Redis unavailable reading burnout session {}: {}", sessionId, e.getMessage());
+            return fallback.get(sessionId);
+        }
+    }
+
+    @Override
+    public BurnoutUserResponse putResponse(String sessionId, String questionId, String textResponse) {
+        String key = key(sessionId);
+        String field = RESPONSE_PREFIX + questionId;
+        try {
+            HashOperations<String, String, String> hash = hash();
+            if (!Boolean.TRUE.equals(hash.hasKey(key, META_FIELD))) {
+                return fallback.putResponse(sessionId, questionId, textResponse);
+            }
+            String text = textResponse == null ? "" : textResponse;
+            if (text.isBlank()) {
+                // Media-only upload: keep an answer that is already recorded
+                hash.putIfAbsent(key, field, text);
+            } else {
+                hash.put(key, field, text);
+            }
+            Map<String, String> fields = hash.entries(key);
+            expire(key, isCompleted(fields.get(META_FIELD)));
+            return readResponse(questionId, fields);
+        } catch (DataAccessException e) {
+            redisFailures.incrementAndGet();
+            logger.warn("Redis unavailable recording response {} for burnout session {}: {}",
+                    questionId, sessionId, e.getMessage());
+            return fallback.putResponse(sessionId, questionId, textResponse);
+        }
+    }
+
+    @Override
+    public boolean putInsight(String sessionId, String questionId, String modality, String insight) {
+        String key = key(sessionId);
+        try {
+            HashOperations<String, String, String> hash = hash();
+            if (!Boolean.TRUE.equals(hash.hasKey(key, RESPONSE_PREFIX + questionId))) {
+                return fallback.putInsight(sessionId, questionId, modality, insight);
+            }
+            hash.put(key, INSIGHT_PREFIX + questionId + ":" + modality, insight);
+            // A late analysis result must not move a completed session back to the idle TTL
+            expire(key, isCompleted(hash.get(key, META_FIELD)));
+            return true;
+        } catch (DataAccessException e) {
+            redisFailures.incrementAndGet();
+            logger.warn("Redis unavailable recording {} analysis for burnout session {}: {}",
+                    modality, sessionId, e.getMessage());
+            return fallback.putInsight(sessionId, questionId, modality, insight);
+        }
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        fallback.remove(sessionId);
+        try {
+            redisTemplate.delete(key(sessionId));
+        } catch (DataAccessException e) {
+            redisFailures.incrementAndGet();
+            logger.warn("Redis unavailable removing burnout session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("redisFailures", redisFailures.get());
+        stats.put("fallbackSessions", fallback.size());
+        return stats;
+    }
+
+    private HashOperations<String, String, String> hash() {
+        return redisTemplate.opsForHash();
+    }
+
+    private void expire(String key, boolean completed) {
+        Duration ttl = completed ? completedTtl : idleTtl;
+        redisTemplate.expire(key, ttl.getSeconds(), TimeUnit.SECONDS);
+    }
+
+    private boolean isCompleted(String meta) {
+        if (meta == null) {
+            return false;
+        }
+        try {
+            return objectMapper.readTree(meta).path("completed").asBoolean();
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    private static String key(String sessionId) {
+        return KEY_PREFIX + sessionId;
+    }
+
+    String writeMeta(BurnoutAssessmentSession session) {
+        ObjectNode meta = objectMapper.createObjectNode();
+        meta.put("userId", session.getUserId());
+        meta.put("completed", session.isCompleted());
+        if (session.getCompletedAt() != null) {
+            meta.put("completedAt", session.getCompletedAt().toString());
+        }
+        ArrayNode questions = meta.putArray("questions");
+        for (BurnoutQuestion question : session.getAssessment().getQuestions()) {
+            ObjectNode node = questions.addObject();
+            node.put("questionId", question.getQuestionId());
+            node.put("question", question.getQuestion());
+            node.put("domain", question.getDomain() == null ? null : question.getDomain().name());
+            node.put("multimodal", question.isMultimodal());
+        }
+        BurnoutScore score = session.getScore();
+        if (score != null) {
+            ObjectNode node = meta.putObject("score");
+            node.put("overallScore", score.getOverallScore());
+            node.put("explanation", score.getExplanation());
+            ObjectNode domainScores = node.putObject("domainScores");
+            for (Map.Entry<AssessmentDomain, Double> entry : score.getDomainScores().entrySet()) {
+                domainScores.put(entry.getKey().name(), entry.getValue());
+            }
+        }
+        BurnoutSummary summary = session.getSummary();
+        if (summary != null) {
+            meta.put("summary", summary.getOverallInsight());
+        }
+        return meta.toString();
+    }
+
+    BurnoutAssessmentSession readSession(String sessionId, Map<String, String> fields) {
+        JsonNode meta;
+        try {
+            meta = objectMapper.readTree(fields.get(META_FIELD));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt burnout session " + sessionId, e);
+        }
+
+        List<BurnoutQuestion> questions = new ArrayList<>();
+        for (JsonNode node : meta.path("questions")) {
+            String domain = node.path("domain").asText(null);
+            questions.add(new BurnoutQuestion(
+                    node.path("questionId").asText(),
+                    node.path("question").asText(),
+                    domain == null ? null : AssessmentDomain.valueOf(domain),
+                    node.path("multimodal").asBoolean()));
+        }
+        String userId = meta.path("userId").asText(null);
+        BurnoutAssessmentSession session = new BurnoutAssessmentSession(
+                sessionId, userId, new BurnoutAssessment(questions), null);
+        session.setCompleted(meta.path("completed").asBoolean());
+        if (meta.hasNonNull("completedAt")) {
+            session.setCompletedAt(LocalDateTime.parse(meta.get("completedAt").asText()));
+        }
+        if (meta.has("score")) {
+            JsonNode score = meta.get("score");
+            Map<AssessmentDomain, Double> domainScores = new HashMap<>();
+            score.path("domainScores").fields().forEachRemaining(entry ->
+                    domainScores.put(AssessmentDomain.valueOf(entry.getKey()), entry.getValue().asDouble()));
+            session.setScore(new BurnoutScore(sessionId, userId, score.path("overallScore").asDouble(),
+                    score.path("explanation").asText(null), domainScores));
+        }
+        if (meta.hasNonNull("summary")) {
+            session.setSummary(new BurnoutSummary(sessionId, meta.get("summary").asText()));
+        }
+
+        for (String field : fields.keySet()) {
+            if (field.startsWith(RESPONSE_PREFIX)) {
+                String questionId = field.substring(RESPONSE_PREFIX.length());
+                session.getResponses().put(questionId, readResponse(questionId, fields));
+            }
+        }
+        return session;
+    }
+
+    private static BurnoutUserResponse readResponse(String questionId, Map<String, String> fields) {
+        String text = fields.get(RESPONSE_PREFIX + questionId);
+        if (text == null) {
+            return null;
+        }
+        Map<String, Object> insights = new ConcurrentHashMap<>();
+        String insightPrefix = INSIGHT_PREFIX + questionId + ":";
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (field.getKey().startsWith(insightPrefix)) {
+                insights.put(field.getKey().substring(insightPrefix.length()), field.getValue());
+            }
+        }
+        return new BurnoutUserResponse(questionId, text, insights);
+    }
+}
@@ -0,0 +1,134 @@
+package harvard.capstone.digitaltherapy.burnout.prompt;
+
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+import harvard.capstone.digitaltherapy.llm.context.TokenEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * BurnoutPromptBuilder
+ *
+ * Formats the questions and responses of a burnout session for the score and summary
+ * prompts. Multimodal results are replaced by {@link MultimodalDigest} lines, and the whole
+ * input is kept within a token budget. When it does not fit, reductions are applied in
+ * order until it does:
+ * 1. long free-text answers are shortened
+ * 2. digests list only the top emotion
+ * 3. digests are dropped
+ * 4. the input is cut at the budget
+ *
+ * The output only depends on the session's content, so the same session always gives the
+ * same prompt.
+ */
+public class BurnoutPromptBuilder {
+
+    public static final int DEFAULT_TOKEN_BUDGET = 1500;
+
+    private static final int LONG_ANSWER_CHARS = 400;
+    private static final int SHORT_ANSWER_CHARS = 160;
+    private static final String TRUNCATED = "[truncated]";
+
+    private final int tokenBudget;
+
+    /**
+     * Constructor
+     *
+     * @param tokenBudget Maximum estimated tokens of the formatted input
+     */
+    public BurnoutPromptBuilder(int tokenBudget) {
+        if (tokenBudget <= 0) {
+            throw new IllegalArgumentException("Token budget must be positive: " + tokenBudget);
+        }
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * @param session The assessment session
+     * @return The formatted questions, answers and multimodal digests
+     */
+    public String build(BurnoutAssessmentSession session) {
+        String formatted = format(session, Integer.MAX_VALUE, MultimodalDigest.DEFAULT_TOP_EMOTIONS);
+        if (fits(formatted)) {
+            return formatted;
+        }
+        formatted = format(session, LONG_ANSWER_CHARS, MultimodalDigest.DEFAULT_TOP_EMOTIONS);
+        if (fits(formatted)) {
+            return formatted;
+        }
+        formatted = format(session, SHORT_ANSWER_CHARS, 1);
+        if (fits(formatted)) {
+            return formatted;
+        }
+        formatted = format(session, SHORT_ANSWER_CHARS, 0);
+        if (fits(formatted)) {
+            return formatted;
+        }
+        return cut(formatted);
+    }
+
+    /**
+     * @return Maximum estimated tokens of the formatted input
+     */
+    public int getTokenBudget() {
+        return tokenBudget;
+    }
+
+    private boolean fits(String text) {
+        return TokenEstimator.estimate(text) <= tokenBudget;
+    }
+
+    // topEmotions 0 leaves out the digests
+    private String format(BurnoutAssessmentSession session, int maxAnswerChars, int topEmotions) {
+        List<BurnoutQuestion> questions = session.getAssessment().getQuestions();
+        Map<String, BurnoutUserResponse> responses = session.getResponses();
+
+        StringBuilder formatted = new StringBuilder();
+        for (BurnoutQuestion question : questions) {
+            BurnoutUserResponse response = responses.get(question.getQuestionId());
+            formatted.append("Q: ").append(question.getQuestion()).append("\n");
+            if (response != null) {
+                formatted.append("A: ").append(shorten(response.getTextResponse(), maxAnswerChars)).append("\n");
+                Map<String, Object> insights = response.getMultimodalInsights();
+                if (topEmotions > 0 && insights != null && !insights.isEmpty()) {
+                    // Sorted by modality so the prompt does not depend on map order
+                    for (Map.Entry<String, Object> insight : new TreeMap<>(insights).entrySet()) {
+                        formatted.append("Multimodal ").append(insight.getKey()).append(": ")
+                                .append(MultimodalDigest.of(insight.getValue(), topEmotions)).append("\n");
+                    }
+                }
+            } else {
+                formatted.append("A: [No response]\n");
+            }
+            formatted.append("---\n");
+        }
+        return formatted.toString();
+    }
+
+    private static String shorten(String text, int maxChars) {
+        if (text == null || text.length() <= maxChars) {
+            return text;
+        }
+        return text.substring(0, maxChars).trim() + "...";
+    }
+
+    // Keeps whole lines while they fit, then marks the cut
+    private String cut(String formatted) {
+        List<String> kept = new ArrayList<>();
+        int used = TokenEstimator.estimate(TRUNCATED);
+        for (String line : formatted.split("\n")) {
+            int cost = TokenEstimator.estimate(line) + 1;
+            if (used + cost > tokenBudget) {
+                break;
+            }
+            kept.add(line);
+            used += cost;
+        }
+        kept.add(TRUNCATED);
+        return String.join("\n", kept) + "\n";
+    }
+}
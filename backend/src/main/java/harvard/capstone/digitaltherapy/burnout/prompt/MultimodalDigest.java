@@ -0,0 +1,99 @@
+package harvard.capstone.digitaltherapy.burnout.prompt;
+
+import harvard.capstone.digitaltherapy.burnout.scoring.MultimodalSignals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * MultimodalDigest
+ *
+ * Fixed-size summary of one raw video or audio analysis result, used in burnout prompts in
+ * place of the Rekognition or Hume JSON. Per sample (video frame or audio utterance) the
+ * emotion weights are normalized to shares; the digest then reports:
+ * - the top emotions by mean share
+ * - intensity: mean weight of each sample's strongest emotion, 0-1
+ * - variability: standard deviation of the negative-affect share across samples
+ */
+public final class MultimodalDigest {
+
+    public static final int DEFAULT_TOP_EMOTIONS = 3;
+
+    private MultimodalDigest() {
+    }
+
+    /**
+     * @param insight One analysis result
+     * @param topEmotions Number of emotions to list
+     * @return The digest line, e.g. "12 samples; top sad 0.48, calm 0.30, confused 0.12; intensity 0.81; variability 0.14"
+     */
+    public static String of(Object insight, int topEmotions) {
+        List<Map<String, Double>> samples = MultimodalSignals.samples(insight);
+        if (samples.isEmpty()) {
+            return "no emotion signal";
+        }
+
+        Map<String, Double> shareSums = new HashMap<>();
+        double intensitySum = 0;
+        double[] negativeShares = new double[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            Map<String, Double> sample = samples.get(i);
+            double total = 0;
+            double max = 0;
+            for (double weight : sample.values()) {
+                total += weight;
+                max = Math.max(max, weight);
+            }
+            double negative = 0;
+            for (Map.Entry<String, Double> emotion : sample.entrySet()) {
+                double share = emotion.getValue() / total;
+                shareSums.merge(emotion.getKey().toLowerCase(Locale.ROOT), share, Double::sum);
+                if (MultimodalSignals.isNegative(emotion.getKey())) {
+                    negative += share;
+                }
+            }
+            // Rekognition reports 0-100, Hume 0-1
+            intensitySum += max > 1 ? max / 100 : max;
+            negativeShares[i] = negative;
+        }
+
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(shareSums.entrySet());
+        ranked.sort((a, b) -> {
+            int byShare = Double.compare(b.getValue(), a.getValue());
+            return byShare != 0 ? byShare : a.getKey().compareTo(b.getKey());
+        });
+
+        StringBuilder digest = new StringBuilder();
+        digest.append(samples.size()).append(samples.size() == 1 ? " sample; top " : " samples; top ");
+        for (int i = 0; i < Math.min(topEmotions, ranked.size()); i++) {
+            if (i > 0) {
+                digest.append(", ");
+            }
+            digest.append(ranked.get(i).getKey()).append(' ')
+                    .append(format(ranked.get(i).getValue() / samples.size()));
+        }
+        digest.append("; intensity ").append(format(intensitySum / samples.size()));
+        digest.append("; variability ").append(format(standardDeviation(negativeShares)));
+        return digest.toString();
+    }
+
+    private static double standardDeviation(double[] values) {
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= values.length;
+        double variance = 0;
+        for (double value : values) {
+            variance += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(variance / values.length);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,119 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BurnoutScoreAggregate
+ *
+ * Running per-domain totals of the 0-6 Likert answers of one assessment, updated as each
+ * answer arrives. Answering a question again replaces its previous value. Free-text and
+ * media-only answers count as answered but carry no numeric value.
+ */
+public class BurnoutScoreAggregate {
+
+    public static final int MIN_LIKERT = 0;
+    public static final int MAX_LIKERT = 6;
+
+    private final Map<String, Integer> values = new HashMap<>();
+    private final Map<String, AssessmentDomain> domains = new HashMap<>();
+    private final Map<AssessmentDomain, Integer> sums = new EnumMap<>(AssessmentDomain.class);
+    private final Map<AssessmentDomain, Integer> counts = new EnumMap<>(AssessmentDomain.class);
+
+    /**
+     * Builds the aggregate of the responses already recorded in a session
+     *
+     * @param session The assessment session
+     * @return The aggregate
+     */
+    public static BurnoutScoreAggregate of(BurnoutAssessmentSession session) {
+        BurnoutScoreAggregate aggregate = new BurnoutScoreAggregate();
+        for (BurnoutQuestion question : session.getAssessment().getQuestions()) {
+            BurnoutUserResponse response = session.getResponses().get(question.getQuestionId());
+            if (response != null) {
+                aggregate.record(question, response.getTextResponse());
+            }
+        }
+        return aggregate;
+    }
+
+    /**
+     * Records or replaces the answer to a question
+     *
+     * @param question The question answered
+     * @param textResponse The answer text
+     */
+    public synchronized void record(BurnoutQuestion question, String textResponse) {
+        String questionId = question.getQuestionId();
+        Integer value = parseLikert(textResponse);
+        if (value == null && domains.containsKey(questionId) && (textResponse == null || textResponse.isBlank())) {
+            // A media-only upload does not replace an answer already given
+            return;
+        }
+        Integer previous = values.remove(questionId);
+        AssessmentDomain previousDomain = domains.get(questionId);
+        if (previous != null && previousDomain != null) {
+            sums.merge(previousDomain, -previous, Integer::sum);
+            counts.merge(previousDomain, -1, Integer::sum);
+        }
+        domains.put(questionId, question.getDomain());
+        if (value != null && question.getDomain() != null) {
+            values.put(questionId, value);
+            sums.merge(question.getDomain(), value, Integer::sum);
+            counts.merge(question.getDomain(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return Number of questions answered, with or without a numeric value
+     */
+    public synchronized int getAnsweredCount() {
+        return domains.size();
+    }
+
+    /**
+     * @return Number of numeric answers
+     */
+    public synchronized int getNumericCount() {
+        return values.size();
+    }
+
+    /**
+     * @return Mean Likert value (0-6) per domain, for domains with at least one numeric answer
+     */
+    public synchronized Map<AssessmentDomain, Double> getDomainAverages() {
+        Map<AssessmentDomain, Double> averages = new EnumMap<>(AssessmentDomain.class);
+        for (Map.Entry<AssessmentDomain, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 0) {
+                averages.put(entry.getKey(), sums.get(entry.getKey()) / (double) entry.getValue());
+            }
+        }
+        return averages;
+    }
+
+    /**
+     * @param textResponse An answer text
+     * @return The Likert value, or null if the answer is not a number from 0 to 6
+     */
+    public static Integer parseLikert(String textResponse) {
+        if (textResponse == null) {
+            return null;
+        }
+        String trimmed = textResponse.trim();
+        if (trimmed.isEmpty() || trimmed.length() > 3) {
+            return null;
+        }
+        try {
+            int value = (int) Math.round(Double.parseDouble(trimmed));
+            return value < MIN_LIKERT || value > MAX_LIKERT ? null : value;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * BurnoutScoringModel
+ *
+ * Weights used by {@link LocalBurnoutScoreEngine}: a relative weight per assessment domain,
+ * and the share of the final score taken from the multimodal signals when any are present.
+ */
+public class BurnoutScoringModel {
+
+    private final Map<AssessmentDomain, Double> domainWeights;
+    private final double multimodalWeight;
+
+    /**
+     * Constructor
+     *
+     * @param domainWeights Relative weight per domain; missing domains weigh 1.0
+     * @param multimodalWeight Share (0-1) of the score taken from multimodal signals
+     */
+    public BurnoutScoringModel(Map<AssessmentDomain, Double> domainWeights, double multimodalWeight) {
+        if (multimodalWeight < 0 || multimodalWeight > 1) {
+            throw new IllegalArgumentException("Multimodal weight must be between 0 and 1: " + multimodalWeight);
+        }
+        Map<AssessmentDomain, Double> weights = new EnumMap<>(AssessmentDomain.class);
+        for (AssessmentDomain domain : AssessmentDomain.values()) {
+            Double weight = domainWeights == null ? null : domainWeights.get(domain);
+            double value = weight == null ? 1.0 : weight;
+            if (value < 0) {
+                throw new IllegalArgumentException("Domain weight must not be negative: " + domain + "=" + value);
+            }
+            weights.put(domain, value);
+        }
+        this.domainWeights = Collections.unmodifiableMap(weights);
+        this.multimodalWeight = multimodalWeight;
+    }
+
+    /**
+     * @return Equal domain weights, without multimodal signals
+     */
+    public static BurnoutScoringModel equalWeights() {
+        return new BurnoutScoringModel(null, 0);
+    }
+
+    public double getDomainWeight(AssessmentDomain domain) {
+        return domainWeights.get(domain);
+    }
+
+    public Map<AssessmentDomain, Double> getDomainWeights() {
+        return domainWeights;
+    }
+
+    public double getMultimodalWeight() {
+        return multimodalWeight;
+    }
+}
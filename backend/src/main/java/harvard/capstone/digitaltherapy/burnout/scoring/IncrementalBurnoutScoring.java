@@ -0,0 +1,285 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IncrementalBurnoutScoring
+ *
+ * Moves burnout scoring work from assessment completion to the time answers arrive.
+ * Each answer updates a {@link BurnoutScoreAggregate}; once enough of the questions are
+ * answered, a draft score and summary are generated in the background and regenerated
+ * whenever the session changes again. Completion only needs a draft generated from the
+ * same input it would send itself.
+ *
+ * At most one draft generation runs per session; changes made while it runs are folded
+ * into one follow-up generation. State is kept per node and rebuilt from the session
+ * when missing, so a session that moves between nodes only loses its draft.
+ */
+public class IncrementalBurnoutScoring {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalBurnoutScoring.class);
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "burnout-draft-scoring");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final double draftThreshold;
+    private final long stateTtlMillis;
+    private final Executor executor;
+    private final Map<String, SessionState> states = new ConcurrentHashMap<>();
+
+    private final AtomicLong draftsGenerated = new AtomicLong();
+    private final AtomicLong draftsUsed = new AtomicLong();
+    private final AtomicLong draftsMissed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Constructor using the shared background executor
+     *
+     * @param draftThreshold Fraction of questions that must be answered before drafts are generated
+     * @param stateTtl Time after the last update before a session's state is dropped
+     */
+    public IncrementalBurnoutScoring(double draftThreshold, Duration stateTtl) {
+        this(draftThreshold, stateTtl, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param draftThreshold Fraction of questions that must be answered before drafts are generated
+     * @param stateTtl Time after the last update before a session's state is dropped
+     * @param executor Executor running draft generation
+     */
+    public IncrementalBurnoutScoring(double draftThreshold, Duration stateTtl, Executor executor) {
+        this.draftThreshold = draftThreshold;
+        this.stateTtlMillis = stateTtl.toMillis();
+        this.executor = executor;
+    }
+
+    /**
+     * Updates the running aggregate with an answer
+     *
+     * @param session The session the answer belongs to, used to rebuild missing state
+     * @param question The question answered
+     * @param textResponse The answer text
+     */
+    public void recordAnswer(BurnoutAssessmentSession session, BurnoutQuestion question, String textResponse) {
+        stateFor(session).aggregate.record(question, textResponse);
+    }
+
+    /**
+     * Regenerates the session's draft in the background if enough questions are answered.
+     * Call after every change that affects the scoring input.
+     *
+     * @param session The session that changed
+     * @param generator Generates a draft from the session's current state
+     */
+    public void sessionChanged(BurnoutAssessmentSession session, DraftGenerator generator) {
+        SessionState state = stateFor(session);
+        int total = session.getAssessment().getQuestions().size();
+        if (total == 0 || state.aggregate.getAnsweredCount() < draftThreshold * total) {
+            return;
+        }
+        state.dirty = true;
+        schedule(session.getSessionId(), state, generator);
+    }
+
+    /**
+     * Returns the draft generated from the given input, waiting for a running generation
+     * for at most maxWaitMillis
+     *
+     * @param sessionId The session ID
+     * @param input The scoring input completion would send
+     * @param maxWaitMillis Longest time to wait for a running generation
+     * @return The matching draft, or null if none is available in time
+     */
+    public Draft draftFor(String sessionId, String input, long maxWaitMillis) {
+        SessionState state = states.get(sessionId);
+        if (state == null) {
+            draftsMissed.incrementAndGet();
+            return null;
+        }
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+        synchronized (state) {
+            while (true) {
+                Draft draft = state.draft;
+                if (draft != null && draft.getInput().equals(input)) {
+                    draftsUsed.incrementAndGet();
+                    return draft;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (!state.running.get() || remaining <= 0) {
+                    draftsMissed.incrementAndGet();
+                    return null;
+                }
+                try {
+                    state.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    draftsMissed.incrementAndGet();
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param session The session
+     * @return Mean Likert value per domain of the answers recorded so far
+     */
+    public Map<AssessmentDomain, Double> getDomainAverages(BurnoutAssessmentSession session) {
+        return stateFor(session).aggregate.getDomainAverages();
+    }
+
+    /**
+     * Drops the state of a finished session
+     *
+     * @param sessionId The session ID
+     */
+    public void remove(String sessionId) {
+        states.remove(sessionId);
+    }
+
+    /**
+     * @return Snapshot of the draft counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sessions", states.size());
+        stats.put("draftsGenerated", draftsGenerated.get());
+        stats.put("draftsUsed", draftsUsed.get());
+        stats.put("draftsMissed", draftsMissed.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    private SessionState stateFor(BurnoutAssessmentSession session) {
+        long now = System.currentTimeMillis();
+        SessionState state = states.get(session.getSessionId());
+        if (state == null) {
+            evictIdle(now);
+            state = states.computeIfAbsent(session.getSessionId(),
+                    id -> new SessionState(BurnoutScoreAggregate.of(session)));
+        }
+        state.lastUpdate = now;
+        return state;
+    }
+
+    private void evictIdle(long now) {
+        Iterator<SessionState> iterator = states.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastUpdate >= stateTtlMillis) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void schedule(String sessionId, SessionState state, DraftGenerator generator) {
+        if (!state.running.compareAndSet(false, true)) {
+            // The running generation picks up the change when it finishes
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                while (state.dirty) {
+                    state.dirty = false;
+                    try {
+                        Draft draft = generator.generate();
+                        draftsGenerated.incrementAndGet();
+                        synchronized (state) {
+                            state.draft = draft;
+                            state.notifyAll();
+                        }
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        logger.warn("Draft scoring failed for burnout session {}: {}", sessionId, e.getMessage());
+                    }
+                }
+            } finally {
+                synchronized (state) {
+                    state.running.set(false);
+                    state.notifyAll();
+                }
+            }
+            // A change that arrived after the last check but before running was cleared
+            if (state.dirty) {
+                schedule(sessionId, state, generator);
+            }
+        });
+    }
+
+    /**
+     * Generates a draft from a session's current state
+     */
+    public interface DraftGenerator {
+        Draft generate();
+    }
+
+    /**
+     * A score and summary generated ahead of completion
+     */
+    public static final class Draft {
+        private final String input;
+        private final double score;
+        private final String explanation;
+        private final String summary;
+
+        /**
+         * @param input The scoring input the draft was generated from
+         * @param score The overall burnout score
+         * @param explanation Explanation of the score
+         * @param summary The assessment summary
+         */
+        public Draft(String input, double score, String explanation, String summary) {
+            this.input = input;
+            this.score = score;
+            this.explanation = explanation;
+            this.summary = summary;
+        }
+
+        public String getInput() {
+            return input;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public String getExplanation() {
+            return explanation;
+        }
+
+        public String getSummary() {
+            return summary;
+        }
+    }
+
+    private static final class SessionState {
+        private final BurnoutScoreAggregate aggregate;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile boolean dirty;
+        private volatile Draft draft;
+        private volatile long lastUpdate = System.currentTimeMillis();
+
+        private SessionState(BurnoutScoreAggregate aggregate) {
+            this.aggregate = aggregate;
+        }
+    }
+}
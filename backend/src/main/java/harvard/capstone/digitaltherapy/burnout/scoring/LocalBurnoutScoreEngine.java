@@ -0,0 +1,141 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+
+import java.util.Map;
+
+/**
+ * LocalBurnoutScoreEngine
+ *
+ * Computes the 0-10 burnout score without the LLM. Each domain's mean 0-6 Likert answer is
+ * scaled to 0-10 and combined using the model's domain weights. When the multimodal
+ * analyses yield emotion signals, the share of negative affect (also scaled to 0-10) is
+ * blended in with the model's multimodal weight.
+ *
+ * The same answers always give the same score; the LLM is only asked to explain it.
+ */
+public class LocalBurnoutScoreEngine {
+
+    private static final double MAX_SCORE = 10.0;
+
+    private final BurnoutScoringModel model;
+
+    /**
+     * Constructor
+     *
+     * @param model Weights to score with
+     */
+    public LocalBurnoutScoreEngine(BurnoutScoringModel model) {
+        this.model = model;
+    }
+
+    /**
+     * Scores the responses recorded in a session
+     *
+     * @param session The assessment session
+     * @return The score, or null if the session has no numeric answers to score
+     */
+    public Result score(BurnoutAssessmentSession session) {
+        BurnoutScoreAggregate aggregate = BurnoutScoreAggregate.of(session);
+        Map<AssessmentDomain, Double> averages = aggregate.getDomainAverages();
+
+        double weightedSum = 0;
+        double totalWeight = 0;
+        for (Map.Entry<AssessmentDomain, Double> entry : averages.entrySet()) {
+            double weight = model.getDomainWeight(entry.getKey());
+            weightedSum += weight * entry.getValue() / BurnoutScoreAggregate.MAX_LIKERT;
+            totalWeight += weight;
+        }
+        if (totalWeight <= 0) {
+            return null;
+        }
+        double likertScore = MAX_SCORE * weightedSum / totalWeight;
+
+        Double negativeAffect = model.getMultimodalWeight() > 0 ? meanNegativeAffect(session) : null;
+        double score = likertScore;
+        if (negativeAffect != null) {
+            score = (1 - model.getMultimodalWeight()) * likertScore
+                    + model.getMultimodalWeight() * MAX_SCORE * negativeAffect;
+        }
+        return new Result(round(score), averages, negativeAffect);
+    }
+
+    private static Double meanNegativeAffect(BurnoutAssessmentSession session) {
+        double sum = 0;
+        int count = 0;
+        for (BurnoutQuestion question : session.getAssessment().getQuestions()) {
+            BurnoutUserResponse response = session.getResponses().get(question.getQuestionId());
+            if (response == null) {
+                continue;
+            }
+            Double affect = MultimodalSignals.negativeAffect(response.getMultimodalInsights());
+            if (affect != null) {
+                sum += affect;
+                count++;
+            }
+        }
+        return count == 0 ? null : sum / count;
+    }
+
+    private static double round(double score) {
+        return Math.round(Math.max(0, Math.min(MAX_SCORE, score)) * 10) / 10.0;
+    }
+
+    /**
+     * A locally computed score
+     */
+    public static final class Result {
+        private final double score;
+        private final Map<AssessmentDomain, Double> domainAverages;
+        private final Double negativeAffect;
+
+        private Result(double score, Map<AssessmentDomain, Double> domainAverages, Double negativeAffect) {
+            this.score = score;
+            this.domainAverages = domainAverages;
+            this.negativeAffect = negativeAffect;
+        }
+
+        /**
+         * @return The overall score, 0-10, rounded to one decimal
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * @return Mean 0-6 answer per domain that had numeric answers
+         */
+        public Map<AssessmentDomain, Double> getDomainAverages() {
+            return domainAverages;
+        }
+
+        /**
+         * @return Mean share of negative affect in the multimodal analyses, or null if none was used
+         */
+        public Double getNegativeAffect() {
+            return negativeAffect;
+        }
+
+        /**
+         * @return A plain explanation of the score, used when the LLM explanation is unavailable
+         */
+        public String describe() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("Your overall burnout score is %.1f out of 10.", score));
+            AssessmentDomain highest = null;
+            for (Map.Entry<AssessmentDomain, Double> entry : domainAverages.entrySet()) {
+                if (highest == null || entry.getValue() > domainAverages.get(highest)) {
+                    highest = entry.getKey();
+                }
+            }
+            if (highest != null) {
+                text.append(String.format(" Your answers point to the most strain in the %s domain (average %.1f of 6).",
+                        highest.getDisplayName(), domainAverages.get(highest)));
+            }
+            return text.toString();
+        }
+    }
+}
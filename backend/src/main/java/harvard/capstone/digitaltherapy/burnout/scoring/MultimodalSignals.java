@@ -0,0 +1,149 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MultimodalSignals
+ *
+ * Reads numeric emotion signals out of the raw video (Rekognition) and audio (Hume prosody)
+ * analysis results attached to a burnout response. Both formats carry arrays named
+ * "emotions" whose entries have a label ("type" or "name") and a weight ("confidence" or
+ * "score"); the tree is searched for those arrays, so either format can be read without
+ * knowing where the provider nests them.
+ */
+public final class MultimodalSignals {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Rekognition emotion types and Hume prosody names that indicate strain
+    private static final Set<String> NEGATIVE_EMOTIONS = new HashSet<>(Arrays.asList(
+            "sad", "angry", "fear", "confused", "disgusted",
+            "sadness", "anger", "anxiety", "distress", "tiredness", "boredom", "disappointment",
+            "confusion", "doubt", "pain", "empathic pain", "shame", "guilt", "annoyance",
+            "contempt", "disgust", "horror", "awkwardness"));
+
+    private MultimodalSignals() {
+    }
+
+    /**
+     * Share of the detected emotion weight that falls on negative emotions, across all
+     * modalities of one response. Each sample is normalized to its own total first, so
+     * Rekognition (0-100) and Hume (0-1) samples count equally; the result is the mean
+     * negative share over all samples.
+     *
+     * @param insights The response's analysis results, keyed by modality
+     * @return A value from 0 to 1, or null if no emotion signal could be read
+     */
+    public static Double negativeAffect(Map<String, Object> insights) {
+        if (insights == null || insights.isEmpty()) {
+            return null;
+        }
+        double[] totals = new double[2];
+        for (Object insight : insights.values()) {
+            JsonNode root = parse(insight);
+            if (root != null) {
+                accumulate(root, totals);
+            }
+        }
+        return totals[1] > 0 ? totals[0] / totals[1] : null;
+    }
+
+    /**
+     * @param label An emotion label from either provider
+     * @return True if the emotion indicates strain
+     */
+    public static boolean isNegative(String label) {
+        return label != null && NEGATIVE_EMOTIONS.contains(label.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Reads the emotion weights of every frame (video) or utterance (audio) in one analysis
+     * result. Weights are on the provider's scale: 0-100 for Rekognition, 0-1 for Hume.
+     *
+     * @param insight One analysis result
+     * @return One label-to-weight map per sample, in document order; empty if none could be read
+     */
+    public static List<Map<String, Double>> samples(Object insight) {
+        List<Map<String, Double>> samples = new ArrayList<>();
+        JsonNode root = parse(insight);
+        if (root != null) {
+            collect(root, samples);
+        }
+        return samples;
+    }
+
+    static JsonNode parse(Object insight) {
+        if (insight == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(insight.toString());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    // totals[0] collects the negative share of each sample, totals[1] the number of samples
+    private static void accumulate(JsonNode node, double[] totals) {
+        List<Map<String, Double>> samples = new ArrayList<>();
+        collect(node, samples);
+        for (Map<String, Double> sample : samples) {
+            double total = 0;
+            double negative = 0;
+            for (Map.Entry<String, Double> emotion : sample.entrySet()) {
+                total += emotion.getValue();
+                if (isNegative(emotion.getKey())) {
+                    negative += emotion.getValue();
+                }
+            }
+            if (total > 0) {
+                totals[0] += negative / total;
+                totals[1] += 1;
+            }
+        }
+    }
+
+    private static void collect(JsonNode node, List<Map<String, Double>> samples) {
+        if (node.isArray()) {
+            for (JsonNode child : node) {
+                collect(child, samples);
+            }
+            return;
+        }
+        if (!node.isObject()) {
+            return;
+        }
+        JsonNode emotions = node.get("emotions");
+        if (emotions != null && emotions.isArray()) {
+            Map<String, Double> sample = new LinkedHashMap<>();
+            for (JsonNode emotion : emotions) {
+                String label = emotion.has("type") ? emotion.path("type").asText() : emotion.path("name").asText();
+                double weight = emotion.has("confidence")
+                        ? emotion.path("confidence").asDouble()
+                        : emotion.path("score").asDouble();
+                if (weight > 0 && !label.isEmpty()) {
+                    sample.merge(label, weight, Double::sum);
+                }
+            }
+            if (!sample.isEmpty()) {
+                samples.add(sample);
+            }
+        }
+        node.fields().forEachRemaining(field -> {
+            if (!"emotions".equals(field.getKey())) {
+                collect(field.getValue(), samples);
+            }
+        });
+    }
+}
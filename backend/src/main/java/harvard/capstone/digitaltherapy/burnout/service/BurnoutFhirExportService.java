@@ -0,0 +1,267 @@
+package harvard.capstone.digitaltherapy.burnout.service;
+
+import harvard.capstone.digitaltherapy.utility.S3MultipartOutputStream;
+import harvard.capstone.digitaltherapy.utility.S3Utils;
+
+import org.hl7.fhir.r4.model.QuestionnaireResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export of completed burnout assessments as NDJSON FHIR QuestionnaireResponses,
+ * in the style of the FHIR $export operation.
+ *
+ * The source is the QuestionnaireResponse documents that {@link BurnoutFhirService} stores
+ * for completed assessments. Their keys are listed lazily; the documents are read, parsed,
+ * filtered and re-encoded in parallel in batches, and each matching resource is written as
+ * one compact JSON line straight into a multipart S3 upload. At most one batch of documents
+ * and one upload part are held in memory, so memory use does not grow with the number of
+ * assessments exported.
+ */
+@Service
+public class BurnoutFhirExportService {
+    private static final Logger logger = LoggerFactory.getLogger(BurnoutFhirExportService.class);
+
+    static final int DEFAULT_BATCH_SIZE = 64;
+    static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+
+    private static final String CONTENT_TYPE = "application/fhir+ndjson";
+    private static final DateTimeFormatter KEY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "burnout-fhir-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final S3Utils s3Utils;
+    private final FhirContext fhirContext;
+    private final Executor executor;
+    private final int batchSize;
+    private final int partSize;
+
+    @Autowired
+    public BurnoutFhirExportService(S3Utils s3Utils,
+                                    @Value("${burnout.fhir.export.batch-size:64}") int batchSize,
+                                    @Value("${burnout.fhir.export.part-size-bytes:8388608}") int partSize) {
+        this(s3Utils, FhirContext.forR4(), DEFAULT_EXECUTOR, batchSize, partSize);
+    }
+
+    BurnoutFhirExportService(S3Utils s3Utils, FhirContext fhirContext,
+                             Executor executor, int batchSize, int partSize) {
+        this.s3Utils = s3Utils;
+        this.fhirContext = fhirContext;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.partSize = Math.max(S3MultipartOutputStream.MIN_PART_SIZE, partSize);
+    }
+
+    /**
+     * Exports the stored assessments matching the criteria to one NDJSON object in S3.
+     *
+     * @param criteria Which assessments to export
+     * @return The S3 URL of the export and the number of resources written
+     */
+    public Result export(Criteria criteria) {
+        String s3Key = generateS3Key();
+        logger.info("Starting FHIR bulk export to {}", s3Key);
+
+        S3MultipartOutputStream upload = s3Utils.openMultipartUpload(s3Key, CONTENT_TYPE, partSize);
+        Result result;
+        try (Stream<String> keys = s3Utils.listKeys(BurnoutFhirService.DOCUMENT_KEY_PREFIX)) {
+            Iterator<String> documents = keys.filter(BurnoutFhirService::isDocumentKey).iterator();
+            result = writeNdjson(criteria, documents, upload);
+            upload.close();
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            logger.error("FHIR bulk export to {} failed: {}", s3Key, e.getMessage(), e);
+            throw new RuntimeException("Failed to export FHIR documents", e);
+        }
+
+        logger.info("FHIR bulk export stored at {}: {} resources, {} failed, {} bytes",
+                upload.getS3Uri(), result.getExported(), result.getFailed(), upload.getBytesWritten());
+        return new Result(upload.getS3Uri(), result.getExported(), result.getFailed());
+    }
+
+    /**
+     * Writes one NDJSON line per stored document that matches the criteria. Documents that
+     * cannot be read or parsed are logged and counted, not written.
+     *
+     * @param documentKeys Keys of stored QuestionnaireResponse documents, read lazily and only once
+     * @return The counts, without a location
+     */
+    Result writeNdjson(Criteria criteria, Iterator<String> documentKeys, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        int[] counts = new int[2];
+        List<String> batch = new ArrayList<>(batchSize);
+        while (documentKeys.hasNext()) {
+            batch.add(documentKeys.next());
+            if (batch.size() == batchSize) {
+                writeBatch(criteria, batch, writer, counts);
+                batch.clear();
+            }
+        }
+        writeBatch(criteria, batch, writer, counts);
+        writer.flush();
+        return new Result(null, counts[0], counts[1]);
+    }
+
+    private void writeBatch(Criteria criteria, List<String> batch, Writer writer, int[] counts) throws IOException {
+        List<CompletableFuture<String>> lines = new ArrayList<>(batch.size());
+        for (String key : batch) {
+            lines.add(CompletableFuture.supplyAsync(() -> encodeIfMatching(criteria, key), executor));
+        }
+        // Written in listing order, so an export of the same documents is always identical
+        for (int i = 0; i < lines.size(); i++) {
+            String line;
+            try {
+                line = lines.get(i).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.warn("Skipping document {} in FHIR export: {}", batch.get(i), cause.toString());
+                counts[1]++;
+                continue;
+            }
+            if (line == null) {
+                continue;
+            }
+            writer.write(line);
+            writer.write('\n');
+            counts[0]++;
+        }
+    }
+
+    /**
+     * @return The document as one compact JSON line, or null if the criteria exclude it
+     */
+    private String encodeIfMatching(Criteria criteria, String key) {
+        // Read past the object cache: every document is read once, and would only evict hot entries
+        ByteArrayOutputStream document = new ByteArrayOutputStream();
+        try {
+            s3Utils.streamFileFromS3(s3Utils.getBucketName(), key, document);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        // Parsers are cheap and not shared between threads; compact output keeps one resource per line
+        IParser parser = fhirContext.newJsonParser().setPrettyPrint(false);
+        QuestionnaireResponse response = parser.parseResource(QuestionnaireResponse.class,
+                document.toString(StandardCharsets.UTF_8));
+        if (!criteria.matches(response)) {
+            return null;
+        }
+        return parser.encodeResourceToString(response);
+    }
+
+    private static String generateS3Key() {
+        return "fhir/export/burnout-assessments-" + LocalDateTime.now().format(KEY_TIMESTAMP)
+                + "-" + UUID.randomUUID() + ".ndjson";
+    }
+
+    /**
+     * Which assessments to export: authored (completed) within [from, to) and, if any users
+     * are given, with one of them as the subject. A null bound is open.
+     */
+    public static final class Criteria {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final Set<String> userIds;
+
+        /**
+         * @param from Earliest completion time, inclusive, or null
+         * @param to Latest completion time, exclusive, or null
+         * @param userIds Users to export, or empty for all users
+         */
+        public Criteria(LocalDateTime from, LocalDateTime to, Collection<String> userIds) {
+            this.from = from;
+            this.to = to;
+            this.userIds = userIds == null ? Collections.emptySet() : new HashSet<>(userIds);
+        }
+
+        /**
+         * @param response A stored assessment
+         * @return True if the assessment has a completion time and is selected by these criteria
+         */
+        public boolean matches(QuestionnaireResponse response) {
+            Date authored = response.getAuthored();
+            if (authored == null) {
+                return false;
+            }
+            // The converter stores the completion time in the system zone
+            LocalDateTime completedAt = LocalDateTime.ofInstant(authored.toInstant(), ZoneId.systemDefault());
+            if (from != null && completedAt.isBefore(from)) {
+                return false;
+            }
+            if (to != null && !completedAt.isBefore(to)) {
+                return false;
+            }
+            return userIds.isEmpty() || userIds.contains(userId(response));
+        }
+
+        private static String userId(QuestionnaireResponse response) {
+            String subject = response.getSubject().getReference();
+            if (subject == null || !subject.startsWith("Patient/")) {
+                return null;
+            }
+            return subject.substring("Patient/".length());
+        }
+    }
+
+    /**
+     * Outcome of an export
+     */
+    public static final class Result {
+        private final String location;
+        private final int exported;
+        private final int failed;
+
+        public Result(String location, int exported, int failed) {
+            this.location = location;
+            this.exported = exported;
+            this.failed = failed;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public int getExported() {
+            return exported;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package harvard.capstone.digitaltherapy.burnout.service;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.QuestionnaireResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ca.uhn.fhir.context.FhirContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes completed burnout QuestionnaireResponses to an external FHIR server (e.g. a
+ * clinic's EHR).
+ *
+ * Resources are collected into one transaction Bundle until the batch size is reached or
+ * the oldest resource has waited for the batch window, then POSTed to the server base URL.
+ * Each entry is a conditional create on the session identifier, so sending a bundle again
+ * never creates duplicates.
+ *
+ * Every bundle is written to a spool directory before it is sent and deleted once the
+ * server accepts it, so bundles survive failed requests and restarts. Spooled bundles are
+ * retried with exponential backoff; bundles the server rejects as invalid (4xx other than
+ * 408 and 429) are moved to the "failed" subdirectory instead of being retried.
+ *
+ * Disabled when no base URL is configured.
+ */
+@Service
+public class BurnoutFhirPushService {
+    private static final Logger logger = LoggerFactory.getLogger(BurnoutFhirPushService.class);
+
+    static final String IDENTIFIER_SYSTEM = "http://harvard.capstone.digitaltherapy/fhir/identifiers/burnout-session";
+    private static final String CONTENT_TYPE = "application/fhir+json";
+    private static final String FAILED_DIR = "failed";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final int batchSize;
+    private final long windowMillis;
+    private final long retryIntervalMillis;
+    private final long maxBackoffMillis;
+    private final Path spoolDir;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final FhirContext fhirContext = FhirContext.forR4();
+
+    private final List<QuestionnaireResponse> pending = new ArrayList<>();
+    private long oldestPendingAt;
+    // Backoff state of spooled bundles, by file name; bundles from a previous run retry at once
+    private final Map<String, Attempt> attempts = new ConcurrentHashMap<>();
+
+    private final AtomicLong bundlesSent = new AtomicLong();
+    private final AtomicLong resourcesSent = new AtomicLong();
+    private final AtomicLong sendFailures = new AtomicLong();
+    private final AtomicLong bundlesFailed = new AtomicLong();
+
+    @Autowired
+    public BurnoutFhirPushService(@Value("${burnout.fhir.push.base-url:}") String baseUrl,
+                                  @Value("${burnout.fhir.push.batch-size:50}") int batchSize,
+                                  @Value("${burnout.fhir.push.window-ms:5000}") long windowMillis,
+                                  @Value("${burnout.fhir.push.retry-interval-ms:30000}") long retryIntervalMillis,
+                                  @Value("${burnout.fhir.push.spool-dir:${java.io.tmpdir}/fhir-push-spool}") String spoolDir) {
+        this(baseUrl, batchSize, windowMillis, retryIntervalMillis, Paths.get(spoolDir),
+                HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build(),
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "fhir-push");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+        if (isEnabled()) {
+            start();
+        }
+    }
+
+    BurnoutFhirPushService(String baseUrl, int batchSize, long windowMillis, long retryIntervalMillis,
+                           Path spoolDir, HttpClient httpClient, ScheduledExecutorService scheduler) {
+        this.baseUrl = baseUrl == null ? "" : baseUrl.trim();
+        this.batchSize = Math.max(1, batchSize);
+        this.windowMillis = windowMillis;
+        this.retryIntervalMillis = retryIntervalMillis;
+        this.maxBackoffMillis = Math.max(retryIntervalMillis, TimeUnit.HOURS.toMillis(1));
+        this.spoolDir = spoolDir;
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Starts the batch window and spool retry timers. Everything runs on the scheduler's
+     * thread, so bundles are sent one at a time and in order.
+     */
+    void start() {
+        try {
+            Files.createDirectories(spoolDir.resolve(FAILED_DIR));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create FHIR push spool directory " + spoolDir, e);
+        }
+        long tick = Math.max(100, Math.min(windowMillis, retryIntervalMillis) / 2);
+        scheduler.scheduleWithFixedDelay(this::flushIfDue, tick, tick, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::retrySpooled, 0, retryIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("FHIR push to {} enabled (batch {}, window {} ms, spool {})", baseUrl, batchSize, windowMillis, spoolDir);
+    }
+
+    /**
+     * @return True if a FHIR server is configured
+     */
+    public boolean isEnabled() {
+        return !baseUrl.isEmpty();
+    }
+
+    /**
+     * Queues a completed assessment for the next bundle. The resource is copied, so the
+     * caller may keep using it.
+     *
+     * @param resource The QuestionnaireResponse
+     * @param sessionId The assessment session ID, used as the business identifier
+     */
+    public void enqueue(QuestionnaireResponse resource, String sessionId) {
+        if (!isEnabled()) {
+            return;
+        }
+        QuestionnaireResponse copy = resource.copy();
+        copy.getIdentifier().setSystem(IDENTIFIER_SYSTEM).setValue(sessionId);
+        boolean full;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                oldestPendingAt = System.currentTimeMillis();
+            }
+            pending.add(copy);
+            full = pending.size() >= batchSize;
+        }
+        if (full) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    private void flushIfDue() {
+        boolean due;
+        synchronized (pending) {
+            due = !pending.isEmpty() && System.currentTimeMillis() - oldestPendingAt >= windowMillis;
+        }
+        if (due) {
+            flush();
+        }
+    }
+
+    /**
+     * Spools and sends everything queued, in bundles of at most the batch size
+     */
+    void flush() {
+        while (true) {
+            List<QuestionnaireResponse> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                int size = Math.min(batchSize, pending.size());
+                batch = new ArrayList<>(pending.subList(0, size));
+                pending.subList(0, size).clear();
+                oldestPendingAt = System.currentTimeMillis();
+            }
+            Path file;
+            try {
+                file = spool(buildTransaction(batch));
+            } catch (IOException | RuntimeException e) {
+                // Keep the resources queued and try again on the next tick
+                logger.error("Failed to spool FHIR bundle of {} resources: {}", batch.size(), e.getMessage());
+                synchronized (pending) {
+                    pending.addAll(0, batch);
+                }
+                return;
+            }
+            send(file, batch.size());
+        }
+    }
+
+    /**
+     * Sends the spooled bundles whose backoff has passed, oldest first
+     */
+    void retrySpooled() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(spoolDir, "*.json")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            logger.warn("Failed to list FHIR push spool {}: {}", spoolDir, e.getMessage());
+            return;
+        }
+        files.sort(null);
+        long now = System.currentTimeMillis();
+        for (Path file : files) {
+            Attempt attempt = attempts.get(file.getFileName().toString());
+            if (attempt == null || attempt.nextAt <= now) {
+                send(file, -1);
+            }
+        }
+    }
+
+    Bundle buildTransaction(List<QuestionnaireResponse> resources) {
+        Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.TRANSACTION);
+        for (QuestionnaireResponse resource : resources) {
+            String identifier = resource.getIdentifier().getValue();
+            resource.setId((String) null);
+            bundle.addEntry()
+                    .setFullUrl("urn:uuid:" + UUID.randomUUID())
+                    .setResource(resource)
+                    .getRequest()
+                    .setMethod(Bundle.HTTPVerb.POST)
+                    .setUrl("QuestionnaireResponse")
+                    // Conditional create: a resent bundle matches the stored resource instead of duplicating it
+                    .setIfNoneExist("identifier=" + IDENTIFIER_SYSTEM + "|" + identifier);
+        }
+        return bundle;
+    }
+
+    private Path spool(Bundle bundle) throws IOException {
+        String json = fhirContext.newJsonParser().encodeResourceToString(bundle);
+        String name = String.format("%013d-%s.json", System.currentTimeMillis(), UUID.randomUUID());
+        Path temp = spoolDir.resolve(name + ".tmp");
+        Files.write(temp, json.getBytes(StandardCharsets.UTF_8));
+        return Files.move(temp, spoolDir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void send(Path file, int resources) {
+        String name = file.getFileName().toString();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", CONTENT_TYPE)
+                    .header("Accept", CONTENT_TYPE)
+                    .POST(HttpRequest.BodyPublishers.ofFile(file))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            if (status >= 200 && status < 300) {
+                Files.deleteIfExists(file);
+                attempts.remove(name);
+                bundlesSent.incrementAndGet();
+                if (resources > 0) {
+                    resourcesSent.addAndGet(resources);
+                }
+                logger.info("FHIR bundle {} accepted by {} ({})", name, baseUrl, status);
+            } else if (status >= 400 && status < 500 && status != 408 && status != 429) {
+                // Resending the same bundle cannot succeed
+                Files.move(file, spoolDir.resolve(FAILED_DIR).resolve(name), StandardCopyOption.REPLACE_EXISTING);
+                attempts.remove(name);
+                bundlesFailed.incrementAndGet();
+                logger.error("FHIR bundle {} rejected by {} ({}): {}", name, baseUrl, status, response.body());
+            } else {
+                scheduleRetry(name, "HTTP " + status);
+            }
+        } catch (IOException e) {
+            scheduleRetry(name, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduleRetry(name, "interrupted");
+        }
+    }
+
+    private void scheduleRetry(String name, String reason) {
+        sendFailures.incrementAndGet();
+        Attempt attempt = attempts.merge(name, new Attempt(1, 0), (previous, ignored) -> new Attempt(previous.count + 1, 0));
+        long backoff = Math.min(maxBackoffMillis, retryIntervalMillis << Math.min(attempt.count - 1, 20));
+        attempts.put(name, new Attempt(attempt.count, System.currentTimeMillis() + backoff));
+        logger.warn("FHIR bundle {} not delivered ({}), retrying in {} ms", name, reason, backoff);
+    }
+
+    /**
+     * @return Snapshot of the push counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (pending) {
+            stats.put("pending", pending.size());
+        }
+        stats.put("retrying", attempts.size());
+        stats.put("bundlesSent", bundlesSent.get());
+        stats.put("resourcesSent", resourcesSent.get());
+        stats.put("sendFailures", sendFailures.get());
+        stats.put("bundlesFailed", bundlesFailed.get());
+        return stats;
+    }
+
+    private static final class Attempt {
+        private final int count;
+        private final long nextAt;
+
+        private Attempt(int count, long nextAt) {
+            this.count = count;
+            this.nextAt = nextAt;
+        }
+    }
+}
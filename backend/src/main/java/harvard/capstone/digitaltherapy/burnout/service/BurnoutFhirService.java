@@ -1,8 +1,11 @@
 package harvard.capstone.digitaltherapy.burnout.service;
 
 import harvard.capstone.digitaltherapy.burnout.fhir.BurnoutAssessmentFhirConverter;
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessment;
 import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentResult;
 import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutScore;
 import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
 import harvard.capstone.digitaltherapy.utility.S3Utils;
 
@@ -10,6 +13,8 @@ import org.hl7.fhir.r4.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.validation.FhirValidator;
@@ -17,26 +22,67 @@ import ca.uhn.fhir.validation.ValidationResult;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for converting Burnout Assessment data to FHIR format,
  * validating it against FHIR specifications, and storing it in S3.
+ *
+ * Validation is off the critical path: the document is stored first and validated on a
+ * background pool afterwards. Documents with issues get an OperationOutcome stored next to
+ * them. The FHIR context and validator are warmed up once the application is ready, so the
+ * first assessment after a deploy does not pay for model scanning and validator setup.
  */
 @Service
 public class BurnoutFhirService {
     private static final Logger logger = LoggerFactory.getLogger(BurnoutFhirService.class);
 
+    // Stored documents are <prefix><sessionId>.json, with any validation outcome beside them
+    static final String DOCUMENT_KEY_PREFIX = "fhir/burnout-assessment-";
+    static final String VALIDATION_KEY_SUFFIX = ".validation.json";
+
+    private static final ExecutorService DEFAULT_VALIDATION_EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "fhir-validation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final FhirContext fhirContext;
     private final FhirValidator validator;
     private final S3Utils s3Utils;
     private final BurnoutAssessmentFhirConverter converter;
+    private final Executor validationExecutor;
+    private final BurnoutFhirPushService pushService;
+
+    private final AtomicLong validationsPassed = new AtomicLong();
+    private final AtomicLong validationsWithIssues = new AtomicLong();
+    private final AtomicLong validationErrors = new AtomicLong();
+    private final AtomicLong validationIssues = new AtomicLong();
+    private final AtomicLong validationMillis = new AtomicLong();
+    private final AtomicLong warmUpMillis = new AtomicLong(-1);
 
     @Autowired
-    public BurnoutFhirService(S3Utils s3Utils, BurnoutAssessmentFhirConverter converter) {
+    public BurnoutFhirService(S3Utils s3Utils, BurnoutAssessmentFhirConverter converter,
+                              BurnoutFhirPushService pushService) {
+        this(s3Utils, converter, DEFAULT_VALIDATION_EXECUTOR, pushService);
+    }
+
+    BurnoutFhirService(S3Utils s3Utils, BurnoutAssessmentFhirConverter converter, Executor validationExecutor,
+                       BurnoutFhirPushService pushService) {
         this.s3Utils = s3Utils;
         this.converter = converter;
+        this.validationExecutor = validationExecutor;
+        this.pushService = pushService;
 
         // Initialize FHIR context and validator
         this.fhirContext = FhirContext.forR4();
@@ -45,6 +91,39 @@ public class BurnoutFhirService {
         logger.info("BurnoutFhirService initialized");
     }
 
+    /**
+     * Warms up the FHIR context, parser and validator in the background once the
+     * application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        validationExecutor.execute(this::runWarmUp);
+    }
+
+    /**
+     * Converts, serializes and validates a representative resource once, so the model
+     * definitions and the validator's modules are loaded before the first real assessment
+     */
+    void runWarmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            BurnoutAssessmentResult sample = new BurnoutAssessmentResult("warm-up", "warm-up",
+                    new BurnoutAssessment(Collections.singletonList(
+                            new BurnoutQuestion("q1", "Warm-up question", AssessmentDomain.WORK, false))),
+                    Collections.singletonMap("q1", new BurnoutUserResponse("q1", "3", new HashMap<>())),
+                    new BurnoutScore("warm-up", "warm-up", 5.0), "Warm-up", LocalDateTime.now());
+            QuestionnaireResponse resource = converter.convertToFhir(sample);
+            enhanceFhirResource(resource, sample);
+            serializeToJson(resource);
+            validator.validateWithResult(resource);
+            warmUpMillis.set(System.currentTimeMillis() - start);
+            logger.info("FHIR context and validator warmed up in {} ms", warmUpMillis.get());
+        } catch (Exception e) {
+            // Not fatal: the first real validation pays the cost instead
+            logger.warn("FHIR warm-up failed: {}", e.getMessage());
+        }
+    }
+
     /**
      * Converts an assessment result to FHIR, validates it, and stores it in S3.
      *
@@ -66,22 +145,19 @@ public class BurnoutFhirService {
             // Enhance with additional metadata
             enhanceFhirResource(fhirResponse, result);
 
-            // Validate the FHIR resource
-            ValidationResult validationResult = validator.validateWithResult(fhirResponse);
-            if (!validationResult.isSuccessful()) {
-                logger.warn("FHIR validation issues found: {}", validationResult.getMessages().size());
-                validationResult.getMessages().forEach(message ->
-                        logger.debug("Validation message: {}", message.getMessage()));
-            }
-
             // Serialize to JSON
             String fhirJson = serializeToJson(fhirResponse);
 
             // Store in S3
             String s3Key = generateS3Key(result.getSessionId());
             String s3Url = uploadToS3(fhirJson, s3Key);
-
             logger.info("FHIR document stored at: {}", s3Url);
+
+            // Sync to the configured EHR in the next transaction bundle
+            pushService.enqueue(fhirResponse, result.getSessionId());
+
+            // Validate the FHIR resource after storing it
+            validateAsync(fhirResponse, result.getSessionId());
             return s3Url;
 
         } catch (Exception e) {
@@ -90,6 +166,61 @@ public class BurnoutFhirService {
         }
     }
 
+    /**
+     * Validates a stored resource on the validation pool and records the outcome.
+     * The resource must not be modified afterwards.
+     *
+     * @return The validation result, or null if validation itself failed
+     */
+    CompletableFuture<ValidationResult> validateAsync(QuestionnaireResponse fhirResponse, String sessionId) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            ValidationResult validationResult = validator.validateWithResult(fhirResponse);
+            validationMillis.addAndGet(System.currentTimeMillis() - start);
+            recordValidation(validationResult, sessionId);
+            return validationResult;
+        }, validationExecutor).exceptionally(e -> {
+            validationErrors.incrementAndGet();
+            logger.error("FHIR validation failed for session {}: {}", sessionId, e.getMessage());
+            return null;
+        });
+    }
+
+    private void recordValidation(ValidationResult validationResult, String sessionId) {
+        if (validationResult.isSuccessful()) {
+            validationsPassed.incrementAndGet();
+            return;
+        }
+        validationsWithIssues.incrementAndGet();
+        validationIssues.addAndGet(validationResult.getMessages().size());
+        logger.warn("FHIR validation issues found for session {}: {}", sessionId, validationResult.getMessages().size());
+        validationResult.getMessages().forEach(message ->
+                logger.debug("Validation message: {}", message.getMessage()));
+
+        // Keep the issues next to the stored document
+        try {
+            String outcome = fhirContext.newJsonParser().encodeResourceToString(validationResult.toOperationOutcome());
+            s3Utils.uploadFile(new ByteArrayInputStream(outcome.getBytes(StandardCharsets.UTF_8)),
+                    generateValidationS3Key(sessionId), "application/fhir+json");
+        } catch (Exception e) {
+            logger.warn("Failed to store FHIR validation outcome for session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return Snapshot of the validation counters
+     */
+    public Map<String, Object> getValidationStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("passed", validationsPassed.get());
+        stats.put("withIssues", validationsWithIssues.get());
+        stats.put("errors", validationErrors.get());
+        stats.put("issues", validationIssues.get());
+        stats.put("totalMillis", validationMillis.get());
+        stats.put("warmUpMillis", warmUpMillis.get());
+        return stats;
+    }
+
     /**
      * Add additional metadata to the FHIR resource
      */
@@ -134,7 +265,22 @@ public class BurnoutFhirService {
      * Generate a consistent S3 key for the FHIR document
      */
     private String generateS3Key(String sessionId) {
-        return "fhir/burnout-assessment-" + sessionId + ".json";
+        return DOCUMENT_KEY_PREFIX + sessionId + ".json";
+    }
+
+    /**
+     * Generate the S3 key of the validation outcome stored for a FHIR document
+     */
+    private String generateValidationS3Key(String sessionId) {
+        return DOCUMENT_KEY_PREFIX + sessionId + VALIDATION_KEY_SUFFIX;
+    }
+
+    /**
+     * @return True if the key names a stored FHIR document rather than its validation outcome
+     */
+    static boolean isDocumentKey(String s3Key) {
+        return s3Key.startsWith(DOCUMENT_KEY_PREFIX) && s3Key.endsWith(".json")
+                && !s3Key.endsWith(VALIDATION_KEY_SUFFIX);
     }
 
     /**
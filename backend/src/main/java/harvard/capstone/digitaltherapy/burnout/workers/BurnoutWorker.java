@@ -4,6 +4,7 @@ import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
 import dev.langchain4j.service.AiServices;
 import harvard.capstone.digitaltherapy.burnout.ai.BurnoutScoreCalculator;
+import harvard.capstone.digitaltherapy.burnout.ai.BurnoutScoreExplainer;
 import harvard.capstone.digitaltherapy.burnout.ai.BurnoutSummaryGenerator;
 import harvard.capstone.digitaltherapy.burnout.ai.MultimodalQuestionGenerator;
 import harvard.capstone.digitaltherapy.burnout.ai.StandardQuestionGenerator;
@@ -25,6 +26,7 @@ public class BurnoutWorker {
     private final StandardQuestionGenerator standardQuestionGenerator;
     private final MultimodalQuestionGenerator multimodalQuestionGenerator;
     private final BurnoutScoreCalculator scoreCalculator;
+    private final BurnoutScoreExplainer scoreExplainer;
     private final BurnoutSummaryGenerator summaryGenerator;
     private final ChatLanguageModel chatModel;
 
@@ -53,6 +55,10 @@ public class BurnoutWorker {
                 .chatLanguageModel(chatModel)
                 .build();
 
+        this.scoreExplainer = AiServices.builder(BurnoutScoreExplainer.class)
+                .chatLanguageModel(chatModel)
+                .build();
+
         this.summaryGenerator = AiServices.builder(BurnoutSummaryGenerator.class)
                 .chatLanguageModel(chatModel)
                 .build();
@@ -142,5 +148,20 @@ public class BurnoutWorker {
         }
     }
 
+    /**
+     * Explains a score that was computed locally, without asking the model for a score
+     *
+     * @param formattedInput The formatted questions and responses
+     * @param score The overall 0-10 score
+     * @return The explanation text
+     */
+    public String generateBurnoutExplanation(String formattedInput, double score) {
+        try {
+            return scoreExplainer.explainBurnoutScore(formattedInput, String.valueOf(score)).trim();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate burnout score explanation", e);
+        }
+    }
+
 
 }
\ No newline at end of file
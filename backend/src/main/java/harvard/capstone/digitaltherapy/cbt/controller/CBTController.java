@@ -133,7 +133,7 @@ public class CBTController {
             String uploadResponse = s3Service.uploadFile(tempFile.getAbsolutePath(), keyName);
             // Get processed content
             String llmResponse = llmProcessingService.process(uploadResponse);
-            llmResponse=llmResponse.replace("s3://dta-root/", "");
+            llmResponse=S3Utils.keyOf(llmResponse);
             ResponseEntity<StreamingResponseBody> processedResponse = cbtHelper.downloadTextFile(llmResponse);
             if (processedResponse.getStatusCode() == HttpStatus.OK && processedResponse.getBody() != null) {
                 // Convert StreamingResponseBody to String
@@ -244,8 +244,8 @@ public class CBTController {
                  keyName = "audio_" + sessionId + ".mp3";
                  String keyWithPrefix = prefixKey(session, keyName);
                  audio_s3_path = s3Service.uploadFile(tempFile.getAbsolutePath(), keyWithPrefix);
-                 String bucketName = "dta-root";
-                 String presignedUrl = S3Utils.generatePresignedUrl(bucketName, keyWithPrefix, Duration.ofMinutes(15));
+                 String bucketName = s3Service.getBucketName();
+                 String presignedUrl = s3Service.generatePresignedUrl(bucketName, keyWithPrefix, Duration.ofMinutes(15));
                  input.put("audio", presignedUrl);
                  tempFile.delete(); // Cleanup temp file
                 if(input.size()==2){
@@ -282,7 +282,7 @@ public class CBTController {
             convertedFile.delete(); // Cleanup temp file
 
             // Download processed file
-            File responseFile = s3Service.downloadFileFromS3("dta-root", keyWithPrefix);
+            File responseFile = s3Service.downloadFileFromS3(s3Service.getBucketName(), keyWithPrefix);
 
             // Convert processed file to base64 for WebSocket response
             String processedAudioBase64 = cbtHelper.convertFileToBase64(responseFile);
@@ -340,7 +340,7 @@ public class CBTController {
     }
 
     private String generateOutputPath(String inputPath) {
-        String outputPath= inputPath.replace("s3://dta-root/", "");
+        String outputPath= S3Utils.keyOf(inputPath);
         int dotIndex = outputPath.lastIndexOf('.');
         if (dotIndex > 0) {
             outputPath = outputPath.substring(0, dotIndex) + "-response.txt";
@@ -359,8 +359,8 @@ public class CBTController {
 
         String input_transcript_s3_url = transcribeService.startTranscriptionJob(s3Path,sessionId);
         try {
-            File transcribedFile = s3Service.downloadFileFromS3("dta-root",
-                    input_transcript_s3_url.replace("https://s3.amazonaws.com/dta-root/", ""));
+            File transcribedFile = s3Service.downloadFileFromS3(s3Service.getBucketName(),
+                    S3Utils.keyOf(input_transcript_s3_url));
             input.put("text", input_transcript_s3_url);
             transcribedText = new String(Files.readAllBytes(transcribedFile.toPath()), StandardCharsets.UTF_8);
             try {
@@ -393,13 +393,13 @@ public class CBTController {
         session.sendMessage(new TextMessage(objectMapper.writeValueAsString(textLLMResponse)));
         String outputPath = generateOutputPath(s3Path);
         s3StorageService.writeTextToS3(outputPath, llmResponse);
-        String rootOutputPath ="s3://dta-root/"+ outputPath;
+        String rootOutputPath = s3Service.uri(outputPath);
         long pollyServiceTime  = System.currentTimeMillis();
         String textToSpeechResponse = pollyService.convertTextToSpeech(rootOutputPath, sessionId);
         logger.info("Polly Service Response Time took {} ms", System.currentTimeMillis() - pollyServiceTime);
-        textToSpeechResponse= textToSpeechResponse.replace("https://dta-root.s3.amazonaws.com/", "");
+        textToSpeechResponse= S3Utils.keyOf(textToSpeechResponse);
         long S3DownloadTime  = System.currentTimeMillis();
-        File responseFile = s3Service.downloadFileFromS3("dta-root", textToSpeechResponse);
+        File responseFile = s3Service.downloadFileFromS3(s3Service.getBucketName(), textToSpeechResponse);
         logger.info("S3 response download Time took {} ms", System.currentTimeMillis() - S3DownloadTime);
         // Convert processed file to binary message
         byte[] processedAudio = Files.readAllBytes(responseFile.toPath());
@@ -5,19 +5,30 @@ import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.UserMessage;
 import harvard.capstone.digitaltherapy.cbt.model.AnalysisResult;
+import harvard.capstone.digitaltherapy.persistence.RedisChatMemoryStore;
 import harvard.capstone.digitaltherapy.persistence.VectorDatabaseService;
 import harvard.capstone.digitaltherapy.workers.*;
 import org.bsc.langgraph4j.state.AgentState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -28,19 +39,70 @@ import com.fasterxml.jackson.databind.JsonNode;
 @Service
 public class OrchestrationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrchestrationService.class);
+
+    // Speculative drafts block on the model, so they get their own pool rather than the common pool
+    private static final ExecutorService DRAFT_EXECUTOR = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "cbt-draft");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final TextAnalysisWorker textAnalysisWorker;
     private final MessageWorker messageWorker;
     private final VectorDatabaseService vectorDatabaseService;
     private final VideoAnalysisWorker videoAnalysisWorker;
     private final AudioAnalysisWorker audioAnalysisWorker;
+    // Shared so its router keeps latency history across turns
+    private final MultiModalSynthesizer synthesizer;
+    private final SpeculativeReplyPolicy speculativeReplyPolicy;
+    private final boolean speculativeReplyEnabled;
     private String userId;
 
+    private final AtomicLong speculativeDrafts = new AtomicLong();
+    private final AtomicLong speculativeAccepted = new AtomicLong();
+    private final AtomicLong speculativeRegenerated = new AtomicLong();
+
     public OrchestrationService(){
+        this(new MessageWorker(), true, SpeculativeReplyPolicy.DEFAULT_MIN_CONGRUENCE);
+    }
+
+    /**
+     * Constructor used by Spring. Chat memory goes to Redis when a RedisTemplate is
+     * available, so any node can continue a session.
+     *
+     * @param redisTemplateProvider Optional Redis template
+     * @param memoryTtlMinutes Idle time before a session's chat memory expires
+     * @param nearCacheSize Number of sessions cached on this node
+     * @param historyTokenBudget Estimated tokens of recent turns sent with each prompt
+     * @param speculativeReplyEnabled Whether to draft the reply from the text analysis while
+     *                                voice and video are still being analyzed
+     * @param speculativeMinCongruence Lowest multimodal congruence for which the draft is sent
+     */
+    @Autowired
+    public OrchestrationService(ObjectProvider<RedisTemplate<String, String>> redisTemplateProvider,
+                                @Value("${chat.memory.ttl-minutes:60}") long memoryTtlMinutes,
+                                @Value("${chat.memory.near-cache-size:1000}") int nearCacheSize,
+                                @Value("${chat.context.history-token-budget:1200}") int historyTokenBudget,
+                                @Value("${cbt.speculative-reply.enabled:true}") boolean speculativeReplyEnabled,
+                                @Value("${cbt.speculative-reply.min-congruence:0.6}") double speculativeMinCongruence) {
+        this(new MessageWorker(new RedisChatMemoryStore(
+                redisTemplateProvider.getIfAvailable(),
+                Duration.ofMinutes(memoryTtlMinutes),
+                nearCacheSize), historyTokenBudget),
+                speculativeReplyEnabled, speculativeMinCongruence);
+    }
+
+    private OrchestrationService(MessageWorker messageWorker, boolean speculativeReplyEnabled,
+                                 double speculativeMinCongruence) {
         this.textAnalysisWorker = new TextAnalysisWorker();
-        this.messageWorker = new MessageWorker();
+        this.messageWorker = messageWorker;
         this.vectorDatabaseService = new VectorDatabaseService();
         this.videoAnalysisWorker = new VideoAnalysisWorker();
         this.audioAnalysisWorker = new AudioAnalysisWorker();
+        this.synthesizer = new MultiModalSynthesizer();
+        this.speculativeReplyEnabled = speculativeReplyEnabled;
+        this.speculativeReplyPolicy = new SpeculativeReplyPolicy(speculativeMinCongruence);
     }
 
     public void setSessionContext(String sessionId, String userId) {
@@ -49,15 +111,19 @@ public class OrchestrationService {
     }
 
     public String processUserMessage(String sessionId, Map<String, String> modalities, String input_transcript) {
+        // Read once on the request thread; another session may change the context meanwhile
+        String userId = this.userId;
         List<CompletableFuture<Object>> analysisFutures = new ArrayList<>();
         Map<String, CompletableFuture<Object>> modalityToFuture = new HashMap<>();  // To track which result belongs to which modality
 
-        modalities.forEach((modalityType, content) -> {
+        // Start the voice and video analyses first so they run while the text is analyzed
+        String textModality = null;
+        for (String modalityType : modalities.keySet()) {
+            if ("text".equalsIgnoreCase(modalityType)) {
+                textModality = modalityType;
+                continue;
+            }
             CompletableFuture<Object> analysisFuture = switch (modalityType.toLowerCase()) {
-                case "text" -> {
-                    Map<String, Object> textAnalysis = textAnalysisWorker.analyzeText(input_transcript);
-                    yield CompletableFuture.completedFuture(textAnalysis);
-                }
                 case "video" -> videoAnalysisWorker.detectFacesFromVideoAsync(modalities.get(modalityType))
                         .thenCompose(result -> {
                             Map<String, Object> videoResult = new HashMap<>();
@@ -76,9 +142,28 @@ public class OrchestrationService {
                         new IllegalArgumentException("Unsupported modality type: " + modalityType)
                 );
             };
-                analysisFutures.add(analysisFuture);
-                modalityToFuture.put(modalityType, analysisFuture);
-        });
+            analysisFutures.add(analysisFuture);
+            modalityToFuture.put(modalityType, analysisFuture);
+        }
+
+        AnalysisResult draftAnalysis = null;
+        CompletableFuture<MessageWorker.Draft> draftFuture = null;
+        if (textModality != null) {
+            Map<String, Object> textAnalysis = textAnalysisWorker.analyzeText(input_transcript);
+            CompletableFuture<Object> textFuture = CompletableFuture.completedFuture(textAnalysis);
+            analysisFutures.add(textFuture);
+            modalityToFuture.put(textModality, textFuture);
+
+            // Draft the reply from the words alone while voice and video are still running
+            if (speculativeReplyEnabled && modalityToFuture.size() > 1) {
+                draftAnalysis = speculativeReplyPolicy.textOnlyAnalysis(textAnalysis);
+                String draftMessage = draftAnalysis.toString();
+                draftFuture = CompletableFuture.supplyAsync(
+                        () -> messageWorker.draftResponse(sessionId, userId, draftMessage, input_transcript),
+                        DRAFT_EXECUTOR);
+                speculativeDrafts.incrementAndGet();
+            }
+        }
 // Wait for all analysis to complete
         CompletableFuture.allOf(analysisFutures.toArray(new CompletableFuture[0])).join();
 
@@ -124,18 +209,59 @@ public class OrchestrationService {
         });
         // Create AgentState with this initial map
         AgentState state = new AgentState(workerResponse);
-        // Instantiate the node
-        MultiModalSynthesizer node = new MultiModalSynthesizer();
-        // Apply the node
-        Map<String, Object> result = node.apply(state);
+        // Apply the synthesis node
+        Map<String, Object> result = synthesizer.apply(state);
         // Retrieve and print the final Analysis
         AnalysisResult analysis = (AnalysisResult) result.get("multimodalAnalysis");
         // Send analysis and user response to the message worker
-        String response = messageWorker.generateResponse(analysis.toString(), input_transcript);
+        String response = null;
+        if (draftFuture != null) {
+            response = speculativeResponse(sessionId, draftAnalysis, draftFuture, analysis);
+        }
+        if (response == null) {
+            response = messageWorker.generateResponse(sessionId, userId, analysis.toString(), input_transcript);
+        }
         vectorDatabaseService.indexSessionMessage(sessionId, userId, response, false);
         return response;
     }
 
+    /**
+     * Sends the drafted reply if the multimodal analysis does not change the picture
+     *
+     * @return The committed reply, or null if the reply has to be regenerated
+     */
+    private String speculativeResponse(String sessionId, AnalysisResult draftAnalysis,
+                                       CompletableFuture<MessageWorker.Draft> draftFuture,
+                                       AnalysisResult analysis) {
+        if (!speculativeReplyPolicy.accept(draftAnalysis, analysis)) {
+            // The pending draft is simply never committed
+            speculativeRegenerated.incrementAndGet();
+            logger.debug("Discarding speculative reply for session {}: multimodal analysis differs", sessionId);
+            return null;
+        }
+        try {
+            String response = messageWorker.commitResponse(draftFuture.join());
+            speculativeAccepted.incrementAndGet();
+            return response;
+        } catch (RuntimeException e) {
+            speculativeRegenerated.incrementAndGet();
+            logger.warn("Speculative reply failed for session {}, regenerating: {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return Counters for speculative replies
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("speculativeReplyEnabled", speculativeReplyEnabled);
+        stats.put("speculativeDrafts", speculativeDrafts.get());
+        stats.put("speculativeAccepted", speculativeAccepted.get());
+        stats.put("speculativeRegenerated", speculativeRegenerated.get());
+        return stats;
+    }
+
     private String convertTextAnalysisToString(Map<String, Object> textAnalysis) {
         // Implement the conversion logic based on your text analysis structure
         StringBuilder result = new StringBuilder();
@@ -0,0 +1,118 @@
+package harvard.capstone.digitaltherapy.cbt.service;
+
+import harvard.capstone.digitaltherapy.cbt.model.AnalysisResult;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SpeculativeReplyPolicy
+ *
+ * Decides whether a therapist reply drafted from the text analysis alone can be sent once
+ * the multimodal analysis arrives, or whether the reply has to be regenerated.
+ *
+ * The draft is kept when the modalities agree (congruence at or above the threshold), the
+ * multimodal dominant emotion matches or does not contradict the text emotion, and the
+ * synthesis found no cognitive distortion the text analysis had missed.
+ */
+public class SpeculativeReplyPolicy {
+
+    public static final double DEFAULT_MIN_CONGRUENCE = 0.6;
+
+    private static final String TEXT_ONLY_INTERPRETATION =
+            "Based on the client's words only; voice and facial cues are not yet available.";
+
+    private final double minCongruence;
+
+    public SpeculativeReplyPolicy() {
+        this(DEFAULT_MIN_CONGRUENCE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param minCongruence Lowest multimodal congruence score for which the draft is kept
+     */
+    public SpeculativeReplyPolicy(double minCongruence) {
+        this.minCongruence = minCongruence;
+    }
+
+    /**
+     * Builds the analysis the draft reply is generated from
+     *
+     * @param textAnalysis Result of TextAnalysisWorker.analyzeText
+     * @return Analysis based on the text modality only
+     */
+    public AnalysisResult textOnlyAnalysis(Map<String, Object> textAnalysis) {
+        AnalysisResult analysis = new AnalysisResult();
+        // A single modality is trivially congruent with itself
+        analysis.setCongruenceScore(1.0);
+        Object emotion = textAnalysis.get("emotion");
+        analysis.setDominantEmotion(emotion == null ? "" : emotion.toString());
+        List<String> distortions = new ArrayList<>();
+        Object detected = textAnalysis.get("cognitiveDistortions");
+        if (detected instanceof List) {
+            for (Object distortion : (List<?>) detected) {
+                if (distortion != null && !distortion.toString().isBlank()) {
+                    distortions.add(distortion.toString().trim());
+                }
+            }
+        }
+        analysis.setCognitiveDistortions(distortions.toArray(new String[0]));
+        analysis.setInterpretation(TEXT_ONLY_INTERPRETATION);
+        analysis.setFollowUpPrompts(new String[0]);
+        return analysis;
+    }
+
+    /**
+     * @param draftAnalysis The text-only analysis the draft was generated from
+     * @param multimodal The synthesized multimodal analysis
+     * @return True if the draft reply can be sent as is
+     */
+    public boolean accept(AnalysisResult draftAnalysis, AnalysisResult multimodal) {
+        if (multimodal == null || multimodal.getCongruenceScore() < minCongruence) {
+            return false;
+        }
+        if (!emotionAgrees(draftAnalysis.getDominantEmotion(), multimodal.getDominantEmotion())) {
+            return false;
+        }
+        Set<String> known = normalized(draftAnalysis.getCognitiveDistortions());
+        for (String distortion : normalized(multimodal.getCognitiveDistortions())) {
+            if (!known.contains(distortion)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean emotionAgrees(String textEmotion, String multimodalEmotion) {
+        if (multimodalEmotion == null || multimodalEmotion.isBlank()
+                || textEmotion == null || textEmotion.isBlank()) {
+            // Nothing to contradict the draft
+            return true;
+        }
+        // The synthesis describes the emotion in prose, e.g. "Anxiety (tense voice, furrowed brow)"
+        return multimodalEmotion.toLowerCase(Locale.ROOT).contains(textEmotion.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static Set<String> normalized(String[] distortions) {
+        Set<String> result = new HashSet<>();
+        if (distortions == null) {
+            return result;
+        }
+        for (String distortion : distortions) {
+            if (distortion == null) {
+                continue;
+            }
+            String value = distortion.trim().toLowerCase(Locale.ROOT);
+            if (!value.isEmpty() && !value.equals("none")) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package harvard.capstone.digitaltherapy.config;
+
+import harvard.capstone.digitaltherapy.storage.InMemoryObjectStore;
+import harvard.capstone.digitaltherapy.storage.LocalObjectStore;
+import harvard.capstone.digitaltherapy.storage.ObjectStore;
+import harvard.capstone.digitaltherapy.storage.S3ObjectStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Picks the object store backend from storage.backend: s3 (the default), local or memory.
+ * The local and memory backends let the pipeline run and be benchmarked without AWS.
+ */
+@Configuration
+public class ObjectStoreConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ObjectStoreConfig.class);
+
+    @Bean
+    public ObjectStore objectStore(@Value("${storage.backend:s3}") String backend,
+                                   @Value("${storage.local.root:${java.io.tmpdir}/dta-object-store}") String localRoot,
+                                   ObjectProvider<S3Client> s3Client) throws IOException {
+        switch (backend.trim().toLowerCase()) {
+            case "s3":
+                return new S3ObjectStore(s3Client.getObject());
+            case "local":
+                LocalObjectStore store = new LocalObjectStore(Paths.get(localRoot));
+                logger.info("Storing objects on the local filesystem under {}", store.getRoot());
+                return store;
+            case "memory":
+                logger.info("Storing objects in memory; they are lost on restart");
+                return new InMemoryObjectStore();
+            default:
+                throw new IllegalArgumentException("Unknown storage.backend: " + backend);
+        }
+    }
+}
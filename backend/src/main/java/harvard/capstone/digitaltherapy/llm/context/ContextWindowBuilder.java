@@ -0,0 +1,159 @@
+package harvard.capstone.digitaltherapy.llm.context;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ContextWindowBuilder
+ *
+ * Splits a session's stored history into what goes into the next prompt: the running
+ * summary (if any) and the most recent messages that fit the history token budget. Older
+ * messages that no longer fit are returned as overflow, to be folded into the summary by
+ * {@link ConversationSummarizer}.
+ *
+ * The summary is stored in the history itself as a SystemMessage starting with
+ * {@link #SUMMARY_PREFIX}, which MessageWindowChatMemory keeps pinned at the front. In the
+ * prompt it is sent as a user turn instead (see {@link ContextWindow#getSummaryTurn()}), so
+ * the system block stays static and the provider's prompt cache breakpoint after it does not
+ * move every time the summary changes.
+ */
+public class ContextWindowBuilder {
+
+    public static final String SUMMARY_PREFIX = "Summary of the earlier part of this session:\n";
+
+    private final int historyTokenBudget;
+
+    /**
+     * Constructor
+     *
+     * @param historyTokenBudget Maximum estimated tokens of recent messages kept verbatim
+     */
+    public ContextWindowBuilder(int historyTokenBudget) {
+        if (historyTokenBudget <= 0) {
+            throw new IllegalArgumentException("History token budget must be positive");
+        }
+        this.historyTokenBudget = historyTokenBudget;
+    }
+
+    /**
+     * Builds the context window for a stored history
+     *
+     * @param history Stored messages, optionally starting with a summary message
+     * @return Summary, recent messages within budget and overflow
+     */
+    public ContextWindow build(List<ChatMessage> history) {
+        SystemMessage summary = null;
+        List<ChatMessage> conversation = new ArrayList<>();
+        for (ChatMessage message : history) {
+            if (isSummary(message)) {
+                summary = (SystemMessage) message;
+            } else if (!(message instanceof SystemMessage)) {
+                conversation.add(message);
+            }
+        }
+
+        // Walk back from the newest message until the budget is spent; always keep the last one
+        int start = conversation.size();
+        int tokens = 0;
+        while (start > 0) {
+            int next = TokenEstimator.estimate(conversation.get(start - 1));
+            if (start < conversation.size() && tokens + next > historyTokenBudget) {
+                break;
+            }
+            tokens += next;
+            start--;
+        }
+        // Don't open the window with a reply whose question was cut off, unless it is all we have
+        if (start > 0 && start < conversation.size() - 1 && conversation.get(start) instanceof AiMessage) {
+            tokens -= TokenEstimator.estimate(conversation.get(start));
+            start++;
+        }
+
+        return new ContextWindow(
+                summary,
+                new ArrayList<>(conversation.subList(start, conversation.size())),
+                new ArrayList<>(conversation.subList(0, start)),
+                tokens);
+    }
+
+    public int getHistoryTokenBudget() {
+        return historyTokenBudget;
+    }
+
+    /**
+     * @param message A stored message
+     * @return True if the message is the running summary
+     */
+    public static boolean isSummary(ChatMessage message) {
+        return message instanceof SystemMessage && ((SystemMessage) message).text().startsWith(SUMMARY_PREFIX);
+    }
+
+    /**
+     * @param summaryText Summary text
+     * @return The message used to store the summary in the history
+     */
+    public static SystemMessage summaryMessage(String summaryText) {
+        return SystemMessage.from(SUMMARY_PREFIX + summaryText);
+    }
+
+    /**
+     * The parts of a history used for one prompt
+     */
+    public static final class ContextWindow {
+        private final SystemMessage summary;
+        private final List<ChatMessage> recentMessages;
+        private final List<ChatMessage> overflow;
+        private final int recentTokens;
+
+        public ContextWindow(SystemMessage summary, List<ChatMessage> recentMessages,
+                             List<ChatMessage> overflow, int recentTokens) {
+            this.summary = summary;
+            this.recentMessages = Collections.unmodifiableList(recentMessages);
+            this.overflow = Collections.unmodifiableList(overflow);
+            this.recentTokens = recentTokens;
+        }
+
+        /**
+         * @return The running summary message, or null if nothing has been summarized yet
+         */
+        public SystemMessage getSummary() {
+            return summary;
+        }
+
+        /**
+         * @return The running summary as a user turn to follow the static system prompt,
+         *         or null if nothing has been summarized yet
+         */
+        public UserMessage getSummaryTurn() {
+            return summary == null ? null : UserMessage.from(summary.text());
+        }
+
+        /**
+         * @return Text of the running summary without its prefix, or an empty string
+         */
+        public String getSummaryText() {
+            return summary == null ? "" : summary.text().substring(SUMMARY_PREFIX.length());
+        }
+
+        public List<ChatMessage> getRecentMessages() {
+            return recentMessages;
+        }
+
+        /**
+         * @return Older messages outside the budget that are not yet in the summary
+         */
+        public List<ChatMessage> getOverflow() {
+            return overflow;
+        }
+
+        public int getRecentTokens() {
+            return recentTokens;
+        }
+    }
+}
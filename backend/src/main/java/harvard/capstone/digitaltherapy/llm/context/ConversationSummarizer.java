@@ -0,0 +1,230 @@
+package harvard.capstone.digitaltherapy.llm.context;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import harvard.capstone.digitaltherapy.llm.routing.HedgingChatRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConversationSummarizer
+ *
+ * Folds the messages that fell out of a session's token budget into a running summary,
+ * off the request path. After a turn, {@link #refreshAsync(String)} summarizes the
+ * overflow reported by {@link ContextWindowBuilder} together with the previous summary
+ * and rewrites the stored history as [summary, remaining messages].
+ *
+ * At most one refresh runs per session. The rewrite happens under {@link #lockFor(String)},
+ * which callers also hold while appending to the same history, and is skipped if the
+ * history changed in a way that no longer starts with the folded messages.
+ *
+ * Summaries go through the same {@link HedgingChatRouter} as the therapist replies, so they
+ * count against the endpoints' concurrency limits and fail over like any other call. A
+ * rejected summary is not replaced by a fallback; the next turn tries again.
+ */
+public class ConversationSummarizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationSummarizer.class);
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int DEFAULT_MAX_SUMMARY_WORDS = 150;
+    public static final String CALL_TYPE = "summary";
+
+    private static final String SUMMARY_INSTRUCTIONS = """
+            You maintain a running summary of a CBT therapy session for the therapist.
+            Merge the previous summary with the new exchanges. Keep the client's presenting
+            concerns, identified cognitive distortions, interventions already tried and any
+            agreed homework. Write plain prose in the third person, at most %d words.
+            """;
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "conversation-summarizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ChatLanguageModel chatModel;
+    private final HedgingChatRouter chatRouter;
+    private final ChatMemoryStore store;
+    private final ContextWindowBuilder windowBuilder;
+    private final Executor executor;
+    private final int maxSummaryWords;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong messagesFolded = new AtomicLong();
+    private final AtomicLong skippedStale = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicInteger lastSummaryTokens = new AtomicInteger();
+
+    /**
+     * Constructor using the shared background executor
+     *
+     * @param chatModel Model used to write summaries
+     * @param chatRouter Router the summary calls go through
+     * @param store Store holding the session histories
+     * @param windowBuilder Builder deciding which messages overflow the budget
+     */
+    public ConversationSummarizer(ChatLanguageModel chatModel, HedgingChatRouter chatRouter, ChatMemoryStore store,
+                                  ContextWindowBuilder windowBuilder) {
+        this(chatModel, chatRouter, store, windowBuilder, DEFAULT_EXECUTOR, DEFAULT_MAX_SUMMARY_WORDS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param chatModel Model used to write summaries
+     * @param chatRouter Router the summary calls go through
+     * @param store Store holding the session histories
+     * @param windowBuilder Builder deciding which messages overflow the budget
+     * @param executor Executor running the refreshes
+     * @param maxSummaryWords Hard cap on summary length
+     */
+    public ConversationSummarizer(ChatLanguageModel chatModel, HedgingChatRouter chatRouter, ChatMemoryStore store,
+                                  ContextWindowBuilder windowBuilder, Executor executor, int maxSummaryWords) {
+        this.chatModel = chatModel;
+        this.chatRouter = chatRouter;
+        this.store = store;
+        this.windowBuilder = windowBuilder;
+        this.executor = executor;
+        this.maxSummaryWords = maxSummaryWords;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * @param sessionId The session ID
+     * @return Lock guarding writes to the session's stored history
+     */
+    public Object lockFor(String sessionId) {
+        return locks[Math.floorMod(sessionId.hashCode(), locks.length)];
+    }
+
+    /**
+     * Schedules a summary refresh unless one is already running for the session
+     *
+     * @param sessionId The session ID
+     * @return Future completing with true if the history was rewritten
+     */
+    public CompletableFuture<Boolean> refreshAsync(String sessionId) {
+        if (!inFlight.add(sessionId)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Boolean> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> refresh(sessionId), executor);
+        } catch (RuntimeException e) {
+            inFlight.remove(sessionId);
+            throw e;
+        }
+        return future.whenComplete((rewritten, error) -> {
+            inFlight.remove(sessionId);
+            if (error != null) {
+                failures.incrementAndGet();
+                logger.warn("Summary refresh failed for session {}: {}", sessionId, error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Folds the overflow of a session into its summary
+     *
+     * @param sessionId The session ID
+     * @return True if the history was rewritten
+     */
+    public boolean refresh(String sessionId) {
+        ContextWindowBuilder.ContextWindow window = windowBuilder.build(store.getMessages(sessionId));
+        List<ChatMessage> folded = window.getOverflow();
+        if (folded.isEmpty()) {
+            return false;
+        }
+
+        String summary = summarize(window.getSummaryText(), folded);
+
+        synchronized (lockFor(sessionId)) {
+            List<ChatMessage> conversation = new ArrayList<>();
+            for (ChatMessage message : store.getMessages(sessionId)) {
+                if (!ContextWindowBuilder.isSummary(message)) {
+                    conversation.add(message);
+                }
+            }
+            if (conversation.size() < folded.size() || !conversation.subList(0, folded.size()).equals(folded)) {
+                // History was replaced underneath us; the next turn will try again
+                skippedStale.incrementAndGet();
+                return false;
+            }
+            List<ChatMessage> updated = new ArrayList<>();
+            updated.add(ContextWindowBuilder.summaryMessage(summary));
+            updated.addAll(conversation.subList(folded.size(), conversation.size()));
+            store.updateMessages(sessionId, updated);
+        }
+
+        refreshes.incrementAndGet();
+        messagesFolded.addAndGet(folded.size());
+        lastSummaryTokens.set(TokenEstimator.estimate(summary));
+        logger.debug("Folded {} messages into the summary of session {}", folded.size(), sessionId);
+        return true;
+    }
+
+    /**
+     * @return Snapshot of the summarizer counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("refreshes", refreshes.get());
+        stats.put("messagesFolded", messagesFolded.get());
+        stats.put("skippedStale", skippedStale.get());
+        stats.put("failures", failures.get());
+        stats.put("inFlight", inFlight.size());
+        stats.put("lastSummaryTokens", lastSummaryTokens.get());
+        return stats;
+    }
+
+    private String summarize(String previousSummary, List<ChatMessage> folded) {
+        StringBuilder transcript = new StringBuilder();
+        if (!previousSummary.isEmpty()) {
+            transcript.append("Previous summary:\n").append(previousSummary).append("\n\n");
+        }
+        transcript.append("New exchanges:\n");
+        for (ChatMessage message : folded) {
+            transcript.append(message instanceof AiMessage ? "Therapist: " : "Client: ")
+                    .append(TokenEstimator.textOf(message))
+                    .append('\n');
+        }
+
+        String summary = chatRouter.chat(CALL_TYPE, chatModel, Arrays.asList(
+                SystemMessage.from(String.format(SUMMARY_INSTRUCTIONS, maxSummaryWords)),
+                UserMessage.from(transcript.toString()))).aiMessage().text();
+        return truncateWords(summary == null ? "" : summary.trim(), maxSummaryWords);
+    }
+
+    // The model usually respects the word limit; this keeps the prompt flat when it doesn't
+    static String truncateWords(String text, int maxWords) {
+        String[] words = text.split("\\s+");
+        if (words.length <= maxWords) {
+            return text;
+        }
+        return String.join(" ", Arrays.copyOf(words, maxWords)) + " ...";
+    }
+}
@@ -0,0 +1,84 @@
+package harvard.capstone.digitaltherapy.llm.context;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.List;
+
+/**
+ * TokenEstimator
+ *
+ * Cheap, model-agnostic token estimate used for prompt budgeting. Gemini and Claude do not
+ * ship a local tokenizer, so this takes the larger of ~4 characters per token and ~1.3
+ * tokens per word, which tracks English SentencePiece/BPE counts closely enough to keep
+ * prompts inside a budget.
+ */
+public final class TokenEstimator {
+
+    // Role markers and separators added per message by the chat APIs
+    private static final int PER_MESSAGE_OVERHEAD = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * @param text Any text
+     * @return Estimated token count
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean whitespace = Character.isWhitespace(text.charAt(i));
+            if (!whitespace && !inWord) {
+                words++;
+            }
+            inWord = !whitespace;
+        }
+        int byChars = (text.length() + 3) / 4;
+        int byWords = (int) Math.ceil(words * 1.3);
+        return Math.max(byChars, byWords);
+    }
+
+    /**
+     * @param message A chat message
+     * @return Estimated tokens including per-message overhead
+     */
+    public static int estimate(ChatMessage message) {
+        return estimate(textOf(message)) + PER_MESSAGE_OVERHEAD;
+    }
+
+    /**
+     * @param messages Chat messages
+     * @return Estimated tokens for all messages
+     */
+    public static int estimate(List<ChatMessage> messages) {
+        int total = 0;
+        for (ChatMessage message : messages) {
+            total += estimate(message);
+        }
+        return total;
+    }
+
+    /**
+     * @param message A chat message
+     * @return The message text, or its string form for other message types
+     */
+    public static String textOf(ChatMessage message) {
+        if (message instanceof UserMessage) {
+            return ((UserMessage) message).singleText();
+        }
+        if (message instanceof SystemMessage) {
+            return ((SystemMessage) message).text();
+        }
+        if (message instanceof AiMessage) {
+            return ((AiMessage) message).text();
+        }
+        return message.toString();
+    }
+}
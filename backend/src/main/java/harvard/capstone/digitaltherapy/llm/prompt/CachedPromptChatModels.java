@@ -0,0 +1,234 @@
+package harvard.capstone.digitaltherapy.llm.prompt;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.model.anthropic.AnthropicChatModel;
+import dev.langchain4j.model.anthropic.AnthropicTokenUsage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
+import harvard.capstone.digitaltherapy.llm.context.TokenEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CachedPromptChatModels
+ *
+ * Builds the chat models used by the CBT workers with provider prompt caching turned on,
+ * and records cache usage for each call in {@link PromptCacheMetrics}.
+ *
+ * Callers must put the invariant instructions first, as the only SystemMessage, and
+ * anything per-turn (running summaries included) in user or assistant turns after them, so
+ * the prefix is byte-for-byte stable across calls.
+ *
+ * Providers only cache prefixes above a minimum size: 1024 tokens for Claude Sonnet/Opus
+ * and OpenAI, 2048 for Claude Haiku. Shorter system prompts, which is all of the current
+ * ones, are sent as normal and recorded as misses; the first such call per provider and
+ * prompt size is logged so a miss rate of 100% is not mistaken for a caching bug.
+ *
+ * - anthropic: system messages are sent with cache_control, so the static prefix is
+ *   cached once it is long enough for the model's minimum cacheable size.
+ * - openai: prompts are cached automatically once the prefix is long enough; the cached
+ *   share of the input is reported in the usage and recorded as cache reads.
+ * - gemini (default): the Gemini API only offers explicit cached contents for prefixes of
+ *   tens of thousands of tokens, far above these prompts, so the stable prefix is all
+ *   that applies and calls are recorded as misses.
+ *
+ * The default provider is selected with the LLM_PROVIDER environment variable; other
+ * providers with an API key configured are available as routing alternates. Bedrock is
+ * not one of them: it is only called through BedrockService's InvokeModel requests, which
+ * authenticate with AWS credentials rather than an API key and are not a chat model.
+ */
+public final class CachedPromptChatModels {
+
+    public static final String GEMINI = "gemini";
+    public static final String ANTHROPIC = "anthropic";
+    public static final String OPENAI = "openai";
+
+    private static final String DEFAULT_GEMINI_MODEL = "gemini-1.5-flash";
+    private static final String DEFAULT_ANTHROPIC_MODEL = "claude-3-5-haiku-20241022";
+    private static final String DEFAULT_OPENAI_MODEL = "gpt-4o-mini";
+
+    // Smallest minimum cacheable prefix among the caching providers; Haiku needs twice this
+    static final int MIN_CACHEABLE_PREFIX_TOKENS = 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedPromptChatModels.class);
+    private static final Set<String> reportedShortPrefixes = ConcurrentHashMap.newKeySet();
+
+    private CachedPromptChatModels() {
+    }
+
+    /**
+     * @return The configured provider, "gemini" unless LLM_PROVIDER says otherwise
+     */
+    public static String provider() {
+        String provider = System.getenv("LLM_PROVIDER");
+        return provider == null || provider.isBlank() ? GEMINI : provider.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param provider A provider name
+     * @return The model used for the provider
+     */
+    public static String modelName(String provider) {
+        if (ANTHROPIC.equals(provider)) {
+            String modelName = System.getenv("ANTHROPIC_MODEL");
+            return modelName == null || modelName.isBlank() ? DEFAULT_ANTHROPIC_MODEL : modelName;
+        }
+        if (OPENAI.equals(provider)) {
+            String modelName = System.getenv("OPENAI_MODEL");
+            return modelName == null || modelName.isBlank() ? DEFAULT_OPENAI_MODEL : modelName;
+        }
+        return DEFAULT_GEMINI_MODEL;
+    }
+
+    /**
+     * @param provider A provider name
+     * @return True if an API key for the provider is configured
+     */
+    public static boolean isConfigured(String provider) {
+        String key = System.getenv(apiKeyVariable(provider));
+        return key != null && !key.isBlank();
+    }
+
+    private static String apiKeyVariable(String provider) {
+        if (ANTHROPIC.equals(provider)) {
+            return "ANTHROPIC_API_KEY";
+        }
+        if (OPENAI.equals(provider)) {
+            return "OPENAI_API_KEY";
+        }
+        return "GEMINI_API_KEY";
+    }
+
+    /**
+     * Creates a chat model for the configured provider
+     *
+     * @param temperature Sampling temperature
+     * @param topP Nucleus sampling threshold
+     * @param maxOutputTokens Maximum tokens in the response
+     * @return The chat model
+     */
+    public static ChatLanguageModel create(double temperature, double topP, int maxOutputTokens) {
+        return create(provider(), temperature, topP, maxOutputTokens);
+    }
+
+    /**
+     * Creates a chat model for a provider
+     *
+     * @param provider "gemini", "anthropic" or "openai"
+     * @param temperature Sampling temperature
+     * @param topP Nucleus sampling threshold
+     * @param maxOutputTokens Maximum tokens in the response
+     * @return The chat model
+     */
+    public static ChatLanguageModel create(String provider, double temperature, double topP, int maxOutputTokens) {
+        if (ANTHROPIC.equals(provider)) {
+            return AnthropicChatModel.builder()
+                    .apiKey(System.getenv("ANTHROPIC_API_KEY"))
+                    .modelName(modelName(ANTHROPIC))
+                    .temperature(temperature)
+                    .topP(topP)
+                    .maxTokens(maxOutputTokens)
+                    .cacheSystemMessages(true)
+                    .build();
+        }
+        if (OPENAI.equals(provider)) {
+            return OpenAiChatModel.builder()
+                    .apiKey(System.getenv("OPENAI_API_KEY"))
+                    .modelName(modelName(OPENAI))
+                    .temperature(temperature)
+                    .topP(topP)
+                    .maxTokens(maxOutputTokens)
+                    .build();
+        }
+        return GoogleAiGeminiChatModel.builder()
+                .apiKey(System.getenv("GEMINI_API_KEY"))
+                .modelName(modelName(GEMINI))
+                .temperature(temperature)
+                .topP(topP)
+                .maxOutputTokens(maxOutputTokens)
+                .build();
+    }
+
+    /**
+     * Sends the messages and records the call's prompt cache usage
+     *
+     * @param chatModel The model to call
+     * @param messages Messages with the static prefix first
+     * @return The model response
+     */
+    public static ChatResponse chat(ChatLanguageModel chatModel, List<ChatMessage> messages) {
+        return chat(provider(), chatModel, messages);
+    }
+
+    /**
+     * Sends the messages and records the call's prompt cache usage under a provider
+     *
+     * @param provider Provider the model belongs to
+     * @param chatModel The model to call
+     * @param messages Messages with the static prefix first
+     * @return The model response
+     */
+    public static ChatResponse chat(String provider, ChatLanguageModel chatModel, List<ChatMessage> messages) {
+        reportShortPrefix(provider, messages);
+        long start = System.nanoTime();
+        ChatResponse response = chatModel.chat(messages);
+        long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+        record(PromptCacheMetrics.forProvider(provider), response, latencyMillis);
+        return response;
+    }
+
+    /**
+     * @param messages Messages with the static prefix first
+     * @return Estimated tokens of the leading system prompt, or 0 if there is none
+     */
+    static int staticPrefixTokens(List<ChatMessage> messages) {
+        if (messages.isEmpty() || !(messages.get(0) instanceof SystemMessage)) {
+            return 0;
+        }
+        return TokenEstimator.estimate(messages.get(0));
+    }
+
+    private static void reportShortPrefix(String provider, List<ChatMessage> messages) {
+        if (GEMINI.equals(provider)) {
+            return;
+        }
+        int prefixTokens = staticPrefixTokens(messages);
+        if (prefixTokens < MIN_CACHEABLE_PREFIX_TOKENS && reportedShortPrefixes.add(provider + ":" + prefixTokens)) {
+            logger.info("System prompt of ~{} tokens is below the {}-token minimum {} caches; it is sent uncached",
+                    prefixTokens, MIN_CACHEABLE_PREFIX_TOKENS, provider);
+        }
+    }
+
+    static void record(PromptCacheMetrics metrics, ChatResponse response, long latencyMillis) {
+        TokenUsage usage = response == null ? null : response.tokenUsage();
+        long input = 0;
+        long cacheRead = 0;
+        long cacheWrite = 0;
+        if (usage != null && usage.inputTokenCount() != null) {
+            input = usage.inputTokenCount();
+        }
+        if (usage instanceof AnthropicTokenUsage) {
+            AnthropicTokenUsage anthropicUsage = (AnthropicTokenUsage) usage;
+            cacheRead = anthropicUsage.cacheReadInputTokens() == null ? 0 : anthropicUsage.cacheReadInputTokens();
+            cacheWrite = anthropicUsage.cacheCreationInputTokens() == null ? 0 : anthropicUsage.cacheCreationInputTokens();
+        } else if (usage instanceof OpenAiTokenUsage) {
+            OpenAiTokenUsage openAiUsage = (OpenAiTokenUsage) usage;
+            if (openAiUsage.inputTokensDetails() != null && openAiUsage.inputTokensDetails().cachedTokens() != null) {
+                cacheRead = openAiUsage.inputTokensDetails().cachedTokens();
+                // OpenAI counts cached tokens in the input; Anthropic, like the metrics, does not
+                input = Math.max(0, input - cacheRead);
+            }
+        }
+        metrics.record(input, cacheRead, cacheWrite, latencyMillis);
+    }
+}
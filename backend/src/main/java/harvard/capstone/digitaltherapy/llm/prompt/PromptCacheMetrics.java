@@ -0,0 +1,116 @@
+package harvard.capstone.digitaltherapy.llm.prompt;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PromptCacheMetrics
+ *
+ * Per-provider counters for provider-side prompt caching. Each model call records its
+ * input tokens, the tokens read from and written to the provider's prompt cache, and its
+ * latency. Latency is split by hit and miss so the effect of caching on response time
+ * can be compared directly.
+ *
+ * Providers that do not report cache usage record 0 cached tokens, which shows up as a
+ * 0% hit rate rather than missing data.
+ */
+public class PromptCacheMetrics {
+
+    private static final Map<String, PromptCacheMetrics> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String provider;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong inputTokens = new AtomicLong();
+    private final AtomicLong cacheReadTokens = new AtomicLong();
+    private final AtomicLong cacheWriteTokens = new AtomicLong();
+    private final AtomicLong hitLatencyMillis = new AtomicLong();
+    private final AtomicLong missLatencyMillis = new AtomicLong();
+
+    PromptCacheMetrics(String provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * @param provider Provider name, e.g. "gemini", "anthropic" or "bedrock"
+     * @return The shared metrics for the provider
+     */
+    public static PromptCacheMetrics forProvider(String provider) {
+        return REGISTRY.computeIfAbsent(provider, PromptCacheMetrics::new);
+    }
+
+    /**
+     * @return Stats of every provider that has recorded a call, keyed by provider
+     */
+    public static Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        for (PromptCacheMetrics metrics : REGISTRY.values()) {
+            snapshot.put(metrics.provider, metrics.getStats());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Records one model call
+     *
+     * @param inputTokens Uncached input tokens billed for the call
+     * @param cacheReadTokens Input tokens served from the prompt cache
+     * @param cacheWriteTokens Input tokens written to the prompt cache
+     * @param latencyMillis Time until the response was received
+     */
+    public void record(long inputTokens, long cacheReadTokens, long cacheWriteTokens, long latencyMillis) {
+        requests.incrementAndGet();
+        this.inputTokens.addAndGet(Math.max(0, inputTokens));
+        this.cacheReadTokens.addAndGet(Math.max(0, cacheReadTokens));
+        this.cacheWriteTokens.addAndGet(Math.max(0, cacheWriteTokens));
+        if (cacheReadTokens > 0) {
+            cacheHits.incrementAndGet();
+            hitLatencyMillis.addAndGet(latencyMillis);
+        } else {
+            missLatencyMillis.addAndGet(latencyMillis);
+        }
+    }
+
+    /**
+     * @return Fraction of calls that read from the prompt cache
+     */
+    public double getHitRate() {
+        long total = requests.get();
+        return total == 0 ? 0.0 : (double) cacheHits.get() / total;
+    }
+
+    /**
+     * @return Fraction of all input tokens that were served from the prompt cache
+     */
+    public double getCachedTokenRatio() {
+        long cached = cacheReadTokens.get();
+        long total = cached + cacheWriteTokens.get() + inputTokens.get();
+        return total == 0 ? 0.0 : (double) cached / total;
+    }
+
+    /**
+     * @return Snapshot of the counters
+     */
+    public Map<String, Object> getStats() {
+        long hits = cacheHits.get();
+        long misses = requests.get() - hits;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("cacheHits", hits);
+        stats.put("hitRate", getHitRate());
+        stats.put("inputTokens", inputTokens.get());
+        stats.put("cacheReadTokens", cacheReadTokens.get());
+        stats.put("cacheWriteTokens", cacheWriteTokens.get());
+        stats.put("cachedTokenRatio", getCachedTokenRatio());
+        stats.put("avgHitLatencyMillis", hits == 0 ? 0.0 : (double) hitLatencyMillis.get() / hits);
+        stats.put("avgMissLatencyMillis", misses == 0 ? 0.0 : (double) missLatencyMillis.get() / misses);
+        return stats;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+}
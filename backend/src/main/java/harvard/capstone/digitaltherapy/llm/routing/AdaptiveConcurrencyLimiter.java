@@ -0,0 +1,119 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdaptiveConcurrencyLimiter
+ *
+ * AIMD limit on concurrent calls to one model endpoint. Each call that completes in time
+ * grows the limit by 1/limit (about +1 per round of calls); a failure or a call slower
+ * than the congestion threshold multiplies it by the backoff ratio. When the provider
+ * slows down the limit shrinks quickly, so new callers are turned away instead of piling
+ * more blocking calls onto it.
+ *
+ * Callers wait at most a short, bounded time for a slot and then fail fast.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long slowCallMillis;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+
+    private long acquired;
+    private long rejected;
+    private long congestionEvents;
+    private int peakInFlight;
+
+    /**
+     * Constructor
+     *
+     * @param initialLimit Starting concurrency limit
+     * @param minLimit Lowest the limit can shrink to
+     * @param maxLimit Highest the limit can grow to
+     * @param slowCallMillis Calls slower than this count as congestion
+     * @param backoffRatio Factor applied to the limit on congestion, between 0 and 1
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long slowCallMillis,
+                                      double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.slowCallMillis = slowCallMillis;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Takes a slot, waiting up to the given time for one to free up
+     *
+     * @param maxWaitMillis Longest time to wait for a slot
+     * @return True if a slot was taken; the caller must then call {@link #release}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean acquire(long maxWaitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        while (inFlight >= (int) limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                rejected++;
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        inFlight++;
+        acquired++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        return true;
+    }
+
+    /**
+     * Frees a slot and adjusts the limit from the call's outcome
+     *
+     * @param latencyMillis How long the call took
+     * @param success False if the call failed
+     */
+    public synchronized void release(long latencyMillis, boolean success) {
+        inFlight--;
+        if (!success || latencyMillis > slowCallMillis) {
+            congestionEvents++;
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight * 2 >= (int) limit) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return Snapshot of the limiter state
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("limit", (int) limit);
+        stats.put("inFlight", inFlight);
+        stats.put("peakInFlight", peakInFlight);
+        stats.put("acquired", acquired);
+        stats.put("rejected", rejected);
+        stats.put("congestionEvents", congestionEvents);
+        return stats;
+    }
+}
@@ -0,0 +1,182 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * CircuitBreaker
+ *
+ * Count-based circuit breaker for one model endpoint.
+ *
+ * - CLOSED: calls pass; the outcomes of the last {@code windowSize} calls are kept and the
+ *   breaker opens once at least {@code minimumCalls} were seen and the failure rate
+ *   reaches the threshold.
+ * - OPEN: calls are rejected until the open duration has passed.
+ * - HALF_OPEN: a limited number of probe calls pass. If they all succeed the breaker
+ *   closes with a fresh window; any failure opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failuresInWindow;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    private long rejected;
+    private long timesOpened;
+
+    /**
+     * Constructor using the system clock
+     *
+     * @param windowSize Number of recent calls considered
+     * @param minimumCalls Calls needed in the window before the breaker can open
+     * @param failureRateThreshold Failure rate (0-1) that opens the breaker
+     * @param openMillis Time the breaker stays open before probing
+     * @param halfOpenProbes Probe calls allowed while half-open
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis,
+                          int halfOpenProbes) {
+        this(windowSize, minimumCalls, failureRateThreshold, openMillis, halfOpenProbes, System::nanoTime);
+    }
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis,
+                   int halfOpenProbes, LongSupplier clock) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize || halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker configuration");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * Asks to send a call
+     *
+     * @return True if the call may go ahead; the caller must then report its outcome
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                rejected++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                rejected++;
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a permission that was not used for a call
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (++probeSuccesses >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && (double) failuresInWindow / recorded >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        // Report HALF_OPEN as soon as the open period has passed, even before the next call
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * @return Snapshot of the breaker state
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", getState().name());
+        stats.put("failureRate", recorded == 0 ? 0.0 : (double) failuresInWindow / recorded);
+        stats.put("callsInWindow", recorded);
+        stats.put("rejected", rejected);
+        stats.put("timesOpened", timesOpened);
+        return stats;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            if (outcomes[next]) {
+                failuresInWindow--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failuresInWindow++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        timesOpened++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failuresInWindow = 0;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+    }
+}
@@ -0,0 +1,67 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EndpointGuards
+ *
+ * Concurrency limiters and circuit breakers by endpoint name. Every worker that talks to
+ * the same provider/model shares the shared registry, so the limit reflects the total
+ * load this node puts on the endpoint rather than one worker's share of it.
+ */
+public class EndpointGuards {
+
+    private static final EndpointGuards SHARED = new EndpointGuards();
+
+    private static final int INITIAL_LIMIT = 10;
+    private static final int MIN_LIMIT = 1;
+    private static final int MAX_LIMIT = 64;
+    private static final long SLOW_CALL_MILLIS = 8000;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private static final int BREAKER_WINDOW = 20;
+    private static final int BREAKER_MINIMUM_CALLS = 10;
+    private static final double BREAKER_FAILURE_RATE = 0.5;
+    private static final long BREAKER_OPEN_MILLIS = 30_000;
+    private static final int BREAKER_HALF_OPEN_PROBES = 2;
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * @return Guards shared by all routers on this node
+     */
+    public static EndpointGuards shared() {
+        return SHARED;
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(String endpointName) {
+        return limiters.computeIfAbsent(endpointName, name -> new AdaptiveConcurrencyLimiter(
+                INITIAL_LIMIT, MIN_LIMIT, MAX_LIMIT, SLOW_CALL_MILLIS, BACKOFF_RATIO));
+    }
+
+    public CircuitBreaker circuitBreaker(String endpointName) {
+        return breakers.computeIfAbsent(endpointName, name -> new CircuitBreaker(
+                BREAKER_WINDOW, BREAKER_MINIMUM_CALLS, BREAKER_FAILURE_RATE, BREAKER_OPEN_MILLIS,
+                BREAKER_HALF_OPEN_PROBES));
+    }
+
+    /**
+     * @return Limiter and breaker state per endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        for (Map.Entry<String, AdaptiveConcurrencyLimiter> entry : limiters.entrySet()) {
+            Map<String, Object> endpoint = new TreeMap<>();
+            endpoint.put("limiter", entry.getValue().getStats());
+            CircuitBreaker breaker = breakers.get(entry.getKey());
+            if (breaker != null) {
+                endpoint.put("circuitBreaker", breaker.getStats());
+            }
+            stats.put(entry.getKey(), endpoint);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,355 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import harvard.capstone.digitaltherapy.llm.prompt.CachedPromptChatModels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HedgingChatRouter
+ *
+ * Routes a chat call to the fastest known endpoint and, if it has not answered by the
+ * call type's hedge threshold, sends a duplicate request to the next endpoint and returns
+ * whichever answer arrives first.
+ *
+ * - Latency is tracked per endpoint and call type over a rolling window. Once an endpoint
+ *   has enough samples its p50 decides the routing order and its p95 is the hedge
+ *   threshold, so only the slowest ~5% of calls are duplicated.
+ * - Until then the configured threshold for the call type is used.
+ * - With a single endpoint the hedge is a duplicate to the same model, which still cuts
+ *   the tail when stalls are per request rather than per provider.
+ * - If the first attempt fails before the threshold, the next endpoint is tried at once.
+ *
+ * The losing attempt is not interrupted (the HTTP clients do not reliably honour it); its
+ * result is discarded and its latency still recorded, which keeps the percentiles honest.
+ *
+ * Every attempt passes the endpoint's circuit breaker and adaptive concurrency limiter
+ * first. Rejected attempts fail fast with {@link LlmUnavailableException}; endpoints with
+ * an open breaker are ranked last, and a saturated limiter also turns hedges away, so
+ * hedging backs off by itself under load. {@link #chatOrFallback} degrades to a canned
+ * answer when no endpoint accepts the call.
+ */
+public class HedgingChatRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingChatRouter.class);
+
+    static final int MIN_SAMPLES = 20;
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 2000;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 250;
+    // Longest a caller queues for a concurrency slot before failing fast
+    private static final long MAX_QUEUE_WAIT_MILLIS = 100;
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "llm-router");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String primaryProvider;
+    private final String primaryModelName;
+    private final List<ModelEndpoint> alternates;
+    private final Executor executor;
+    private final EndpointGuards guards;
+    private final long defaultHedgeDelayMillis;
+    private final Map<String, Long> hedgeDelayByCallType = new ConcurrentHashMap<>();
+
+    // Endpoint for the caller's model; replaced if the caller starts passing a different instance
+    private volatile ModelEndpoint primary;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong degraded = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param primaryProvider Provider of the models passed to {@link #chat}
+     * @param primaryModelName Model name of the models passed to {@link #chat}
+     * @param alternates Other endpoints that can serve the same calls
+     * @param executor Executor running the model calls
+     * @param guards Registry providing the primary endpoint's limiter and circuit breaker
+     * @param defaultHedgeDelayMillis Hedge threshold used until latency data is available
+     */
+    public HedgingChatRouter(String primaryProvider, String primaryModelName, List<ModelEndpoint> alternates,
+                             Executor executor, EndpointGuards guards, long defaultHedgeDelayMillis) {
+        this.primaryProvider = primaryProvider;
+        this.primaryModelName = primaryModelName;
+        this.alternates = new ArrayList<>(alternates);
+        this.executor = executor;
+        this.guards = guards;
+        this.defaultHedgeDelayMillis = defaultHedgeDelayMillis;
+    }
+
+    /**
+     * Creates a router whose alternates are every other provider with an API key configured
+     *
+     * @param temperature Sampling temperature for the alternate models
+     * @param topP Nucleus sampling threshold for the alternate models
+     * @param maxOutputTokens Maximum response tokens for the alternate models
+     * @return The router
+     */
+    public static HedgingChatRouter forAvailableProviders(double temperature, double topP, int maxOutputTokens) {
+        String primaryProvider = CachedPromptChatModels.provider();
+        List<ModelEndpoint> alternates = new ArrayList<>();
+        for (String provider : new String[] {CachedPromptChatModels.GEMINI, CachedPromptChatModels.ANTHROPIC,
+                CachedPromptChatModels.OPENAI}) {
+            if (!provider.equals(primaryProvider) && CachedPromptChatModels.isConfigured(provider)) {
+                alternates.add(new ModelEndpoint(provider, CachedPromptChatModels.modelName(provider),
+                        CachedPromptChatModels.create(provider, temperature, topP, maxOutputTokens),
+                        EndpointGuards.shared()));
+            }
+        }
+        return new HedgingChatRouter(primaryProvider, CachedPromptChatModels.modelName(primaryProvider),
+                alternates, DEFAULT_EXECUTOR, EndpointGuards.shared(),
+                parseLong(System.getenv("LLM_HEDGE_DELAY_MS"), DEFAULT_HEDGE_DELAY_MILLIS));
+    }
+
+    /**
+     * Sets the hedge threshold used for a call type until enough latency data is available
+     *
+     * @param callType Kind of call
+     * @param delayMillis Threshold in milliseconds
+     */
+    public void setHedgeDelay(String callType, long delayMillis) {
+        hedgeDelayByCallType.put(callType, delayMillis);
+    }
+
+    /**
+     * Sends a chat call through the router
+     *
+     * @param callType Kind of call; latency and hedge thresholds are tracked per call type
+     * @param primaryModel The caller's own model
+     * @param messages Messages to send
+     * @return The first successful response
+     */
+    public ChatResponse chat(String callType, ChatLanguageModel primaryModel, List<ChatMessage> messages) {
+        requests.incrementAndGet();
+        List<ModelEndpoint> ranked = rank(callType, primaryFor(primaryModel));
+        ModelEndpoint first = ranked.get(0);
+        ModelEndpoint second = ranked.size() > 1 ? ranked.get(1) : first;
+        long hedgeDelay = hedgeDelayMillis(callType, first);
+
+        CompletableFuture<ChatResponse> firstAttempt = attempt(first, callType, messages);
+        try {
+            return firstAttempt.get(hedgeDelay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            hedgesSent.incrementAndGet();
+            logger.debug("{} call on {} exceeded {} ms, hedging to {}", callType, first.getName(), hedgeDelay,
+                    second.getName());
+            CompletableFuture<ChatResponse> hedge = attempt(second, callType, messages);
+            hedge.thenRun(() -> {
+                if (!firstAttempt.isDone() || firstAttempt.isCompletedExceptionally()) {
+                    hedgeWins.incrementAndGet();
+                }
+            });
+            return await(firstSuccess(firstAttempt, hedge));
+        } catch (ExecutionException e) {
+            if (ranked.size() < 2) {
+                failures.incrementAndGet();
+                throw unwrap(e.getCause());
+            }
+            failovers.incrementAndGet();
+            logger.warn("{} call on {} failed ({}), failing over to {}", callType, first.getName(),
+                    e.getCause().getMessage(), second.getName());
+            return await(attempt(second, callType, messages));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for " + callType + " response", e);
+        }
+    }
+
+    /**
+     * Sends a chat call through the router, answering with a canned response if every
+     * endpoint rejects it because of an open circuit breaker or a full concurrency limit
+     *
+     * @param callType Kind of call
+     * @param primaryModel The caller's own model
+     * @param messages Messages to send
+     * @param fallbackText Answer used when the call is rejected
+     * @return The model response, or the fallback
+     */
+    public ChatResponse chatOrFallback(String callType, ChatLanguageModel primaryModel, List<ChatMessage> messages,
+                                       String fallbackText) {
+        try {
+            return chat(callType, primaryModel, messages);
+        } catch (LlmUnavailableException e) {
+            degraded.incrementAndGet();
+            logger.warn("{} call degraded to fallback: {}", callType, e.getMessage());
+            return ChatResponse.builder().aiMessage(AiMessage.from(fallbackText)).build();
+        }
+    }
+
+    /**
+     * @return Router counters and per-endpoint latency, limiter and breaker state
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("hedgesSent", hedgesSent.get());
+        stats.put("hedgeWins", hedgeWins.get());
+        stats.put("failovers", failovers.get());
+        stats.put("failures", failures.get());
+        stats.put("rejections", rejections.get());
+        stats.put("degraded", degraded.get());
+        Map<String, Object> endpoints = new TreeMap<>();
+        ModelEndpoint current = primary;
+        if (current != null) {
+            endpoints.put(current.getName(), current.getStats());
+        }
+        for (ModelEndpoint alternate : alternates) {
+            endpoints.put(alternate.getName(), alternate.getStats());
+        }
+        stats.put("endpoints", endpoints);
+        return stats;
+    }
+
+    List<ModelEndpoint> rank(String callType, ModelEndpoint primaryEndpoint) {
+        List<ModelEndpoint> ranked = new ArrayList<>();
+        ranked.add(primaryEndpoint);
+        ranked.addAll(alternates);
+        // Stable sort: endpoints without enough data keep their configured order behind the primary
+        ranked.sort((a, b) -> Long.compare(rankKey(a, callType, a == primaryEndpoint),
+                rankKey(b, callType, b == primaryEndpoint)));
+        return ranked;
+    }
+
+    long hedgeDelayMillis(String callType, ModelEndpoint endpoint) {
+        LatencyTracker latency = endpoint.latency(callType);
+        if (latency.sampleCount() >= MIN_SAMPLES) {
+            return Math.max(MIN_HEDGE_DELAY_MILLIS, latency.p95());
+        }
+        return hedgeDelayByCallType.getOrDefault(callType, defaultHedgeDelayMillis);
+    }
+
+    private static long rankKey(ModelEndpoint endpoint, String callType, boolean isPrimary) {
+        if (endpoint.getCircuitBreaker().getState() == CircuitBreaker.State.OPEN) {
+            return Long.MAX_VALUE;
+        }
+        LatencyTracker latency = endpoint.latency(callType);
+        if (latency.sampleCount() >= MIN_SAMPLES) {
+            return latency.p50();
+        }
+        // Unmeasured alternates go after the primary but ahead of anything with an open breaker
+        return isPrimary ? 0 : Long.MAX_VALUE - 1;
+    }
+
+    private ModelEndpoint primaryFor(ChatLanguageModel model) {
+        ModelEndpoint current = primary;
+        if (current == null || current.getModel() != model) {
+            current = new ModelEndpoint(primaryProvider, primaryModelName, model, guards);
+            primary = current;
+        }
+        return current;
+    }
+
+    private CompletableFuture<ChatResponse> attempt(ModelEndpoint endpoint, String callType,
+                                                    List<ChatMessage> messages) {
+        return CompletableFuture.supplyAsync(() -> {
+            CircuitBreaker breaker = endpoint.getCircuitBreaker();
+            if (!breaker.tryAcquirePermission()) {
+                rejections.incrementAndGet();
+                throw new LlmUnavailableException("Circuit open for " + endpoint.getName());
+            }
+            AdaptiveConcurrencyLimiter limiter = endpoint.getLimiter();
+            boolean admitted;
+            try {
+                admitted = limiter.acquire(MAX_QUEUE_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                admitted = false;
+            }
+            if (!admitted) {
+                breaker.releasePermission();
+                rejections.incrementAndGet();
+                throw new LlmUnavailableException("Concurrency limit reached for " + endpoint.getName());
+            }
+
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                ChatResponse response = CachedPromptChatModels.chat(endpoint.getProvider(), endpoint.getModel(), messages);
+                success = true;
+                return response;
+            } finally {
+                long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+                limiter.release(latencyMillis, success);
+                if (success) {
+                    breaker.onSuccess();
+                    endpoint.latency(callType).record(latencyMillis);
+                } else {
+                    breaker.onFailure();
+                }
+            }
+        }, executor);
+    }
+
+    private static CompletableFuture<ChatResponse> firstSuccess(CompletableFuture<ChatResponse> a,
+                                                                CompletableFuture<ChatResponse> b) {
+        CompletableFuture<ChatResponse> result = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        for (CompletableFuture<ChatResponse> attempt : List.of(a, b)) {
+            attempt.whenComplete((response, error) -> {
+                if (error == null) {
+                    result.complete(response);
+                } else if (remaining.decrementAndGet() == 0) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+        return result;
+    }
+
+    private ChatResponse await(CompletableFuture<ChatResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            failures.incrementAndGet();
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof RuntimeException
+                ? (RuntimeException) error
+                : new IllegalStateException("LLM call failed: " + error.getMessage(), error);
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import java.util.Arrays;
+
+/**
+ * LatencyTracker
+ *
+ * Rolling window of the most recent call latencies, used to estimate p50 and p95 for
+ * one endpoint and call type. Old samples are overwritten, so the percentiles follow
+ * the provider's current behaviour rather than its lifetime average.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    /**
+     * Constructor
+     *
+     * @param windowSize Number of recent samples kept
+     */
+    public LatencyTracker(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        this.samples = new long[windowSize];
+    }
+
+    /**
+     * @param latencyMillis Latency of one completed call
+     */
+    public synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100
+     * @return Latency at the percentile in milliseconds, or -1 without samples
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    public long p50() {
+        return percentile(50);
+    }
+
+    public long p95() {
+        return percentile(95);
+    }
+
+    /**
+     * @return Number of samples in the window
+     */
+    public synchronized int sampleCount() {
+        return count;
+    }
+}
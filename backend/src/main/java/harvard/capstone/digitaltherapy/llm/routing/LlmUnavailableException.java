@@ -0,0 +1,11 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+/**
+ * Thrown when an LLM call is rejected without being sent, because the endpoint's circuit
+ * breaker is open or its concurrency limit is reached.
+ */
+public class LlmUnavailableException extends RuntimeException {
+    public LlmUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,110 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ModelEndpoint
+ *
+ * One provider/model pair the router can send calls to, with its latency tracked
+ * separately per call type (a 300-token therapist reply and a 3000-token synthesis do
+ * not share a latency profile), and the concurrency limiter and circuit breaker guarding
+ * calls to it.
+ */
+public class ModelEndpoint {
+
+    private static final int LATENCY_WINDOW = 200;
+
+    private final String provider;
+    private final String modelName;
+    private final ChatLanguageModel model;
+    private final Map<String, LatencyTracker> latencyByCallType = new ConcurrentHashMap<>();
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Constructor with guards of its own
+     *
+     * @param provider Provider name, used for prompt cache metrics
+     * @param modelName Model name
+     * @param model The chat model
+     */
+    public ModelEndpoint(String provider, String modelName, ChatLanguageModel model) {
+        this(provider, modelName, model, new EndpointGuards());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param provider Provider name, used for prompt cache metrics
+     * @param modelName Model name
+     * @param model The chat model
+     * @param guards Registry providing the endpoint's limiter and circuit breaker
+     */
+    public ModelEndpoint(String provider, String modelName, ChatLanguageModel model, EndpointGuards guards) {
+        this.provider = provider;
+        this.modelName = modelName;
+        this.model = model;
+        this.limiter = guards.limiter(getName());
+        this.circuitBreaker = guards.circuitBreaker(getName());
+    }
+
+    /**
+     * @param callType Kind of call, e.g. "therapist-reply"
+     * @return Latency tracker for the call type
+     */
+    public LatencyTracker latency(String callType) {
+        return latencyByCallType.computeIfAbsent(callType, type -> new LatencyTracker(LATENCY_WINDOW));
+    }
+
+    /**
+     * @return Endpoint name in the form provider:model
+     */
+    public String getName() {
+        return provider + ":" + modelName;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public ChatLanguageModel getModel() {
+        return model;
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return Latency per call type, limiter and circuit breaker state
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> latencyStats = new TreeMap<>();
+        for (Map.Entry<String, LatencyTracker> entry : latencyByCallType.entrySet()) {
+            LatencyTracker tracker = entry.getValue();
+            Map<String, Object> latency = new HashMap<>();
+            latency.put("p50Millis", tracker.p50());
+            latency.put("p95Millis", tracker.p95());
+            latency.put("samples", tracker.sampleCount());
+            latencyStats.put(entry.getKey(), latency);
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("latency", latencyStats);
+        stats.put("limiter", limiter.getStats());
+        stats.put("circuitBreaker", circuitBreaker.getStats());
+        return stats;
+    }
+}
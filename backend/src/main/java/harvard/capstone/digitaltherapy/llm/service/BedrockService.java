@@ -13,6 +13,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import harvard.capstone.digitaltherapy.llm.prompt.PromptCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,6 +38,11 @@ public class BedrockService {
     @Value("${bedrock.system-prompt:You are a helpful AI assistant powered by AWS Bedrock. Provide concise, accurate information in a friendly tone.}")
     public String systemPrompt;
 
+    // Marks the system prompt as a cacheable prefix; Nova reuses it across calls instead of re-reading it.
+    // Nova only caches prefixes of at least 1K tokens, so the short default prompt is never a hit.
+    @Value("${bedrock.prompt-cache.enabled:true}")
+    public boolean promptCacheEnabled = true;
+
     @Autowired
     public BedrockService(BedrockRuntimeClient bedrockRuntimeClient) {
         this.bedrockRuntimeClient = bedrockRuntimeClient;
@@ -81,15 +87,22 @@ public class BedrockService {
             inferenceConfig.put("max_new_tokens", 1000);
             requestBody.set("inferenceConfig", inferenceConfig);
 
+            // Nova Lite has no "system" message role, but takes the system prompt as a top-level
+            // block. Keeping it there (instead of prepended to the user text) makes it a stable
+            // prefix that can be followed by a cache point.
+            if (systemPrompt != null && !systemPrompt.isEmpty()) {
+                ArrayNode systemArray = objectMapper.createArrayNode();
+                systemArray.addObject().put("text", systemPrompt);
+                if (promptCacheEnabled) {
+                    systemArray.addObject().putObject("cachePoint").put("type", "default");
+                }
+                requestBody.set("system", systemArray);
+                logger.debug("Added system prompt (cache point: {})", promptCacheEnabled);
+            }
+
             // Create messages array
             ArrayNode messagesArray = objectMapper.createArrayNode();
-
-            // Since Nova Lite doesn't support "system" role, we'll prepend the system prompt to the user's message
             String userMessageText = prompt;
-            if (systemPrompt != null && !systemPrompt.isEmpty()) {
-                userMessageText = systemPrompt + "\n\n" + prompt;
-                logger.debug("Prepended system prompt to user message: '{}'", userMessageText);
-            }
 
             // Create user message
             ObjectNode userMessage = objectMapper.createObjectNode();
@@ -119,7 +132,9 @@ public class BedrockService {
 
             // Invoke the model
             logger.debug("Sending request to AWS Bedrock...");
+            long start = System.nanoTime();
             InvokeModelResponse response = bedrockRuntimeClient.invokeModel(invokeModelRequest);
+            long latencyMillis = (System.nanoTime() - start) / 1_000_000;
 
             // Parse the response
             String responseBody = response.body().asUtf8String();
@@ -127,6 +142,14 @@ public class BedrockService {
 
             JsonNode jsonNode = objectMapper.readTree(responseBody);
 
+            // Record prompt cache usage reported by Nova
+            JsonNode usage = jsonNode.path("usage");
+            PromptCacheMetrics.forProvider("bedrock").record(
+                    usage.path("inputTokens").asLong(),
+                    usage.path("cacheReadInputTokenCount").asLong(),
+                    usage.path("cacheWriteInputTokenCount").asLong(),
+                    latencyMillis);
+
             // Extract the generated text from Nova Lite's response format
             String responseText = "";
             if (jsonNode.has("output") && jsonNode.get("output").has("message")) {
@@ -10,6 +10,7 @@ package harvard.capstone.digitaltherapy.llm.service;
  * to be used by controllers or WebSocket handlers that manage end-to-end CBT session flows.
  */
 
+import harvard.capstone.digitaltherapy.utility.S3Utils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -31,13 +32,11 @@ public class LLMProcessingService {
         String prompt = s3Service.readTextFromS3(inputS3Path);
         String response = bedrockService.generateTextWithNovaLite(prompt);
         String outputPath = generateOutputPath(inputS3Path);
-        s3Service.writeTextToS3(outputPath, response);
-        String rootOutputPath ="s3://dta-root/"+ outputPath;
-        return rootOutputPath;
+        return s3Service.writeTextToS3(outputPath, response);
     }
 
     private String generateOutputPath(String inputPath) {
-        String outputPath= inputPath.replace("s3://dta-root/", "");
+        String outputPath= S3Utils.keyOf(inputPath);
         int dotIndex = outputPath.lastIndexOf('.');
         if (dotIndex > 0) {
             outputPath = outputPath.substring(0, dotIndex) + "-response.txt";
@@ -5,7 +5,7 @@ package harvard.capstone.digitaltherapy.llm.service;
  * to and from AWS S3 buckets. It abstracts low-level S3 interactions using S3Utils.
  *
  * It supports reading UTF-8 encoded text from S3 paths and writing generated content
- * (e.g., LLM responses) back to S3 using temporary files.
+ * (e.g., LLM responses) back to S3 directly from memory.
  *
  * This service is intended to be used by higher-level services that orchestrate
  * workflows involving S3, such as LLMProcessingService.
@@ -112,33 +112,18 @@ public class S3StorageService {
      *
      * @param s3Path S3 path in the format s3://bucket-name/path/to/file.txt
      * @param content The text content to write
+     * @return The URI of the written object
      * @throws IOException If there is an error writing the file
      * @throws IllegalArgumentException If the S3 path format is invalid
      */
-    public void writeTextToS3(String s3Path, String content) throws IOException {
+    public String writeTextToS3(String s3Path, String content) throws IOException {
         //validateS3Path(s3Path);
 
-        File tempFile = null;
         try {
-            tempFile = File.createTempFile("llm-output", ".txt");
-
-            try (Writer writer = new BufferedWriter(
-                    new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
-                writer.write(content);
-            }
-
-            s3Utils.uploadFile(tempFile.getAbsolutePath(), s3Path);
-
+            return s3Utils.uploadText(content, s3Path);
         } catch (RuntimeException e) {
             logger.error("Error writing text to S3: {}", e.getMessage());
             throw e;
-        } finally {
-            // Make sure we always try to delete the temp file
-            if (tempFile != null && tempFile.exists()) {
-                if (!tempFile.delete()) {
-                    logger.warn("Failed to delete temporary file: {}", tempFile.getAbsolutePath());
-                }
-            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CachingEmbeddingModel
+ *
+ * EmbeddingModel decorator that serves repeated texts from an {@link EmbeddingCache}
+ * and only sends cache misses to the wrapped model. Duplicate texts within one batch
+ * are embedded once.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingCache cache;
+
+    /**
+     * Constructor
+     *
+     * @param delegate The model used for cache misses
+     * @param cache The cache shared by this model
+     */
+    public CachingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        float[][] vectors = new float[textSegments.size()][];
+        Map<String, List<Integer>> missingPositions = new LinkedHashMap<>();
+        List<TextSegment> missingSegments = new ArrayList<>();
+
+        for (int i = 0; i < textSegments.size(); i++) {
+            TextSegment segment = textSegments.get(i);
+            String key = EmbeddingCache.keyFor(segment.text());
+            List<Integer> positions = missingPositions.get(key);
+            if (positions != null) {
+                // Same text already queued in this batch
+                positions.add(i);
+                continue;
+            }
+            float[] cached = cache.getByKey(key);
+            if (cached != null) {
+                vectors[i] = cached;
+                continue;
+            }
+            positions = new ArrayList<>();
+            positions.add(i);
+            missingPositions.put(key, positions);
+            missingSegments.add(segment);
+        }
+
+        if (!missingSegments.isEmpty()) {
+            List<Embedding> computed = delegate.embedAll(missingSegments).content();
+            int index = 0;
+            for (Map.Entry<String, List<Integer>> entry : missingPositions.entrySet()) {
+                float[] vector = computed.get(index++).vector();
+                cache.putByKey(entry.getKey(), vector);
+                for (int position : entry.getValue()) {
+                    vectors[position] = vector;
+                }
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(vectors.length);
+        for (float[] vector : vectors) {
+            embeddings.add(Embedding.from(vector));
+        }
+        return Response.from(embeddings);
+    }
+
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    /**
+     * @return The cache backing this model
+     */
+    public EmbeddingCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,259 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EmbeddingCache
+ *
+ * Bounded LRU cache of embedding vectors keyed by a SHA-256 hash of the normalized text.
+ * Normalization trims, collapses whitespace and lowercases, which is safe for uncased
+ * models such as all-MiniLM-L6-v2.
+ *
+ * Vectors are kept either as heap float arrays or, in off-heap mode, in a single
+ * preallocated direct buffer split into fixed-size slots. In off-heap mode the heap only
+ * holds the keys and slot numbers, so cached vectors add no GC pressure.
+ */
+public class EmbeddingCache {
+
+    private final int maxEntries;
+    private final boolean offHeap;
+
+    // Access-ordered map: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private ByteBuffer slab;
+    private int dimension;
+    private int slotBytes;
+    private int nextSlot;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries Maximum number of cached vectors
+     * @param offHeap Whether vectors are kept in a direct buffer instead of on the heap
+     */
+    public EmbeddingCache(int maxEntries, boolean offHeap) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Looks up the vector cached for a text
+     *
+     * @param text The text that was embedded
+     * @return A copy of the cached vector, or null if not cached
+     */
+    public float[] get(String text) {
+        return getByKey(keyFor(text));
+    }
+
+    /**
+     * Looks up the vector cached under a precomputed key
+     *
+     * @param key Key returned by {@link #keyFor(String)}
+     * @return A copy of the cached vector, or null if not cached
+     */
+    public synchronized float[] getByKey(String key) {
+        Object entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        if (entry instanceof float[]) {
+            return ((float[]) entry).clone();
+        }
+        return readSlot((Integer) entry);
+    }
+
+    /**
+     * Caches the vector for a text
+     *
+     * @param text The text that was embedded
+     * @param vector The embedding vector
+     */
+    public void put(String text, float[] vector) {
+        putByKey(keyFor(text), vector);
+    }
+
+    /**
+     * Caches a vector under a precomputed key, evicting the least recently used entry if full
+     *
+     * @param key Key returned by {@link #keyFor(String)}
+     * @param vector The embedding vector
+     */
+    public synchronized void putByKey(String key, float[] vector) {
+        if (entries.containsKey(key)) {
+            return;
+        }
+        if (!offHeap) {
+            if (entries.size() >= maxEntries) {
+                evictEldest();
+            }
+            entries.put(key, vector.clone());
+            return;
+        }
+
+        if (slab == null) {
+            int capacity = checkCapacity(vector.length);
+            dimension = vector.length;
+            slotBytes = dimension * Float.BYTES;
+            slab = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        }
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Expected dimension " + dimension + " but got " + vector.length);
+        }
+        if (entries.size() >= maxEntries) {
+            evictEldest();
+        }
+        int slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+        writeSlot(slot, vector);
+        entries.put(key, slot);
+    }
+
+    /**
+     * Checks that vectors of a dimension fit the off-heap slab. A direct buffer is indexed by
+     * int, so maxEntries vectors must fit in 2 GiB.
+     *
+     * @param dimension The embedding dimension
+     * @return The slab size in bytes
+     * @throws IllegalArgumentException if the slab would be too large
+     */
+    public int checkCapacity(int dimension) {
+        long capacity = (long) maxEntries * dimension * Float.BYTES;
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap embedding cache of " + maxEntries
+                    + " vectors of dimension " + dimension + " needs " + capacity
+                    + " bytes, more than the " + Integer.MAX_VALUE + " a direct buffer can hold;"
+                    + " lower EMBEDDING_CACHE_SIZE or set EMBEDDING_CACHE_OFF_HEAP=false");
+        }
+        return (int) capacity;
+    }
+
+    /**
+     * Builds the cache key for a text
+     *
+     * @param text The text to key
+     * @return Hex encoded SHA-256 of the normalized text
+     */
+    public static String keyFor(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(normalize(text).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Normalizes text before hashing
+     *
+     * @param text The raw text
+     * @return Trimmed, whitespace-collapsed, lowercased text
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return Fraction of lookups served from the cache, 0 if no lookups yet
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : h / (double) total;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @return Snapshot of the cache counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("offHeap", offHeap);
+        stats.put("hits", getHits());
+        stats.put("misses", getMisses());
+        stats.put("evictions", getEvictions());
+        stats.put("hitRate", getHitRate());
+        return stats;
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<String, Object>> iterator = entries.entrySet().iterator();
+        if (!iterator.hasNext()) {
+            return;
+        }
+        Object eldest = iterator.next().getValue();
+        iterator.remove();
+        if (eldest instanceof Integer) {
+            freeSlots.push((Integer) eldest);
+        }
+        evictions.incrementAndGet();
+    }
+
+    // Offsets stay below the slab capacity, which was checked to fit in an int
+    private void writeSlot(int slot, float[] vector) {
+        int base = slot * slotBytes;
+        for (int i = 0; i < dimension; i++) {
+            slab.putFloat(base + i * Float.BYTES, vector[i]);
+        }
+    }
+
+    private float[] readSlot(int slot) {
+        float[] vector = new float[dimension];
+        int base = slot * slotBytes;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = slab.getFloat(base + i * Float.BYTES);
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,296 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * InterventionSnapshot
+ *
+ * Read-only, memory-mapped snapshot of a pre-embedded CBT intervention corpus, written
+ * offline by {@link InterventionSnapshotBuilder} so the service does not have to run the
+ * embedding model over the corpus at startup.
+ *
+ * File layout (little-endian):
+ * - header: magic "DTIS", format version, dimension, entry count
+ * - vectors: count * dimension float32 values, L2-normalized
+ * - metadata: per entry, length-prefixed UTF-8 id, text and comma separated distortions
+ *
+ * The vector block is searched in place from the mapping; only the (small) metadata
+ * block is decoded onto the heap.
+ */
+public class InterventionSnapshot {
+
+    private static final int MAGIC = 0x53495444; // "DTIS" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final int dimension;
+    private final FloatBuffer vectors;
+    private final List<Entry> entries;
+
+    private InterventionSnapshot(int dimension, FloatBuffer vectors, List<Entry> entries) {
+        this.dimension = dimension;
+        this.vectors = vectors;
+        this.entries = entries;
+    }
+
+    /**
+     * Writes a snapshot file
+     *
+     * @param file Output file
+     * @param entries Corpus entries
+     * @param vectors One embedding per entry, in the same order
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, List<Entry> entries, List<float[]> vectors) throws IOException {
+        if (entries.size() != vectors.size()) {
+            throw new IllegalArgumentException("Expected one vector per entry");
+        }
+        int dimension = vectors.isEmpty() ? 0 : vectors.get(0).length;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(entries.size());
+
+        ByteBuffer vectorBlock = ByteBuffer.allocate(entries.size() * dimension * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (float[] vector : vectors) {
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("All vectors must have dimension " + dimension);
+            }
+            for (float value : normalize(vector)) {
+                vectorBlock.putFloat(value);
+            }
+        }
+
+        ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+        DataOutputStream metadata = new DataOutputStream(metadataBytes);
+        for (Entry entry : entries) {
+            writeString(metadata, entry.getId());
+            writeString(metadata, entry.getText());
+            writeString(metadata, String.join(",", entry.getDistortions()));
+        }
+        metadata.flush();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(header.array());
+            out.write(vectorBlock.array());
+            out.write(metadataBytes.toByteArray());
+        }
+    }
+
+    /**
+     * Memory-maps a snapshot file
+     *
+     * @param file The snapshot file
+     * @return The loaded snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static InterventionSnapshot open(Path file) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mapped.remaining() < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not an intervention snapshot: " + file);
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + mapped.getInt(4) + " in " + file);
+        }
+        int dimension = mapped.getInt(8);
+        int count = mapped.getInt(12);
+
+        int vectorBytes = count * dimension * Float.BYTES;
+        ByteBuffer vectorSlice = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        vectorSlice.position(HEADER_BYTES).limit(HEADER_BYTES + vectorBytes);
+        FloatBuffer vectors = vectorSlice.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+
+        ByteBuffer metadata = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        metadata.position(HEADER_BYTES + vectorBytes);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = readString(metadata);
+            String text = readString(metadata);
+            String distortions = readString(metadata);
+            entries.add(new Entry(id, text, distortions.isEmpty()
+                    ? Collections.emptyList()
+                    : Arrays.asList(distortions.split(","))));
+        }
+        return new InterventionSnapshot(dimension, vectors, Collections.unmodifiableList(entries));
+    }
+
+    /**
+     * Memory-maps a snapshot from the classpath. Resources inside a jar are copied to a
+     * temporary file first, since only real files can be mapped.
+     *
+     * @param resource Classpath resource name
+     * @return The loaded snapshot, or null if the resource does not exist
+     * @throws IOException if the resource cannot be read
+     */
+    public static InterventionSnapshot openResource(String resource) throws IOException {
+        ClassLoader loader = InterventionSnapshot.class.getClassLoader();
+        URL url = loader.getResource(resource);
+        if (url == null) {
+            return null;
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return open(Path.of(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid snapshot location " + url, e);
+            }
+        }
+        Path copy = Files.createTempFile("intervention-snapshot-", ".bin");
+        copy.toFile().deleteOnExit();
+        try (InputStream in = url.openStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return open(copy);
+    }
+
+    /**
+     * Finds the entries closest to a query vector
+     *
+     * @param query Query embedding
+     * @param maxResults Maximum number of results
+     * @param minCosine Minimum cosine similarity for a result
+     * @return Matches ordered by descending similarity
+     */
+    public List<Match> search(float[] query, int maxResults, double minCosine) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Expected dimension " + dimension + " but got " + query.length);
+        }
+        float[] normalized = normalize(query);
+        PriorityQueue<Match> top = new PriorityQueue<>(
+                (a, b) -> Double.compare(a.getCosine(), b.getCosine()));
+        for (int i = 0; i < entries.size(); i++) {
+            int base = i * dimension;
+            double dot = 0;
+            for (int d = 0; d < dimension; d++) {
+                dot += normalized[d] * vectors.get(base + d);
+            }
+            if (dot < minCosine) {
+                continue;
+            }
+            top.offer(new Match(entries.get(i), dot));
+            if (top.size() > maxResults) {
+                top.poll();
+            }
+        }
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort((a, b) -> Double.compare(b.getCosine(), a.getCosine()));
+        return matches;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        // Little-endian length prefix to match the rest of the file
+        out.writeInt(Integer.reverseBytes(bytes.length));
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm == 0 ? 0f : (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    /**
+     * A corpus entry
+     */
+    public static final class Entry {
+        private final String id;
+        private final String text;
+        private final List<String> distortions;
+
+        public Entry(String id, String text, List<String> distortions) {
+            this.id = id;
+            this.text = text;
+            this.distortions = distortions == null ? Collections.emptyList() : distortions;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public List<String> getDistortions() {
+            return distortions;
+        }
+    }
+
+    /**
+     * A search result with its cosine similarity
+     */
+    public static final class Match {
+        private final Entry entry;
+        private final double cosine;
+
+        public Match(Entry entry, double cosine) {
+            this.entry = entry;
+            this.cosine = cosine;
+        }
+
+        public Entry getEntry() {
+            return entry;
+        }
+
+        public double getCosine() {
+            return cosine;
+        }
+    }
+}
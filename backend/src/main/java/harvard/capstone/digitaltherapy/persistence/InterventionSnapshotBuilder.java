@@ -0,0 +1,106 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * InterventionSnapshotBuilder
+ *
+ * Offline tool that embeds the CBT intervention corpus (one JSON object per line with
+ * "id", "text" and "distortions") and writes an {@link InterventionSnapshot}.
+ *
+ * Runs in the prepare-package phase of Maven builds (skip with
+ * -Dintervention-snapshot.skip=true), or directly:
+ * InterventionSnapshotBuilder [corpus.jsonl] [output.snapshot]
+ * An output newer than the corpus is left as it is, so repeated packaging does not
+ * load the embedding model again.
+ */
+public class InterventionSnapshotBuilder {
+
+    static final String DEFAULT_CORPUS = "src/main/resources/interventions/cbt-interventions.jsonl";
+    static final String DEFAULT_OUTPUT = "target/classes/interventions/cbt-interventions.snapshot";
+
+    private static final int BATCH_SIZE = 32;
+
+    public static void main(String[] args) throws IOException {
+        Path corpus = Path.of(args.length > 0 ? args[0] : DEFAULT_CORPUS);
+        Path output = Path.of(args.length > 1 ? args[1] : DEFAULT_OUTPUT);
+
+        if (isUpToDate(corpus, output)) {
+            System.out.println("Intervention snapshot " + output + " is up to date");
+            return;
+        }
+        List<InterventionSnapshot.Entry> entries = readCorpus(corpus);
+        build(entries, new AllMiniLmL6V2EmbeddingModel(), output);
+        System.out.println("Wrote " + entries.size() + " interventions to " + output);
+    }
+
+    /**
+     * @return True if the snapshot exists and was written after the corpus last changed
+     */
+    static boolean isUpToDate(Path corpus, Path output) throws IOException {
+        return Files.isRegularFile(output)
+                && Files.getLastModifiedTime(output).compareTo(Files.getLastModifiedTime(corpus)) >= 0;
+    }
+
+    /**
+     * Embeds the entries and writes the snapshot
+     *
+     * @param entries Corpus entries
+     * @param embeddingModel Model used to embed the entry texts
+     * @param output Snapshot file to write
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void build(List<InterventionSnapshot.Entry> entries, EmbeddingModel embeddingModel, Path output)
+            throws IOException {
+        List<float[]> vectors = new ArrayList<>(entries.size());
+        for (int start = 0; start < entries.size(); start += BATCH_SIZE) {
+            List<TextSegment> batch = new ArrayList<>();
+            for (InterventionSnapshot.Entry entry : entries.subList(start, Math.min(start + BATCH_SIZE, entries.size()))) {
+                batch.add(TextSegment.from(entry.getText()));
+            }
+            for (Embedding embedding : embeddingModel.embedAll(batch).content()) {
+                vectors.add(embedding.vector());
+            }
+        }
+        InterventionSnapshot.write(output, entries, vectors);
+    }
+
+    /**
+     * Reads a JSON lines corpus file
+     *
+     * @param corpus The corpus file
+     * @return Parsed entries, blank lines skipped
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static List<InterventionSnapshot.Entry> readCorpus(Path corpus) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<InterventionSnapshot.Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(corpus, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node = mapper.readTree(line);
+            List<String> distortions = new ArrayList<>();
+            for (JsonNode distortion : node.path("distortions")) {
+                distortions.add(distortion.asText());
+            }
+            entries.add(new InterventionSnapshot.Entry(
+                    node.path("id").asText(),
+                    node.path("text").asText(),
+                    distortions));
+        }
+        return entries;
+    }
+}
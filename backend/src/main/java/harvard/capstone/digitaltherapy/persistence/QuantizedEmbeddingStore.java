@@ -0,0 +1,288 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * QuantizedEmbeddingStore
+ *
+ * EmbeddingStore backed by a {@link QuantizedVectorIndex}, so it can be dropped in
+ * wherever an InMemoryEmbeddingStore is used. Searches run over int8 and/or binary
+ * codes and the surviving candidates are rescored with the full-precision vectors.
+ * Scores, minScore and metadata filters behave like the in-memory store.
+ *
+ * Removal tombstones the slot in the index; {@link #compact()} reclaims the space and
+ * renumbers the slots held by this store.
+ */
+public class QuantizedEmbeddingStore implements EmbeddingStore<TextSegment> {
+
+    private final VectorStorageMode mode;
+    private final int rescoreMultiplier;
+
+    private volatile QuantizedVectorIndex index;
+    private final Map<String, Integer> slotsById = new ConcurrentHashMap<>();
+    private final Map<Integer, String> idsBySlot = new ConcurrentHashMap<>();
+    private final Map<Integer, TextSegment> segmentsBySlot = new ConcurrentHashMap<>();
+    // Held for writing while slots are renumbered, so searches never see a half-remapped store
+    private final ReentrantReadWriteLock compactionLock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor
+     *
+     * @param mode Storage mode used for the searchable codes
+     * @param rescoreMultiplier Candidates kept per requested result before full-precision rescoring
+     */
+    public QuantizedEmbeddingStore(VectorStorageMode mode, int rescoreMultiplier) {
+        this.mode = mode;
+        this.rescoreMultiplier = rescoreMultiplier;
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding, null);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        add(id, embedding, null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding, textSegment);
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = new ArrayList<>();
+        for (Embedding embedding : embeddings) {
+            ids.add(add(embedding));
+        }
+        return ids;
+    }
+
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> textSegments) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < embeddings.size(); i++) {
+            ids.add(add(embeddings.get(i), textSegments.get(i)));
+        }
+        return ids;
+    }
+
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> textSegments) {
+        for (int i = 0; i < embeddings.size(); i++) {
+            add(ids.get(i), embeddings.get(i), textSegments == null ? null : textSegments.get(i));
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        compactionLock.readLock().lock();
+        try {
+            return searchIndex(request);
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        compactionLock.readLock().lock();
+        try {
+            for (String id : ids) {
+                Integer slot = slotsById.remove(id);
+                if (slot != null) {
+                    idsBySlot.remove(slot);
+                    segmentsBySlot.remove(slot);
+                    index.delete(slot);
+                }
+            }
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reclaims the space held by removed vectors and renumbers the remaining slots
+     *
+     * @return Number of slots reclaimed
+     */
+    public int compact() {
+        compactionLock.writeLock().lock();
+        try {
+            QuantizedVectorIndex current = index;
+            if (current == null || current.deletedCount() == 0) {
+                return 0;
+            }
+            int[] remap = current.compact();
+            Map<Integer, String> ids = new HashMap<>(idsBySlot);
+            Map<Integer, TextSegment> segments = new HashMap<>(segmentsBySlot);
+            idsBySlot.clear();
+            segmentsBySlot.clear();
+            int reclaimed = 0;
+            for (int oldSlot = 0; oldSlot < remap.length; oldSlot++) {
+                int newSlot = remap[oldSlot];
+                if (newSlot < 0) {
+                    reclaimed++;
+                    continue;
+                }
+                String id = ids.get(oldSlot);
+                if (id != null) {
+                    idsBySlot.put(newSlot, id);
+                    slotsById.put(id, newSlot);
+                }
+                TextSegment segment = segments.get(oldSlot);
+                if (segment != null) {
+                    segmentsBySlot.put(newSlot, segment);
+                }
+            }
+            return reclaimed;
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    private EmbeddingSearchResult<TextSegment> searchIndex(EmbeddingSearchRequest request) {
+        QuantizedVectorIndex current = index;
+        if (current == null) {
+            return new EmbeddingSearchResult<>(new ArrayList<>());
+        }
+
+        Filter filter = request.filter();
+        List<QuantizedVectorIndex.Hit> hits = current.search(
+                request.queryEmbedding().vector(),
+                request.maxResults(),
+                slot -> {
+                    if (!idsBySlot.containsKey(slot)) {
+                        return false;
+                    }
+                    if (filter == null) {
+                        return true;
+                    }
+                    TextSegment segment = segmentsBySlot.get(slot);
+                    return segment != null && filter.test(segment.metadata());
+                });
+
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+        for (QuantizedVectorIndex.Hit hit : hits) {
+            double score = RelevanceScore.fromCosineSimilarity(hit.getScore());
+            if (score < request.minScore()) {
+                continue;
+            }
+            matches.add(new EmbeddingMatch<>(
+                    score,
+                    idsBySlot.get(hit.getSlot()),
+                    Embedding.from(current.vector(hit.getSlot())),
+                    segmentsBySlot.get(hit.getSlot())));
+        }
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    /**
+     * @return The storage mode of this store
+     */
+    public VectorStorageMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return Number of vectors currently stored
+     */
+    public int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * @return Number of removed vectors still occupying slots until the next compaction
+     */
+    public int deletedCount() {
+        QuantizedVectorIndex current = index;
+        return current == null ? 0 : current.deletedCount();
+    }
+
+    /**
+     * @return Heap bytes per vector spent on searchable codes
+     */
+    public int heapBytesPerVector() {
+        QuantizedVectorIndex current = index;
+        return current == null ? 0 : current.heapBytesPerVector();
+    }
+
+    /**
+     * Reads back the full-precision vector stored under an ID
+     *
+     * @param id The embedding ID
+     * @return A normalized copy of the vector, or null if the ID is not stored
+     */
+    public float[] vector(String id) {
+        compactionLock.readLock().lock();
+        try {
+            Integer slot = slotsById.get(id);
+            return slot == null ? null : index.vector(slot);
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Off-heap bytes per vector spent on full-precision copies
+     */
+    public int offHeapBytesPerVector() {
+        QuantizedVectorIndex current = index;
+        return current == null ? 0 : current.offHeapBytesPerVector();
+    }
+
+    private void add(String id, Embedding embedding, TextSegment textSegment) {
+        compactionLock.readLock().lock();
+        try {
+            QuantizedVectorIndex current = indexFor(embedding.dimension());
+            int slot = current.add(embedding.vector());
+            if (textSegment != null) {
+                segmentsBySlot.put(slot, textSegment);
+            }
+            idsBySlot.put(slot, id);
+            Integer previous = slotsById.put(id, slot);
+            if (previous != null) {
+                // Re-adding an id replaces the earlier vector
+                idsBySlot.remove(previous);
+                segmentsBySlot.remove(previous);
+                current.delete(previous);
+            }
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    private QuantizedVectorIndex indexFor(int dimension) {
+        QuantizedVectorIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new QuantizedVectorIndex(dimension, mode, rescoreMultiplier);
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+}
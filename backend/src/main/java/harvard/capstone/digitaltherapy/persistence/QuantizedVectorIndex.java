@@ -0,0 +1,615 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * QuantizedVectorIndex
+ *
+ * Flat (brute force) cosine index over fixed-dimension vectors, addressed by slot number.
+ * Depending on the {@link VectorStorageMode} the searchable codes kept on the heap are
+ * full floats, int8 scalar quantized codes, binary sign codes, or int8 + binary codes.
+ *
+ * In the quantized modes a search first ranks all vectors by their codes, keeps
+ * {@code k * rescoreMultiplier} candidates and rescores only those against the
+ * full-precision vectors. The full-precision copies live outside the heap, either in
+ * direct buffers or in a memory-mapped backing file, so the heap only pays for the codes.
+ *
+ * Vectors are L2-normalized on insert, so scores are cosine similarities in [-1, 1].
+ *
+ * Deletes only set a tombstone bit so searches skip the slot; {@link #compact()} later
+ * moves the live vectors down over the holes and releases the trailing capacity.
+ */
+public class QuantizedVectorIndex implements AutoCloseable {
+
+    // Number of full-precision vectors stored per off-heap chunk
+    private static final int VECTORS_PER_CHUNK = 4096;
+    // Extra widening applied to the Hamming pre-search before int8 scoring
+    private static final int BINARY_PRESEARCH_FACTOR = 4;
+
+    private final int dimension;
+    private final VectorStorageMode mode;
+    private final int rescoreMultiplier;
+    private final int binaryWords;
+    private final Path backingFile;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<ByteBuffer> fullPrecisionChunks = new ArrayList<>();
+    private FileChannel backingChannel;
+
+    private float[] floatVectors = new float[0];
+    private byte[] int8Codes = new byte[0];
+    private float[] int8Scales = new float[0];
+    private long[] binaryCodes = new long[0];
+    private final BitSet deleted = new BitSet();
+    private int size;
+
+    /**
+     * Constructor keeping full-precision vectors in direct (off-heap) buffers
+     *
+     * @param dimension Vector dimension
+     * @param mode Storage mode for the searchable codes
+     * @param rescoreMultiplier Candidates kept per requested result before rescoring
+     */
+    public QuantizedVectorIndex(int dimension, VectorStorageMode mode, int rescoreMultiplier) {
+        this(dimension, mode, rescoreMultiplier, null);
+    }
+
+    /**
+     * Constructor with an optional memory-mapped backing file for full-precision vectors
+     *
+     * @param dimension Vector dimension
+     * @param mode Storage mode for the searchable codes
+     * @param rescoreMultiplier Candidates kept per requested result before rescoring
+     * @param backingFile File used to memory-map full-precision vectors, or null for direct buffers
+     */
+    public QuantizedVectorIndex(int dimension, VectorStorageMode mode, int rescoreMultiplier, Path backingFile) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Dimension must be positive");
+        }
+        if (rescoreMultiplier < 1) {
+            throw new IllegalArgumentException("Rescore multiplier must be at least 1");
+        }
+        this.dimension = dimension;
+        this.mode = mode;
+        this.rescoreMultiplier = rescoreMultiplier;
+        this.binaryWords = (dimension + 63) / 64;
+        this.backingFile = backingFile;
+    }
+
+    /**
+     * Adds a vector to the index
+     *
+     * @param vector The vector to add (copied and normalized)
+     * @return The slot assigned to the vector
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Expected vector of dimension " + dimension + " but got " + vector.length);
+        }
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            int slot = size;
+            ensureCapacity(slot + 1);
+
+            if (mode == VectorStorageMode.FLOAT32) {
+                System.arraycopy(normalized, 0, floatVectors, slot * dimension, dimension);
+            } else {
+                writeFullPrecision(slot, normalized);
+            }
+            if (mode.usesInt8Codes()) {
+                writeInt8Code(slot, normalized);
+            }
+            if (mode.usesBinaryCodes()) {
+                writeBinaryCode(slot, normalized);
+            }
+
+            size++;
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the k most similar vectors to the query
+     *
+     * @param query The query vector
+     * @param k Maximum number of hits to return
+     * @param accept Predicate deciding which slots are eligible (null accepts all)
+     * @return Hits ordered by descending cosine similarity
+     */
+    public List<Hit> search(float[] query, int k, IntPredicate accept) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Expected query of dimension " + dimension + " but got " + query.length);
+        }
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] normalized = normalize(query);
+        IntPredicate eligible = accept != null
+                ? slot -> !deleted.get(slot) && accept.test(slot)
+                : slot -> !deleted.get(slot);
+
+        lock.readLock().lock();
+        try {
+            if (mode == VectorStorageMode.FLOAT32) {
+                return exactSearch(normalized, k, eligible);
+            }
+
+            int candidateCount = k * rescoreMultiplier;
+            int[] candidates;
+            switch (mode) {
+                case INT8 -> candidates = int8Search(normalized, candidateCount, allSlots(eligible));
+                case BINARY -> candidates = hammingSearch(normalized, candidateCount, eligible);
+                case INT8_BINARY -> candidates = int8Search(normalized, candidateCount,
+                        hammingSearch(normalized, candidateCount * BINARY_PRESEARCH_FACTOR, eligible));
+                default -> throw new IllegalStateException("Unsupported storage mode: " + mode);
+            }
+            return rescore(normalized, candidates, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marks a slot as deleted. The space is reclaimed by the next {@link #compact()}.
+     *
+     * @param slot The slot to delete
+     * @return True if the slot was live, false if it was already deleted
+     */
+    public boolean delete(int slot) {
+        lock.writeLock().lock();
+        try {
+            checkSlot(slot);
+            if (deleted.get(slot)) {
+                return false;
+            }
+            deleted.set(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param slot The slot to check
+     * @return True if the slot has been deleted and not yet compacted away
+     */
+    public boolean isDeleted(int slot) {
+        lock.readLock().lock();
+        try {
+            return deleted.get(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves live vectors down over deleted slots and releases unused capacity.
+     * Slot numbers change, so callers must remap any slot they hold.
+     *
+     * @return Mapping from old slot to new slot, -1 for slots that were deleted
+     */
+    public int[] compact() {
+        lock.writeLock().lock();
+        try {
+            int[] remap = new int[size];
+            int next = 0;
+            for (int slot = 0; slot < size; slot++) {
+                if (deleted.get(slot)) {
+                    remap[slot] = -1;
+                    continue;
+                }
+                if (slot != next) {
+                    moveSlot(slot, next);
+                }
+                remap[slot] = next++;
+            }
+            size = next;
+            deleted.clear();
+            shrinkToFit();
+            return remap;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of live (not deleted) vectors
+     */
+    public int liveCount() {
+        lock.readLock().lock();
+        try {
+            return size - deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of deleted vectors still occupying slots until the next compaction
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads back the full-precision (normalized) vector stored in a slot
+     *
+     * @param slot The slot to read
+     * @return A copy of the stored vector
+     */
+    public float[] vector(int slot) {
+        lock.readLock().lock();
+        try {
+            checkSlot(slot);
+            if (mode == VectorStorageMode.FLOAT32) {
+                return Arrays.copyOfRange(floatVectors, slot * dimension, (slot + 1) * dimension);
+            }
+            float[] vector = new float[dimension];
+            ByteBuffer chunk = fullPrecisionChunks.get(slot / VECTORS_PER_CHUNK);
+            int base = (slot % VECTORS_PER_CHUNK) * dimension * Float.BYTES;
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = chunk.getFloat(base + i * Float.BYTES);
+            }
+            return vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public VectorStorageMode mode() {
+        return mode;
+    }
+
+    /**
+     * @return Heap bytes spent per stored vector on searchable codes
+     */
+    public int heapBytesPerVector() {
+        int bytes = 0;
+        if (mode == VectorStorageMode.FLOAT32) {
+            bytes += dimension * Float.BYTES;
+        }
+        if (mode.usesInt8Codes()) {
+            bytes += dimension + Float.BYTES;
+        }
+        if (mode.usesBinaryCodes()) {
+            bytes += binaryWords * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Off-heap (direct or memory-mapped) bytes spent per stored vector
+     */
+    public int offHeapBytesPerVector() {
+        return mode == VectorStorageMode.FLOAT32 ? 0 : dimension * Float.BYTES;
+    }
+
+    /**
+     * @return Heap bytes currently used by searchable codes
+     */
+    public long heapBytes() {
+        return (long) size() * heapBytesPerVector();
+    }
+
+    /**
+     * @return Off-heap bytes currently reserved for full-precision vectors
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) fullPrecisionChunks.size() * VECTORS_PER_CHUNK * dimension * Float.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            fullPrecisionChunks.clear();
+            if (backingChannel != null) {
+                backingChannel.close();
+                backingChannel = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close vector backing file", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Hit> exactSearch(float[] query, int k, IntPredicate eligible) {
+        PriorityQueue<Hit> top = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (int slot = 0; slot < size; slot++) {
+            if (!eligible.test(slot)) {
+                continue;
+            }
+            double score = 0.0;
+            int base = slot * dimension;
+            for (int i = 0; i < dimension; i++) {
+                score += query[i] * floatVectors[base + i];
+            }
+            offer(top, new Hit(slot, score), k);
+        }
+        return drainDescending(top);
+    }
+
+    private int[] allSlots(IntPredicate eligible) {
+        int[] slots = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (eligible.test(slot)) {
+                slots[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(slots, count);
+    }
+
+    private int[] int8Search(float[] query, int candidateCount, int[] slots) {
+        PriorityQueue<Hit> top = new PriorityQueue<>(candidateCount + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (int slot : slots) {
+            int base = slot * dimension;
+            double dot = 0.0;
+            for (int i = 0; i < dimension; i++) {
+                dot += query[i] * int8Codes[base + i];
+            }
+            offer(top, new Hit(slot, dot * int8Scales[slot]), candidateCount);
+        }
+        return toSlots(top);
+    }
+
+    private int[] hammingSearch(float[] query, int candidateCount, IntPredicate eligible) {
+        long[] queryBits = signBits(query);
+        PriorityQueue<Hit> top = new PriorityQueue<>(candidateCount + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (int slot = 0; slot < size; slot++) {
+            if (!eligible.test(slot)) {
+                continue;
+            }
+            int base = slot * binaryWords;
+            int distance = 0;
+            for (int w = 0; w < binaryWords; w++) {
+                distance += Long.bitCount(queryBits[w] ^ binaryCodes[base + w]);
+            }
+            offer(top, new Hit(slot, -distance), candidateCount);
+        }
+        return toSlots(top);
+    }
+
+    private List<Hit> rescore(float[] query, int[] candidates, int k) {
+        PriorityQueue<Hit> top = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (int slot : candidates) {
+            ByteBuffer chunk = fullPrecisionChunks.get(slot / VECTORS_PER_CHUNK);
+            int base = (slot % VECTORS_PER_CHUNK) * dimension * Float.BYTES;
+            double score = 0.0;
+            for (int i = 0; i < dimension; i++) {
+                score += query[i] * chunk.getFloat(base + i * Float.BYTES);
+            }
+            offer(top, new Hit(slot, score), k);
+        }
+        return drainDescending(top);
+    }
+
+    private static void offer(PriorityQueue<Hit> top, Hit hit, int limit) {
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (hit.score > top.peek().score) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private static int[] toSlots(PriorityQueue<Hit> top) {
+        int[] slots = new int[top.size()];
+        int i = 0;
+        for (Hit hit : top) {
+            slots[i++] = hit.slot;
+        }
+        return slots;
+    }
+
+    private static List<Hit> drainDescending(PriorityQueue<Hit> top) {
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort((a, b) -> Double.compare(b.score, a.score));
+        return hits;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(required - 1, 1)) << 1);
+        if (mode == VectorStorageMode.FLOAT32 && floatVectors.length < required * dimension) {
+            floatVectors = Arrays.copyOf(floatVectors, capacity * dimension);
+        }
+        if (mode.usesInt8Codes() && int8Scales.length < required) {
+            int8Codes = Arrays.copyOf(int8Codes, capacity * dimension);
+            int8Scales = Arrays.copyOf(int8Scales, capacity);
+        }
+        if (mode.usesBinaryCodes() && binaryCodes.length < required * binaryWords) {
+            binaryCodes = Arrays.copyOf(binaryCodes, capacity * binaryWords);
+        }
+        if (mode != VectorStorageMode.FLOAT32) {
+            while (fullPrecisionChunks.size() * VECTORS_PER_CHUNK < required) {
+                fullPrecisionChunks.add(allocateChunk(fullPrecisionChunks.size()));
+            }
+        }
+    }
+
+    private void moveSlot(int from, int to) {
+        if (mode == VectorStorageMode.FLOAT32) {
+            System.arraycopy(floatVectors, from * dimension, floatVectors, to * dimension, dimension);
+        } else {
+            ByteBuffer source = fullPrecisionChunks.get(from / VECTORS_PER_CHUNK);
+            ByteBuffer target = fullPrecisionChunks.get(to / VECTORS_PER_CHUNK);
+            int sourceBase = (from % VECTORS_PER_CHUNK) * dimension * Float.BYTES;
+            int targetBase = (to % VECTORS_PER_CHUNK) * dimension * Float.BYTES;
+            for (int i = 0; i < dimension; i++) {
+                target.putFloat(targetBase + i * Float.BYTES, source.getFloat(sourceBase + i * Float.BYTES));
+            }
+        }
+        if (mode.usesInt8Codes()) {
+            System.arraycopy(int8Codes, from * dimension, int8Codes, to * dimension, dimension);
+            int8Scales[to] = int8Scales[from];
+        }
+        if (mode.usesBinaryCodes()) {
+            System.arraycopy(binaryCodes, from * binaryWords, binaryCodes, to * binaryWords, binaryWords);
+        }
+    }
+
+    private void shrinkToFit() {
+        int capacity = size == 0 ? 0 : Math.max(16, Integer.highestOneBit(Math.max(size - 1, 1)) << 1);
+        if (mode == VectorStorageMode.FLOAT32 && floatVectors.length > capacity * dimension) {
+            floatVectors = Arrays.copyOf(floatVectors, capacity * dimension);
+        }
+        if (mode.usesInt8Codes() && int8Scales.length > capacity) {
+            int8Codes = Arrays.copyOf(int8Codes, capacity * dimension);
+            int8Scales = Arrays.copyOf(int8Scales, capacity);
+        }
+        if (mode.usesBinaryCodes() && binaryCodes.length > capacity * binaryWords) {
+            binaryCodes = Arrays.copyOf(binaryCodes, capacity * binaryWords);
+        }
+        int chunksNeeded = (size + VECTORS_PER_CHUNK - 1) / VECTORS_PER_CHUNK;
+        while (fullPrecisionChunks.size() > chunksNeeded) {
+            fullPrecisionChunks.remove(fullPrecisionChunks.size() - 1);
+        }
+        if (backingChannel != null) {
+            try {
+                backingChannel.truncate((long) chunksNeeded * VECTORS_PER_CHUNK * dimension * Float.BYTES);
+            } catch (IOException e) {
+                // Best effort: some platforms refuse to truncate while regions are still mapped
+            }
+        }
+    }
+
+    private ByteBuffer allocateChunk(int chunkIndex) {
+        long chunkBytes = (long) VECTORS_PER_CHUNK * dimension * Float.BYTES;
+        if (backingFile == null) {
+            return ByteBuffer.allocateDirect((int) chunkBytes).order(ByteOrder.nativeOrder());
+        }
+        try {
+            if (backingChannel == null) {
+                backingChannel = FileChannel.open(backingFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            return backingChannel.map(FileChannel.MapMode.READ_WRITE, chunkIndex * chunkBytes, chunkBytes)
+                    .order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map vector backing file " + backingFile, e);
+        }
+    }
+
+    private void writeFullPrecision(int slot, float[] vector) {
+        ByteBuffer chunk = fullPrecisionChunks.get(slot / VECTORS_PER_CHUNK);
+        int base = (slot % VECTORS_PER_CHUNK) * dimension * Float.BYTES;
+        for (int i = 0; i < dimension; i++) {
+            chunk.putFloat(base + i * Float.BYTES, vector[i]);
+        }
+    }
+
+    private void writeInt8Code(int slot, float[] vector) {
+        float maxAbs = 0f;
+        for (float v : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        float scale = maxAbs > 0f ? maxAbs / 127f : 1f;
+        int base = slot * dimension;
+        for (int i = 0; i < dimension; i++) {
+            int code = Math.round(vector[i] / scale);
+            int8Codes[base + i] = (byte) Math.max(-127, Math.min(127, code));
+        }
+        int8Scales[slot] = scale;
+    }
+
+    private void writeBinaryCode(int slot, float[] vector) {
+        System.arraycopy(signBits(vector), 0, binaryCodes, slot * binaryWords, binaryWords);
+    }
+
+    private long[] signBits(float[] vector) {
+        long[] bits = new long[binaryWords];
+        for (int i = 0; i < dimension; i++) {
+            if (vector[i] > 0f) {
+                bits[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+        return bits;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of range [0, " + size + ")");
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0.0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    /**
+     * A single search hit: the slot of the stored vector and its cosine similarity to the query.
+     */
+    public static final class Hit {
+        private final int slot;
+        private final double score;
+
+        public Hit(int slot, double score) {
+            this.slot = slot;
+            this.score = score;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
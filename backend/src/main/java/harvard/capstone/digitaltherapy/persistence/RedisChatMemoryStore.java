@@ -0,0 +1,306 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RedisChatMemoryStore
+ *
+ * ChatMemoryStore that keeps each session's chat history in Redis, so any node can serve
+ * the next turn of a session without sticky routing.
+ *
+ * - Messages are stored as JSON under chat:memory:{id} next to a version counter. Both
+ *   keys expire after the idle TTL, which is refreshed on every update. An update writes
+ *   the messages, bumps the version and sets both TTLs in one Lua script, so no reader
+ *   sees new messages under the old version.
+ * - A bounded, access-ordered near-cache keeps recently used histories on this node. A
+ *   read only fetches the small version key and reuses the cached messages if the version
+ *   is unchanged, so another node's update is never missed.
+ * - Turn counters use INCR and EXPIRE in one Lua script, which is atomic across nodes and
+ *   never leaves a counter without a TTL.
+ *
+ * If Redis is unavailable (or no template is given) the near-cache acts as the store, with
+ * the same size bound and idle TTL.
+ */
+public class RedisChatMemoryStore implements ChatMemoryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisChatMemoryStore.class);
+
+    private static final String MESSAGES_PREFIX = "chat:memory:";
+    private static final String VERSION_SUFFIX = ":version";
+    private static final String TURNS_PREFIX = "chat:turns:";
+
+    // KEYS: messages, version; ARGV: messages JSON, TTL seconds. Returns the new version.
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) "
+                    + "local version = redis.call('INCR', KEYS[2]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[2]) "
+                    + "return version", Long.class);
+
+    // KEYS: counter; ARGV: TTL seconds. Returns the incremented count.
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1]) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+                    + "return count", Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Duration idleTtl;
+    private final int nearCacheSize;
+
+    // Access-ordered: iteration starts at the least recently used session
+    private final LinkedHashMap<String, NearCacheEntry> nearCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong nearCacheHits = new AtomicLong();
+    private final AtomicLong redisReads = new AtomicLong();
+    private final AtomicLong redisFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param redisTemplate Redis template, or null to keep memories on this node only
+     * @param idleTtl Time after the last update before an idle session is evicted
+     * @param nearCacheSize Maximum number of sessions cached on this node
+     */
+    public RedisChatMemoryStore(RedisTemplate<String, String> redisTemplate, Duration idleTtl, int nearCacheSize) {
+        if (nearCacheSize <= 0) {
+            throw new IllegalArgumentException("Near-cache size must be positive");
+        }
+        this.redisTemplate = redisTemplate;
+        this.idleTtl = idleTtl;
+        this.nearCacheSize = nearCacheSize;
+    }
+
+    /**
+     * Creates a store that only keeps memories on this node
+     *
+     * @param idleTtl Time after the last access before an idle session is evicted
+     * @param maxSessions Maximum number of sessions kept
+     * @return The local store
+     */
+    public static RedisChatMemoryStore localOnly(Duration idleTtl, int maxSessions) {
+        return new RedisChatMemoryStore(null, idleTtl, maxSessions);
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        String id = String.valueOf(memoryId);
+        NearCacheEntry entry = cached(id);
+        if (redisTemplate == null) {
+            return entry == null || entry.messages == null ? new ArrayList<>() : new ArrayList<>(entry.messages);
+        }
+
+        try {
+            String version = redisTemplate.opsForValue().get(versionKey(id));
+            if (entry != null && entry.messages != null && Objects.equals(version, entry.version)) {
+                nearCacheHits.incrementAndGet();
+                return new ArrayList<>(entry.messages);
+            }
+
+            redisReads.incrementAndGet();
+            String json = redisTemplate.opsForValue().get(messagesKey(id));
+            List<ChatMessage> messages = json == null
+                    ? new ArrayList<>()
+                    : ChatMessageDeserializer.messagesFromJson(json);
+            NearCacheEntry updated = entryFor(id);
+            updated.messages = Collections.unmodifiableList(new ArrayList<>(messages));
+            updated.version = version;
+            return new ArrayList<>(messages);
+        } catch (DataAccessException e) {
+            redisFailures.incrementAndGet();
+            logger.warn("Redis unavailable reading chat memory {}, using near-cache: {}", id, e.getMessage());
+            return entry == null || entry.messages == null ? new ArrayList<>() : new ArrayList<>(entry.messages);
+        }
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        String id = String.valueOf(memoryId);
+        NearCacheEntry entry = entryFor(id);
+        entry.messages = Collections.unmodifiableList(new ArrayList<>(messages));
+        if (redisTemplate == null) {
+            return;
+        }
+
+        try {
+            Long version = redisTemplate.execute(UPDATE_SCRIPT, Arrays.asList(messagesKey(id), versionKey(id)),
+                    ChatMessageSerializer.messagesToJson(messages), String.valueOf(idleTtl.getSeconds()));
+            entry.version = version == null ? null : String.valueOf(version);
+        } catch (DataAccessException e) {
+            redisFailures.incrementAndGet();
+            // Unknown version forces a fresh read once Redis is back
+            entry.version = null;
+            logger.warn("Redis unavailable updating chat memory {}, kept in near-cache: {}", id, e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        String id = String.valueOf(memoryId);
+        synchronized (nearCache) {
+            nearCache.remove(id);
+        }
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.delete(Arrays.asList(messagesKey(id), versionKey(id), turnsKey(id)));
+        } catch (DataAccessException e) {
+            redisFailures.incrementAndGet();
+            logger.warn("Redis unavailable deleting chat memory {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Atomically increments the turn counter of a session
+     *
+     * @param sessionId The session ID
+     * @return The turn count after incrementing
+     */
+    public int incrementTurn(String sessionId) {
+        NearCacheEntry entry = entryFor(sessionId);
+        if (redisTemplate != null) {
+            try {
+                Long turns = redisTemplate.execute(INCREMENT_SCRIPT, Collections.singletonList(turnsKey(sessionId)),
+                        String.valueOf(idleTtl.getSeconds()));
+                if (turns != null) {
+                    entry.turns.set(turns.intValue());
+                    return turns.intValue();
+                }
+            } catch (DataAccessException e) {
+                redisFailures.incrementAndGet();
+                logger.warn("Redis unavailable incrementing turns for {}, counting locally: {}",
+                        sessionId, e.getMessage());
+            }
+        }
+        return entry.turns.incrementAndGet();
+    }
+
+    /**
+     * @param sessionId The session ID
+     * @return Number of turns recorded for the session
+     */
+    public int getTurnCount(String sessionId) {
+        if (redisTemplate != null) {
+            try {
+                String turns = redisTemplate.opsForValue().get(turnsKey(sessionId));
+                if (turns != null) {
+                    return Integer.parseInt(turns);
+                }
+            } catch (DataAccessException | NumberFormatException e) {
+                redisFailures.incrementAndGet();
+                logger.warn("Could not read turns for {} from Redis: {}", sessionId, e.getMessage());
+            }
+        }
+        NearCacheEntry entry = cached(sessionId);
+        return entry == null ? 0 : entry.turns.get();
+    }
+
+    /**
+     * @return Number of sessions currently held in the near-cache
+     */
+    public int nearCacheSize() {
+        synchronized (nearCache) {
+            return nearCache.size();
+        }
+    }
+
+    /**
+     * @return Snapshot of the store counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nearCacheSize", nearCacheSize());
+        stats.put("nearCacheHits", nearCacheHits.get());
+        stats.put("redisReads", redisReads.get());
+        stats.put("redisFailures", redisFailures.get());
+        stats.put("evictions", evictions.get());
+        stats.put("redisEnabled", redisTemplate != null);
+        return stats;
+    }
+
+    private NearCacheEntry cached(String id) {
+        synchronized (nearCache) {
+            evictIdle();
+            NearCacheEntry entry = nearCache.get(id);
+            if (entry != null) {
+                entry.lastAccess = System.nanoTime();
+            }
+            return entry;
+        }
+    }
+
+    private NearCacheEntry entryFor(String id) {
+        synchronized (nearCache) {
+            evictIdle();
+            NearCacheEntry entry = nearCache.get(id);
+            if (entry == null) {
+                entry = new NearCacheEntry();
+                nearCache.put(id, entry);
+                if (nearCache.size() > nearCacheSize) {
+                    Iterator<NearCacheEntry> eldest = nearCache.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+            entry.lastAccess = System.nanoTime();
+            return entry;
+        }
+    }
+
+    // Callers hold the nearCache lock
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - idleTtl.toNanos();
+        Iterator<NearCacheEntry> iterator = nearCache.values().iterator();
+        while (iterator.hasNext()) {
+            NearCacheEntry entry = iterator.next();
+            if (entry.lastAccess - cutoff > 0) {
+                // Access order: everything after this entry was used more recently
+                break;
+            }
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static String messagesKey(String id) {
+        return MESSAGES_PREFIX + id;
+    }
+
+    private static String versionKey(String id) {
+        return MESSAGES_PREFIX + id + VERSION_SUFFIX;
+    }
+
+    private static String turnsKey(String id) {
+        return TURNS_PREFIX + id;
+    }
+
+    private static final class NearCacheEntry {
+        private volatile List<ChatMessage> messages;
+        private volatile String version;
+        private final AtomicInteger turns = new AtomicInteger();
+        private volatile long lastAccess = System.nanoTime();
+    }
+}
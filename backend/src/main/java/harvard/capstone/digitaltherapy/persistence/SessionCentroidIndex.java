@@ -0,0 +1,210 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * SessionCentroidIndex
+ *
+ * Keeps one centroid vector per therapy session, updated incrementally as segments are
+ * added or removed, so similar-session lookup is a search over a user's sessions rather
+ * than over every message they ever sent.
+ *
+ * Each session stores the running sum of its L2-normalized segment vectors and a count;
+ * the centroid direction is the normalized sum. Removing a segment subtracts its vector.
+ * The longest segment text is kept as the session's representative text, matching what
+ * findSimilarSessions returned before.
+ */
+public class SessionCentroidIndex {
+
+    private final Map<String, SessionCentroid> sessions = new HashMap<>();
+    private final Map<String, Set<String>> sessionsByUser = new HashMap<>();
+
+    /**
+     * Adds a segment vector to its session centroid
+     *
+     * @param sessionId The therapy session ID
+     * @param userId The user ID owning the session
+     * @param embeddingId ID of the stored embedding
+     * @param vector The segment embedding
+     * @param text The segment text
+     */
+    public synchronized void add(String sessionId, String userId, String embeddingId, float[] vector, String text) {
+        SessionCentroid session = sessions.get(sessionId);
+        if (session == null) {
+            session = new SessionCentroid(userId, vector.length);
+            sessions.put(sessionId, session);
+            sessionsByUser.computeIfAbsent(userId, id -> new LinkedHashSet<>()).add(sessionId);
+        }
+        if (vector.length != session.sum.length) {
+            throw new IllegalArgumentException(
+                    "Expected dimension " + session.sum.length + " but got " + vector.length);
+        }
+        if (session.texts.containsKey(embeddingId)) {
+            return;
+        }
+        String segmentText = text == null ? "" : text;
+        accumulate(session.sum, vector, 1);
+        session.texts.put(embeddingId, segmentText);
+        if (session.representativeText == null || session.representativeText.length() < segmentText.length()) {
+            session.representativeText = segmentText;
+        }
+    }
+
+    /**
+     * Removes a segment vector from its session centroid
+     *
+     * @param sessionId The therapy session ID
+     * @param embeddingId ID of the removed embedding
+     * @param vector The segment embedding that was added for this ID
+     * @return True if the segment was part of the session
+     */
+    public synchronized boolean remove(String sessionId, String embeddingId, float[] vector) {
+        SessionCentroid session = sessions.get(sessionId);
+        if (session == null || session.texts.remove(embeddingId) == null) {
+            return false;
+        }
+        if (session.texts.isEmpty()) {
+            sessions.remove(sessionId);
+            Set<String> userSessions = sessionsByUser.get(session.userId);
+            if (userSessions != null) {
+                userSessions.remove(sessionId);
+                if (userSessions.isEmpty()) {
+                    sessionsByUser.remove(session.userId);
+                }
+            }
+            return true;
+        }
+        accumulate(session.sum, vector, -1);
+        session.representativeText = null;
+        for (String text : session.texts.values()) {
+            if (session.representativeText == null || session.representativeText.length() < text.length()) {
+                session.representativeText = text;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the user's sessions whose centroid is closest to the query
+     *
+     * @param userId The user whose sessions are searched
+     * @param query The query embedding
+     * @param maxResults Maximum number of sessions to return
+     * @param minCosine Minimum cosine similarity between query and centroid
+     * @return Matches ordered by descending similarity
+     */
+    public synchronized List<Match> search(String userId, float[] query, int maxResults, double minCosine) {
+        Set<String> userSessions = sessionsByUser.get(userId);
+        if (userSessions == null || maxResults <= 0) {
+            return new ArrayList<>();
+        }
+        double queryNorm = norm(query);
+        PriorityQueue<Match> top = new PriorityQueue<>((a, b) -> Double.compare(a.cosine, b.cosine));
+        for (String sessionId : userSessions) {
+            SessionCentroid session = sessions.get(sessionId);
+            if (session.sum.length != query.length) {
+                continue;
+            }
+            double dot = 0;
+            double sumNorm = 0;
+            for (int i = 0; i < query.length; i++) {
+                dot += query[i] * session.sum[i];
+                sumNorm += session.sum[i] * session.sum[i];
+            }
+            if (queryNorm == 0 || sumNorm == 0) {
+                continue;
+            }
+            double cosine = dot / (queryNorm * Math.sqrt(sumNorm));
+            if (cosine < minCosine) {
+                continue;
+            }
+            top.offer(new Match(sessionId, cosine, session.representativeText));
+            if (top.size() > maxResults) {
+                top.poll();
+            }
+        }
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort((a, b) -> Double.compare(b.cosine, a.cosine));
+        return matches;
+    }
+
+    /**
+     * @return Number of sessions with at least one segment
+     */
+    public synchronized int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @param sessionId The therapy session ID
+     * @return Number of segments contributing to the session centroid
+     */
+    public synchronized int segmentCount(String sessionId) {
+        SessionCentroid session = sessions.get(sessionId);
+        return session == null ? 0 : session.texts.size();
+    }
+
+    private static void accumulate(double[] sum, float[] vector, int sign) {
+        double norm = norm(vector);
+        if (norm == 0) {
+            return;
+        }
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += sign * vector[i] / norm;
+        }
+    }
+
+    private static double norm(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        return Math.sqrt(norm);
+    }
+
+    private static final class SessionCentroid {
+        private final String userId;
+        private final double[] sum;
+        // Segment texts by embedding ID, used to pick the representative text
+        private final Map<String, String> texts = new HashMap<>();
+        private String representativeText;
+
+        private SessionCentroid(String userId, int dimension) {
+            this.userId = userId;
+            this.sum = new double[dimension];
+        }
+    }
+
+    /**
+     * A session matched by centroid similarity
+     */
+    public static final class Match {
+        private final String sessionId;
+        private final double cosine;
+        private final String text;
+
+        public Match(String sessionId, double cosine, String text) {
+            this.sessionId = sessionId;
+            this.cosine = cosine;
+            this.text = text;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public double getCosine() {
+            return cosine;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+}
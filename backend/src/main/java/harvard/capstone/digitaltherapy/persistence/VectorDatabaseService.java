@@ -13,16 +13,40 @@ import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingSearchResult;
 import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
 /**
  * VectorDatabaseService
  *
@@ -32,16 +56,51 @@ import java.util.stream.Collectors;
  */
 public class VectorDatabaseService {
 
+    private static final Logger logger = LoggerFactory.getLogger(VectorDatabaseService.class);
+
+    // Classpath location of the snapshot written by InterventionSnapshotBuilder
+    private static final String INTERVENTION_SNAPSHOT_RESOURCE = "interventions/cbt-interventions.snapshot";
+
     private final EmbeddingModel embeddingModel;
     private final EmbeddingStore<TextSegment> embeddingStore;
     private final DocumentSplitter documentSplitter;
 
-    private final List<TextSegment> storedSegments = new ArrayList<>();
+    // Live segments keyed by embedding ID, in insertion order
+    private final Map<String, TextSegment> storedSegments = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, List<String>> embeddingIdsByDocument = new ConcurrentHashMap<>();
+    // One centroid per session, used by findSimilarSessions
+    private final SessionCentroidIndex sessionCentroids = new SessionCentroidIndex();
+
+    // Retention per contentType; content types without an entry are kept forever
+    private final Map<String, Duration> retentionByContentType =
+            new ConcurrentHashMap<>(parseRetention(System.getenv("VECTOR_RETENTION")));
+    private final AtomicLong deletedVectors = new AtomicLong();
+    private final AtomicLong expiredVectors = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
 
     // Configuration parameters
     private final int maxTokensPerChunk;
     private final double relevanceThreshold;
     final int defaultMaxResults;
+    private final VectorStorageMode storageMode;
+
+    // Candidates kept per requested result before rescoring in quantized modes
+    private static final int RESCORE_MULTIPLIER = 10;
+
+    // Embedding cache shared by every service instance, sized/placed via env vars
+    private static final EmbeddingCache EMBEDDING_CACHE = new EmbeddingCache(
+            parseIntOrDefault(System.getenv("EMBEDDING_CACHE_SIZE"), 10000),
+            !"false".equalsIgnoreCase(System.getenv("EMBEDDING_CACHE_OFF_HEAP")));
+
+    // Background retention purge and compaction, shared by every service instance
+    private static final long MAINTENANCE_INTERVAL_MINUTES = 10;
+    // Compact once this fraction of the quantized slots are tombstones
+    private static final double COMPACTION_DELETED_RATIO = 0.2;
+    private static final ScheduledExecutorService MAINTENANCE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vector-store-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Constructor with default configuration
@@ -51,25 +110,56 @@ public class VectorDatabaseService {
     }
 
     /**
-     * Constructor with custom configuration
+     * Constructor with custom configuration, using the storage mode set in the
+     * VECTOR_STORAGE_MODE environment variable (FLOAT32 if unset)
      *
      * @param maxTokensPerChunk Maximum tokens per text chunk
      * @param relevanceThreshold Minimum similarity score threshold
      * @param defaultMaxResults Default maximum number of results to return
      */
     public VectorDatabaseService(int maxTokensPerChunk, double relevanceThreshold, int defaultMaxResults) {
+        this(maxTokensPerChunk, relevanceThreshold, defaultMaxResults,
+                parseStorageMode(System.getenv("VECTOR_STORAGE_MODE")));
+    }
+
+    /**
+     * Constructor with custom configuration and vector storage mode
+     *
+     * @param maxTokensPerChunk Maximum tokens per text chunk
+     * @param relevanceThreshold Minimum similarity score threshold
+     * @param defaultMaxResults Default maximum number of results to return
+     * @param storageMode FLOAT32 keeps full vectors in memory, the quantized modes keep
+     *                    int8/binary codes and rescore candidates against full-precision vectors
+     */
+    public VectorDatabaseService(int maxTokensPerChunk, double relevanceThreshold, int defaultMaxResults,
+                                 VectorStorageMode storageMode) {
         this.maxTokensPerChunk = maxTokensPerChunk;
         this.relevanceThreshold = relevanceThreshold;
         this.defaultMaxResults = defaultMaxResults;
+        this.storageMode = storageMode;
 
-        // Initialize the embedding model
-        this.embeddingModel = new AllMiniLmL6V2EmbeddingModel();
+        // Initialize the embedding model behind the shared content-hash cache
+        EmbeddingModel miniLm = new AllMiniLmL6V2EmbeddingModel();
+        if (EMBEDDING_CACHE.isOffHeap()) {
+            // Reject an oversized cache here rather than on the first embedding
+            EMBEDDING_CACHE.checkCapacity(miniLm.dimension());
+        }
+        this.embeddingModel = new CachingEmbeddingModel(miniLm, EMBEDDING_CACHE);
 
-        // Initialize the embedding store (in-memory for now)
-        this.embeddingStore = new InMemoryEmbeddingStore<>();
+        // Initialize the embedding store (in-memory, optionally quantized)
+        if (storageMode == VectorStorageMode.FLOAT32) {
+            this.embeddingStore = new InMemoryEmbeddingStore<>();
+        } else {
+            this.embeddingStore = new QuantizedEmbeddingStore(storageMode, RESCORE_MULTIPLIER);
+        }
 
         // Initialize document splitter for chunking longer texts
         this.documentSplitter = DocumentSplitters.recursive(maxTokensPerChunk, 0);
+
+        // Map the precomputed intervention corpus once per JVM
+        InterventionSnapshotHolder.get();
+
+        scheduleMaintenance(this);
     }
 
     /**
@@ -100,8 +190,15 @@ public class VectorDatabaseService {
         Embedding embedding = embeddingModel.embed(content).content();
 
         // Store embedding
-        embeddingStore.add(embedding, segment);
-        storedSegments.add(segment);
+        String embeddingId = embeddingStore.add(embedding, segment);
+        storedSegments.put(embeddingId, segment);
+        embeddingIdsByDocument.computeIfAbsent(documentId, id -> new CopyOnWriteArrayList<>()).add(embeddingId);
+
+        Object sessionId = metadata.get("sessionId");
+        Object userId = metadata.get("userId");
+        if (sessionId != null && userId != null) {
+            sessionCentroids.add(sessionId.toString(), userId.toString(), embeddingId, embedding.vector(), content);
+        }
 
         return documentId;
     }
@@ -226,7 +323,8 @@ public class VectorDatabaseService {
     }
 
     /**
-     * Finds similar sessions based on the current session context
+     * Finds similar sessions based on the current session context. Sessions are ranked
+     * by their centroid, so every session in the user's history is considered.
      *
      * @param userId The user ID
      * @param currentSessionContent The current session content to match
@@ -238,25 +336,20 @@ public class VectorDatabaseService {
             String currentSessionContent,
             int maxResults) {
 
-        Map<String, Object> metadataFilters = new HashMap<>();
-        metadataFilters.put("userId", userId);
+        Embedding queryEmbedding = embeddingModel.embed(currentSessionContent).content();
 
-        List<EmbeddingMatch<TextSegment>> matches = findSimilarContent(
-                currentSessionContent,
-                metadataFilters,
-                maxResults);
+        // Same cutoff as findSimilarContent: RelevanceScore (cosine + 1) / 2 >= relevanceThreshold
+        double minCosine = 2 * relevanceThreshold - 1;
+        List<SessionCentroidIndex.Match> matches = sessionCentroids.search(
+                userId,
+                queryEmbedding.vector(),
+                maxResults > 0 ? maxResults : defaultMaxResults,
+                minCosine);
 
-        // Group by session ID and store the text content
-        Map<String, String> sessionTexts = new HashMap<>();
-        for (EmbeddingMatch<TextSegment> match : matches) {
-            String sessionId = match.embedded().metadata().getString("sessionId");
-            String text = match.embedded().text();
-            if (sessionId != null &&
-                    (!sessionTexts.containsKey(sessionId) ||
-                            // If you still want to keep the text of the highest scoring match
-                            sessionTexts.get(sessionId).length() < text.length())) {
-                sessionTexts.put(sessionId, text);
-            }
+        // Session ID to its longest stored text, most similar session first
+        Map<String, String> sessionTexts = new LinkedHashMap<>();
+        for (SessionCentroidIndex.Match match : matches) {
+            sessionTexts.put(match.getSessionId(), match.getText());
         }
         return sessionTexts;
     }
@@ -279,6 +372,7 @@ public class VectorDatabaseService {
 
         // Build a query from the cognitive distortions
         String query = "Therapeutic interventions for: " + String.join(", ", cognitiveDistortions);
+        int limit = maxResults > 0 ? maxResults : defaultMaxResults;
 
         Map<String, Object> metadataFilters = new HashMap<>();
         metadataFilters.put("contentType", "intervention");
@@ -288,9 +382,30 @@ public class VectorDatabaseService {
                 metadataFilters,
                 maxResults);
 
+        // Merge stored interventions with the precomputed corpus, best score first
+        Map<String, Double> scoredInterventions = new LinkedHashMap<>();
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            scoredInterventions.merge(match.embedded().text(), match.score(), Math::max);
+        }
+
+        InterventionSnapshot snapshot = InterventionSnapshotHolder.get();
+        if (snapshot != null) {
+            float[] queryVector = embeddingModel.embed(query).content().vector();
+            if (queryVector.length == snapshot.getDimension()) {
+                // Stored matches use RelevanceScore, i.e. (cosine + 1) / 2
+                double minCosine = 2 * relevanceThreshold - 1;
+                for (InterventionSnapshot.Match match : snapshot.search(queryVector, limit, minCosine)) {
+                    scoredInterventions.merge(match.getEntry().getText(),
+                            RelevanceScore.fromCosineSimilarity(match.getCosine()), Math::max);
+                }
+            }
+        }
+
         // Extract intervention text
-        return matches.stream()
-                .map(match -> match.embedded().text())
+        return scoredInterventions.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
     }
 
@@ -354,15 +469,328 @@ public class VectorDatabaseService {
      * @return True if deleted, false otherwise
      */
     public boolean deleteEmbedding(String documentId) {
-        // Note: InMemoryEmbeddingStore doesn't support direct deletion by ID
-        // This would be implemented with a persistent store like OpenSearch
-        // For now, we'll return false to indicate no operation performed
-        return false;
+        if (documentId == null) {
+            return false;
+        }
+        List<String> embeddingIds = embeddingIdsByDocument.remove(documentId);
+        if (embeddingIds == null || embeddingIds.isEmpty()) {
+            return false;
+        }
+
+        // Take the removed segments back out of their session centroids, using the vectors
+        // the store already holds rather than embedding the texts again
+        Map<String, float[]> vectors = null;
+        for (String embeddingId : embeddingIds) {
+            TextSegment segment = storedSegments.get(embeddingId);
+            String sessionId = segment == null ? null : segment.metadata().getString("sessionId");
+            if (sessionId == null) {
+                continue;
+            }
+            if (vectors == null) {
+                vectors = storedVectors(documentId, embeddingIds);
+            }
+            float[] vector = vectors.get(embeddingId);
+            if (vector != null) {
+                sessionCentroids.remove(sessionId, embeddingId, vector);
+            } else {
+                logger.warn("No stored vector for embedding {}; session {} centroid left unchanged", embeddingId, sessionId);
+            }
+        }
+
+        // Quantized stores tombstone the vectors until the next compaction
+        embeddingStore.removeAll(embeddingIds);
+        storedSegments.keySet().removeAll(embeddingIds);
+        deletedVectors.addAndGet(embeddingIds.size());
+        return true;
+    }
+
+    /**
+     * Reads the vectors stored for a document's segments. The in-memory store has no lookup
+     * by ID, so its vectors are read with a search restricted to the document.
+     *
+     * @return Vectors by embedding ID
+     */
+    private Map<String, float[]> storedVectors(String documentId, List<String> embeddingIds) {
+        Map<String, float[]> vectors = new HashMap<>();
+        if (embeddingStore instanceof QuantizedEmbeddingStore) {
+            QuantizedEmbeddingStore store = (QuantizedEmbeddingStore) embeddingStore;
+            for (String embeddingId : embeddingIds) {
+                float[] vector = store.vector(embeddingId);
+                if (vector != null) {
+                    vectors.put(embeddingId, vector);
+                }
+            }
+            return vectors;
+        }
+        // Any non-zero query works: the filter selects the segments and minScore 0 keeps them all
+        float[] probe = new float[embeddingModel.dimension()];
+        probe[0] = 1f;
+        EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
+                .queryEmbedding(Embedding.from(probe))
+                .filter(metadataKey("documentId").isEqualTo(documentId))
+                .maxResults(embeddingIds.size())
+                .minScore(0.0)
+                .build();
+        for (EmbeddingMatch<TextSegment> match : embeddingStore.search(request).matches()) {
+            vectors.put(match.embeddingId(), match.embedding().vector());
+        }
+        return vectors;
+    }
+
+    /**
+     * Sets how long content of a given type is retained
+     *
+     * @param contentType The contentType metadata value (message, analysis, ...)
+     * @param retention Retention period, or null to keep this content type forever
+     */
+    public void setRetention(String contentType, Duration retention) {
+        if (retention == null) {
+            retentionByContentType.remove(contentType);
+        } else {
+            retentionByContentType.put(contentType, retention);
+        }
+    }
+
+    /**
+     * Deletes every document whose content type retention has elapsed
+     *
+     * @return Number of documents deleted
+     */
+    public int purgeExpired() {
+        if (retentionByContentType.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> expiredDocuments = new HashSet<>();
+        for (TextSegment segment : getAllStoredSegments()) {
+            Map<String, Object> metadata = segment.metadata().toMap();
+            Duration retention = retentionByContentType.get(String.valueOf(metadata.get("contentType")));
+            Object timestamp = metadata.get("timestamp");
+            if (retention == null || timestamp == null) {
+                continue;
+            }
+            try {
+                if (!LocalDateTime.parse(timestamp.toString()).plus(retention).isAfter(now)) {
+                    expiredDocuments.add(String.valueOf(metadata.get("documentId")));
+                }
+            } catch (DateTimeParseException e) {
+                logger.debug("Skipping segment with unparseable timestamp {}", timestamp);
+            }
+        }
+
+        int deleted = 0;
+        for (String documentId : expiredDocuments) {
+            List<String> embeddingIds = embeddingIdsByDocument.get(documentId);
+            int vectors = embeddingIds == null ? 0 : embeddingIds.size();
+            if (deleteEmbedding(documentId)) {
+                expiredVectors.addAndGet(vectors);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Reclaims the space held by deleted vectors. The in-memory float store removes
+     * vectors immediately, so only quantized stores have anything to compact.
+     *
+     * @return Number of vector slots reclaimed
+     */
+    public int compact() {
+        if (!(embeddingStore instanceof QuantizedEmbeddingStore)) {
+            return 0;
+        }
+        int reclaimed = ((QuantizedEmbeddingStore) embeddingStore).compact();
+        if (reclaimed > 0) {
+            compactions.incrementAndGet();
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Runs one maintenance pass: purges expired content, then compacts if enough
+     * of the store is tombstoned
+     */
+    public void runMaintenance() {
+        int expired = purgeExpired();
+        int pending = getPendingCompactionCount();
+        int live = getLiveVectorCount();
+        int reclaimed = 0;
+        if (pending > 0 && pending >= COMPACTION_DELETED_RATIO * (pending + live)) {
+            reclaimed = compact();
+        }
+        if (expired > 0 || reclaimed > 0) {
+            logger.debug("Vector store maintenance: {} documents expired, {} slots reclaimed, {} live vectors",
+                    expired, reclaimed, getLiveVectorCount());
+        }
+    }
+
+    /**
+     * @return Number of live vectors in the store
+     */
+    public int getLiveVectorCount() {
+        return storedSegments.size();
+    }
+
+    /**
+     * @return Total number of vectors deleted, explicitly or by retention
+     */
+    public long getDeletedVectorCount() {
+        return deletedVectors.get();
+    }
+
+    /**
+     * @return Number of deleted vectors still holding space until the next compaction
+     */
+    public int getPendingCompactionCount() {
+        if (embeddingStore instanceof QuantizedEmbeddingStore) {
+            return ((QuantizedEmbeddingStore) embeddingStore).deletedCount();
+        }
+        return 0;
     }
 
+    /**
+     * @return Snapshot of the vector store counters
+     */
+    public Map<String, Object> getVectorStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("liveVectors", getLiveVectorCount());
+        stats.put("deletedVectors", getDeletedVectorCount());
+        stats.put("expiredVectors", expiredVectors.get());
+        stats.put("pendingCompaction", getPendingCompactionCount());
+        stats.put("compactions", compactions.get());
+        stats.put("sessionCentroids", sessionCentroids.sessionCount());
+        stats.put("storageMode", storageMode.name());
+        return stats;
+    }
 
     // Get stored items
     public List<TextSegment> getAllStoredSegments() {
-        return new ArrayList<>(storedSegments);
+        synchronized (storedSegments) {
+            return new ArrayList<>(storedSegments.values());
+        }
+    }
+
+    /**
+     * @return The vector storage mode used by this service
+     */
+    public VectorStorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * @return The embedding cache shared by all service instances
+     */
+    public static EmbeddingCache getEmbeddingCache() {
+        return EMBEDDING_CACHE;
+    }
+
+    /**
+     * Schedules maintenance for a service instance without keeping it reachable,
+     * so discarded instances are collected and their task cancelled
+     */
+    private static void scheduleMaintenance(VectorDatabaseService service) {
+        WeakReference<VectorDatabaseService> reference = new WeakReference<>(service);
+        AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+        task.set(MAINTENANCE_EXECUTOR.scheduleWithFixedDelay(() -> {
+            VectorDatabaseService target = reference.get();
+            if (target == null) {
+                ScheduledFuture<?> future = task.get();
+                if (future != null) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            try {
+                target.runMaintenance();
+            } catch (RuntimeException e) {
+                logger.warn("Vector store maintenance failed: {}", e.getMessage());
+            }
+        }, MAINTENANCE_INTERVAL_MINUTES, MAINTENANCE_INTERVAL_MINUTES, TimeUnit.MINUTES));
+    }
+
+    /**
+     * Parses retention settings of the form "message=P30D,analysis=P180D"
+     */
+    static Map<String, Duration> parseRetention(String value) {
+        Map<String, Duration> retention = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return retention;
+        }
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=", 2);
+            if (pair.length != 2) {
+                continue;
+            }
+            try {
+                retention.put(pair[0].trim(), Duration.parse(pair[1].trim()));
+            } catch (DateTimeParseException e) {
+                logger.warn("Ignoring invalid retention for {}: {}", pair[0].trim(), pair[1].trim());
+            }
+        }
+        return retention;
+    }
+
+    /**
+     * Parses a storage mode name such as "int8" or "INT8_BINARY", falling back to FLOAT32
+     */
+    static VectorStorageMode parseStorageMode(String value) {
+        if (value == null || value.isBlank()) {
+            return VectorStorageMode.FLOAT32;
+        }
+        try {
+            return VectorStorageMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring invalid vector storage mode: {}", value.trim());
+            return VectorStorageMode.FLOAT32;
+        }
+    }
+
+    private static int parseIntOrDefault(String value, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return The precomputed intervention snapshot, or null if none is available
+     */
+    public static InterventionSnapshot getInterventionSnapshot() {
+        return InterventionSnapshotHolder.get();
+    }
+
+    /**
+     * Lazily maps the intervention snapshot on first use. INTERVENTION_SNAPSHOT_PATH
+     * points at a snapshot file, otherwise the classpath copy is used if present.
+     */
+    private static final class InterventionSnapshotHolder {
+        private static final InterventionSnapshot SNAPSHOT = load();
+
+        static InterventionSnapshot get() {
+            return SNAPSHOT;
+        }
+
+        private static InterventionSnapshot load() {
+            String path = System.getenv("INTERVENTION_SNAPSHOT_PATH");
+            try {
+                InterventionSnapshot snapshot = path != null && !path.isBlank()
+                        ? InterventionSnapshot.open(Path.of(path))
+                        : InterventionSnapshot.openResource(INTERVENTION_SNAPSHOT_RESOURCE);
+                if (snapshot == null) {
+                    logger.info("No intervention snapshot found, using stored interventions only");
+                } else {
+                    logger.info("Loaded intervention snapshot with {} entries", snapshot.size());
+                }
+                return snapshot;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to load intervention snapshot: {}", e.getMessage());
+                return null;
+            }
+        }
     }
 }
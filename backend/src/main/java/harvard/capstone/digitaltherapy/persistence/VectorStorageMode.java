@@ -0,0 +1,28 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+/**
+ * Storage layouts supported by {@link QuantizedVectorIndex}.
+ *
+ * Per-vector heap cost for a 384-dim MiniLM embedding:
+ * - FLOAT32: 1536 bytes, exact search, no rescoring needed
+ * - INT8: 384 bytes + 4 byte scale (~4x smaller), scalar quantized search
+ * - INT8_BINARY: INT8 codes plus 48 byte sign codes used for a Hamming pre-search
+ * - BINARY: 48 bytes (~32x smaller), Hamming search only
+ *
+ * All quantized modes rescore their candidates against the full-precision vectors,
+ * which are kept off-heap (or in a memory-mapped file) and only touched for rescoring.
+ */
+public enum VectorStorageMode {
+    FLOAT32,
+    INT8,
+    INT8_BINARY,
+    BINARY;
+
+    public boolean usesInt8Codes() {
+        return this == INT8 || this == INT8_BINARY;
+    }
+
+    public boolean usesBinaryCodes() {
+        return this == BINARY || this == INT8_BINARY;
+    }
+}
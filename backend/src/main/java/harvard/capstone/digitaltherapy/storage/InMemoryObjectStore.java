@@ -0,0 +1,80 @@
+package harvard.capstone.digitaltherapy.storage;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps objects on the heap. Meant for tests and benchmarks; nothing survives a restart.
+ */
+public class InMemoryObjectStore implements ObjectStore {
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public String put(String bucket, String key, ByteBuffer data, String contentType) {
+        ByteBuffer source = data.duplicate();
+        byte[] bytes = new byte[source.remaining()];
+        source.get(bytes);
+        objects.put(id(bucket, key), bytes);
+        return uri(bucket, key);
+    }
+
+    @Override
+    public String put(String bucket, String key, Path file, String contentType) throws IOException {
+        objects.put(id(bucket, key), Files.readAllBytes(file));
+        return uri(bucket, key);
+    }
+
+    @Override
+    public ByteBuffer get(String bucket, String key) throws IOException {
+        return ByteBuffer.wrap(bytes(bucket, key)).asReadOnlyBuffer();
+    }
+
+    @Override
+    public long copyTo(String bucket, String key, WritableByteChannel target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes(bucket, key));
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        return buffer.limit();
+    }
+
+    @Override
+    public boolean exists(String bucket, String key) {
+        return objects.containsKey(id(bucket, key));
+    }
+
+    @Override
+    public void delete(String bucket, String key) {
+        objects.remove(id(bucket, key));
+    }
+
+    @Override
+    public Stream<String> list(String bucket, String prefix) {
+        String start = id(bucket, prefix);
+        int keyStart = bucket.length() + 1;
+        return objects.keySet().stream()
+                .filter(id -> id.startsWith(start))
+                .map(id -> id.substring(keyStart))
+                .sorted();
+    }
+
+    private byte[] bytes(String bucket, String key) throws FileNotFoundException {
+        byte[] bytes = objects.get(id(bucket, key));
+        if (bytes == null) {
+            throw new FileNotFoundException("Object not found: " + uri(bucket, key));
+        }
+        return bytes;
+    }
+
+    private static String id(String bucket, String key) {
+        return bucket + "/" + key;
+    }
+}
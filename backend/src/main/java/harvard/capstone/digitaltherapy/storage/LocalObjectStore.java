@@ -0,0 +1,181 @@
+package harvard.capstone.digitaltherapy.storage;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+/**
+ * Stores objects as files under a root directory, one subdirectory per bucket.
+ *
+ * Copies go channel to channel with {@link FileChannel#transferTo}, so the kernel moves the
+ * bytes without passing them through the heap, and large reads are memory-mapped. Writes go
+ * to a temporary file that is then moved into place, so readers never see a partial object.
+ */
+public class LocalObjectStore implements ObjectStore {
+
+    // Smaller files are read onto the heap; mapping them costs more than it saves
+    static final int MAP_THRESHOLD = 64 * 1024;
+
+    private final Path root;
+
+    public LocalObjectStore(Path root) throws IOException {
+        this.root = Files.createDirectories(root).toRealPath();
+    }
+
+    @Override
+    public String put(String bucket, String key, ByteBuffer data, String contentType) throws IOException {
+        Path target = resolve(bucket, key);
+        Path temp = tempFileFor(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer source = data.duplicate();
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+            }
+            moveIntoPlace(temp, target);
+        } finally {
+            // Only left behind if the write or move failed
+            Files.deleteIfExists(temp);
+        }
+        return uri(bucket, key);
+    }
+
+    @Override
+    public String put(String bucket, String key, Path file, String contentType) throws IOException {
+        Path target = resolve(bucket, key);
+        Path temp = tempFileFor(target);
+        try {
+            try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                transfer(source, channel);
+            }
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return uri(bucket, key);
+    }
+
+    @Override
+    public ByteBuffer get(String bucket, String key) throws IOException {
+        try (FileChannel channel = open(bucket, key)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                // The mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until full
+            }
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        }
+    }
+
+    @Override
+    public long copyTo(String bucket, String key, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = open(bucket, key)) {
+            return transfer(channel, target);
+        }
+    }
+
+    @Override
+    public boolean exists(String bucket, String key) throws IOException {
+        return Files.isRegularFile(resolve(bucket, key));
+    }
+
+    @Override
+    public void delete(String bucket, String key) throws IOException {
+        Files.deleteIfExists(resolve(bucket, key));
+    }
+
+    @Override
+    public Stream<String> list(String bucket, String prefix) throws IOException {
+        Path bucketDir = bucketDir(bucket);
+        if (!Files.isDirectory(bucketDir)) {
+            return Stream.empty();
+        }
+        return Files.walk(bucketDir)
+                .filter(Files::isRegularFile)
+                // Writes still in progress are not objects yet
+                .filter(path -> !isTempFile(path))
+                .map(path -> bucketDir.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/"))
+                .filter(key -> key.startsWith(prefix))
+                .sorted();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    private FileChannel open(String bucket, String key) throws IOException {
+        try {
+            return FileChannel.open(resolve(bucket, key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException("Object not found: " + uri(bucket, key));
+        }
+    }
+
+    // transferTo may move fewer bytes than asked, so loop until the source is drained
+    private static long transfer(FileChannel source, WritableByteChannel target) throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            long moved = source.transferTo(position, size - position, target);
+            if (moved <= 0 && position >= source.size()) {
+                break; // truncated while copying
+            }
+            position += moved;
+        }
+        return position;
+    }
+
+    private Path resolve(String bucket, String key) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Bucket and key must not be empty");
+        }
+        Path bucketDir = bucketDir(bucket);
+        Path path = bucketDir.resolve(key).normalize();
+        // Names such as "../x" must not escape the bucket
+        if (!path.startsWith(bucketDir) || path.equals(bucketDir)) {
+            throw new IllegalArgumentException("Object resolves outside its bucket: " + bucket + "/" + key);
+        }
+        return path;
+    }
+
+    private Path bucketDir(String bucket) {
+        if (bucket == null || bucket.isEmpty()) {
+            throw new IllegalArgumentException("Bucket and key must not be empty");
+        }
+        Path bucketDir = root.resolve(bucket).normalize();
+        // Names such as "../x" must not escape the root
+        if (!root.equals(bucketDir.getParent())) {
+            throw new IllegalArgumentException("Bucket resolves outside the root: " + bucket);
+        }
+        return bucketDir;
+    }
+
+    private static Path tempFileFor(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        return Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+    }
+
+    private static boolean isTempFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(".upload-") && name.endsWith(".tmp");
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,61 @@
+package harvard.capstone.digitaltherapy.storage;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Bucket/key object storage, so the pipeline can run against S3, a local directory or memory.
+ *
+ * Every backend returns the same s3://bucket/key URIs, so stored references and the code
+ * that parses them do not depend on where the objects actually live. Reading a missing
+ * object throws {@link FileNotFoundException}.
+ */
+public interface ObjectStore {
+
+    /**
+     * Stores the remaining bytes of a buffer. The buffer's position is not changed.
+     *
+     * @return The URI of the stored object
+     */
+    String put(String bucket, String key, ByteBuffer data, String contentType) throws IOException;
+
+    /**
+     * Stores the contents of a file.
+     *
+     * @return The URI of the stored object
+     */
+    String put(String bucket, String key, Path file, String contentType) throws IOException;
+
+    /**
+     * Reads a whole object. The returned buffer is read-only.
+     */
+    ByteBuffer get(String bucket, String key) throws IOException;
+
+    /**
+     * Writes an object to a channel without holding all of it in memory.
+     *
+     * @return The number of bytes written
+     */
+    long copyTo(String bucket, String key, WritableByteChannel target) throws IOException;
+
+    boolean exists(String bucket, String key) throws IOException;
+
+    /**
+     * Deletes an object; deleting a missing object is not an error.
+     */
+    void delete(String bucket, String key) throws IOException;
+
+    /**
+     * Lists the keys in a bucket that start with a prefix, in lexicographic order. The keys
+     * are read lazily, so the stream must be closed.
+     */
+    Stream<String> list(String bucket, String prefix) throws IOException;
+
+    default String uri(String bucket, String key) {
+        return String.format("s3://%s/%s", bucket, key);
+    }
+}
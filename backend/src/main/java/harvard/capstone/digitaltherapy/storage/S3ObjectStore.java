@@ -0,0 +1,125 @@
+package harvard.capstone.digitaltherapy.storage;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Stores objects in S3. Buckets are expected to exist already.
+ */
+public class S3ObjectStore implements ObjectStore {
+
+    private final S3Client s3Client;
+
+    public S3ObjectStore(S3Client s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    @Override
+    public String put(String bucket, String key, ByteBuffer data, String contentType) throws IOException {
+        ByteBuffer source = data.duplicate();
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .contentLength((long) source.remaining())
+                .build();
+        return put(request, RequestBody.fromByteBuffer(source));
+    }
+
+    @Override
+    public String put(String bucket, String key, Path file, String contentType) throws IOException {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build();
+        return put(request, RequestBody.fromFile(file));
+    }
+
+    @Override
+    public ByteBuffer get(String bucket, String key) throws IOException {
+        try {
+            return s3Client.getObjectAsBytes(getRequest(bucket, key)).asByteBuffer();
+        } catch (SdkException e) {
+            throw translate(e, bucket, key);
+        }
+    }
+
+    @Override
+    public long copyTo(String bucket, String key, WritableByteChannel target) throws IOException {
+        try (ResponseInputStream<GetObjectResponse> object = s3Client.getObject(getRequest(bucket, key))) {
+            return object.transferTo(Channels.newOutputStream(target));
+        } catch (SdkException e) {
+            throw translate(e, bucket, key);
+        }
+    }
+
+    @Override
+    public boolean exists(String bucket, String key) throws IOException {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Error checking object in S3: " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("Error checking object in S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String bucket, String key) throws IOException {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("Error deleting object from S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Stream<String> list(String bucket, String prefix) throws IOException {
+        ListObjectsV2Request request = ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build();
+        try {
+            // Pages are fetched as the stream is consumed
+            return s3Client.listObjectsV2Paginator(request).contents().stream().map(S3Object::key);
+        } catch (SdkException e) {
+            throw new IOException("Error listing objects in S3: " + e.getMessage(), e);
+        }
+    }
+
+    private String put(PutObjectRequest request, RequestBody body) throws IOException {
+        try {
+            PutObjectResponse response = s3Client.putObject(request, body);
+            if (response == null || !response.sdkHttpResponse().isSuccessful()) {
+                throw new IOException("Failed to upload " + request.key() + " to S3");
+            }
+            return uri(request.bucket(), request.key());
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload " + request.key() + " to S3: " + e.getMessage(), e);
+        }
+    }
+
+    private static GetObjectRequest getRequest(String bucket, String key) {
+        return GetObjectRequest.builder().bucket(bucket).key(key).build();
+    }
+
+    private IOException translate(SdkException e, String bucket, String key) {
+        if (e instanceof NoSuchKeyException || (e instanceof S3Exception && ((S3Exception) e).statusCode() == 404)) {
+            return new FileNotFoundException("Object not found: " + uri(bucket, key));
+        }
+        return new IOException("Error reading object from S3: " + e.getMessage(), e);
+    }
+}
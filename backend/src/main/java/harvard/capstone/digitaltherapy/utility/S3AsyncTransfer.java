@@ -0,0 +1,384 @@
+package harvard.capstone.digitaltherapy.utility;
+
+import harvard.capstone.digitaltherapy.aws.config.AwsClients;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Asynchronous S3 uploads on the SDK v2 async client.
+ *
+ * Accepts buffers, streams and files directly, so callers never write temp files just to
+ * upload. Data up to one part size is stored with a single put; larger data is split into
+ * parts that are uploaded in parallel (at most maxConcurrency at a time) and completed as
+ * one multipart upload, which is aborted if any part fails.
+ *
+ * The bucket is checked (and created if missing) once, when the application is ready or on
+ * the first upload, instead of before every upload.
+ */
+@Service
+public class S3AsyncTransfer {
+    private static final Logger logger = LoggerFactory.getLogger(S3AsyncTransfer.class);
+
+    // Blocking stream reads, shared by every instance
+    private static final ExecutorService READ_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "s3-transfer-read");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final S3AsyncClient s3Client;
+    private final String bucketName;
+    private final int partSize;
+    private final int maxConcurrency;
+    private final AtomicReference<CompletableFuture<Void>> bucketReady = new AtomicReference<>();
+
+    private final AtomicLong uploads = new AtomicLong();
+    private final AtomicLong multipartUploads = new AtomicLong();
+    private final AtomicLong bytesUploaded = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    public S3AsyncTransfer(@Value("${aws.s3.bucketName}") String bucketName,
+                           @Value("${aws.region}") String region,
+                           @Value("${aws.s3.transfer.part-size-bytes:8388608}") int partSize,
+                           @Value("${aws.s3.transfer.max-concurrency:4}") int maxConcurrency) {
+        this(AwsClients.s3Async(Region.of(region)), bucketName, partSize, maxConcurrency);
+    }
+
+    S3AsyncTransfer(S3AsyncClient s3Client, String bucketName, int partSize, int maxConcurrency) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.partSize = Math.max(S3MultipartOutputStream.MIN_PART_SIZE, partSize);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * Checks the bucket once at startup so the first upload does not pay for it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkBucketAtStartup() {
+        ensureBucket().exceptionally(e -> {
+            logger.warn("S3 bucket check for {} failed, retrying on first upload: {}", bucketName, e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Uploads the remaining bytes of a buffer. The buffer's position is not changed and it
+     * must not be modified until the returned future completes.
+     *
+     * @param data The data to upload
+     * @param keyName The key (path) where the file will be stored in S3
+     * @param contentType The content type (MIME type) of the file
+     * @return Future of the S3 URI of the uploaded file
+     */
+    public CompletableFuture<String> upload(ByteBuffer data, String keyName, String contentType) {
+        ByteBuffer view = data.duplicate();
+        CompletableFuture<String> result = view.remaining() <= partSize
+                ? putObject(view, keyName, contentType)
+                : multipartUpload(view, keyName, contentType);
+        return track(result, keyName);
+    }
+
+    /**
+     * Uploads a string as UTF-8
+     *
+     * @param content The text to upload
+     * @param keyName The key (path) where the file will be stored in S3
+     * @return Future of the S3 URI of the uploaded file
+     */
+    public CompletableFuture<String> uploadText(String content, String keyName) {
+        return upload(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)), keyName, "text/plain; charset=utf-8");
+    }
+
+    /**
+     * Uploads a file by mapping it into memory, without reading it onto the heap first
+     *
+     * @param file The file to upload; it must not change until the returned future completes
+     * @param keyName The key (path) where the file will be stored in S3
+     * @param contentType The content type (MIME type) of the file
+     * @return Future of the S3 URI of the uploaded file
+     */
+    public CompletableFuture<String> uploadFile(Path file, String keyName, String contentType) {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException("Failed to read " + file, e));
+        }
+        return upload(mapped, keyName, contentType);
+    }
+
+    /**
+     * Uploads a stream of unknown length. At most maxConcurrency + 1 parts are held in
+     * memory at a time. The stream is read on a background thread and is not closed.
+     *
+     * @param in The data to upload
+     * @param keyName The key (path) where the file will be stored in S3
+     * @param contentType The content type (MIME type) of the file
+     * @return Future of the S3 URI of the uploaded file
+     */
+    public CompletableFuture<String> upload(InputStream in, String keyName, String contentType) {
+        CompletableFuture<String> result = CompletableFuture
+                .supplyAsync(() -> readPart(in), READ_EXECUTOR)
+                .thenCompose(first -> first.length < partSize
+                        ? putObject(ByteBuffer.wrap(first), keyName, contentType)
+                        : multipartUpload(first, in, keyName, contentType));
+        return track(result, keyName);
+    }
+
+    /**
+     * @return Snapshot of the transfer counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("uploads", uploads.get());
+        stats.put("multipartUploads", multipartUploads.get());
+        stats.put("bytesUploaded", bytesUploaded.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    CompletableFuture<Void> ensureBucket() {
+        CompletableFuture<Void> ready = bucketReady.get();
+        if (ready != null) {
+            return ready;
+        }
+        CompletableFuture<Void> check = new CompletableFuture<>();
+        if (!bucketReady.compareAndSet(null, check)) {
+            return bucketReady.get();
+        }
+        s3Client.headBucket(HeadBucketRequest.builder().bucket(bucketName).build())
+                .<Void>thenApply(response -> null)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof S3Exception && ((S3Exception) cause).statusCode() == 404) {
+                        return createBucket();
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                })
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        // Let the next upload check again
+                        bucketReady.compareAndSet(check, null);
+                        check.completeExceptionally(e);
+                    } else {
+                        check.complete(null);
+                    }
+                });
+        return check;
+    }
+
+    private CompletableFuture<Void> createBucket() {
+        return s3Client.createBucket(CreateBucketRequest.builder()
+                        .bucket(bucketName)
+                        .createBucketConfiguration(CreateBucketConfiguration.builder()
+                                .locationConstraint(s3Client.serviceClientConfiguration().region().toString())
+                                .build())
+                        .build())
+                .<Void>thenApply(response -> {
+                    logger.info("Created bucket: {}", bucketName);
+                    return null;
+                })
+                .exceptionallyCompose(e -> {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof S3Exception && ((S3Exception) cause).awsErrorDetails() != null
+                            && "BucketAlreadyOwnedByYou".equals(((S3Exception) cause).awsErrorDetails().errorCode())) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    private CompletableFuture<String> putObject(ByteBuffer data, String keyName, String contentType) {
+        long length = data.remaining();
+        return ensureBucket()
+                .thenCompose(ready -> s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(keyName)
+                                .contentType(contentType)
+                                .contentLength(length)
+                                .build(),
+                        AsyncRequestBody.fromByteBuffer(data)))
+                .thenApply(response -> {
+                    bytesUploaded.addAndGet(length);
+                    return s3Uri(keyName);
+                });
+    }
+
+    private CompletableFuture<String> multipartUpload(ByteBuffer data, String keyName, String contentType) {
+        int partCount = (int) ((data.remaining() + (long) partSize - 1) / partSize);
+        CompletedPart[] parts = new CompletedPart[partCount];
+        return createMultipartUpload(keyName, contentType).thenCompose(uploadId -> {
+            // Each lane uploads every lanes-th part in turn, so at most lanes parts are in flight
+            int lanes = Math.min(maxConcurrency, partCount);
+            CompletableFuture<?>[] running = new CompletableFuture<?>[lanes];
+            for (int lane = 0; lane < lanes; lane++) {
+                running[lane] = uploadLane(data, keyName, uploadId, lane, lanes, parts);
+            }
+            return completeOrAbort(CompletableFuture.allOf(running).thenApply(done -> Arrays.asList(parts)),
+                    keyName, uploadId);
+        });
+    }
+
+    private CompletableFuture<Void> uploadLane(ByteBuffer data, String keyName, String uploadId,
+                                               int index, int stride, CompletedPart[] parts) {
+        if (index >= parts.length) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int start = index * partSize;
+        ByteBuffer part = data.duplicate();
+        part.position(data.position() + start);
+        part.limit(Math.min(data.limit(), data.position() + start + partSize));
+        return uploadPart(part.slice(), keyName, uploadId, index + 1).thenCompose(completed -> {
+            parts[index] = completed;
+            return uploadLane(data, keyName, uploadId, index + stride, stride, parts);
+        });
+    }
+
+    private CompletableFuture<String> multipartUpload(byte[] first, InputStream in, String keyName, String contentType) {
+        return createMultipartUpload(keyName, contentType).thenCompose(uploadId -> completeOrAbort(
+                CompletableFuture.supplyAsync(() -> streamParts(first, in, keyName, uploadId), READ_EXECUTOR),
+                keyName, uploadId));
+    }
+
+    /**
+     * Reads the stream part by part, keeping at most maxConcurrency part uploads running
+     */
+    private List<CompletedPart> streamParts(byte[] first, InputStream in, String keyName, String uploadId) {
+        Semaphore inFlight = new Semaphore(maxConcurrency);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<CompletedPart>> running = new ArrayList<>();
+        byte[] data = first;
+        int partNumber = 1;
+        while (data.length > 0 && !failed.get()) {
+            inFlight.acquireUninterruptibly();
+            CompletableFuture<CompletedPart> part = uploadPart(ByteBuffer.wrap(data), keyName, uploadId, partNumber++);
+            part.whenComplete((completed, e) -> {
+                if (e != null) {
+                    failed.set(true);
+                }
+                inFlight.release();
+            });
+            running.add(part);
+            if (data.length < partSize) {
+                break;
+            }
+            data = readPart(in);
+        }
+        List<CompletedPart> parts = new ArrayList<>(running.size());
+        for (CompletableFuture<CompletedPart> part : running) {
+            parts.add(part.join());
+        }
+        return parts;
+    }
+
+    private CompletableFuture<String> createMultipartUpload(String keyName, String contentType) {
+        multipartUploads.incrementAndGet();
+        return ensureBucket()
+                .thenCompose(ready -> s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(keyName)
+                        .contentType(contentType)
+                        .build()))
+                .thenApply(CreateMultipartUploadResponse::uploadId);
+    }
+
+    private CompletableFuture<CompletedPart> uploadPart(ByteBuffer part, String keyName, String uploadId, int partNumber) {
+        long length = part.remaining();
+        return s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(keyName)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength(length)
+                                .build(),
+                        AsyncRequestBody.fromByteBuffer(part))
+                .thenApply(response -> {
+                    bytesUploaded.addAndGet(length);
+                    return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+                });
+    }
+
+    private CompletableFuture<String> completeOrAbort(CompletableFuture<List<CompletedPart>> parts,
+                                                      String keyName, String uploadId) {
+        return parts
+                .thenCompose(completed -> s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(keyName)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                        .build()))
+                .thenApply(response -> s3Uri(keyName))
+                .exceptionallyCompose(e -> s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                .bucket(bucketName)
+                                .key(keyName)
+                                .uploadId(uploadId)
+                                .build())
+                        .<String>handle((aborted, abortError) -> {
+                            if (abortError != null) {
+                                logger.warn("Failed to abort multipart upload of {}: {}", keyName, abortError.getMessage());
+                            }
+                            throw new CompletionException(unwrap(e));
+                        }));
+    }
+
+    private CompletableFuture<String> track(CompletableFuture<String> result, String keyName) {
+        uploads.incrementAndGet();
+        return result.whenComplete((uri, e) -> {
+            if (e != null) {
+                failures.incrementAndGet();
+                logger.error("Error uploading {} to S3: {}", keyName, unwrap(e).getMessage());
+            } else {
+                logger.info("File successfully uploaded to S3: {}", keyName);
+            }
+        });
+    }
+
+    private byte[] readPart(InputStream in) {
+        try {
+            return in.readNBytes(partSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read upload stream", e);
+        }
+    }
+
+    private String s3Uri(String keyName) {
+        return String.format("s3://%s/%s", bucketName, keyName);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
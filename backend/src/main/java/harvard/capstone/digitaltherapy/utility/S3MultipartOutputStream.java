@@ -0,0 +1,195 @@
+package harvard.capstone.digitaltherapy.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OutputStream that writes an S3 object as a multipart upload.
+ *
+ * Data is buffered until one part is full and then uploaded, so memory use is bounded by
+ * the part size however much is written. close() uploads the last part and completes the
+ * upload; abort() discards it. Nothing is visible in the bucket until close() succeeds.
+ */
+public class S3MultipartOutputStream extends OutputStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3MultipartOutputStream.class);
+
+    /** Smallest part size S3 accepts for every part except the last */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final String keyName;
+    private final String contentType;
+    private final byte[] buffer;
+    private final List<CompletedPart> parts = new ArrayList<>();
+
+    private int position;
+    private String uploadId;
+    private long bytesWritten;
+    private boolean closed;
+
+    /**
+     * Constructor. The upload is started on the first part, so an unused stream costs nothing.
+     *
+     * @param s3Client The S3 client
+     * @param bucketName The bucket
+     * @param keyName The key of the object to create
+     * @param contentType The content type of the object
+     * @param partSize Bytes per part, at least MIN_PART_SIZE
+     */
+    public S3MultipartOutputStream(S3Client s3Client, String bucketName, String keyName,
+                                   String contentType, int partSize) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.keyName = keyName;
+        this.contentType = contentType;
+        this.buffer = new byte[partSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (position == buffer.length) {
+            flushPart();
+        }
+        buffer[position++] = (byte) b;
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (position == buffer.length) {
+                flushPart();
+            }
+            int chunk = Math.min(length, buffer.length - position);
+            System.arraycopy(data, offset, buffer, position, chunk);
+            position += chunk;
+            offset += chunk;
+            length -= chunk;
+            bytesWritten += chunk;
+        }
+    }
+
+    /**
+     * Uploads the last part and completes the upload. Data smaller than one part is stored
+     * with a plain put instead.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (uploadId == null) {
+                s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(keyName)
+                                .contentType(contentType)
+                                .build(),
+                        RequestBody.fromByteBuffer(ByteBuffer.wrap(buffer, 0, position)));
+            } else {
+                if (position > 0) {
+                    flushPart();
+                }
+                s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(keyName)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                        .build());
+            }
+            logger.info("Multipart upload to S3 completed: {} ({} bytes, {} parts)",
+                    keyName, bytesWritten, parts.size());
+        } catch (S3Exception e) {
+            abortQuietly();
+            throw new IOException("Failed to complete upload of " + keyName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Discards the upload and all parts uploaded so far
+     */
+    public void abort() {
+        closed = true;
+        abortQuietly();
+    }
+
+    /**
+     * @return The S3 URI of the object
+     */
+    public String getS3Uri() {
+        return String.format("s3://%s/%s", bucketName, keyName);
+    }
+
+    /**
+     * @return Number of bytes written so far
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void flushPart() throws IOException {
+        try {
+            if (uploadId == null) {
+                uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(keyName)
+                        .contentType(contentType)
+                        .build()).uploadId();
+            }
+            int partNumber = parts.size() + 1;
+            UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucketName)
+                            .key(keyName)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) position)
+                            .build(),
+                    RequestBody.fromByteBuffer(ByteBuffer.wrap(buffer, 0, position)));
+            parts.add(CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+            position = 0;
+        } catch (S3Exception e) {
+            closed = true;
+            abortQuietly();
+            throw new IOException("Failed to upload part of " + keyName + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void abortQuietly() {
+        if (uploadId == null) {
+            return;
+        }
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(keyName)
+                    .uploadId(uploadId)
+                    .build());
+            logger.info("Multipart upload to S3 aborted: {}", keyName);
+        } catch (S3Exception e) {
+            logger.warn("Failed to abort multipart upload of {}: {}", keyName, e.getMessage());
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
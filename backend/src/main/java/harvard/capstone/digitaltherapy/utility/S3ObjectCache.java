@@ -0,0 +1,400 @@
+package harvard.capstone.digitaltherapy.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache for S3 objects.
+ *
+ * Small objects (transcripts, LLM outputs, FHIR documents) are kept in an in-memory LRU
+ * tier; larger ones (media) go to a size-capped LRU directory on local disk and are read
+ * back memory-mapped. Each entry is keyed by bucket, key and ETag.
+ *
+ * A cached key that was fetched or revalidated within the revalidation window, or whose
+ * key starts with one of the immutable prefixes (objects that are written once and never
+ * overwritten, such as FHIR documents), is served without any request. Any other read of
+ * a cached key is a conditional GET with If-None-Match, so S3 answers 304 without a body
+ * when the object is unchanged. Writers in this process call {@link #invalidate} so that
+ * the window never serves an object they just overwrote; the window therefore only
+ * bounds staleness for objects overwritten by other processes or AWS services.
+ *
+ * Only the latest version of a key is kept. A tier limit of 0 disables that tier.
+ */
+@Service
+public class S3ObjectCache {
+    private static final Logger logger = LoggerFactory.getLogger(S3ObjectCache.class);
+
+    private static final String FILE_SUFFIX = ".obj";
+
+    private final long memoryMaxBytes;
+    private final int memoryMaxObjectBytes;
+    private final Path diskDir;
+    private final long diskMaxBytes;
+    private final long revalidateAfterNanos;
+    private final String[] immutablePrefixes;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong unrevalidatedHits = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong bytesFetched = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public S3ObjectCache(@Value("${aws.s3.cache.memory-max-bytes:33554432}") long memoryMaxBytes,
+                         @Value("${aws.s3.cache.memory-max-object-bytes:1048576}") int memoryMaxObjectBytes,
+                         @Value("${aws.s3.cache.disk-dir:${java.io.tmpdir}/dta-s3-cache}") String diskDir,
+                         @Value("${aws.s3.cache.disk-max-bytes:536870912}") long diskMaxBytes,
+                         @Value("${aws.s3.cache.revalidate-after-ms:2000}") long revalidateAfterMs,
+                         @Value("${aws.s3.cache.immutable-prefixes:fhir/}") String[] immutablePrefixes)
+            throws IOException {
+        this(memoryMaxBytes, memoryMaxObjectBytes, Paths.get(diskDir), diskMaxBytes, revalidateAfterMs, immutablePrefixes);
+    }
+
+    S3ObjectCache(long memoryMaxBytes, int memoryMaxObjectBytes, Path diskDir, long diskMaxBytes)
+            throws IOException {
+        this(memoryMaxBytes, memoryMaxObjectBytes, diskDir, diskMaxBytes, 0, new String[0]);
+    }
+
+    S3ObjectCache(long memoryMaxBytes, int memoryMaxObjectBytes, Path diskDir, long diskMaxBytes,
+                  long revalidateAfterMs, String[] immutablePrefixes) throws IOException {
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.memoryMaxObjectBytes = memoryMaxObjectBytes;
+        this.diskDir = diskDir.toAbsolutePath().normalize();
+        this.diskMaxBytes = diskMaxBytes;
+        this.revalidateAfterNanos = TimeUnit.MILLISECONDS.toNanos(revalidateAfterMs);
+        this.immutablePrefixes = immutablePrefixes;
+        if (diskMaxBytes > 0) {
+            Files.createDirectories(this.diskDir);
+            clearDiskDir();
+        }
+    }
+
+    /**
+     * Reads an object through the cache.
+     *
+     * @return The object contents as a read-only buffer
+     * @throws S3Exception when S3 fails the request, as a plain getObject would
+     */
+    public ByteBuffer read(S3Client s3Client, String bucket, String key) throws IOException {
+        String id = bucket + "/" + key;
+        Cached cached = lookup(id);
+        if (cached != null && (isImmutable(key) || System.nanoTime() - cached.entry.validatedAt < revalidateAfterNanos)) {
+            unrevalidatedHits.incrementAndGet();
+            return hit(cached);
+        }
+        GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(key);
+        if (cached != null) {
+            request.ifNoneMatch(cached.entry.eTag);
+        }
+        ResponseInputStream<GetObjectResponse> object;
+        try {
+            object = s3Client.getObject(request.build());
+        } catch (S3Exception e) {
+            if (cached != null && e.statusCode() == 304) {
+                cached.entry.validatedAt = System.nanoTime();
+                return hit(cached);
+            }
+            throw e;
+        }
+        try (ResponseInputStream<GetObjectResponse> in = object) {
+            misses.incrementAndGet();
+            String eTag = in.response().eTag();
+            Long length = in.response().contentLength();
+            if (eTag != null && length != null && length > memoryMaxObjectBytes && diskMaxBytes > 0) {
+                // Media goes straight to the disk tier rather than through the heap
+                ByteBuffer content = storeOnDisk(id, eTag, in);
+                bytesFetched.addAndGet(content.remaining());
+                return content;
+            }
+            byte[] bytes = in.readAllBytes();
+            bytesFetched.addAndGet(bytes.length);
+            if (eTag != null) {
+                store(id, eTag, bytes);
+            }
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Drops a key, so the next read fetches it again. Called after writing the key.
+     */
+    public void invalidate(String bucket, String key) {
+        String id = bucket + "/" + key;
+        DiskEntry removed;
+        synchronized (this) {
+            MemoryEntry inMemory = memory.remove(id);
+            if (inMemory != null) {
+                memoryBytes -= inMemory.content.length;
+            }
+            removed = disk.remove(id);
+            if (removed != null) {
+                diskBytes -= removed.size;
+            }
+        }
+        if (removed != null) {
+            deleteQuietly(removed.file);
+        }
+    }
+
+    /**
+     * @return Snapshot of the cache counters
+     */
+    public Map<String, Object> getStats() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("unrevalidatedHits", unrevalidatedHits.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        stats.put("bytesSaved", bytesSaved.get());
+        stats.put("bytesFetched", bytesFetched.get());
+        stats.put("evictions", evictions.get());
+        synchronized (this) {
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+            stats.put("diskEntries", disk.size());
+            stats.put("diskBytes", diskBytes);
+        }
+        return stats;
+    }
+
+    private Cached lookup(String id) {
+        MemoryEntry inMemory;
+        DiskEntry onDisk;
+        synchronized (this) {
+            inMemory = memory.get(id);
+            onDisk = inMemory == null ? disk.get(id) : null;
+        }
+        if (inMemory != null) {
+            return new Cached(inMemory, ByteBuffer.wrap(inMemory.content).asReadOnlyBuffer(), false);
+        }
+        if (onDisk == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(onDisk.file)) {
+            return new Cached(onDisk, channel.map(FileChannel.MapMode.READ_ONLY, 0, onDisk.size), true);
+        } catch (NoSuchFileException e) {
+            // Evicted concurrently or removed externally; fetch it again
+            return null;
+        } catch (IOException e) {
+            logger.warn("Could not read cached object {}: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    private ByteBuffer hit(Cached cached) {
+        (cached.fromDisk ? diskHits : memoryHits).incrementAndGet();
+        bytesSaved.addAndGet(cached.content.remaining());
+        return cached.content;
+    }
+
+    private boolean isImmutable(String key) {
+        for (String prefix : immutablePrefixes) {
+            if (!prefix.isEmpty() && key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void store(String id, String eTag, byte[] bytes) throws IOException {
+        if (bytes.length <= memoryMaxObjectBytes && bytes.length <= memoryMaxBytes) {
+            DiskEntry replaced;
+            synchronized (this) {
+                replaced = disk.remove(id);
+                if (replaced != null) {
+                    diskBytes -= replaced.size;
+                }
+                MemoryEntry previous = memory.put(id, new MemoryEntry(eTag, bytes));
+                if (previous != null) {
+                    memoryBytes -= previous.content.length;
+                }
+                memoryBytes += bytes.length;
+                evictMemory();
+            }
+            if (replaced != null) {
+                deleteQuietly(replaced.file);
+            }
+        } else if (diskMaxBytes > 0 && bytes.length <= diskMaxBytes) {
+            Path temp = Files.createTempFile(diskDir, "incoming-", ".tmp");
+            try {
+                Files.write(temp, bytes);
+                register(id, eTag, temp, bytes.length);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private ByteBuffer storeOnDisk(String id, String eTag, ResponseInputStream<GetObjectResponse> in)
+            throws IOException {
+        Path temp = Files.createTempFile(diskDir, "incoming-", ".tmp");
+        try {
+            long size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            ByteBuffer content;
+            try (FileChannel channel = FileChannel.open(temp)) {
+                // The mapping stays valid after the file is moved or deleted
+                content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            if (size <= diskMaxBytes) {
+                register(id, eTag, temp, size);
+            }
+            return content;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Moves a fully written temp file into the disk tier under its bucket/key/ETag name
+    private void register(String id, String eTag, Path temp, long size) throws IOException {
+        Path file = diskDir.resolve(fileName(id, eTag));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        List<Path> stale = new ArrayList<>();
+        synchronized (this) {
+            MemoryEntry replaced = memory.remove(id);
+            if (replaced != null) {
+                memoryBytes -= replaced.content.length;
+            }
+            DiskEntry previous = disk.put(id, new DiskEntry(eTag, file, size));
+            if (previous != null) {
+                diskBytes -= previous.size;
+                if (!previous.file.equals(file)) {
+                    stale.add(previous.file);
+                }
+            }
+            diskBytes += size;
+            Iterator<DiskEntry> lru = disk.values().iterator();
+            while (diskBytes > diskMaxBytes && lru.hasNext()) {
+                DiskEntry eldest = lru.next();
+                lru.remove();
+                diskBytes -= eldest.size;
+                evictions.incrementAndGet();
+                stale.add(eldest.file);
+            }
+        }
+        for (Path path : stale) {
+            deleteQuietly(path);
+        }
+    }
+
+    // Called while holding the lock
+    private void evictMemory() {
+        Iterator<MemoryEntry> lru = memory.values().iterator();
+        while (memoryBytes > memoryMaxBytes && lru.hasNext()) {
+            memoryBytes -= lru.next().content.length;
+            lru.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Entries do not survive a restart, so files left by a previous run are removed
+    private void clearDiskDir() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDir, "*{" + FILE_SUFFIX + ",.tmp}")) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private static String fileName(String id, String eTag) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(id.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(eTag.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest()) + FILE_SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete cached file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static class Cached {
+        final Entry entry;
+        final ByteBuffer content;
+        final boolean fromDisk;
+
+        Cached(Entry entry, ByteBuffer content, boolean fromDisk) {
+            this.entry = entry;
+            this.content = content;
+            this.fromDisk = fromDisk;
+        }
+    }
+
+    private static class Entry {
+        final String eTag;
+        // System.nanoTime() of the last fetch or 304 for this ETag
+        volatile long validatedAt = System.nanoTime();
+
+        Entry(String eTag) {
+            this.eTag = eTag;
+        }
+    }
+
+    private static class MemoryEntry extends Entry {
+        final byte[] content;
+
+        MemoryEntry(String eTag, byte[] content) {
+            super(eTag);
+            this.content = content;
+        }
+    }
+
+    private static class DiskEntry extends Entry {
+        final Path file;
+        final long size;
+
+        DiskEntry(String eTag, Path file, long size) {
+            super(eTag);
+            this.file = file;
+            this.size = size;
+        }
+    }
+}
@@ -1,109 +1,213 @@
 package harvard.capstone.digitaltherapy.utility;
 
+import harvard.capstone.digitaltherapy.aws.config.AwsClients;
+import harvard.capstone.digitaltherapy.storage.ObjectStore;
+import harvard.capstone.digitaltherapy.storage.S3ObjectStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.WebSocketSession;
 
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.core.retry.RetryPolicy;
-import software.amazon.awssdk.core.retry.backoff.BackoffStrategy;
-import software.amazon.awssdk.core.retry.conditions.RetryCondition;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.model.*;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import ws.schild.jave.encode.AudioAttributes;
-import ws.schild.jave.encode.EncodingAttributes;
-import ws.schild.jave.encode.VideoAttributes;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.*;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class S3Utils {
     private static final Logger logger = LoggerFactory.getLogger(S3Utils.class);
-    S3Client s3Client;
+    private final S3Client s3Client;
     private final String bucketName;
-    public static final String rootBucket = "dta-root";
+    // Region of the bucket (aws.region), used to sign URLs
+    private final Region region;
     @Value("${ffmpeg_path}")
     private String ffmpeg_path;
+    // Async uploads for media; null when constructed without one
+    private final S3AsyncTransfer transfer;
+    // Every read and write goes through the store: S3, a local directory or memory
+    private final ObjectStore objectStore;
+    // Bucket creation, async media transfers and the ETag cache only apply when the store is S3
+    private final boolean s3Backed;
+    // Read-through cache for S3 downloads; null when constructed without one
+    private final S3ObjectCache cache;
+    // Set once the bucket is known to exist, so later uploads skip the HEAD request
+    private volatile boolean bucketReady;
 
     public S3Utils(@Value("${aws.s3.bucketName}") String bucketName,
                    @Value("${aws.region}") String region) {
+        this(bucketName, region, null, null, null);
+    }
+
+    public S3Utils(String bucketName, String region, S3AsyncTransfer transfer) {
+        this(bucketName, region, transfer, null, null);
+    }
+
+    @Autowired
+    public S3Utils(@Value("${aws.s3.bucketName}") String bucketName,
+                   @Value("${aws.region}") String region,
+                   S3AsyncTransfer transfer,
+                   ObjectStore objectStore,
+                   S3ObjectCache cache) {
+        this(bucketName, Region.of(region), AwsClients.s3(Region.of(region)), transfer, objectStore, cache);
+    }
+
+    S3Utils(String bucketName, Region region, S3Client s3Client, S3AsyncTransfer transfer,
+            ObjectStore objectStore, S3ObjectCache cache) {
         this.bucketName = bucketName;
-        RetryPolicy retryPolicy = RetryPolicy.builder()
-                .numRetries(3)
-                .retryCondition(RetryCondition.defaultRetryCondition())
-                .backoffStrategy(BackoffStrategy.defaultStrategy())
-                .build();
-
-        this.s3Client = S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .overrideConfiguration(config -> config
-                        .retryPolicy(retryPolicy)
-                        .apiCallTimeout(Duration.ofMinutes(30))
-                        .apiCallAttemptTimeout(Duration.ofMinutes(20)))
-                .build();
+        this.region = region;
+        this.s3Client = s3Client;
+        this.transfer = transfer;
+        this.cache = cache;
+        this.objectStore = objectStore != null ? objectStore : new S3ObjectStore(s3Client);
+        this.s3Backed = this.objectStore instanceof S3ObjectStore;
     }
 
-    public String uploadFile(String filePath, String keyName) {
-        try {
-            // Check if bucket exists
-            if (!doesBucketExist(bucketName)) {
-                createBucket(bucketName);
-            }
-            Path path = Paths.get(filePath);
-            PutObjectRequest request = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(keyName)
-                    .build();
+    /**
+     * The configured bucket (aws.s3.bucketName) that uploads go to
+     */
+    public String getBucketName() {
+        return bucketName;
+    }
 
-            PutObjectResponse response = s3Client.putObject(request, RequestBody.fromFile(path));
+    /**
+     * The s3://bucket/key URI of an object in the configured bucket
+     */
+    public String uri(String keyName) {
+        return objectStore.uri(bucketName, keyName);
+    }
 
-            if (response != null && response.sdkHttpResponse().isSuccessful()) {
-                logger.info("File successfully uploaded to S3: {}", keyName);
-                String s3Uri = String.format("s3://%s/%s", bucketName, keyName);
-                return s3Uri;
-            } else {
-                throw new RuntimeException("Failed to upload file to S3");
+    /**
+     * Extracts the object key from an s3://bucket/key URI or an https S3 URL, in either
+     * the path style (https://s3.amazonaws.com/bucket/key) or the virtual-hosted style
+     * (https://bucket.s3.amazonaws.com/key). Anything else is taken to be a key already.
+     */
+    public static String keyOf(String location) {
+        if (location.startsWith("s3://")) {
+            int slash = location.indexOf('/', "s3://".length());
+            return slash < 0 ? "" : location.substring(slash + 1);
+        }
+        if (location.startsWith("https://")) {
+            int slash = location.indexOf('/', "https://".length());
+            if (slash < 0) {
+                return "";
             }
-        } catch (S3Exception e) {
-            logger.error("Error uploading file to S3: {}", e.getMessage());
-            throw new RuntimeException("Failed to upload file to S3: " + e.getMessage());
+            String host = location.substring("https://".length(), slash);
+            String path = location.substring(slash + 1);
+            if (host.startsWith("s3.") || host.startsWith("s3-")) {
+                int bucketEnd = path.indexOf('/');
+                return bucketEnd < 0 ? "" : path.substring(bucketEnd + 1);
+            }
+            return path;
         }
+        return location;
     }
 
-    // Method to retrieve file from S3 and save it locally
-    public File downloadFileFromS3(String bucketName, String fileKey) throws IOException {
-        // Build the GetObjectRequest
-        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)    // The S3 bucket name
-                .key(fileKey)          // The file's key (path in the bucket)
-                .build();
+    /**
+     * Extracts the bucket from the same forms as {@link #keyOf}
+     *
+     * @return The bucket, or null when the location is a bare key
+     */
+    public static String bucketOf(String location) {
+        if (location.startsWith("s3://")) {
+            int slash = location.indexOf('/', "s3://".length());
+            return slash < 0 ? location.substring("s3://".length()) : location.substring("s3://".length(), slash);
+        }
+        if (location.startsWith("https://")) {
+            int slash = location.indexOf('/', "https://".length());
+            String host = location.substring("https://".length(), slash < 0 ? location.length() : slash);
+            if (host.startsWith("s3.") || host.startsWith("s3-")) {
+                String path = slash < 0 ? "" : location.substring(slash + 1);
+                int bucketEnd = path.indexOf('/');
+                return bucketEnd < 0 ? path : path.substring(0, bucketEnd);
+            }
+            int s3Host = host.indexOf(".s3");
+            return s3Host < 0 ? null : host.substring(0, s3Host);
+        }
+        return null;
+    }
 
-        // Retrieve the file from S3
-        ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(getObjectRequest);
+    /**
+     * Reads a whole object, through the cache when the store is S3
+     *
+     * @return The object contents as a read-only buffer
+     */
+    public ByteBuffer read(String bucketName, String keyName) throws IOException {
+        if (s3Backed && cache != null) {
+            return cache.read(s3Client, bucketName, keyName);
+        }
+        return objectStore.get(bucketName, keyName);
+    }
 
-        // Create a temporary file to store the file locally
-        Path tempFilePath = Files.createTempFile("downloaded-file-", ".tmp");
-        Files.copy(s3Object, tempFilePath, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Drops a cached copy of an object that was written without going through this class
+     */
+    public void invalidateCached(String bucketName, String keyName) {
+        if (cache != null) {
+            cache.invalidate(bucketName, keyName);
+        }
+    }
+
+    public String uploadFile(String filePath, String keyName) {
+        ensureBucket();
+        return putToStore(keyName, Paths.get(filePath), null);
+    }
 
-        // Convert the Path to a File
+    // Method to retrieve file from S3 and save it locally
+    public File downloadFileFromS3(String bucketName, String fileKey) throws IOException {
+        Path tempFilePath = Files.createTempFile("downloaded-file-", ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFilePath, StandardOpenOption.WRITE)) {
+            if (s3Backed && cache != null) {
+                ByteBuffer content = cache.read(s3Client, bucketName, fileKey);
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            } else {
+                objectStore.copyTo(bucketName, fileKey, channel);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFilePath);
+            throw e;
+        }
         return tempFilePath.toFile();
     }
 
+    // Checks (and creates) the bucket on the first upload only; a failed check is retried next time
+    private void ensureBucket() {
+        if (!s3Backed || bucketReady) {
+            return;
+        }
+        if (transfer != null) {
+            // Share the async transfer's check, which usually already ran at startup
+            try {
+                transfer.ensureBucket().join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw new RuntimeException("Failed to check bucket " + bucketName + ": " + cause.getMessage(), cause);
+            }
+        } else if (!doesBucketExist(bucketName)) {
+            createBucket(bucketName);
+        }
+        bucketReady = true;
+    }
+
     private boolean doesBucketExist(String bucketName) {
         try {
             s3Client.headBucket(request -> request.bucket(bucketName));
@@ -150,142 +254,93 @@ public class S3Utils {
 
         public void streamFileFromS3(String bucketName, String fileKey, OutputStream outputStream)
                 throws IOException {
-            try {
-                // First check if file exists
-                HeadObjectRequest headRequest = HeadObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(fileKey)
-                        .build();
-
-                try {
-                    s3Client.headObject(headRequest);
-                } catch (S3Exception e) {
-                    if (e.statusCode() == 404) {
-                        throw new FileNotFoundException("File not found in S3: " + fileKey);
-                    }
-                    throw new IOException("Error checking file in S3: " + e.getMessage(), e);
-                }
-
-                // Get the object
-                GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(fileKey)
-                        .build();
-
-                try (ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(getObjectRequest)) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = s3Object.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                    }
-                    outputStream.flush();
-                }
-            } catch (S3Exception e) {
-                throw new IOException("Error streaming file from S3: " + e.getMessage(), e);
-            }
+            // A missing object surfaces as FileNotFoundException from the store
+            objectStore.copyTo(bucketName, fileKey, Channels.newChannel(outputStream));
+            outputStream.flush();
         }
 
-        public static String generatePresignedUrl(String bucket, String key, Duration duration) {
-            try (S3Presigner presigner = S3Presigner.create()) {
-                GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                        .bucket(bucket)
-                        .key(key)
-                        .build();
+        public String generatePresignedUrl(String bucket, String key, Duration duration) {
+            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build();
 
-                GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                        .signatureDuration(duration)
-                        .getObjectRequest(getObjectRequest)
-                        .build();
+            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                    .signatureDuration(duration)
+                    .getObjectRequest(getObjectRequest)
+                    .build();
 
-                URL signedUrl = presigner.presignGetObject(presignRequest).url();
-                return signedUrl.toString();
-            }
+            // The presigner is shared; creating one per call reloads credentials and region.
+            // It signs for the configured region, where the bucket lives
+            URL signedUrl = AwsClients.s3Presigner(region).presignGetObject(presignRequest).url();
+            return signedUrl.toString();
         }
 
         // File name: "video_" + sessionId + ".mp4";
         public String uploadVideoBinaryFile(BinaryMessage message, String keyName){
+            File mp4File = null;
             try {
-                // Get the binary payload
-                ByteBuffer buffer = message.getPayload();
-                byte[] audioData = new byte[buffer.remaining()];
-                buffer.get(audioData);
-                File webmFile = null;
-                File mp4File = null;
-                // keyName = "video_" + sessionId + ".mp4";
-                try {
-                    // Step 1: Save incoming WebM data to a temp file
-                    webmFile = File.createTempFile("video_temp_", ".webm");
-                    try (FileOutputStream fos = new FileOutputStream(webmFile)) {
-                        fos.write(audioData);
-                    }
-                    // Step 2: Create target MP4 file
-                    mp4File = new File(webmFile.getParent(), "converted_" + webmFile.getName().replace(".webm", ".mp4"));
-                    // Configure audio attributes
-                    AudioAttributes audio = new AudioAttributes();
-                    audio.setCodec("aac");
-                    audio.setBitRate(128000);
-                    audio.setChannels(2);
-                    audio.setSamplingRate(44100);
-
-                    // Configure video attributes
-                    VideoAttributes video = new VideoAttributes();
-                    video.setCodec("h264");
-                    video.setBitRate(800000);
-                    video.setFrameRate(30);
-
-                    // Configure encoding attributes
-                    EncodingAttributes attrs = new EncodingAttributes();
-                    attrs.setOutputFormat("mp4");
-                    attrs.setAudioAttributes(audio);
-                    attrs.setVideoAttributes(video);
-
-                    // Use ProcessBuilder directly for more control
-                    List<String> command = Arrays.asList(
-                            ffmpeg_path,
-                            "-i", webmFile.getAbsolutePath(),
-                            "-c:v", "h264",
-                            "-c:a", "aac",
-                            "-b:a", "128k",
-                            "-b:v", "800k",
-                            "-r", "30",
-                            mp4File.getAbsolutePath()
-                    );
-
-                    ProcessBuilder pb = new ProcessBuilder(command);
-                    pb.redirectErrorStream(true);
-                    Process process = pb.start();
-                    int exitCode = process.waitFor();
-                    if (exitCode != 0) {
-                        throw new RuntimeException("FFmpeg process failed with exit code: " + exitCode);
+                // MP4 needs a seekable output, so only the converted file goes to disk;
+                // the WebM input is piped to FFmpeg straight from the frame buffer
+                mp4File = File.createTempFile("converted_video_", ".mp4");
+                List<String> command = Arrays.asList(
+                        ffmpeg_path,
+                        "-y",
+                        "-f", "webm",
+                        "-i", "pipe:0",
+                        "-c:v", "h264",
+                        "-c:a", "aac",
+                        "-b:a", "128k",
+                        "-b:v", "800k",
+                        "-r", "30",
+                        mp4File.getAbsolutePath()
+                );
+
+                ProcessBuilder pb = new ProcessBuilder(command);
+                // FFmpeg's log is not read, so it must not fill a pipe and block the process
+                pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+                pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+                Process process = pb.start();
+                try (OutputStream stdin = process.getOutputStream();
+                     WritableByteChannel channel = Channels.newChannel(stdin)) {
+                    ByteBuffer payload = message.getPayload().duplicate();
+                    while (payload.hasRemaining()) {
+                        channel.write(payload);
                     }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    throw new RuntimeException("Video conversion failed: " + e.getMessage(), e);
+                } catch (IOException e) {
+                    // FFmpeg closed its input early; the exit code reports why
+                    logger.warn("FFmpeg stopped reading video input: {}", e.getMessage());
+                }
+                int exitCode = process.waitFor();
+                if (exitCode != 0) {
+                    throw new RuntimeException("FFmpeg process failed with exit code: " + exitCode);
                 }
 
-                String videoURL = uploadFile(mp4File.getAbsolutePath(), keyName);
-                return videoURL;
+                if (s3Backed && transfer != null) {
+                    return written(keyName, transfer.uploadFile(mp4File.toPath(), keyName, "video/mp4").join());
+                }
+                ensureBucket();
+                return putToStore(keyName, mp4File.toPath(), "video/mp4");
             }
             catch (Exception e) {
                 throw new RuntimeException("Error processing video binary message: " + e.getMessage(), e);
             }
+            finally {
+                if (mp4File != null) {
+                    mp4File.delete();
+                }
+            }
         }
 
 
         // File name: keyName = "audio_" + sessionId + ".mp3";
         public String uploadAudioBinaryFile(BinaryMessage message, String keyName){
             try {
-                ByteBuffer buffer = message.getPayload();
-                byte[] audioData = new byte[buffer.remaining()];
-                buffer.get(audioData);
-                File tempFile = null;
-                tempFile = File.createTempFile("audio_", ".mp3");
-                try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-                    fos.write(audioData);
+                // Put straight from the frame buffer, no temp file
+                if (s3Backed && transfer != null) {
+                    return written(keyName, transfer.upload(message.getPayload(), keyName, "audio/mpeg").join());
                 }
-                // keyName = "audio_" + sessionId + ".mp3";
-                String audioPath = uploadFile(tempFile.getAbsolutePath(), keyName);
-                return audioPath;
+                return uploadBuffer(message.getPayload(), keyName, "audio/mpeg");
             }
             catch (Exception e) {
                 throw new RuntimeException("Error processing audio binary message: " + e.getMessage(), e);
@@ -293,42 +348,91 @@ public class S3Utils {
         }
 
     /**
-     * Upload file content from an InputStream with specified content type
+     * Upload the remaining bytes of a buffer without copying them to a file
      *
-     * @param inputStream The input stream containing the file data
+     * @param buffer The data to upload; its position is not changed
      * @param keyName The key (path) where the file will be stored in S3
      * @param contentType The content type (MIME type) of the file
      * @return The S3 URI of the uploaded file
      */
-    public String uploadFile(InputStream inputStream, String keyName, String contentType) {
+    public String uploadBuffer(ByteBuffer buffer, String keyName, String contentType) {
+        ensureBucket();
+        return putToStore(keyName, buffer, contentType);
+    }
+
+    /**
+     * Upload text as a UTF-8 object, straight from memory
+     *
+     * @param content The text to store
+     * @param keyName The key (path) where the file will be stored
+     * @return The URI of the uploaded file
+     */
+    public String uploadText(String content, String keyName) {
+        ByteBuffer data = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        if (!s3Backed || transfer == null) {
+            return uploadBuffer(data, keyName, "text/plain; charset=utf-8");
+        }
         try {
-            // Check if bucket exists
-            if (!doesBucketExist(bucketName)) {
-                createBucket(bucketName);
+            return written(keyName, transfer.upload(data, keyName, "text/plain; charset=utf-8").join());
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw new RuntimeException("Failed to upload text to S3", cause);
+        }
+    }
 
-            // Create the put request with content type metadata
-            PutObjectRequest request = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(keyName)
-                    .contentType(contentType)
-                    .build();
+    /**
+     * Open a stream that writes an object as a multipart upload, for content too large
+     * to hold in memory. The object is created when the stream is closed.
+     *
+     * @param keyName The key (path) where the file will be stored in S3
+     * @param contentType The content type (MIME type) of the file
+     * @param partSize Bytes buffered per part, at least S3MultipartOutputStream.MIN_PART_SIZE
+     * @return The upload stream
+     */
+    public S3MultipartOutputStream openMultipartUpload(String keyName, String contentType, int partSize) {
+        if (!s3Backed) {
+            throw new IllegalStateException("Multipart uploads need the S3 storage backend");
+        }
+        ensureBucket();
+        return new S3MultipartOutputStream(s3Client, bucketName, keyName, contentType, partSize);
+    }
 
-            // Upload the content from the input stream
-            byte[] bytes = inputStream.readAllBytes();
-            PutObjectResponse response = s3Client.putObject(request, RequestBody.fromBytes(bytes));
+    /**
+     * List the keys in the bucket that start with a prefix, in lexicographic order
+     *
+     * @param prefix The key prefix, e.g. a folder such as "fhir/"
+     * @return The keys, read lazily; the stream must be closed
+     */
+    public Stream<String> listKeys(String prefix) {
+        try {
+            return objectStore.list(bucketName, prefix);
+        } catch (IOException e) {
+            logger.error("Error listing {}: {}", prefix, e.getMessage());
+            throw new RuntimeException("Failed to list files: " + e.getMessage());
+        }
+    }
 
-            if (response != null && response.sdkHttpResponse().isSuccessful()) {
-                logger.info("File successfully uploaded to S3: {}", keyName);
-                String s3Uri = String.format("s3://%s/%s", bucketName, keyName);
-                return s3Uri;
-            } else {
-                throw new RuntimeException("Failed to upload file to S3");
-            }
-        } catch (S3Exception | IOException e) {
-            logger.error("Error uploading file to S3: {}", e.getMessage());
-            throw new RuntimeException("Failed to upload file to S3: " + e.getMessage());
+    /**
+     * Upload file content from an InputStream with specified content type
+     *
+     * @param inputStream The input stream containing the file data
+     * @param keyName The key (path) where the file will be stored in S3
+     * @param contentType The content type (MIME type) of the file
+     * @return The S3 URI of the uploaded file
+     */
+    public String uploadFile(InputStream inputStream, String keyName, String contentType) {
+        ByteBuffer data;
+        try {
+            data = ByteBuffer.wrap(inputStream.readAllBytes());
+        } catch (IOException e) {
+            logger.error("Error reading upload for {}: {}", keyName, e.getMessage());
+            throw new RuntimeException("Failed to upload file: " + e.getMessage());
         }
+        ensureBucket();
+        return putToStore(keyName, data, contentType);
     }
 
     /**
@@ -339,30 +443,47 @@ public class S3Utils {
      */
     public String downloadFileAsString(String keyName) {
         try {
-            // Build the GetObjectRequest
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(keyName)
-                    .build();
-
-            // Retrieve the file from S3
-            ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(getObjectRequest);
-
-            // Read the content as a string
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(s3Object))) {
-                StringBuilder stringBuilder = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    stringBuilder.append(line);
-                }
-                return stringBuilder.toString();
+            String content;
+            if (s3Backed && cache != null) {
+                content = StandardCharsets.UTF_8.decode(cache.read(s3Client, bucketName, keyName)).toString();
+            } else {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                objectStore.copyTo(bucketName, keyName, Channels.newChannel(out));
+                content = out.toString(StandardCharsets.UTF_8);
             }
-        } catch (S3Exception | IOException e) {
-            logger.error("Error downloading file from S3: {}", e.getMessage());
-            throw new RuntimeException("Failed to download file from S3: " + e.getMessage());
+            // Line breaks are dropped
+            return content.lines().collect(Collectors.joining());
+        } catch (IOException | S3Exception e) {
+            logger.error("Error downloading file {}: {}", keyName, e.getMessage());
+            throw new RuntimeException("Failed to download file: " + e.getMessage());
         }
     }
 
+    // An overwritten key must not be served from the cache's revalidation window
+    private String written(String keyName, String uri) {
+        invalidateCached(bucketName, keyName);
+        return uri;
+    }
 
+    private String putToStore(String keyName, ByteBuffer data, String contentType) {
+        try {
+            String uri = objectStore.put(bucketName, keyName, data, contentType);
+            logger.info("Buffer stored: {} ({} bytes)", uri, data.remaining());
+            return written(keyName, uri);
+        } catch (IOException e) {
+            logger.error("Error storing {}: {}", keyName, e.getMessage());
+            throw new RuntimeException("Failed to upload file: " + e.getMessage());
+        }
     }
 
+    private String putToStore(String keyName, Path file, String contentType) {
+        try {
+            String uri = objectStore.put(bucketName, keyName, file, contentType);
+            logger.info("File stored: {}", uri);
+            return written(keyName, uri);
+        } catch (IOException e) {
+            logger.error("Error storing {}: {}", keyName, e.getMessage());
+            throw new RuntimeException("Failed to upload file: " + e.getMessage());
+        }
+    }
+}
@@ -3,46 +3,116 @@ package harvard.capstone.digitaltherapy.websocket;
 import harvard.capstone.digitaltherapy.burnout.controller.BurnoutController;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * WebSocket handler for burnout assessments.
+ *
+ * Media uploads are announced with a "video_upload" or "audio_upload" text message and
+ * followed by one binary frame. Two forms are supported:
+ * - Without "uploadId": one upload per connection; the next binary frame belongs to the
+ *   latest announcement.
+ * - With "uploadId": any number of uploads may be in flight. Each binary frame starts with
+ *   the header "UPLD", one length byte and the UTF-8 upload ID, followed by the media bytes.
+ *   The server acknowledges with "upload-ready" and then "upload-complete" or "upload-failed";
+ *   an upload whose response could not be recorded counts as failed.
+ *
+ * Uploads are processed on a dedicated I/O pool, not on the container thread, and all
+ * messages to a client go through a ConcurrentWebSocketSessionDecorator so acknowledgements
+ * from several uploads can be sent at once.
+ *
+ * Messages from one connection still take effect in arrival order: uploads without an ID run
+ * one after another, and a text message received while uploads are in flight is handled
+ * once they finish, on a separate message pool so a slow handler (such as scoring on
+ * "assessment-complete") never holds an upload thread. A client may therefore send its last answer's media and then
+ * "assessment-complete" straight away.
+ */
 @Component
 public class BurnoutWebSocketHandler extends TextWebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(BurnoutWebSocketHandler.class);
 
+    static final byte[] UPLOAD_HEADER_MAGIC = "UPLD".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 512 * 1024;
+
+    private static final ExecutorService DEFAULT_UPLOAD_EXECUTOR = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "burnout-upload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ExecutorService DEFAULT_MESSAGE_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "burnout-message");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final ObjectMapper objectMapper;
     private final BurnoutController burnoutController;
+    private final Executor uploadExecutor;
+    private final Executor messageExecutor;
+
     private static class PendingUploadContext {
         public String type;
         public String sessionId;
         public String questionId;
+        public String uploadId;
     }
-    
+
+    // Uploads announced without an ID, keyed by WebSocket session ID
     private final Map<String, PendingUploadContext> pendingUploads = new ConcurrentHashMap<>();
-    
+    // Uploads announced with an ID, keyed by WebSocket session ID + ":" + upload ID
+    private final Map<String, PendingUploadContext> pendingUploadsById = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> concurrentSessions = new ConcurrentHashMap<>();
+    // Completes when all work queued so far for a connection is done, keyed by WebSocket session ID
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
     @Autowired
     public BurnoutWebSocketHandler(ObjectMapper objectMapper, BurnoutController burnoutController) {
+        this(objectMapper, burnoutController, DEFAULT_UPLOAD_EXECUTOR, DEFAULT_MESSAGE_EXECUTOR);
+    }
+
+    BurnoutWebSocketHandler(ObjectMapper objectMapper, BurnoutController burnoutController, Executor uploadExecutor,
+                            Executor messageExecutor) {
         this.objectMapper = objectMapper;
         this.burnoutController = burnoutController;
+        this.uploadExecutor = uploadExecutor;
+        this.messageExecutor = messageExecutor;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         logger.info("WebSocket connected: {}", session.getId());
+        concurrentSession(session);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         logger.info("WebSocket disconnected: {}", session.getId());
+        String prefix = session.getId() + ":";
+        pendingUploads.remove(session.getId());
+        pendingUploadsById.keySet().removeIf(key -> key.startsWith(prefix));
+        concurrentSessions.remove(session.getId());
+        inFlight.remove(session.getId());
     }
 
     @Override
@@ -55,34 +125,135 @@ public class BurnoutWebSocketHandler extends TextWebSocketHandler {
             context.type = type;
             context.sessionId = requestJson.get("sessionId").asText();
             context.questionId = requestJson.get("questionId").asText();
-            pendingUploads.put(session.getId(), context);
+            context.uploadId = requestJson.hasNonNull("uploadId") ? requestJson.get("uploadId").asText() : null;
 
-            logger.info("Preparing to receive {} for session {} question {}", type, context.sessionId, context.questionId);
+            if (context.uploadId == null) {
+                pendingUploads.put(session.getId(), context);
+            } else {
+                pendingUploadsById.put(session.getId() + ":" + context.uploadId, context);
+                sendAck(concurrentSession(session), "upload-ready", context, null);
+            }
+
+            logger.info("Preparing to receive {} for session {} question {} (upload {})",
+                    type, context.sessionId, context.questionId, context.uploadId);
             return;
         }
 
-        // fallback to standard message handling
-        burnoutController.handleMessage(session, requestJson);
+        // fallback to standard message handling, after any uploads still in flight
+        WebSocketSession out = concurrentSession(session);
+        CompletableFuture<Void> pending = inFlight.get(session.getId());
+        if (pending == null || pending.isDone()) {
+            burnoutController.handleMessage(out, requestJson);
+            return;
+        }
+        logger.info("Deferring {} for session {} until its uploads finish", type, session.getId());
+        // The upload pool only does the waiting; the handler itself runs on the message pool
+        inFlight.put(session.getId(), pending.thenRunAsync(() -> {
+            try {
+                burnoutController.handleMessage(out, requestJson);
+            } catch (Exception e) {
+                logger.error("Error handling {} for session {}: {}", type, session.getId(), e.getMessage(), e);
+            }
+        }, messageExecutor));
     }
 
     @Override
     public void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
         String sessionKey = session.getId();
-        PendingUploadContext context = pendingUploads.remove(sessionKey);
+
+        // The container may reuse the frame buffer once this method returns
+        ByteBuffer source = message.getPayload().duplicate();
+        ByteBuffer data = ByteBuffer.allocate(source.remaining());
+        data.put(source).flip();
+
+        PendingUploadContext context = null;
+        String uploadId = readUploadId(data);
+        if (uploadId != null) {
+            context = pendingUploadsById.remove(sessionKey + ":" + uploadId);
+        }
+        if (context == null) {
+            data.rewind();
+            context = pendingUploads.remove(sessionKey);
+        }
 
         if (context == null) {
             logger.error("No pending upload context for session {}", sessionKey);
             return;
         }
 
+        PendingUploadContext upload = context;
+        BinaryMessage media = new BinaryMessage(data.slice());
+        WebSocketSession out = concurrentSession(session);
+        CompletableFuture<Void> pending = inFlight.getOrDefault(sessionKey, CompletableFuture.completedFuture(null));
+        if (upload.uploadId == null) {
+            // No ID to match acknowledgements against, so keep these strictly in order
+            inFlight.put(sessionKey, pending.thenRunAsync(() -> processUpload(out, upload, media), uploadExecutor));
+        } else {
+            CompletableFuture<Void> task = CompletableFuture.runAsync(() -> processUpload(out, upload, media), uploadExecutor);
+            inFlight.put(sessionKey, CompletableFuture.allOf(pending, task));
+        }
+    }
+
+    private void processUpload(WebSocketSession session, PendingUploadContext context, BinaryMessage media) {
+        String url = null;
         try {
             if ("video_upload".equalsIgnoreCase(context.type)) {
-                burnoutController.handleVideoMessage(session, context.sessionId, context.questionId, message);
+                url = burnoutController.handleVideoMessage(session, context.sessionId, context.questionId, media);
             } else if ("audio_upload".equalsIgnoreCase(context.type)) {
-                burnoutController.handleAudioMessage(session, context.sessionId, context.questionId, message);
+                url = burnoutController.handleAudioMessage(session, context.sessionId, context.questionId, media);
             }
         } catch (Exception e) {
-            logger.error("Error handling binary message for session {}: {}", sessionKey, e.getMessage(), e);
+            logger.error("Error handling binary message for session {}: {}", session.getId(), e.getMessage(), e);
+        }
+        if (context.uploadId != null) {
+            sendAck(session, url != null ? "upload-complete" : "upload-failed", context, url);
+        }
+    }
+
+    /**
+     * Reads the upload header and moves the buffer past it
+     *
+     * @return The upload ID, or null if the frame has no header
+     */
+    static String readUploadId(ByteBuffer data) {
+        int start = data.position();
+        if (data.remaining() < UPLOAD_HEADER_MAGIC.length + 1) {
+            return null;
+        }
+        for (int i = 0; i < UPLOAD_HEADER_MAGIC.length; i++) {
+            if (data.get(start + i) != UPLOAD_HEADER_MAGIC[i]) {
+                return null;
+            }
+        }
+        int length = data.get(start + UPLOAD_HEADER_MAGIC.length) & 0xFF;
+        int idStart = start + UPLOAD_HEADER_MAGIC.length + 1;
+        if (length == 0 || data.limit() - idStart < length) {
+            return null;
+        }
+        byte[] id = new byte[length];
+        data.position(idStart);
+        data.get(id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private void sendAck(WebSocketSession session, String type, PendingUploadContext context, String url) {
+        ObjectNode ack = objectMapper.createObjectNode();
+        ack.put("type", type);
+        ack.put("uploadId", context.uploadId);
+        ack.put("sessionId", context.sessionId);
+        ack.put("questionId", context.questionId);
+        if (url != null) {
+            ack.put("url", url);
         }
+        try {
+            session.sendMessage(new TextMessage(ack.toString()));
+        } catch (IOException e) {
+            logger.warn("Failed to send {} for upload {}: {}", type, context.uploadId, e.getMessage());
+        }
+    }
+
+    private WebSocketSession concurrentSession(WebSocketSession session) {
+        return concurrentSessions.computeIfAbsent(session.getId(),
+                id -> new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT_BYTES));
     }
 }
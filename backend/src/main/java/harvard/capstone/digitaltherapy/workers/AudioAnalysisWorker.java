@@ -72,11 +72,16 @@ public class AudioAnalysisWorker {
      * Submits an audio analysis job to Hume and begins polling for completion.
      *
      * @param audioUrl a pre-signed S3 URL pointing to the audio file
-     * @return CompletableFuture that completes with a filtered JSON result or an error
+     * @return CompletableFuture that completes with a filtered JSON result or an error.
+     *         Cancelling it stops the polling and the predictions download.
      */
     public CompletableFuture<String> analyzeAudioAsync(String audioUrl) {
         CompletableFuture<String> future = new CompletableFuture<>();
         submitJob(audioUrl).thenAccept(jobId -> {
+            if (future.isDone()) {
+                // Cancelled while the job was being submitted
+                return;
+            }
             jobFutures.put(jobId, future);
             scheduler.schedule(() -> pollJob(jobId, future, 0), 2, TimeUnit.SECONDS);
         }).exceptionally(e -> {
@@ -151,6 +156,11 @@ public class AudioAnalysisWorker {
      */
     private void pollJob(String jobId, CompletableFuture<String> future, int attempt) {
         scheduler.schedule(() -> {
+            if (future.isDone()) {
+                // Cancelled by the caller: stop polling and never fetch the predictions
+                jobFutures.remove(jobId);
+                return;
+            }
             try {
                 System.out.printf("\uD83D\uDCF1 Polling job %s (attempt %d)...%n", jobId, attempt + 1);
 
@@ -6,16 +6,20 @@ import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import harvard.capstone.digitaltherapy.llm.context.ContextWindowBuilder;
+import harvard.capstone.digitaltherapy.llm.context.ConversationSummarizer;
+import harvard.capstone.digitaltherapy.llm.prompt.CachedPromptChatModels;
+import harvard.capstone.digitaltherapy.llm.routing.HedgingChatRouter;
+import harvard.capstone.digitaltherapy.persistence.RedisChatMemoryStore;
 import harvard.capstone.digitaltherapy.persistence.VectorDatabaseService;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
@@ -25,25 +29,94 @@ import java.util.Arrays;
 public class MessageWorker {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageWorker.class);
+
+    // Invariant therapist instructions. Sent first and unchanged on every turn so providers
+    // can serve it from their prompt cache; everything per-turn goes after it.
+    static final String THERAPIST_SYSTEM_PROMPT = """
+        You are a licensed professional CBT therapist.
+        Before each client statement, you will receive a synthesized analysis containing:
+        • congruenceScore (0.0-1.0 alignment across modalities)
+        • interpretation (summary of the client's internal state)
+        • cognitiveDistortions (list of distortions identified)
+        • followUpPrompts (therapeutic questions to explore)
+        Do NOT mention these fields or any specific modality in your reply.
+
+        Guidelines—Style:
+        • Speak with empathy and non-judgment.
+        • Keep replies to 2-3 sentences unless more is requested.
+
+        Guidelines—Content:
+        • Use the followUpPrompts to guide a socratic question to explore the client's core thoughts and emotions.
+        • Gently challenge strong, black-and-white emotions (e.g. “hate”).
+        • If appropriate, suggest behavioral experiment or thought-recording exercise.
+        • Tailor your question and intervention to the current therapy phase.
+        """;
+
+    // Sent when the model endpoints are overloaded or unavailable, so the client still gets a turn
+    static final String DEGRADED_REPLY =
+            "Thank you for sharing that with me. Could you tell me a little more about what has been on your mind?";
+
     private final ChatLanguageModel chatModel;
+    private final HedgingChatRouter chatRouter;
     private final VectorDatabaseService vectorDatabaseService;
     private final Map<String, ChatMemory> sessionMemories;
+    private final RedisChatMemoryStore chatMemoryStore;
+    private final ContextWindowBuilder contextWindowBuilder;
+    private final ConversationSummarizer conversationSummarizer;
 
     private String sessionId;
     private String userId;
-    private static final Map<String, Integer> sessionMessageCounter = new HashMap<>();
+
+    // Chat memory views kept per node; the messages themselves live in the chat memory store
+    private static final int MAX_CACHED_MEMORIES = 1000;
+    private static final Duration DEFAULT_MEMORY_TTL = Duration.ofMinutes(60);
+
+    // Prompt history is bounded by tokens; the message cap only guards against runaway storage
+    public static final int DEFAULT_HISTORY_TOKEN_BUDGET = 1200;
+    private static final int MAX_STORED_MESSAGES = 100;
 
     public MessageWorker() {
+        this(RedisChatMemoryStore.localOnly(DEFAULT_MEMORY_TTL, MAX_CACHED_MEMORIES));
+    }
+
+    /**
+     * Constructor with a shared chat memory store
+     *
+     * @param chatMemoryStore Store holding chat history and turn counters per session
+     */
+    public MessageWorker(RedisChatMemoryStore chatMemoryStore) {
+        this(chatMemoryStore, DEFAULT_HISTORY_TOKEN_BUDGET);
+    }
+
+    /**
+     * Constructor with a shared chat memory store and history budget
+     *
+     * @param chatMemoryStore Store holding chat history and turn counters per session
+     * @param historyTokenBudget Estimated tokens of recent turns sent verbatim; older turns are summarized
+     */
+    public MessageWorker(RedisChatMemoryStore chatMemoryStore, int historyTokenBudget) {
+        this(chatMemoryStore, historyTokenBudget, CachedPromptChatModels.create(0.2, 0.95, 300),
+                HedgingChatRouter.forAvailableProviders(0.2, 0.95, 300));
+    }
+
+    MessageWorker(RedisChatMemoryStore chatMemoryStore, int historyTokenBudget, ChatLanguageModel chatModel,
+                  HedgingChatRouter chatRouter) {
         logger.info("Initializing MessageWorker");
         this.vectorDatabaseService = new VectorDatabaseService();
-        this.sessionMemories = new ConcurrentHashMap<>();
-        this.chatModel = GoogleAiGeminiChatModel.builder()
-                .apiKey(System.getenv("GEMINI_API_KEY"))
-                .modelName("gemini-1.5-flash")
-                .temperature(0.2)
-                .topP(0.95)
-                .maxOutputTokens(300)
-                .build();
+        this.chatMemoryStore = chatMemoryStore;
+        this.sessionMemories = Collections.synchronizedMap(new LinkedHashMap<String, ChatMemory>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ChatMemory> eldest) {
+                return size() > MAX_CACHED_MEMORIES;
+            }
+        });
+        this.chatModel = chatModel;
+        this.chatRouter = chatRouter;
+        // Summaries run in the background, so they are rarely worth a duplicate request
+        this.chatRouter.setHedgeDelay(ConversationSummarizer.CALL_TYPE, 10000);
+        this.contextWindowBuilder = new ContextWindowBuilder(historyTokenBudget);
+        this.conversationSummarizer = new ConversationSummarizer(chatModel, chatRouter, chatMemoryStore,
+                contextWindowBuilder);
         logger.debug("MessageWorker initialized successfully");
     }
 
@@ -51,16 +124,46 @@ public class MessageWorker {
         logger.info("Setting session context for sessionId: {} and userId: {}", sessionId, userId);
         this.sessionId = sessionId;
         this.userId = userId;
-        sessionMessageCounter.merge(sessionId, 1, Integer::sum);
-        sessionMemories.computeIfAbsent(sessionId, k -> {
-            logger.debug("Creating new chat memory for session {}", sessionId);
+        chatMemoryStore.incrementTurn(sessionId);
+        memoryFor(sessionId);
+    }
+
+    private ChatMemory memoryFor(String sessionId) {
+        return sessionMemories.computeIfAbsent(sessionId, k -> {
+            logger.debug("Creating chat memory view for session {}", sessionId);
             return MessageWindowChatMemory.builder()
-                    .maxMessages(20)
+                    .id(sessionId)
+                    .maxMessages(MAX_STORED_MESSAGES)
+                    .chatMemoryStore(chatMemoryStore)
                     .build();
         });
     }
 
     public String generateResponse(String analysisMessage, String inputTranscript) {
+        return generateResponse(this.sessionId, this.userId, analysisMessage, inputTranscript);
+    }
+
+    public String generateResponse(String sessionId, String userId, String analysisMessage, String inputTranscript) {
+        return commitResponse(draftResponse(sessionId, userId, analysisMessage, inputTranscript));
+    }
+
+    /**
+     * Generates a reply without recording the turn, so it can be discarded if a later
+     * analysis invalidates it. Pass the draft to {@link #commitResponse(Draft)} to send it.
+     *
+     * @param analysisMessage The analysis the reply is based on
+     * @param inputTranscript What the client said
+     * @return The drafted reply
+     */
+    public Draft draftResponse(String analysisMessage, String inputTranscript) {
+        return draftResponse(this.sessionId, this.userId, analysisMessage, inputTranscript);
+    }
+
+    /**
+     * Same as {@link #draftResponse(String, String)} for an explicit session, so it can run on
+     * another thread without reading the context set by {@link #setSessionContext}.
+     */
+    public Draft draftResponse(String sessionId, String userId, String analysisMessage, String inputTranscript) {
         logger.info("Generating response for session: {}", sessionId);
 
         if (sessionId == null || userId == null) {
@@ -69,40 +172,28 @@ public class MessageWorker {
         }
 
         // Determine current CBT stage
-        int messageCount = sessionMessageCounter.getOrDefault(sessionId, 0);
+        int messageCount = chatMemoryStore.getTurnCount(sessionId);
         String stage = determineStage(messageCount);
 
         // Extract recommended interventions based on analysis
         List<String> relevantInterventions = extractInterventions(analysisMessage);
 
         // Retrieve or initialize chat memory
-        ChatMemory chatMemory = sessionMemories.get(sessionId);
+        ChatMemory chatMemory = memoryFor(sessionId);
 
         // Build prompt context with memory injection
         List<ChatMessage> context = new ArrayList<>();
-        String systemPrompt = """
-            You are a licensed professional CBT therapist.
-            Before each client statement, you will receive a synthesized analysis containing:
-            • congruenceScore (0.0-1.0 alignment across modalities)
-            • interpretation (summary of the client's internal state)
-            • cognitiveDistortions (list of distortions identified)
-            • followUpPrompts (therapeutic questions to explore)
-            Do NOT mention these fields or any specific modality in your reply.
-
-            Guidelines—Style:
-            • Speak with empathy and non-judgment.
-            • Keep replies to 2-3 sentences unless more is requested.
-
-            Guidelines—Content:
-            • Use the followUpPrompts to guide a socratic question to explore the client's core thoughts and emotions.
-            • Gently challenge strong, black-and-white emotions (e.g. “hate”).
-            • If appropriate, suggest behavioral experiment or thought-recording exercise.
-            • Tailor your question and intervention to the current therapy phase.
-            """;
-        context.add(SystemMessage.from(systemPrompt));
-
-        // Inject previous turns from memory
-        context.addAll(chatMemory.messages());
+        context.add(SystemMessage.from(THERAPIST_SYSTEM_PROMPT));
+
+        // Inject the running summary and the recent turns that fit the token budget. The summary
+        // goes in as a user turn so the system prompt above stays the only, static, cached block.
+        ContextWindowBuilder.ContextWindow window = contextWindowBuilder.build(chatMemory.messages());
+        if (window.getSummaryTurn() != null) {
+            context.add(window.getSummaryTurn());
+        }
+        context.addAll(window.getRecentMessages());
+        logger.debug("History for session {}: {} recent messages (~{} tokens), {} awaiting summary",
+                sessionId, window.getRecentMessages().size(), window.getRecentTokens(), window.getOverflow().size());
 
         // Add dynamic user messages for this turn
         context.add(UserMessage.from("Stage: " + stage));
@@ -130,15 +221,31 @@ public class MessageWorker {
         }
 
         // Generate the therapist response
-        ChatResponse response = chatModel.chat(context);
+        ChatResponse response = chatRouter.chatOrFallback("therapist-reply", chatModel, context, DEGRADED_REPLY);
+        return new Draft(sessionId, userId, inputTranscript, response.aiMessage());
+    }
+
+    /**
+     * Records a drafted turn in chat memory and the vector database
+     *
+     * @param draft A reply returned by {@link #draftResponse(String, String)}
+     * @return The reply text
+     */
+    public String commitResponse(Draft draft) {
+        String sessionId = draft.sessionId;
+        ChatMemory chatMemory = memoryFor(sessionId);
 
         // Update memory with this turn
-        chatMemory.add(UserMessage.from(inputTranscript));
-        chatMemory.add(response.aiMessage());
+        synchronized (conversationSummarizer.lockFor(sessionId)) {
+            chatMemory.add(UserMessage.from(draft.inputTranscript));
+            chatMemory.add(draft.reply);
+        }
+        // Fold turns that no longer fit the budget into the summary before the next turn
+        conversationSummarizer.refreshAsync(sessionId);
 
         // Index the response in your vector DB and return it
-        String responseText = response.aiMessage().text();
-        vectorDatabaseService.indexSessionMessage(sessionId, userId, responseText, false);
+        String responseText = draft.getText();
+        vectorDatabaseService.indexSessionMessage(sessionId, draft.userId, responseText, false);
         logger.info("Response generated successfully for session: {}", sessionId);
         return responseText;
     }
@@ -179,4 +286,28 @@ public class MessageWorker {
         return Collections.emptyList();
     }
 
+    /**
+     * A generated reply that has not been recorded in the session yet
+     */
+    public static final class Draft {
+        private final String sessionId;
+        private final String userId;
+        private final String inputTranscript;
+        private final AiMessage reply;
+
+        private Draft(String sessionId, String userId, String inputTranscript, AiMessage reply) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.inputTranscript = inputTranscript;
+            this.reply = reply;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public String getText() {
+            return reply.text();
+        }
+    }
 }
@@ -1,7 +1,8 @@
 package harvard.capstone.digitaltherapy.workers;
 
-import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
 import harvard.capstone.digitaltherapy.cbt.model.AnalysisResult;
+import harvard.capstone.digitaltherapy.llm.prompt.CachedPromptChatModels;
+import harvard.capstone.digitaltherapy.llm.routing.HedgingChatRouter;
 import org.bsc.langgraph4j.action.NodeAction;
 import org.bsc.langgraph4j.state.AgentState;
 import dev.langchain4j.data.message.ChatMessage;
@@ -24,17 +25,61 @@ import java.util.Map;
  */
 public class MultiModalSynthesizer implements NodeAction<AgentState> {
 
+    // Invariant task description, sent first on every call so providers can cache it
+    static final String SYNTHESIS_INSTRUCTIONS = ""
+            + "You are an expert in multimodal psychological analysis, specializing in synthesizing insights from verbal, vocal, and visual emotional expressions.\n\n"
+            + "The user message contains three modalities of emotional expression: TEXT ANALYSIS (verbal content), VOICE ANALYSIS (prosodic features) and FACIAL ANALYSIS (visual expressions).\n\n"
+            + "Tasks for Holistic Analysis:\n\n"
+            + "1. Congruence Evaluation:\n"
+            + "   - Calculate a congruence score (0-1) measuring alignment across modalities\n"
+            + "   - 0: completely misaligned expressions\n"
+            + "   - 1: perfect alignment across all modalities\n"
+            + "   - Consider intensity, valence, and temporal patterns\n\n"
+            + "2. Emotional Assessment:\n"
+            + "   - Identify the dominant emotion with confidence level\n"
+            + "   - Support with evidence from each modality\n"
+            + "   - Note any significant emotional conflicts\n\n"
+            + "3. Cognitive Pattern Analysis:\n"
+            + "   - Identify cognitive distortions present in verbal content\n"
+            + "   - Cross-reference with emotional markers in voice and face\n"
+            + "   - List specific examples supporting each distortion\n\n"
+            + "4. Synthesized Interpretation:\n"
+            + "   - Provide comprehensive analysis of emotional state\n"
+            + "   - Highlight patterns of consistency or discrepancy\n"
+            + "   - Note any potential masked or suppressed emotions\n\n"
+            + "5. Clinical Implications:\n"
+            + "   - Generate relevant follow-up areas for exploration\n"
+            + "   - Focus on areas of emotional incongruence\n"
+            + "   - Consider therapeutic priorities\n\n"
+            + "Return a JSON response with:\n"
+            + "{\n"
+            + "  \"congruenceScore\": <float 0-1>,\n"
+            + "  \"dominantEmotion\": {\n"
+            + "    \"emotion\": <string>,\n"
+            + "    \"confidence\": <float 0-1>,\n"
+            + "    \"evidence\": <array of supporting points>\n"
+            + "  },\n"
+            + "  \"cognitiveDistortions\": [\n"
+            + "    {\n"
+            + "      \"type\": <string>,\n"
+            + "      \"evidence\": <string>,\n"
+            + "      \"modalitySource\": <array of modalities>\n"
+            + "    }\n"
+            + "  ],\n"
+            + "  \"interpretation\": <detailed analysis string>,\n"
+            + "  \"followUpPrompts\": <array of strings>\n"
+            + "}\n";
+
     private final ChatLanguageModel chatModel;
+    private final HedgingChatRouter chatRouter;
     private final ObjectMapper objectMapper;
 
     public MultiModalSynthesizer() {
-        this.chatModel = GoogleAiGeminiChatModel.builder()
-                .apiKey(System.getenv("GEMINI_API_KEY"))
-                .modelName("gemini-1.5-flash")
-                .temperature(0.1) // Lower temperature for analysis tasks
-                .topP(0.95)
-                .maxOutputTokens(3000)
-                .build();
+        // Lower temperature for analysis tasks
+        this.chatModel = CachedPromptChatModels.create(0.1, 0.95, 3000);
+        this.chatRouter = HedgingChatRouter.forAvailableProviders(0.1, 0.95, 3000);
+        // Long JSON output: a slow answer is normal, only hedge real stalls
+        this.chatRouter.setHedgeDelay("synthesis", 6000);
 
         // Initialize Jackson's ObjectMapper for JSON parsing.
         this.objectMapper = new ObjectMapper();
@@ -52,14 +97,16 @@ public class MultiModalSynthesizer implements NodeAction<AgentState> {
         String facialAnalysis= (String) videoInsights.get("facialAnalysis");
         // Build the final prompt string.
         String finalPrompt = buildPrompt(textAnalysis, toneAnalysis, facialAnalysis);
-        // Create a list of ChatMessage objects. We'll have a system message and a user message.
+        // Static instructions first so the prefix can be served from the provider's prompt cache,
+        // then the modality data for this call.
         List<ChatMessage> messages = List.of(
-                SystemMessage.from("You are an expert in psychological analysis and data interpretation. Follow the instructions below."),
+                SystemMessage.from(SYNTHESIS_INSTRUCTIONS),
                 UserMessage.from(finalPrompt)
         );
 
         // Call the chat model using the messages list.
-        ChatResponse response = chatModel.chat(messages);
+        // An empty analysis lets the turn continue when the endpoints are overloaded
+        ChatResponse response = chatRouter.chatOrFallback("synthesis", chatModel, messages, "{}");
         // Extract the AI response text.
         String llmOutput = response.aiMessage().text();
 
@@ -71,55 +118,15 @@ public class MultiModalSynthesizer implements NodeAction<AgentState> {
     }
 
     /**
-     * Builds a textual prompt, referencing the modality scores.
+     * Builds the per-call part of the prompt: the three modality analyses.
+     * The task description lives in {@link #SYNTHESIS_INSTRUCTIONS}.
      */
     public String buildPrompt(String textInsights, String voiceInsights, String videoInsights) {
         String prompt = ""
-                + "You are an expert in multimodal psychological analysis, specializing in synthesizing insights from verbal, vocal, and visual emotional expressions.\n\n"
                 + "Analyze these three modalities of emotional expression:\n"
                 + "1. TEXT ANALYSIS (verbal content):\n" + textInsights + "\n"
                 + "2. VOICE ANALYSIS (prosodic features):\n" + voiceInsights + "\n"
-                + "3. FACIAL ANALYSIS (visual expressions):\n" + videoInsights + "\n\n"
-                + "Tasks for Holistic Analysis:\n\n"
-                + "1. Congruence Evaluation:\n"
-                + "   - Calculate a congruence score (0-1) measuring alignment across modalities\n"
-                + "   - 0: completely misaligned expressions\n"
-                + "   - 1: perfect alignment across all modalities\n"
-                + "   - Consider intensity, valence, and temporal patterns\n\n"
-                + "2. Emotional Assessment:\n"
-                + "   - Identify the dominant emotion with confidence level\n"
-                + "   - Support with evidence from each modality\n"
-                + "   - Note any significant emotional conflicts\n\n"
-                + "3. Cognitive Pattern Analysis:\n"
-                + "   - Identify cognitive distortions present in verbal content\n"
-                + "   - Cross-reference with emotional markers in voice and face\n"
-                + "   - List specific examples supporting each distortion\n\n"
-                + "4. Synthesized Interpretation:\n"
-                + "   - Provide comprehensive analysis of emotional state\n"
-                + "   - Highlight patterns of consistency or discrepancy\n"
-                + "   - Note any potential masked or suppressed emotions\n\n"
-                + "5. Clinical Implications:\n"
-                + "   - Generate relevant follow-up areas for exploration\n"
-                + "   - Focus on areas of emotional incongruence\n"
-                + "   - Consider therapeutic priorities\n\n"
-                + "Return a JSON response with:\n"
-                + "{\n"
-                + "  \"congruenceScore\": <float 0-1>,\n"
-                + "  \"dominantEmotion\": {\n"
-                + "    \"emotion\": <string>,\n"
-                + "    \"confidence\": <float 0-1>,\n"
-                + "    \"evidence\": <array of supporting points>\n"
-                + "  },\n"
-                + "  \"cognitiveDistortions\": [\n"
-                + "    {\n"
-                + "      \"type\": <string>,\n"
-                + "      \"evidence\": <string>,\n"
-                + "      \"modalitySource\": <array of modalities>\n"
-                + "    }\n"
-                + "  ],\n"
-                + "  \"interpretation\": <detailed analysis string>,\n"
-                + "  \"followUpPrompts\": <array of strings>\n"
-                + "}\n";
+                + "3. FACIAL ANALYSIS (visual expressions):\n" + videoInsights + "\n";
         return prompt;
     }
 
@@ -157,13 +164,18 @@ public class MultiModalSynthesizer implements NodeAction<AgentState> {
             //String cleanedJson = jsonResponse.substring(0, jsonResponse.lastIndexOf('"')) + "\"}";
             JsonNode root = objectMapper.readTree(jsonResponse);
             analysis.setCongruenceScore(root.path("congruenceScore").asDouble());
-            analysis.setDominantEmotion(root.path("dominantEmotion").asText());
+            // The schema asks for objects; older responses used plain strings
+            JsonNode emotionNode = root.path("dominantEmotion");
+            analysis.setDominantEmotion(emotionNode.isObject()
+                    ? emotionNode.path("emotion").asText()
+                    : emotionNode.asText());
 
             JsonNode distNode = root.path("cognitiveDistortions");
             if (distNode.isArray()) {
                 String[] arr = new String[distNode.size()];
                 for (int i = 0; i < distNode.size(); i++) {
-                    arr[i] = distNode.get(i).asText();
+                    JsonNode distortion = distNode.get(i);
+                    arr[i] = distortion.isObject() ? distortion.path("type").asText() : distortion.asText();
                 }
                 analysis.setCognitiveDistortions(arr);
             }
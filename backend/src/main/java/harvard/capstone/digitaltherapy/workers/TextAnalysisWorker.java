@@ -5,9 +5,10 @@ import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.data.segment.TextSegment;
+import harvard.capstone.digitaltherapy.llm.prompt.CachedPromptChatModels;
+import harvard.capstone.digitaltherapy.llm.routing.HedgingChatRouter;
 import harvard.capstone.digitaltherapy.persistence.VectorDatabaseService;
 import java.util.HashMap;
 import java.util.List;
@@ -31,18 +32,19 @@ import java.util.stream.Collectors;
 public class TextAnalysisWorker {
 
     private final ChatLanguageModel chatModel;
+    private final HedgingChatRouter chatRouter;
     private final VectorDatabaseService vectorDatabaseService;
     private String sessionId;
     private String userId;
 
     public TextAnalysisWorker() {
-        this.chatModel = GoogleAiGeminiChatModel.builder()
-                .apiKey(System.getenv("GEMINI_API_KEY"))
-                .modelName("gemini-1.5-flash")
-                .temperature(0.1) // Lower temperature for analysis tasks
-                .topP(0.95)
-                .maxOutputTokens(300)
-                .build();
+        // Lower temperature for analysis tasks
+        this.chatModel = CachedPromptChatModels.create(0.1, 0.95, 300);
+        this.chatRouter = HedgingChatRouter.forAvailableProviders(0.1, 0.95, 300);
+        // One-word or short list answers; anything slower than this is a stall
+        this.chatRouter.setHedgeDelay("emotion", 1000);
+        this.chatRouter.setHedgeDelay("distortions", 1500);
+        this.chatRouter.setHedgeDelay("themes", 1500);
         this.vectorDatabaseService = new VectorDatabaseService();
     }
 
@@ -95,7 +97,7 @@ public class TextAnalysisWorker {
                 UserMessage.from(text)
         );
 
-        ChatResponse response = chatModel.chat(messages);
+        ChatResponse response = chatRouter.chatOrFallback("emotion", chatModel, messages, "neutral");
         return response.aiMessage().text().trim().toLowerCase();
     }
 
@@ -111,7 +113,7 @@ public class TextAnalysisWorker {
                 UserMessage.from(text)
         );
 
-        ChatResponse response = chatModel.chat(messages);
+        ChatResponse response = chatRouter.chatOrFallback("distortions", chatModel, messages, "none");
         String distortionsText = response.aiMessage().text().trim().toLowerCase();
 
         if (distortionsText.equals("none")) {
@@ -133,7 +135,7 @@ public class TextAnalysisWorker {
                 UserMessage.from(text)
         );
 
-        ChatResponse response = chatModel.chat(messages);
+        ChatResponse response = chatRouter.chatOrFallback("themes", chatModel, messages, "");
         String themesText = response.aiMessage().text().trim();
 
         return Arrays.asList(themesText.split(",\\s*"));
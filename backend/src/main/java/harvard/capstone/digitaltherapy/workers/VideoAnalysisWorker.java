@@ -1,9 +1,8 @@
 package harvard.capstone.digitaltherapy.workers;
 
+import harvard.capstone.digitaltherapy.aws.config.AwsClients;
 import software.amazon.awssdk.services.rekognition.RekognitionClient;
 import software.amazon.awssdk.services.rekognition.model.*;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -28,13 +27,10 @@ public class VideoAnalysisWorker {
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
 
     /**
-     * Constructs a VideoAnalysisWorker instance with default AWS credentials and region.
+     * Constructs a VideoAnalysisWorker instance on the shared Rekognition client for the default region.
      */
     public VideoAnalysisWorker() {
-        this.rekognitionClient = RekognitionClient.builder()
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .region(Region.US_EAST_1)
-                .build();
+        this.rekognitionClient = AwsClients.rekognition(AwsClients.DEFAULT_REGION);
     }
 
     /**
@@ -67,7 +63,8 @@ public class VideoAnalysisWorker {
      * Initiates a Rekognition face detection job on a video stored in S3.
      *
      * @param s3Url The S3 path to the video (e.g., s3://bucket/video.mp4)
-     * @return CompletableFuture that resolves to a serialized JSON summary of the detection results
+     * @return CompletableFuture that resolves to a serialized JSON summary of the detection results.
+     *         Cancelling it stops the polling; Rekognition has no call to stop the job itself.
      */
     public CompletableFuture<String> detectFacesFromVideoAsync(String s3Url) {
         S3Object s3Object = parseS3Url(s3Url);
@@ -100,6 +97,12 @@ public class VideoAnalysisWorker {
      */
     private void schedulePolling(String jobId, CompletableFuture<String> future, int retryCount) {
         scheduler.schedule(() -> {
+            if (future.isDone()) {
+                // Cancelled by the caller: the result is no longer needed
+                logger.info("Stopped polling face detection job {}: result no longer needed", jobId);
+                jobFutures.remove(jobId);
+                return;
+            }
             try {
                 GetFaceDetectionResponse response = rekognitionClient.getFaceDetection(
                     GetFaceDetectionRequest.builder().jobId(jobId).maxResults(1000).build()
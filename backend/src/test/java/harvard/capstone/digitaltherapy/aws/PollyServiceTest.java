@@ -1,25 +1,32 @@
 package harvard.capstone.digitaltherapy.aws;
 
 import harvard.capstone.digitaltherapy.aws.service.PollyService;
-import com.amazonaws.services.polly.AmazonPolly;
-import com.amazonaws.services.polly.model.SynthesizeSpeechRequest;
-import com.amazonaws.services.polly.model.SynthesizeSpeechResult;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.GetObjectRequest;
-import com.amazonaws.services.s3.model.PutObjectRequest;
+import harvard.capstone.digitaltherapy.utility.S3Utils;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
-import java.io.ByteArrayInputStream;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.polly.PollyAsyncClient;
+import software.amazon.awssdk.services.polly.model.OutputFormat;
+import software.amazon.awssdk.services.polly.model.SynthesizeSpeechRequest;
+import software.amazon.awssdk.services.polly.model.SynthesizeSpeechResponse;
+import software.amazon.awssdk.services.polly.model.VoiceId;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -29,32 +36,39 @@ import static org.junit.jupiter.api.Assertions.*;
 public class PollyServiceTest {
 
     @Mock
-    private AmazonPolly amazonPolly;
+    private PollyAsyncClient pollyClient;
+
+    @Mock
+    private S3AsyncClient s3Client;
 
     @Mock
-    private AmazonS3 amazonS3;
+    private S3Utils s3Utils;
 
-    @InjectMocks
     private PollyService pollyService;
 
+    @BeforeEach
+    void setUp() {
+        when(s3Utils.getBucketName()).thenReturn("dta-root");
+        pollyService = new PollyService(pollyClient, s3Client, s3Utils);
+    }
+
     @Test
     public void testConvertTextToSpeech_Success() throws IOException {
         // Load sample text from file
         String filePath = "src/test/resources/transcript-text-sample-1.txt";
         String textFromS3 = new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
 
-        // Mock the downloadTextFromS3 method to return the mock text
-        when(amazonS3.getObject(any(GetObjectRequest.class)))
-                .thenReturn(new com.amazonaws.services.s3.model.S3Object() {{
-                    setObjectContent(new ByteArrayInputStream(textFromS3.getBytes()));
-                }});
+        // Mock the cached S3 read to return the sample text
+        when(s3Utils.read("dta-root", "dta-speech-translation-storage/sample.txt"))
+                .thenReturn(ByteBuffer.wrap(textFromS3.getBytes(StandardCharsets.UTF_8)));
 
         // Mock Polly's response
-        SynthesizeSpeechResult mockResult = new SynthesizeSpeechResult();
-        InputStream mockAudioStream = new ByteArrayInputStream("mock audio data".getBytes());
-        mockResult.setAudioStream(mockAudioStream);
+        doReturn(CompletableFuture.completedFuture(
+                ResponseBytes.fromByteArray(SynthesizeSpeechResponse.builder().build(), "mock audio data".getBytes())))
+                .when(pollyClient).synthesizeSpeech(any(SynthesizeSpeechRequest.class), any(AsyncResponseTransformer.class));
 
-        when(amazonPolly.synthesizeSpeech(any(SynthesizeSpeechRequest.class))).thenReturn(mockResult);
+        when(s3Client.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
 
         // Call the method with a mock S3 URL
         String resultUrl = pollyService.convertTextToSpeech("https://dta-root.s3.amazonaws.com/dta-speech-translation-storage/sample.txt", "test-file");
@@ -65,38 +79,49 @@ public class PollyServiceTest {
 
         // Verify Polly was called with the correct request
         ArgumentCaptor<SynthesizeSpeechRequest> requestCaptor = ArgumentCaptor.forClass(SynthesizeSpeechRequest.class);
-        verify(amazonPolly).synthesizeSpeech(requestCaptor.capture());
+        verify(pollyClient).synthesizeSpeech(requestCaptor.capture(), any(AsyncResponseTransformer.class));
         SynthesizeSpeechRequest capturedRequest = requestCaptor.getValue();
 
-        assertEquals("Hello, Polly!", capturedRequest.getText());
-        assertEquals("Joanna", capturedRequest.getVoiceId());
-        assertEquals("mp3", capturedRequest.getOutputFormat());
+        assertEquals("Hello, Polly!", capturedRequest.text());
+        assertEquals(VoiceId.JOANNA, capturedRequest.voiceId());
+        assertEquals(OutputFormat.MP3, capturedRequest.outputFormat());
 
         // Verify that the file was uploaded to S3
         ArgumentCaptor<PutObjectRequest> putRequestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
-        verify(amazonS3).putObject(putRequestCaptor.capture());
+        verify(s3Client).putObject(putRequestCaptor.capture(), any(AsyncRequestBody.class));
 
         PutObjectRequest capturedPutRequest = putRequestCaptor.getValue();
-        assertEquals("dta-root", capturedPutRequest.getBucketName());
-        assertEquals("dta-speech-translation-storage/test-file.mp3", capturedPutRequest.getKey());
+        assertEquals("dta-root", capturedPutRequest.bucket());
+        assertEquals("dta-speech-translation-storage/test-file.mp3", capturedPutRequest.key());
+        verify(s3Utils).invalidateCached("dta-root", "dta-speech-translation-storage/test-file.mp3");
     }
 
     @Test
     public void testConvertTextToSpeech_AmazonPollyFailure() {
-        // Use lenient() to avoid UnnecessaryStubbingException
-        lenient().when(amazonPolly.synthesizeSpeech(any(SynthesizeSpeechRequest.class)))
-                .thenThrow(new RuntimeException("Polly service failure"));
+        when(s3Utils.read("dta-root", "error-case.txt"))
+                .thenReturn(ByteBuffer.wrap("Hello".getBytes(StandardCharsets.UTF_8)));
+        doReturn(CompletableFuture.failedFuture(new RuntimeException("Polly service failure")))
+                .when(pollyClient).synthesizeSpeech(any(SynthesizeSpeechRequest.class), any(AsyncResponseTransformer.class));
 
         // Assert that the method throws an exception
         Exception exception = assertThrows(Exception.class, () -> {
-            pollyService.convertTextToSpeech("Error case", "test-error");
+            pollyService.convertTextToSpeech("s3://dta-root/error-case.txt", "test-error");
         });
 
         // Verify the exception message exists
         assertNotNull(exception.getMessage());
 
-        // Verify that S3 was never called since Polly failed
-        verifyNoInteractions(amazonS3);
+        // Verify that nothing was uploaded since Polly failed
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class));
+    }
+
+    @Test
+    public void testConvertTextToSpeech_DownloadFailureReturnsNull() throws IOException {
+        when(s3Utils.read("dta-root", "missing.txt")).thenThrow(new FileNotFoundException("no such key"));
+
+        assertNull(pollyService.convertTextToSpeech("s3://dta-root/missing.txt", "test-missing"));
+
+        verifyNoInteractions(pollyClient);
     }
 
 }
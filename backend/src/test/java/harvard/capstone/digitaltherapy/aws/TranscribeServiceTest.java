@@ -1,13 +1,15 @@
 package harvard.capstone.digitaltherapy.aws;
 
 import harvard.capstone.digitaltherapy.aws.service.TranscribeService;
-import com.amazonaws.services.transcribe.AmazonTranscribe;
-import com.amazonaws.services.transcribe.model.*;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.transcribe.TranscribeAsyncClient;
+import software.amazon.awssdk.services.transcribe.model.*;
+
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -17,10 +19,14 @@ import static org.junit.jupiter.api.Assertions.*;
 public class TranscribeServiceTest {
 
     @Mock
-    private AmazonTranscribe amazonTranscribe;  // Mock AmazonTranscribe service
+    private TranscribeAsyncClient transcribeClient;  // Mock Transcribe client
+
+    private TranscribeService transcribeService;
 
-    @InjectMocks
-    private TranscribeService transcribeService;  // Inject mock into service class
+    @BeforeEach
+    void setUp() {
+        transcribeService = new TranscribeService(transcribeClient, "dta-root");
+    }
 
     @Test
     public void testStartTranscriptionJobWhenJobExistsAndCompleted() {
@@ -28,76 +34,73 @@ public class TranscribeServiceTest {
         String mediaUri = "s3://dta-root/dta-speech-translation-storage/temp-audio.mp3";
         String jobName = "MyTranscriptionJob";
 
-        // Mock GetTranscriptionJobRequest with the given jobName
-        GetTranscriptionJobRequest getRequest = new GetTranscriptionJobRequest()
-                .withTranscriptionJobName(jobName);
-
         // Mock response for an existing and completed transcription job
-        TranscriptionJob transcriptionJob = new TranscriptionJob()
-                .withTranscriptionJobName(jobName)
-                .withTranscriptionJobStatus(TranscriptionJobStatus.COMPLETED)
-                .withTranscript(new Transcript().withTranscriptFileUri("https://s3.amazonaws.com/dta-root/my-transcription-output.json"));
+        TranscriptionJob transcriptionJob = TranscriptionJob.builder()
+                .transcriptionJobName(jobName)
+                .transcriptionJobStatus(TranscriptionJobStatus.COMPLETED)
+                .transcript(Transcript.builder().transcriptFileUri("https://s3.amazonaws.com/dta-root/my-transcription-output.json").build())
+                .build();
 
-        // Create the GetTranscriptionJobResult and set the transcription job
-        GetTranscriptionJobResult getResult = new GetTranscriptionJobResult()
-                .withTranscriptionJob(transcriptionJob);
-
-        // Mock the call to getTranscriptionJob to return the mocked result
-        when(amazonTranscribe.getTranscriptionJob(getRequest)).thenReturn(getResult);
-
-        // Mock the call to startTranscriptionJob (to simulate job being started)
-        StartTranscriptionJobResult startResult = new StartTranscriptionJobResult()
-                .withTranscriptionJob(transcriptionJob);
-        when(amazonTranscribe.startTranscriptionJob(any(StartTranscriptionJobRequest.class)))
-                .thenReturn(startResult);  // Fix mock for startTranscriptionJob
+        when(transcribeClient.getTranscriptionJob(GetTranscriptionJobRequest.builder().transcriptionJobName(jobName).build()))
+                .thenReturn(CompletableFuture.completedFuture(GetTranscriptionJobResponse.builder().transcriptionJob(transcriptionJob).build()));
+        when(transcribeClient.deleteTranscriptionJob(any(DeleteTranscriptionJobRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteTranscriptionJobResponse.builder().build()));
+        when(transcribeClient.startTranscriptionJob(any(StartTranscriptionJobRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(StartTranscriptionJobResponse.builder().transcriptionJob(transcriptionJob).build()));
 
         // Call the method under test with the mocked mediaUri and jobName
         String result = transcribeService.startTranscriptionJob(mediaUri, jobName);
 
-        // Verify that the correct URL is returned
+        // Verify that the correct URL is returned and the old job was cleared first
         assertNotNull(result, "The result should not be null.");
         assertEquals("https://s3.amazonaws.com/dta-root/my-transcription-output.json", result, "The result should be the correct URL.");
+        verify(transcribeClient).deleteTranscriptionJob(any(DeleteTranscriptionJobRequest.class));
     }
 
     @Test
-    public void testStartTranscriptionJobWhenJobDoesNotExist() throws InterruptedException {
+    public void testStartTranscriptionJobWhenJobDoesNotExist() {
         // Mock mediaUri and jobName
         String mediaUri = "s3://dta-root/dta-speech-translation-storage/temp-audio.mp3";
         String jobName = "MyTranscriptionJob";
-    
-        // Mock GetTranscriptionJobRequest to simulate that the job doesn't exist
-        GetTranscriptionJobRequest getRequest = new GetTranscriptionJobRequest()
-                .withTranscriptionJobName(jobName);
-    
-        // Mock GetTranscriptionJobResult to simulate the job not existing
-        GetTranscriptionJobResult getTranscriptionJobResult = mock(GetTranscriptionJobResult.class);
-        when(amazonTranscribe.getTranscriptionJob(getRequest)).thenReturn(getTranscriptionJobResult);
-    
-        // Mock the TranscriptionJob being returned when getTranscriptionJob is called on the result
-        TranscriptionJob transcriptionJobInProgress = new TranscriptionJob()
-                .withTranscriptionJobName(jobName)
-                .withTranscriptionJobStatus(TranscriptionJobStatus.IN_PROGRESS);
-        when(getTranscriptionJobResult.getTranscriptionJob()).thenReturn(transcriptionJobInProgress);
-    
-        // Simulate job status change after a short interval
-        TranscriptionJob transcriptionJobCompleted = new TranscriptionJob()
-                .withTranscriptionJobName(jobName)
-                .withTranscriptionJobStatus(TranscriptionJobStatus.COMPLETED)
-                .withTranscript(new Transcript().withTranscriptFileUri("https://s3.amazonaws.com/dta-root/my-transcription-output.json"));
-        when(amazonTranscribe.getTranscriptionJob(getRequest)).thenReturn(getTranscriptionJobResult);
-        when(getTranscriptionJobResult.getTranscriptionJob()).thenReturn(transcriptionJobCompleted);
-    
-        // Mock the call to startTranscriptionJob to simulate job being started
-        StartTranscriptionJobResult startResult = new StartTranscriptionJobResult()
-                .withTranscriptionJob(transcriptionJobInProgress);
-        when(amazonTranscribe.startTranscriptionJob(any(StartTranscriptionJobRequest.class)))
-                .thenReturn(startResult);
-    
+
+        TranscriptionJob transcriptionJobInProgress = TranscriptionJob.builder()
+                .transcriptionJobName(jobName)
+                .transcriptionJobStatus(TranscriptionJobStatus.IN_PROGRESS)
+                .build();
+        TranscriptionJob transcriptionJobCompleted = TranscriptionJob.builder()
+                .transcriptionJobName(jobName)
+                .transcriptionJobStatus(TranscriptionJobStatus.COMPLETED)
+                .transcript(Transcript.builder().transcriptFileUri("https://s3.amazonaws.com/dta-root/my-transcription-output.json").build())
+                .build();
+
+        // The job does not exist yet, then is in progress once, then completes
+        when(transcribeClient.getTranscriptionJob(any(GetTranscriptionJobRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(BadRequestException.builder().message("The requested job couldn't be found.").build()))
+                .thenReturn(CompletableFuture.completedFuture(GetTranscriptionJobResponse.builder().transcriptionJob(transcriptionJobInProgress).build()))
+                .thenReturn(CompletableFuture.completedFuture(GetTranscriptionJobResponse.builder().transcriptionJob(transcriptionJobCompleted).build()));
+        when(transcribeClient.startTranscriptionJob(any(StartTranscriptionJobRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(StartTranscriptionJobResponse.builder().transcriptionJob(transcriptionJobInProgress).build()));
+
         // Call the method under test
-        String result = transcribeService.startTranscriptionJob(mediaUri, jobName);
-    
+        String result = transcribeService.startTranscriptionJobAsync(mediaUri, jobName).join();
+
         // Verify that the URL of the transcribed file is returned
-        assertNotNull(result, "The result should not be null.");
         assertEquals("https://s3.amazonaws.com/dta-root/my-transcription-output.json", result, "The result should be the correct URL.");
+        verify(transcribeClient, times(3)).getTranscriptionJob(any(GetTranscriptionJobRequest.class));
+        verify(transcribeClient, never()).deleteTranscriptionJob(any(DeleteTranscriptionJobRequest.class));
+    }
+
+    @Test
+    public void testStartTranscriptionJobReportsFailedJobs() {
+        TranscriptionJob failedJob = TranscriptionJob.builder()
+                .transcriptionJobName("job")
+                .transcriptionJobStatus(TranscriptionJobStatus.FAILED)
+                .build();
+        when(transcribeClient.getTranscriptionJob(any(GetTranscriptionJobRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(BadRequestException.builder().build()));
+        when(transcribeClient.startTranscriptionJob(any(StartTranscriptionJobRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(StartTranscriptionJobResponse.builder().transcriptionJob(failedJob).build()));
+
+        assertEquals("Transcription job failed.", transcribeService.startTranscriptionJob("s3://dta-root/a.mp3", "job"));
     }
 }
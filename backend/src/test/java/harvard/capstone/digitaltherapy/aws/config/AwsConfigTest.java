@@ -1,15 +1,20 @@
 package harvard.capstone.digitaltherapy.aws.config;
 
-import com.amazonaws.services.polly.AmazonPolly;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.transcribe.AmazonTranscribe;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.polly.PollyAsyncClient;
 import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.transcribe.TranscribeAsyncClient;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * Tests for AwsConfig class
@@ -28,21 +33,23 @@ public class AwsConfigTest {
     private AwsConfig awsConfig;
 
     @Test
-    public void testAmazonPollyBeanCreation() {
-        AmazonPolly pollyClient = awsConfig.amazonPolly();
+    public void testPollyAsyncClientBeanCreation() {
+        PollyAsyncClient pollyClient = awsConfig.pollyAsyncClient();
         assertNotNull(pollyClient, "Amazon Polly client should not be null");
     }
 
     @Test
-    public void testAmazonTranscribeBeanCreation() {
-        AmazonTranscribe transcribeClient = awsConfig.amazonTranscribe();
+    public void testTranscribeAsyncClientBeanCreation() {
+        TranscribeAsyncClient transcribeClient = awsConfig.transcribeAsyncClient();
         assertNotNull(transcribeClient, "Amazon Transcribe client should not be null");
     }
 
     @Test
-    public void testAmazonS3BeanCreation() {
-        AmazonS3 s3Client = awsConfig.amazonS3();
+    public void testS3ClientBeanCreation() {
+        S3Client s3Client = awsConfig.s3Client();
         assertNotNull(s3Client, "Amazon S3 client should not be null");
+        assertNotNull(awsConfig.s3AsyncClient(), "Amazon S3 async client should not be null");
+        assertNotNull(awsConfig.s3Presigner(), "S3 presigner should not be null");
     }
 
     @Test
@@ -50,4 +57,13 @@ public class AwsConfigTest {
         RekognitionClient rekognitionClient = awsConfig.rekognitionClient();
         assertNotNull(rekognitionClient, "Amazon Rekognition client should not be null");
     }
+
+    @Test
+    public void testBeansAreTheSharedClients() {
+        // Code outside Spring gets the same instances as the beans
+        assertSame(AwsClients.s3Async(Region.US_EAST_1), awsConfig.s3AsyncClient());
+        assertSame(AwsClients.s3Presigner(Region.US_EAST_1), awsConfig.s3Presigner());
+        assertSame(AwsClients.rekognition(Region.US_EAST_1), awsConfig.rekognitionClient());
+        assertNotSame(AwsClients.s3(Region.US_EAST_1), AwsClients.s3(Region.US_WEST_2));
+    }
 }
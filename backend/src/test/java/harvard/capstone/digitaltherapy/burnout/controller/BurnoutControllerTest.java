@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentResult;
 import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutScore;
 import harvard.capstone.digitaltherapy.burnout.model.BurnoutSessionCreationResponse;
 import harvard.capstone.digitaltherapy.burnout.orchestration.BurnoutAssessmentOrchestrator;
 import harvard.capstone.digitaltherapy.burnout.service.BurnoutFhirService;
@@ -12,6 +14,7 @@ import harvard.capstone.digitaltherapy.utility.S3Utils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.BinaryMessage;
@@ -19,6 +22,8 @@ import java.nio.ByteBuffer;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -110,11 +115,13 @@ public class BurnoutControllerTest {
         String expectedUrl = "https://s3.amazonaws.com/audio.mp3";
 
         when(s3Utils.uploadAudioBinaryFile(binaryMessage, "audio_sessAudio_qAudio.mp3")).thenReturn(expectedUrl);
+        when(orchestrator.recordResponse(sessionId, questionId, "", null, expectedUrl)).thenReturn(true);
 
         // Act
-        controller.handleAudioMessage(session, sessionId, questionId, binaryMessage);
+        String url = controller.handleAudioMessage(session, sessionId, questionId, binaryMessage);
 
         // Assert
+        assertEquals(expectedUrl, url);
         verify(s3Utils).uploadAudioBinaryFile(binaryMessage, "audio_sessAudio_qAudio.mp3");
         verify(orchestrator).recordResponse(sessionId, questionId, "", null, expectedUrl);
     }
@@ -129,12 +136,47 @@ public class BurnoutControllerTest {
         String expectedUrl = "https://s3.amazonaws.com/video.mp4";
 
         when(s3Utils.uploadVideoBinaryFile(binaryMessage, "video_sessVideo_qVideo.mp4")).thenReturn(expectedUrl);
+        when(orchestrator.recordResponse(sessionId, questionId, "", expectedUrl, null)).thenReturn(true);
 
         // Act
-        controller.handleVideoMessage(session, sessionId, questionId, binaryMessage);
+        String url = controller.handleVideoMessage(session, sessionId, questionId, binaryMessage);
 
         // Assert
+        assertEquals(expectedUrl, url);
         verify(s3Utils).uploadVideoBinaryFile(binaryMessage, "video_sessVideo_qVideo.mp4");
         verify(orchestrator).recordResponse(sessionId, questionId, "", expectedUrl, null);
     }
+
+    @Test
+    void testHandleVideoMessage_returnsNullWhenTheResponseIsNotRecorded() throws Exception {
+        BinaryMessage binaryMessage = new BinaryMessage(ByteBuffer.wrap(new byte[]{0x0A}));
+        when(s3Utils.uploadVideoBinaryFile(binaryMessage, "video_sessGone_q1.mp4")).thenReturn("s3://bucket/video.mp4");
+        when(orchestrator.recordResponse("sessGone", "q1", "", "s3://bucket/video.mp4", null)).thenReturn(false);
+
+        assertNull(controller.handleVideoMessage(session, "sessGone", "q1", binaryMessage));
+        verify(session).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    void testCompleteAssessment_storesFhirDocumentOnlyWhenEnabled() throws Exception {
+        BurnoutAssessmentResult result = mock(BurnoutAssessmentResult.class);
+        when(result.getScore()).thenReturn(new BurnoutScore("sessDone", "user123", 4.0));
+        when(result.getSummary()).thenReturn("Moderate");
+        when(orchestrator.completeAssessment("sessDone")).thenReturn(result);
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("type", "assessment-complete");
+        request.put("sessionId", "sessDone");
+
+        controller.handleMessage(session, request);
+        verify(burnoutFhirService, never()).processAndStoreAssessment(any());
+
+        ReflectionTestUtils.setField(controller, "storeFhirOnCompletion", true);
+        when(burnoutFhirService.processAndStoreAssessment(result)).thenThrow(new RuntimeException("S3 down"));
+        controller.handleMessage(session, request);
+
+        verify(burnoutFhirService).processAndStoreAssessment(result);
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, times(2)).sendMessage(captor.capture());
+        assert captor.getValue().getPayload().contains("\"type\":\"assessment-result\"");
+    }
 }
@@ -0,0 +1,70 @@
+package harvard.capstone.digitaltherapy.burnout.controller;
+
+import harvard.capstone.digitaltherapy.burnout.service.BurnoutFhirExportService;
+import org.hl7.fhir.r4.model.QuestionnaireResponse;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BurnoutFhirExportControllerTest {
+
+    private static final LocalDateTime APRIL = LocalDateTime.of(2025, 4, 15, 10, 30);
+
+    private BurnoutFhirExportService exportService;
+    private BurnoutFhirExportController controller;
+
+    @BeforeEach
+    void setup() {
+        exportService = mock(BurnoutFhirExportService.class);
+        controller = new BurnoutFhirExportController(exportService);
+    }
+
+    @Test
+    void testExport_onlySelectsTheCallersAssessments() {
+        when(exportService.export(any())).thenReturn(
+                new BurnoutFhirExportService.Result("s3://bucket/fhir/export/x.ndjson", 2, 0));
+
+        ResponseEntity<Map<String, Object>> response = controller.export(APRIL, null,
+                new UsernamePasswordAuthenticationToken("user123", null));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("s3://bucket/fhir/export/x.ndjson", response.getBody().get("location"));
+        assertEquals(2, response.getBody().get("exported"));
+        ArgumentCaptor<BurnoutFhirExportService.Criteria> criteria =
+                ArgumentCaptor.forClass(BurnoutFhirExportService.Criteria.class);
+        verify(exportService).export(criteria.capture());
+        assertTrue(criteria.getValue().matches(document("user123", APRIL)));
+        assertFalse(criteria.getValue().matches(document("someone-else", APRIL)));
+        assertFalse(criteria.getValue().matches(document("user123", APRIL.minusDays(1))));
+    }
+
+    @Test
+    void testExport_reportsFailures() {
+        when(exportService.export(any())).thenThrow(new RuntimeException("Failed to export FHIR documents"));
+
+        ResponseEntity<Map<String, Object>> response = controller.export(null, null,
+                new UsernamePasswordAuthenticationToken("user123", null));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    private static QuestionnaireResponse document(String userId, LocalDateTime completedAt) {
+        QuestionnaireResponse document = new QuestionnaireResponse();
+        document.setSubject(new Reference("Patient/" + userId));
+        document.setAuthored(Date.from(completedAt.atZone(ZoneId.systemDefault()).toInstant()));
+        return document;
+    }
+}
@@ -1,10 +1,12 @@
 package harvard.capstone.digitaltherapy.burnout.orchestration;
 
 import harvard.capstone.digitaltherapy.burnout.model.*;
+import harvard.capstone.digitaltherapy.burnout.persistence.BurnoutSessionStore;
 import harvard.capstone.digitaltherapy.burnout.workers.BurnoutWorker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -87,6 +89,31 @@ class BurnoutAssessmentOrchestratorCompleteAssessmentTest {
         verify(burnoutWorker).generateBurnoutSummary(anyString());
     }
 
+    @Test
+    void completeAssessment_shouldShareFormattedInputBetweenScoreAndSummary() {
+        // Arrange
+        BurnoutAssessmentSession session = getSession(sessionId);
+        for (BurnoutQuestion question : session.getAssessment().getQuestions()) {
+            orchestrator.recordResponse(sessionId, question.getQuestionId(), "Test response", null, null);
+        }
+        when(burnoutWorker.generateBurnoutScore(anyString())).thenReturn(
+                Map.of("score", 3.5, "explanation", "Moderate burnout detected")
+        );
+        when(burnoutWorker.generateBurnoutSummary(anyString())).thenReturn(
+                "User shows signs of moderate burnout with emotional exhaustion."
+        );
+
+        // Act
+        orchestrator.completeAssessment(sessionId);
+
+        // Assert - both calls received the same prompt input
+        ArgumentCaptor<String> scoreInput = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> summaryInput = ArgumentCaptor.forClass(String.class);
+        verify(burnoutWorker).generateBurnoutScore(scoreInput.capture());
+        verify(burnoutWorker).generateBurnoutSummary(summaryInput.capture());
+        assertThat(scoreInput.getValue()).isSameAs(summaryInput.getValue());
+    }
+
     @Test
     void completeAssessment_shouldThrowException_whenSessionDoesNotExist() {
         // Arrange
@@ -281,7 +308,10 @@ class BurnoutAssessmentOrchestratorCompleteAssessmentTest {
         assertThat(formattedInput).contains("A: Simple text response");
         assertThat(formattedInput).contains("Q: " + question2.getQuestion());
         assertThat(formattedInput).contains("A: Multimodal response");
-        assertThat(formattedInput).contains("Multimodal: {audio={\"emotion\":\"neutral\"}, video={\"face\":\"detected\"}}");
+        // Raw analysis JSON is replaced by one digest line per modality
+        assertThat(formattedInput).contains("Multimodal audio: no emotion signal");
+        assertThat(formattedInput).contains("Multimodal video: no emotion signal");
+        assertThat(formattedInput).doesNotContain("{\"emotion\":\"neutral\"}");
 
         // Should contain separators
         assertThat(formattedInput.split("---").length).isGreaterThanOrEqualTo(3); // At least 2 questions + potential trailing
@@ -313,14 +343,12 @@ class BurnoutAssessmentOrchestratorCompleteAssessmentTest {
     // Helper method to get the session through reflection
     private BurnoutAssessmentSession getSession(String sessionId) {
         try {
-            java.lang.reflect.Field activeSessionsField = BurnoutAssessmentOrchestrator.class.getDeclaredField("activeSessions");
-            activeSessionsField.setAccessible(true);
+            java.lang.reflect.Field sessionStoreField = BurnoutAssessmentOrchestrator.class.getDeclaredField("sessionStore");
+            sessionStoreField.setAccessible(true);
 
-            @SuppressWarnings("unchecked")
-            Map<String, BurnoutAssessmentSession> activeSessions =
-                    (Map<String, BurnoutAssessmentSession>) activeSessionsField.get(orchestrator);
+            BurnoutSessionStore sessionStore = (BurnoutSessionStore) sessionStoreField.get(orchestrator);
 
-            return activeSessions.get(sessionId);
+            return sessionStore.get(sessionId);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get session", e);
         }
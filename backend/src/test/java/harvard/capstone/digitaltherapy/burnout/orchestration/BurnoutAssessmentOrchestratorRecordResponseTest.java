@@ -1,6 +1,7 @@
 package harvard.capstone.digitaltherapy.burnout.orchestration;
 
 import harvard.capstone.digitaltherapy.burnout.model.*;
+import harvard.capstone.digitaltherapy.burnout.persistence.BurnoutSessionStore;
 import harvard.capstone.digitaltherapy.workers.AudioAnalysisWorker;
 import harvard.capstone.digitaltherapy.workers.VideoAnalysisWorker;
 import org.junit.jupiter.api.BeforeEach;
@@ -197,14 +198,12 @@ class BurnoutAssessmentOrchestratorRecordResponseTest {
     // Helper method to get the session through reflection
     private BurnoutAssessmentSession getSession(String sessionId) {
         try {
-            java.lang.reflect.Field activeSessionsField = BurnoutAssessmentOrchestrator.class.getDeclaredField("activeSessions");
-            activeSessionsField.setAccessible(true);
+            java.lang.reflect.Field sessionStoreField = BurnoutAssessmentOrchestrator.class.getDeclaredField("sessionStore");
+            sessionStoreField.setAccessible(true);
 
-            @SuppressWarnings("unchecked")
-            Map<String, BurnoutAssessmentSession> activeSessions =
-                    (Map<String, BurnoutAssessmentSession>) activeSessionsField.get(orchestrator);
+            BurnoutSessionStore sessionStore = (BurnoutSessionStore) sessionStoreField.get(orchestrator);
 
-            return activeSessions.get(sessionId);
+            return sessionStore.get(sessionId);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get session", e);
         }
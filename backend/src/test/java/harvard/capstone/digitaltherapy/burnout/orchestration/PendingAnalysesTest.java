@@ -0,0 +1,90 @@
+package harvard.capstone.digitaltherapy.burnout.orchestration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PendingAnalysesTest {
+
+    private final PendingAnalyses pendingAnalyses = new PendingAnalyses();
+
+    /**
+     * Test that finished analyses untrack themselves
+     */
+    @Test
+    void testFinishedAnalysesUntrack() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<Void> stored = source.thenAccept(result -> { });
+        pendingAnalyses.track("s1", "q1:video", source, stored);
+        assertEquals(1, pendingAnalyses.pendingCount("s1"));
+
+        source.complete("{}");
+
+        assertEquals(0, pendingAnalyses.pendingCount("s1"));
+        assertEquals(0, pendingAnalyses.awaitAll("s1", 0));
+    }
+
+    /**
+     * Test that analyses finishing before the deadline are used and the rest are cancelled
+     */
+    @Test
+    void testAwaitCancelsLateAnalyses() {
+        CompletableFuture<String> fast = new CompletableFuture<>();
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        AtomicBoolean slowStored = new AtomicBoolean();
+        pendingAnalyses.track("s1", "q1:video", fast, fast.thenAccept(result -> { }));
+        pendingAnalyses.track("s1", "q1:audio", slow, slow.thenAccept(result -> slowStored.set(true)));
+
+        CompletableFuture.runAsync(() -> fast.complete("{}"));
+        int dropped = pendingAnalyses.awaitAll("s1", 200);
+
+        assertEquals(1, dropped);
+        assertTrue(slow.isCancelled(), "The provider future should be cancelled");
+        slow.complete("{}");
+        assertFalse(slowStored.get(), "A cancelled analysis should not be stored");
+        assertEquals(0, pendingAnalyses.pendingCount("s1"));
+    }
+
+    /**
+     * Test that a cancelled analysis is not stored when a logging stage is chained after the write
+     */
+    @Test
+    void testCancelStopsWriteWithStagesChainedAfterIt() {
+        // The result arrives anyway, e.g. the provider finished just as the deadline passed
+        CompletableFuture<String> slow = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return false;
+            }
+        };
+        AtomicBoolean stored = new AtomicBoolean();
+        CompletableFuture<Void> write = slow.thenAccept(result -> stored.set(true));
+        pendingAnalyses.track("s1", "q1:video", slow, write);
+        CompletableFuture<Void> logged = write.exceptionally(ex -> null);
+
+        assertEquals(1, pendingAnalyses.awaitAll("s1", 0));
+        slow.complete("{}");
+
+        assertFalse(stored.get(), "A cancelled analysis should not be stored");
+        assertTrue(write.isCancelled());
+        assertTrue(logged.isDone());
+    }
+
+    /**
+     * Test that a new upload for the same question and modality replaces the running analysis
+     */
+    @Test
+    void testReplacesAnalysis() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        pendingAnalyses.track("s1", "q1:video", first, first.thenAccept(result -> { }));
+        pendingAnalyses.track("s1", "q1:video", second, second.thenAccept(result -> { }));
+
+        assertTrue(first.isCancelled());
+        assertFalse(second.isDone());
+        assertEquals(1, pendingAnalyses.pendingCount("s1"));
+    }
+}
@@ -0,0 +1,105 @@
+package harvard.capstone.digitaltherapy.burnout.persistence;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessment;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryBurnoutSessionStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private InMemoryBurnoutSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryBurnoutSessionStore(Duration.ofMinutes(60), Duration.ofMinutes(15), now::get);
+        store.save(session("s1"));
+    }
+
+    /**
+     * Test that a media-only answer keeps the recorded text and insights
+     */
+    @Test
+    void testPutResponseMergesAnswer() {
+        store.putResponse("s1", "q1", "I feel tired most days");
+        assertTrue(store.putInsight("s1", "q1", "video", "{\"faces\":[]}"));
+
+        BurnoutUserResponse merged = store.putResponse("s1", "q1", "");
+
+        assertEquals("I feel tired most days", merged.getTextResponse());
+        assertEquals("{\"faces\":[]}", merged.getMultimodalInsights().get("video"));
+        assertEquals("Better now", store.putResponse("s1", "q1", "Better now").getTextResponse());
+    }
+
+    /**
+     * Test that insights need a recorded response and unknown sessions are rejected
+     */
+    @Test
+    void testPutInsightRequiresResponse() {
+        assertFalse(store.putInsight("s1", "q2", "audio", "{}"));
+        assertFalse(store.putInsight("missing", "q1", "audio", "{}"));
+        assertNull(store.putResponse("missing", "q1", "text"));
+    }
+
+    /**
+     * Test that abandoned sessions expire after the idle TTL and completed ones sooner
+     */
+    @Test
+    void testTtlEviction() {
+        store.save(session("s2"));
+        BurnoutAssessmentSession completed = store.get("s2");
+        completed.setCompleted(true);
+        completed.setCompletedAt(LocalDateTime.now());
+        store.save(completed);
+
+        now.addAndGet(Duration.ofMinutes(20).toMillis());
+        assertNotNull(store.get("s1"), "In-progress session should still be active");
+        assertNull(store.get("s2"), "Completed session should be past its retention");
+
+        now.addAndGet(Duration.ofMinutes(45).toMillis());
+        assertNull(store.get("s1"), "Abandoned session should expire");
+        assertEquals(0, store.size(), "Expired sessions should be swept");
+    }
+
+    /**
+     * Test that concurrent analysis callbacks for one question do not lose updates
+     */
+    @Test
+    void testConcurrentInsights() throws InterruptedException {
+        store.putResponse("s1", "q1", "answer");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(200);
+        for (int i = 0; i < 200; i++) {
+            String modality = "m" + i;
+            executor.execute(() -> {
+                store.putInsight("s1", "q1", modality, "{}");
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(200, store.get("s1").getResponses().get("q1").getMultimodalInsights().size());
+    }
+
+    private static BurnoutAssessmentSession session(String sessionId) {
+        BurnoutAssessment assessment = new BurnoutAssessment(Arrays.asList(
+                new BurnoutQuestion("q1", "How often do you feel exhausted after work?", AssessmentDomain.WORK, false),
+                new BurnoutQuestion("q2", "Describe your current stress level", AssessmentDomain.PERSONAL, true)));
+        return new BurnoutAssessmentSession(sessionId, "user-1", assessment, LocalDateTime.now());
+    }
+}
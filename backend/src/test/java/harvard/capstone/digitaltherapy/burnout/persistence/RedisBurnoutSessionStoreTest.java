@@ -0,0 +1,142 @@
+package harvard.capstone.digitaltherapy.burnout.persistence;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessment;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutScore;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RedisBurnoutSessionStoreTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private RedisBurnoutSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        store = new RedisBurnoutSessionStore(redisTemplate, Duration.ofMinutes(60), Duration.ofMinutes(15));
+    }
+
+    /**
+     * Test that session state, responses and insights survive the hash layout
+     */
+    @Test
+    public void testSessionRoundTrip() {
+        // Arrange
+        BurnoutAssessmentSession session = session("s1");
+        session.setScore(new BurnoutScore("s1", "user-1", 3.5, "Moderate exhaustion"));
+        session.setSummary(new BurnoutSummary("s1", "Work is the main stressor."));
+        session.setCompleted(true);
+        session.setCompletedAt(LocalDateTime.of(2025, 4, 1, 10, 30));
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("meta", store.writeMeta(session));
+        fields.put("response:q1", "Most days");
+        fields.put("insight:q1:video", "{\"faces\":[]}");
+
+        // Act
+        BurnoutAssessmentSession loaded = store.readSession("s1", fields);
+
+        // Assert
+        assertEquals("user-1", loaded.getUserId());
+        assertEquals(2, loaded.getAssessment().getQuestions().size());
+        assertEquals(AssessmentDomain.PERSONAL, loaded.getAssessment().getQuestions().get(1).getDomain());
+        assertTrue(loaded.getAssessment().getQuestions().get(1).isMultimodal());
+        assertEquals(3.5, loaded.getScore().getOverallScore());
+        assertEquals("Work is the main stressor.", loaded.getSummary().getOverallInsight());
+        assertTrue(loaded.isCompleted());
+        assertEquals(session.getCompletedAt(), loaded.getCompletedAt());
+        assertEquals("Most days", loaded.getResponses().get("q1").getTextResponse());
+        assertEquals("{\"faces\":[]}", loaded.getResponses().get("q1").getMultimodalInsights().get("video"));
+        assertNull(loaded.getResponses().get("q2"));
+    }
+
+    /**
+     * Test that a media-only answer does not overwrite recorded text and refreshes the TTL
+     */
+    @Test
+    public void testBlankResponseKeepsExistingAnswer() {
+        // Arrange
+        when(hashOperations.hasKey("burnout:session:s1", "meta")).thenReturn(true);
+        when(hashOperations.entries("burnout:session:s1")).thenReturn(new HashMap<>(Map.of("response:q1", "Most days")));
+
+        // Act
+        store.putResponse("s1", "q1", "");
+
+        // Assert
+        verify(hashOperations).putIfAbsent("burnout:session:s1", "response:q1", "");
+        verify(hashOperations, never()).put(anyString(), eq("response:q1"), any());
+        verify(redisTemplate).expire("burnout:session:s1", 3600L, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Test that a late analysis result keeps a completed session on the completed retention
+     */
+    @Test
+    public void testLateInsightKeepsCompletedTtl() {
+        // Arrange
+        BurnoutAssessmentSession session = session("s1");
+        session.setCompleted(true);
+        when(hashOperations.hasKey("burnout:session:s1", "response:q2")).thenReturn(true);
+        when(hashOperations.get("burnout:session:s1", "meta")).thenReturn(store.writeMeta(session));
+
+        // Act
+        boolean updated = store.putInsight("s1", "q2", "audio", "{}");
+
+        // Assert
+        assertTrue(updated);
+        verify(hashOperations).put("burnout:session:s1", "insight:q2:audio", "{}");
+        verify(redisTemplate).expire("burnout:session:s1", 900L, TimeUnit.SECONDS);
+        verify(redisTemplate, never()).expire("burnout:session:s1", 3600L, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Test that sessions stay usable on this node while Redis is down
+     */
+    @Test
+    public void testFallsBackWhenRedisUnavailable() {
+        // Arrange
+        doThrow(new RedisConnectionFailureException("down")).when(hashOperations).put(anyString(), any(), any());
+        when(hashOperations.hasKey(anyString(), any())).thenThrow(new RedisConnectionFailureException("down"));
+        when(hashOperations.entries(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        // Act
+        store.save(session("s1"));
+        store.putResponse("s1", "q1", "Most days");
+
+        // Assert
+        assertEquals("Most days", store.get("s1").getResponses().get("q1").getTextResponse());
+        assertTrue((Long) store.getStats().get("redisFailures") >= 3);
+    }
+
+    private static BurnoutAssessmentSession session(String sessionId) {
+        BurnoutAssessment assessment = new BurnoutAssessment(Arrays.asList(
+                new BurnoutQuestion("q1", "How often do you feel exhausted after work?", AssessmentDomain.WORK, false),
+                new BurnoutQuestion("q2", "Describe your current stress level", AssessmentDomain.PERSONAL, true)));
+        return new BurnoutAssessmentSession(sessionId, "user-1", assessment, LocalDateTime.now());
+    }
+}
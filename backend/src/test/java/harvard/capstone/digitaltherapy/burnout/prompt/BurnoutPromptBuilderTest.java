@@ -0,0 +1,109 @@
+package harvard.capstone.digitaltherapy.burnout.prompt;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessment;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+import harvard.capstone.digitaltherapy.llm.context.TokenEstimator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BurnoutPromptBuilderTest {
+
+    private static final String VIDEO =
+            "{\"jobStatus\":\"SUCCEEDED\",\"faces\":[{\"timestamp\":0,\"face\":{\"confidence\":99.0,"
+                    + "\"emotions\":[{\"type\":\"SAD\",\"confidence\":80.0},{\"type\":\"CALM\",\"confidence\":20.0}]}}]}";
+
+    private BurnoutAssessmentSession session;
+
+    @BeforeEach
+    void setUp() {
+        List<BurnoutQuestion> questions = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            questions.add(new BurnoutQuestion("q" + i, "How often does question " + i + " apply to you?",
+                    AssessmentDomain.WORK, i % 4 == 0));
+        }
+        session = new BurnoutAssessmentSession("s1", "user-1", new BurnoutAssessment(questions), LocalDateTime.now());
+    }
+
+    /**
+     * Test that a small session keeps every answer and replaces raw JSON with a digest
+     */
+    @Test
+    void testFormatsDigests() {
+        answer("q1", "4", null);
+        Map<String, Object> insights = new HashMap<>();
+        insights.put("video", VIDEO);
+        answer("q4", "It was hard", insights);
+
+        String prompt = new BurnoutPromptBuilder(BurnoutPromptBuilder.DEFAULT_TOKEN_BUDGET).build(session);
+
+        assertTrue(prompt.contains("Q: How often does question 1 apply to you?\nA: 4\n---\n"));
+        assertTrue(prompt.contains("A: It was hard\nMultimodal video: 1 sample; top sad 0.80, calm 0.20"));
+        assertTrue(prompt.contains("Q: How often does question 2 apply to you?\nA: [No response]\n"));
+        assertFalse(prompt.contains("jobStatus"));
+    }
+
+    /**
+     * Test that long answers are shortened to stay within the budget
+     */
+    @Test
+    void testShortensLongAnswers() {
+        StringBuilder longAnswer = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            longAnswer.append("word ");
+        }
+        for (int i = 1; i <= 12; i++) {
+            answer("q" + i, longAnswer.toString(), null);
+        }
+
+        BurnoutPromptBuilder builder = new BurnoutPromptBuilder(800);
+        String prompt = builder.build(session);
+
+        assertTrue(TokenEstimator.estimate(prompt) <= 800);
+        assertTrue(prompt.contains("Q: How often does question 12 apply to you?"), "Every question should be kept");
+        assertTrue(prompt.contains("..."));
+    }
+
+    /**
+     * Test that the input is cut at the budget when nothing else fits
+     */
+    @Test
+    void testCutsAtBudget() {
+        String prompt = new BurnoutPromptBuilder(40).build(session);
+
+        assertTrue(TokenEstimator.estimate(prompt) <= 40);
+        assertTrue(prompt.endsWith("[truncated]\n"));
+    }
+
+    /**
+     * Test that the prompt does not depend on the order insights were added
+     */
+    @Test
+    void testDeterministic() {
+        Map<String, Object> insights = new HashMap<>();
+        insights.put("video", VIDEO);
+        insights.put("audio", "{}");
+        answer("q4", "ok", insights);
+        BurnoutPromptBuilder builder = new BurnoutPromptBuilder(BurnoutPromptBuilder.DEFAULT_TOKEN_BUDGET);
+
+        String prompt = builder.build(session);
+
+        assertTrue(prompt.indexOf("Multimodal audio") < prompt.indexOf("Multimodal video"));
+        assertEquals(prompt, builder.build(session));
+    }
+
+    private void answer(String questionId, String text, Map<String, Object> insights) {
+        session.getResponses().put(questionId,
+                new BurnoutUserResponse(questionId, text, insights == null ? new HashMap<>() : insights));
+    }
+}
@@ -0,0 +1,45 @@
+package harvard.capstone.digitaltherapy.burnout.prompt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultimodalDigestTest {
+
+    private static final String VIDEO =
+            "{\"jobStatus\":\"SUCCEEDED\",\"faces\":["
+                    + "{\"timestamp\":0,\"face\":{\"confidence\":99.0,\"emotions\":[{\"type\":\"SAD\",\"confidence\":80.0},{\"type\":\"CALM\",\"confidence\":20.0}]}},"
+                    + "{\"timestamp\":500,\"face\":{\"confidence\":98.0,\"emotions\":[{\"type\":\"SAD\",\"confidence\":40.0},{\"type\":\"CALM\",\"confidence\":60.0}]}}]}";
+
+    private static final String AUDIO =
+            "[{\"results\":{\"predictions\":[{\"models\":{\"prosody\":{\"grouped_predictions\":[{\"predictions\":["
+                    + "{\"text\":\"I am tired\",\"emotions\":[{\"name\":\"Tiredness\",\"score\":0.6},{\"name\":\"Calmness\",\"score\":0.2}]}"
+                    + "]}]}},\"transcript\":\"I am tired\"}]}}]";
+
+    /**
+     * Test the digest of a Rekognition result
+     */
+    @Test
+    void testVideoDigest() {
+        assertEquals("2 samples; top sad 0.60, calm 0.40; intensity 0.70; variability 0.20",
+                MultimodalDigest.of(VIDEO, 3));
+    }
+
+    /**
+     * Test the digest of a Hume prosody result, limited to the top emotion
+     */
+    @Test
+    void testAudioDigest() {
+        assertEquals("1 sample; top tiredness 0.75; intensity 0.60; variability 0.00",
+                MultimodalDigest.of(AUDIO, 1));
+    }
+
+    /**
+     * Test that results without emotions give a fixed placeholder
+     */
+    @Test
+    void testNoSignal() {
+        assertEquals("no emotion signal", MultimodalDigest.of("{\"face\":\"detected\"}", 3));
+        assertEquals("no emotion signal", MultimodalDigest.of(null, 3));
+    }
+}
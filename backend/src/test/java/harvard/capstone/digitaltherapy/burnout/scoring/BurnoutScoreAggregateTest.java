@@ -0,0 +1,64 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BurnoutScoreAggregateTest {
+
+    private final BurnoutQuestion work1 = new BurnoutQuestion("work_std_1", "I feel drained after work", AssessmentDomain.WORK, false);
+    private final BurnoutQuestion work2 = new BurnoutQuestion("work_std_2", "I dread Mondays", AssessmentDomain.WORK, false);
+    private final BurnoutQuestion workVideo = new BurnoutQuestion("work_multi_1", "Describe a hard day", AssessmentDomain.WORK, true);
+    private final BurnoutQuestion sleep = new BurnoutQuestion("lifestyle_std_1", "I sleep badly", AssessmentDomain.LIFESTYLE, false);
+
+    /**
+     * Test that Likert answers are averaged per domain and free text only counts as answered
+     */
+    @Test
+    void testDomainAverages() {
+        BurnoutScoreAggregate aggregate = new BurnoutScoreAggregate();
+        aggregate.record(work1, "6");
+        aggregate.record(work2, " 3 ");
+        aggregate.record(workVideo, "It was a long week");
+        aggregate.record(sleep, "2");
+
+        Map<AssessmentDomain, Double> averages = aggregate.getDomainAverages();
+        assertEquals(4.5, averages.get(AssessmentDomain.WORK), 1e-9);
+        assertEquals(2.0, averages.get(AssessmentDomain.LIFESTYLE), 1e-9);
+        assertFalse(averages.containsKey(AssessmentDomain.PERSONAL));
+        assertEquals(4, aggregate.getAnsweredCount());
+        assertEquals(3, aggregate.getNumericCount());
+    }
+
+    /**
+     * Test that a new answer replaces the old one and a media-only upload keeps it
+     */
+    @Test
+    void testReplacesAnswers() {
+        BurnoutScoreAggregate aggregate = new BurnoutScoreAggregate();
+        aggregate.record(work1, "6");
+        aggregate.record(work1, "1");
+        aggregate.record(work1, "");
+
+        assertEquals(1.0, aggregate.getDomainAverages().get(AssessmentDomain.WORK), 1e-9);
+        assertEquals(1, aggregate.getAnsweredCount());
+    }
+
+    /**
+     * Test which texts are read as Likert values
+     */
+    @Test
+    void testParseLikert() {
+        assertEquals(Integer.valueOf(0), BurnoutScoreAggregate.parseLikert("0"));
+        assertEquals(Integer.valueOf(6), BurnoutScoreAggregate.parseLikert("6"));
+        assertEquals(Integer.valueOf(4), BurnoutScoreAggregate.parseLikert("4.0"));
+        assertNull(BurnoutScoreAggregate.parseLikert("7"));
+        assertNull(BurnoutScoreAggregate.parseLikert("-1"));
+        assertNull(BurnoutScoreAggregate.parseLikert("often"));
+        assertNull(BurnoutScoreAggregate.parseLikert(null));
+    }
+}
@@ -0,0 +1,93 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessment;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalBurnoutScoringTest {
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private IncrementalBurnoutScoring scoring;
+    private BurnoutAssessmentSession session;
+    private List<BurnoutQuestion> questions;
+
+    @BeforeEach
+    void setUp() {
+        // Tasks run only when the test drains the queue
+        scoring = new IncrementalBurnoutScoring(0.75, Duration.ofMinutes(60), queued::add);
+        questions = Arrays.asList(
+                new BurnoutQuestion("q1", "I feel drained after work", AssessmentDomain.WORK, false),
+                new BurnoutQuestion("q2", "I argue with my partner", AssessmentDomain.PERSONAL, false),
+                new BurnoutQuestion("q3", "I sleep badly", AssessmentDomain.LIFESTYLE, false),
+                new BurnoutQuestion("q4", "Describe a hard day", AssessmentDomain.WORK, true));
+        session = new BurnoutAssessmentSession("s1", "user-1", new BurnoutAssessment(questions), LocalDateTime.now());
+    }
+
+    /**
+     * Test that no draft is generated before enough questions are answered
+     */
+    @Test
+    void testWaitsForThreshold() {
+        scoring.recordAnswer(session, questions.get(0), "5");
+        scoring.recordAnswer(session, questions.get(1), "4");
+        scoring.sessionChanged(session, () -> {
+            throw new AssertionError("Draft should not be generated yet");
+        });
+
+        assertTrue(queued.isEmpty());
+        assertNull(scoring.draftFor("s1", "anything", 0));
+    }
+
+    /**
+     * Test that changes during a generation are folded into one follow-up generation
+     */
+    @Test
+    void testCoalescesChanges() {
+        AtomicInteger generations = new AtomicInteger();
+        String[] input = {"v1"};
+        IncrementalBurnoutScoring.DraftGenerator generator = () -> {
+            generations.incrementAndGet();
+            return new IncrementalBurnoutScoring.Draft(input[0], 6.0, "explanation", "summary " + input[0]);
+        };
+        for (int i = 0; i < 3; i++) {
+            scoring.recordAnswer(session, questions.get(i), "4");
+        }
+
+        scoring.sessionChanged(session, generator);
+        scoring.sessionChanged(session, generator);
+        scoring.sessionChanged(session, generator);
+        assertEquals(1, queued.size(), "Only one generation should be scheduled");
+
+        queued.remove(0).run();
+        assertEquals(1, generations.get(), "Changes before the run should share one generation");
+
+        IncrementalBurnoutScoring.Draft draft = scoring.draftFor("s1", "v1", 0);
+        assertNotNull(draft);
+        assertEquals("summary v1", draft.getSummary());
+        assertNull(scoring.draftFor("s1", "v2", 0), "A draft for other input should not be used");
+    }
+
+    /**
+     * Test that domain averages are rebuilt from the session when state is missing
+     */
+    @Test
+    void testRebuildsAggregateFromSession() {
+        session.getResponses().put("q1", new BurnoutUserResponse("q1", "6", new HashMap<>()));
+
+        assertEquals(6.0, scoring.getDomainAverages(session).get(AssessmentDomain.WORK), 1e-9);
+    }
+}
@@ -0,0 +1,104 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import harvard.capstone.digitaltherapy.burnout.model.AssessmentDomain;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessment;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutAssessmentSession;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutQuestion;
+import harvard.capstone.digitaltherapy.burnout.model.BurnoutUserResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalBurnoutScoreEngineTest {
+
+    private static final String SAD_VIDEO =
+            "{\"jobStatus\":\"SUCCEEDED\",\"faces\":[{\"timestamp\":0,\"face\":{\"confidence\":99.0,"
+                    + "\"emotions\":[{\"type\":\"SAD\",\"confidence\":80.0},{\"type\":\"CALM\",\"confidence\":20.0}]}}]}";
+
+    private BurnoutAssessmentSession session;
+
+    @BeforeEach
+    void setUp() {
+        session = new BurnoutAssessmentSession("s1", "user-1", new BurnoutAssessment(Arrays.asList(
+                new BurnoutQuestion("work_std_1", "I feel drained after work", AssessmentDomain.WORK, false),
+                new BurnoutQuestion("personal_std_1", "I argue with my partner", AssessmentDomain.PERSONAL, false),
+                new BurnoutQuestion("work_multi_1", "Describe a hard day", AssessmentDomain.WORK, true))),
+                LocalDateTime.now());
+        answer("work_std_1", "6", null);
+        answer("personal_std_1", "0", null);
+    }
+
+    /**
+     * Test that equal weights average the scaled domain means
+     */
+    @Test
+    void testEqualWeights() {
+        LocalBurnoutScoreEngine.Result result = new LocalBurnoutScoreEngine(BurnoutScoringModel.equalWeights()).score(session);
+
+        assertEquals(5.0, result.getScore(), 1e-9);
+        assertEquals(6.0, result.getDomainAverages().get(AssessmentDomain.WORK), 1e-9);
+        assertNull(result.getNegativeAffect());
+    }
+
+    /**
+     * Test that domain weights shift the score towards the heavier domain
+     */
+    @Test
+    void testDomainWeights() {
+        Map<AssessmentDomain, Double> weights = new EnumMap<>(AssessmentDomain.class);
+        weights.put(AssessmentDomain.WORK, 3.0);
+        LocalBurnoutScoreEngine.Result result = new LocalBurnoutScoreEngine(new BurnoutScoringModel(weights, 0)).score(session);
+
+        assertEquals(7.5, result.getScore(), 1e-9);
+    }
+
+    /**
+     * Test that multimodal signals are blended in with the multimodal weight
+     */
+    @Test
+    void testMultimodalBlend() {
+        Map<String, Object> insights = new HashMap<>();
+        insights.put("video", SAD_VIDEO);
+        answer("work_multi_1", "", insights);
+
+        LocalBurnoutScoreEngine.Result result = new LocalBurnoutScoreEngine(new BurnoutScoringModel(null, 0.5)).score(session);
+
+        // 0.5 * 5.0 from the answers + 0.5 * 8.0 from 80% negative affect
+        assertEquals(0.8, result.getNegativeAffect(), 1e-9);
+        assertEquals(6.5, result.getScore(), 1e-9);
+    }
+
+    /**
+     * Test that a session without numeric answers is not scored locally
+     */
+    @Test
+    void testNoNumericAnswers() {
+        session.getResponses().clear();
+        answer("work_std_1", "Most days", null);
+
+        assertNull(new LocalBurnoutScoreEngine(BurnoutScoringModel.equalWeights()).score(session));
+    }
+
+    /**
+     * Test that invalid weights are rejected
+     */
+    @Test
+    void testRejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new BurnoutScoringModel(null, 1.5));
+        Map<AssessmentDomain, Double> weights = new EnumMap<>(AssessmentDomain.class);
+        weights.put(AssessmentDomain.LIFESTYLE, -1.0);
+        assertThrows(IllegalArgumentException.class, () -> new BurnoutScoringModel(weights, 0));
+    }
+
+    private void answer(String questionId, String text, Map<String, Object> insights) {
+        session.getResponses().put(questionId,
+                new BurnoutUserResponse(questionId, text, insights == null ? new HashMap<>() : insights));
+    }
+}
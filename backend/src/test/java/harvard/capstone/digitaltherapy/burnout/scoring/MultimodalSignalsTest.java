@@ -0,0 +1,70 @@
+package harvard.capstone.digitaltherapy.burnout.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultimodalSignalsTest {
+
+    private static final String VIDEO =
+            "{\"jobStatus\":\"SUCCEEDED\",\"faces\":["
+                    + "{\"timestamp\":0,\"face\":{\"confidence\":99.0,\"emotions\":[{\"type\":\"HAPPY\",\"confidence\":90.0},{\"type\":\"SAD\",\"confidence\":10.0}]}},"
+                    + "{\"timestamp\":500,\"face\":{\"confidence\":98.0,\"emotions\":[{\"type\":\"ANGRY\",\"confidence\":50.0},{\"type\":\"CALM\",\"confidence\":50.0}]}}]}";
+
+    private static final String AUDIO =
+            "[{\"results\":{\"predictions\":[{\"models\":{\"prosody\":{\"grouped_predictions\":[{\"predictions\":["
+                    + "{\"text\":\"I am tired\",\"emotions\":[{\"name\":\"Tiredness\",\"score\":0.6},{\"name\":\"Calmness\",\"score\":0.2}]}"
+                    + "]}]}},\"transcript\":\"I am tired\"}]}}]";
+
+    /**
+     * Test that Rekognition emotions are read from every face
+     */
+    @Test
+    void testVideoAffect() {
+        Map<String, Object> insights = new HashMap<>();
+        insights.put("video", VIDEO);
+
+        assertEquals(60.0 / 200.0, MultimodalSignals.negativeAffect(insights), 1e-9);
+    }
+
+    /**
+     * Test that Hume prosody emotions are read and combined with video
+     */
+    @Test
+    void testAudioAndVideoAffect() {
+        Map<String, Object> insights = new HashMap<>();
+        insights.put("audio", AUDIO);
+        assertEquals(0.75, MultimodalSignals.negativeAffect(insights), 1e-9);
+
+        insights.put("video", VIDEO);
+        // Mean of the per-sample shares: 0.1 and 0.5 for the frames, 0.75 for the utterance
+        assertEquals((0.1 + 0.5 + 0.75) / 3, MultimodalSignals.negativeAffect(insights), 1e-9);
+    }
+
+    /**
+     * Test that Rekognition's 0-100 scale does not outweigh Hume's 0-1 scale
+     */
+    @Test
+    void testMixedScalesCountEqually() {
+        Map<String, Object> insights = new HashMap<>();
+        insights.put("video", "{\"faces\":[{\"face\":{\"emotions\":[{\"type\":\"CALM\",\"confidence\":100.0}]}}]}");
+        insights.put("audio", "{\"emotions\":[{\"name\":\"Distress\",\"score\":1.0}]}");
+
+        assertEquals(0.5, MultimodalSignals.negativeAffect(insights), 1e-9);
+    }
+
+    /**
+     * Test that missing or unreadable insights give no signal
+     */
+    @Test
+    void testNoSignal() {
+        assertNull(MultimodalSignals.negativeAffect(null));
+        Map<String, Object> insights = new HashMap<>();
+        insights.put("video", "not json");
+        insights.put("audio", "{\"transcript\":\"hello\"}");
+        assertNull(MultimodalSignals.negativeAffect(insights));
+    }
+}
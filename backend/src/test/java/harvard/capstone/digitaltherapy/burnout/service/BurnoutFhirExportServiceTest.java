@@ -0,0 +1,155 @@
+package harvard.capstone.digitaltherapy.burnout.service;
+
+import harvard.capstone.digitaltherapy.burnout.fhir.BurnoutAssessmentFhirConverter;
+import harvard.capstone.digitaltherapy.burnout.model.*;
+import harvard.capstone.digitaltherapy.utility.S3MultipartOutputStream;
+import harvard.capstone.digitaltherapy.utility.S3Utils;
+
+import org.hl7.fhir.r4.model.QuestionnaireResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BurnoutFhirExportServiceTest {
+
+    private static final LocalDateTime APRIL = LocalDateTime.of(2025, 4, 15, 10, 30);
+
+    private final FhirContext fhirContext = FhirContext.forR4();
+    private final BurnoutAssessmentFhirConverter converter = new BurnoutAssessmentFhirConverter();
+    // Stored documents by key, as BurnoutFhirService writes them
+    private final Map<String, String> documents = new TreeMap<>();
+    private S3Utils s3Utils;
+    private BurnoutFhirExportService exportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3Utils = mock(S3Utils.class);
+        when(s3Utils.getBucketName()).thenReturn("bucket");
+        doAnswer(invocation -> {
+            String document = documents.get(invocation.getArgument(1, String.class));
+            if (document == null) {
+                throw new FileNotFoundException("Object not found");
+            }
+            invocation.getArgument(2, OutputStream.class).write(document.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(s3Utils).streamFileFromS3(eq("bucket"), anyString(), any(OutputStream.class));
+        when(s3Utils.listKeys(BurnoutFhirService.DOCUMENT_KEY_PREFIX))
+                .thenAnswer(invocation -> documents.keySet().stream());
+        exportService = new BurnoutFhirExportService(s3Utils, fhirContext,
+                Runnable::run, 2, S3MultipartOutputStream.MIN_PART_SIZE);
+    }
+
+    @Test
+    void writeNdjson_writesOneCompactLinePerMatchingDocument() throws Exception {
+        store("s1", "u1", APRIL);
+        store("s2", "u2", APRIL.plusDays(1));
+        store("s3", "u1", APRIL.plusMonths(2));
+        store("s4", "u3", APRIL);
+        store("s5", "u1", APRIL.plusDays(2));
+        BurnoutFhirExportService.Criteria criteria = new BurnoutFhirExportService.Criteria(
+                APRIL, APRIL.plusMonths(1), Arrays.asList("u1", "u2"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BurnoutFhirExportService.Result result = exportService.writeNdjson(
+                criteria, documents.keySet().iterator(), out);
+
+        assertEquals(3, result.getExported());
+        assertEquals(0, result.getFailed());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        List<String> ids = new ArrayList<>();
+        for (String line : lines) {
+            QuestionnaireResponse parsed = fhirContext.newJsonParser().parseResource(QuestionnaireResponse.class, line);
+            ids.add(parsed.getIdElement().getIdPart());
+        }
+        // Listing order is kept across batches
+        assertEquals(Arrays.asList("s1", "s2", "s5"), ids);
+    }
+
+    @Test
+    void writeNdjson_skipsDocumentsThatCannotBeReadOrParsed() throws Exception {
+        store("s1", "u1", APRIL);
+        documents.put(BurnoutFhirService.DOCUMENT_KEY_PREFIX + "s2.json", "{not fhir");
+        List<String> keys = new ArrayList<>(documents.keySet());
+        keys.add(BurnoutFhirService.DOCUMENT_KEY_PREFIX + "deleted.json");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BurnoutFhirExportService.Result result = exportService.writeNdjson(
+                new BurnoutFhirExportService.Criteria(null, null, null), keys.iterator(), out);
+
+        assertEquals(1, result.getExported());
+        assertEquals(2, result.getFailed());
+        assertEquals(1, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void criteria_excludesUnauthoredDocumentsAndHonoursExclusiveEnd() {
+        BurnoutFhirExportService.Criteria criteria = new BurnoutFhirExportService.Criteria(APRIL, APRIL.plusDays(1), null);
+
+        assertTrue(criteria.matches(converter.convertToFhir(result("s1", "u1", APRIL))));
+        assertFalse(criteria.matches(converter.convertToFhir(result("s2", "u1", APRIL.plusDays(1)))));
+        assertFalse(criteria.matches(new QuestionnaireResponse()));
+    }
+
+    @Test
+    void export_readsStoredDocumentsButNotValidationOutcomes() throws Exception {
+        store("s1", "u1", APRIL);
+        documents.put(BurnoutFhirService.DOCUMENT_KEY_PREFIX + "s1" + BurnoutFhirService.VALIDATION_KEY_SUFFIX,
+                "{\"resourceType\":\"OperationOutcome\"}");
+        S3MultipartOutputStream upload = mock(S3MultipartOutputStream.class);
+        when(upload.getS3Uri()).thenReturn("s3://bucket/fhir/export/x.ndjson");
+        when(s3Utils.openMultipartUpload(startsWith("fhir/export/"), eq("application/fhir+ndjson"), anyInt()))
+                .thenReturn(upload);
+
+        BurnoutFhirExportService.Result result = exportService.export(
+                new BurnoutFhirExportService.Criteria(null, null, null));
+
+        assertEquals("s3://bucket/fhir/export/x.ndjson", result.getLocation());
+        assertEquals(1, result.getExported());
+        assertEquals(0, result.getFailed());
+        verify(s3Utils, never()).streamFileFromS3(anyString(),
+                endsWith(BurnoutFhirService.VALIDATION_KEY_SUFFIX), any(OutputStream.class));
+        verify(upload).close();
+        verify(upload, never()).abort();
+    }
+
+    @Test
+    void export_abortsUploadWhenListingFails() throws Exception {
+        S3MultipartOutputStream upload = mock(S3MultipartOutputStream.class);
+        when(s3Utils.openMultipartUpload(anyString(), anyString(), anyInt())).thenReturn(upload);
+        when(s3Utils.listKeys(anyString())).thenThrow(new RuntimeException("Failed to list files"));
+
+        assertThrows(RuntimeException.class,
+                () -> exportService.export(new BurnoutFhirExportService.Criteria(null, null, null)));
+
+        verify(upload).abort();
+        verify(upload, never()).close();
+    }
+
+    private void store(String sessionId, String userId, LocalDateTime completedAt) {
+        QuestionnaireResponse document = converter.convertToFhir(result(sessionId, userId, completedAt));
+        documents.put(BurnoutFhirService.DOCUMENT_KEY_PREFIX + sessionId + ".json",
+                fhirContext.newJsonParser().setPrettyPrint(true).encodeResourceToString(document));
+    }
+
+    private static BurnoutAssessmentResult result(String sessionId, String userId, LocalDateTime completedAt) {
+        BurnoutQuestion question = new BurnoutQuestion("q1", "How often do you feel exhausted?",
+                AssessmentDomain.WORK, false);
+        Map<String, BurnoutUserResponse> responses = new HashMap<>();
+        responses.put("q1", new BurnoutUserResponse("q1", "4", new HashMap<>()));
+        return new BurnoutAssessmentResult(sessionId, userId, new BurnoutAssessment(Collections.singletonList(question)),
+                responses, new BurnoutScore(sessionId, userId, 6.0), "summary", completedAt);
+    }
+}
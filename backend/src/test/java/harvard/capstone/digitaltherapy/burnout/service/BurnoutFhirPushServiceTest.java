@@ -0,0 +1,181 @@
+package harvard.capstone.digitaltherapy.burnout.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.QuestionnaireResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ca.uhn.fhir.context.FhirContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the push pipeline against a local HTTP server standing in for a FHIR server
+ */
+public class BurnoutFhirPushServiceTest {
+
+    private static final FhirContext FHIR_CONTEXT = FhirContext.forR4();
+
+    @TempDir
+    Path spoolDir;
+
+    private HttpServer server;
+    private String baseUrl;
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private volatile CountDownLatch requests = new CountDownLatch(1);
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/fhir", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            Integer status = statuses.poll();
+            byte[] body = "{\"resourceType\":\"Bundle\",\"type\":\"transaction-response\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/fhir+json");
+            exchange.sendResponseHeaders(status == null ? 200 : status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            requests.countDown();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/fhir";
+        Files.createDirectories(spoolDir.resolve("failed"));
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void flush_sendsOneTransactionWithConditionalCreates() throws IOException {
+        BurnoutFhirPushService pushService = service(baseUrl, 10);
+        QuestionnaireResponse original = response("sess-1");
+        pushService.enqueue(original, "sess-1");
+        pushService.enqueue(response("sess-2"), "sess-2");
+        pushService.enqueue(response("sess-3"), "sess-3");
+
+        pushService.flush();
+
+        assertEquals(1, received.size());
+        Bundle bundle = FHIR_CONTEXT.newJsonParser().parseResource(Bundle.class, received.get(0));
+        assertEquals(Bundle.BundleType.TRANSACTION, bundle.getType());
+        assertEquals(3, bundle.getEntry().size());
+        for (int i = 0; i < 3; i++) {
+            Bundle.BundleEntryComponent entry = bundle.getEntry().get(i);
+            assertEquals(Bundle.HTTPVerb.POST, entry.getRequest().getMethod());
+            assertEquals("QuestionnaireResponse", entry.getRequest().getUrl());
+            assertEquals("identifier=" + BurnoutFhirPushService.IDENTIFIER_SYSTEM + "|sess-" + (i + 1),
+                    entry.getRequest().getIfNoneExist());
+        }
+        // The caller's resource is not modified
+        assertFalse(original.hasIdentifier());
+        assertEquals(0, spooledFiles(spoolDir));
+        assertEquals(1L, pushService.getStats().get("bundlesSent"));
+        assertEquals(3L, pushService.getStats().get("resourcesSent"));
+    }
+
+    @Test
+    void enqueue_flushesInTheBackgroundWhenTheBatchIsFull() throws Exception {
+        BurnoutFhirPushService pushService = service(baseUrl, 2);
+
+        pushService.enqueue(response("sess-1"), "sess-1");
+        assertTrue(received.isEmpty());
+        pushService.enqueue(response("sess-2"), "sess-2");
+
+        assertTrue(requests.await(5, TimeUnit.SECONDS));
+        Bundle bundle = FHIR_CONTEXT.newJsonParser().parseResource(Bundle.class, received.get(0));
+        assertEquals(2, bundle.getEntry().size());
+    }
+
+    @Test
+    void failedSend_staysSpooledAndIsRetriedWithTheSameBundle() throws IOException {
+        statuses.add(503);
+        BurnoutFhirPushService pushService = service(baseUrl, 10);
+        pushService.enqueue(response("sess-1"), "sess-1");
+
+        pushService.flush();
+
+        assertEquals(1, spooledFiles(spoolDir));
+        assertEquals(1, pushService.getStats().get("retrying"));
+        assertEquals(1L, pushService.getStats().get("sendFailures"));
+
+        pushService.retrySpooled();
+
+        assertEquals(2, received.size());
+        assertEquals(received.get(0), received.get(1));
+        assertEquals(0, spooledFiles(spoolDir));
+        assertEquals(0, pushService.getStats().get("retrying"));
+        assertEquals(1L, pushService.getStats().get("bundlesSent"));
+    }
+
+    @Test
+    void rejectedBundle_isMovedAsideAndNotRetried() throws IOException {
+        statuses.add(400);
+        BurnoutFhirPushService pushService = service(baseUrl, 10);
+        pushService.enqueue(response("sess-1"), "sess-1");
+
+        pushService.flush();
+        pushService.retrySpooled();
+
+        assertEquals(1, received.size());
+        assertEquals(0, spooledFiles(spoolDir));
+        assertEquals(1, spooledFiles(spoolDir.resolve("failed")));
+        assertEquals(1L, pushService.getStats().get("bundlesFailed"));
+    }
+
+    @Test
+    void enqueue_isIgnoredWithoutBaseUrl() {
+        BurnoutFhirPushService pushService = service("", 1);
+
+        pushService.enqueue(response("sess-1"), "sess-1");
+
+        assertFalse(pushService.isEnabled());
+        assertEquals(0, pushService.getStats().get("pending"));
+        assertTrue(received.isEmpty());
+    }
+
+    private BurnoutFhirPushService service(String url, int batchSize) {
+        // No backoff, so retrySpooled resends at once
+        return new BurnoutFhirPushService(url, batchSize, 60_000, 0, spoolDir, HttpClient.newHttpClient(), scheduler);
+    }
+
+    private static QuestionnaireResponse response(String sessionId) {
+        QuestionnaireResponse response = new QuestionnaireResponse();
+        response.setId(sessionId);
+        response.setStatus(QuestionnaireResponse.QuestionnaireResponseStatus.COMPLETED);
+        response.addItem().setLinkId("q1").addAnswer().setValue(new org.hl7.fhir.r4.model.StringType("4"));
+        return response;
+    }
+
+    private static long spooledFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".json")).count();
+        }
+    }
+}
@@ -51,6 +51,9 @@ public class BurnoutFhirServiceTests {
     @Mock
     private ValidationResult validationResult;
 
+    @Mock
+    private BurnoutFhirPushService pushService;
+
     private BurnoutAssessmentResult sampleResult;
     private QuestionnaireResponse sampleFhirResponse;
     private final String SESSION_ID = "test-session-123";
@@ -61,8 +64,8 @@ public class BurnoutFhirServiceTests {
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
-        // Create service with mocks
-        fhirService = new BurnoutFhirService(s3Utils, converter);
+        // Create service with mocks; validation runs on the calling thread
+        fhirService = new BurnoutFhirService(s3Utils, converter, Runnable::run, pushService);
 
         // Inject mocked validator
         FhirContext fhirContext = mock(FhirContext.class);
@@ -112,6 +115,9 @@ public class BurnoutFhirServiceTests {
         assertTrue(capturedKey.startsWith("fhir/burnout-assessment-"));
         assertTrue(capturedKey.endsWith(".json"));
         assertTrue(capturedKey.contains(SESSION_ID));
+
+        // Verify the document was queued for the EHR push
+        verify(pushService).enqueue(sampleFhirResponse, SESSION_ID);
     }
 
     /**
@@ -219,6 +225,60 @@ public class BurnoutFhirServiceTests {
         assertEquals("DigitalTherapyAssistant", ((StringType)sourceExt.getValue()).getValue());
     }
 
+    /**
+     * Test that a failing validator does not prevent storage
+     */
+    @Test
+    void testProcessAndStoreAssessment_StoresBeforeValidation() {
+        when(s3Utils.uploadFile(any(InputStream.class), anyString(), anyString())).thenReturn(S3_URL);
+        when(validator.validateWithResult(any(Resource.class))).thenThrow(new IllegalStateException("validator down"));
+
+        String result = fhirService.processAndStoreAssessment(sampleResult);
+
+        assertEquals(S3_URL, result);
+        verify(s3Utils).uploadFile(any(InputStream.class), anyString(), eq("application/fhir+json"));
+        assertEquals(1L, fhirService.getValidationStats().get("errors"));
+        assertEquals(0L, fhirService.getValidationStats().get("passed"));
+    }
+
+    /**
+     * Test that validation issues are recorded after storage
+     */
+    @Test
+    void testProcessAndStoreAssessment_RecordsValidationIssues() {
+        when(s3Utils.uploadFile(any(InputStream.class), anyString(), anyString())).thenReturn(S3_URL);
+        when(validationResult.isSuccessful()).thenReturn(false);
+        when(validationResult.getMessages()).thenReturn(Arrays.asList(
+                new ca.uhn.fhir.validation.SingleValidationMessage(),
+                new ca.uhn.fhir.validation.SingleValidationMessage()));
+        when(validationResult.toOperationOutcome()).thenReturn(new org.hl7.fhir.r4.model.OperationOutcome());
+        FhirContext fhirContext = (FhirContext) ReflectionTestUtils.getField(fhirService, "fhirContext");
+        when(fhirContext.newJsonParser().encodeResourceToString(any(org.hl7.fhir.instance.model.api.IBaseResource.class)))
+                .thenReturn("{\"resourceType\":\"OperationOutcome\"}");
+
+        fhirService.processAndStoreAssessment(sampleResult);
+
+        verify(s3Utils).uploadFile(any(InputStream.class),
+                eq("fhir/burnout-assessment-" + SESSION_ID + ".validation.json"), eq("application/fhir+json"));
+        assertEquals(1L, fhirService.getValidationStats().get("withIssues"));
+        assertEquals(2L, fhirService.getValidationStats().get("issues"));
+    }
+
+    /**
+     * Test that the warm-up exercises the validator once
+     */
+    @Test
+    void testWarmUp_ValidatesRepresentativeResource() {
+        assertEquals(-1L, fhirService.getValidationStats().get("warmUpMillis"));
+
+        fhirService.warmUp();
+
+        verify(converter).convertToFhir(any(BurnoutAssessmentResult.class));
+        verify(validator).validateWithResult(any(Resource.class));
+        assertTrue((Long) fhirService.getValidationStats().get("warmUpMillis") >= 0);
+        verifyNoInteractions(s3Utils);
+    }
+
     /**
      * Helper method to create a sample burnout assessment result for testing
      */
@@ -293,6 +293,8 @@ class CBTControllerTest {
 
             // Mock service behaviors
             when(webSocketSession.getId()).thenReturn(sessionId);
+            when(s3Service.getBucketName()).thenReturn("dta-root");
+            when(s3Service.uri(anyString())).thenAnswer(invocation -> "s3://dta-root/" + invocation.getArgument(0));
 
             // Mock S3 download to return different files based on input
             when(s3Service.downloadFileFromS3(anyString(), anyString()))
@@ -0,0 +1,73 @@
+package harvard.capstone.digitaltherapy.cbt.service;
+
+import harvard.capstone.digitaltherapy.cbt.model.AnalysisResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpeculativeReplyPolicyTest {
+
+    private SpeculativeReplyPolicy policy;
+    private AnalysisResult draftAnalysis;
+
+    @BeforeEach
+    void setUp() {
+        policy = new SpeculativeReplyPolicy(0.6);
+        Map<String, Object> textAnalysis = new HashMap<>();
+        textAnalysis.put("emotion", "anxiety");
+        textAnalysis.put("cognitiveDistortions", Arrays.asList("catastrophizing", " "));
+        draftAnalysis = policy.textOnlyAnalysis(textAnalysis);
+    }
+
+    /**
+     * Test that the text-only analysis can be rendered for the prompt
+     */
+    @Test
+    void testTextOnlyAnalysis() {
+        assertEquals("anxiety", draftAnalysis.getDominantEmotion());
+        assertArrayEquals(new String[]{"catastrophizing"}, draftAnalysis.getCognitiveDistortions());
+        assertEquals(0, draftAnalysis.getFollowUpPrompts().length);
+        assertTrue(draftAnalysis.toString().contains("catastrophizing"));
+    }
+
+    /**
+     * Test that a congruent analysis with nothing new keeps the draft
+     */
+    @Test
+    void testAcceptsConsistentAnalysis() {
+        AnalysisResult multimodal = multimodal(0.8, "Anxiety (tense voice, furrowed brow)", "Catastrophizing");
+        assertTrue(policy.accept(draftAnalysis, multimodal));
+        assertTrue(policy.accept(draftAnalysis, multimodal(0.8, "", "none")));
+    }
+
+    /**
+     * Test that low congruence forces a regeneration
+     */
+    @Test
+    void testRejectsLowCongruence() {
+        assertFalse(policy.accept(draftAnalysis, multimodal(0.4, "anxiety", "catastrophizing")));
+        assertFalse(policy.accept(draftAnalysis, null));
+    }
+
+    /**
+     * Test that a different emotion or a new distortion forces a regeneration
+     */
+    @Test
+    void testRejectsNewInformation() {
+        assertFalse(policy.accept(draftAnalysis, multimodal(0.9, "Sadness", "catastrophizing")));
+        assertFalse(policy.accept(draftAnalysis, multimodal(0.9, "anxiety", "catastrophizing", "labeling")));
+    }
+
+    private AnalysisResult multimodal(double congruence, String emotion, String... distortions) {
+        AnalysisResult analysis = new AnalysisResult();
+        analysis.setCongruenceScore(congruence);
+        analysis.setDominantEmotion(emotion);
+        analysis.setCognitiveDistortions(distortions);
+        return analysis;
+    }
+}
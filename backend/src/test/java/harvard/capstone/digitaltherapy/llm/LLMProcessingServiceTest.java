@@ -54,6 +54,7 @@ public class LLMProcessingServiceTest {
         // Mock the required behaviors
         when(s3Service.readTextFromS3(inputS3Path)).thenReturn(prompt);
         when(bedrockService.generateTextWithNovaLite(prompt)).thenReturn(generatedResponse);
+        when(s3Service.writeTextToS3(simplifiedOutputPath, generatedResponse)).thenReturn(expectedOutputPath);
 
         // Act
         String result = llmProcessingService.process(inputS3Path);
@@ -0,0 +1,107 @@
+package harvard.capstone.digitaltherapy.llm.context;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContextWindowBuilderTest {
+
+    private static List<ChatMessage> turns(int count) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(UserMessage.from("Client message number " + i + " about how the week went"));
+            messages.add(AiMessage.from("Therapist reply number " + i + " asking a follow-up question"));
+        }
+        return messages;
+    }
+
+    /**
+     * Test that a short history is passed through untouched
+     */
+    @Test
+    void testShortHistoryFitsBudget() {
+        ContextWindowBuilder builder = new ContextWindowBuilder(1000);
+        List<ChatMessage> history = turns(3);
+
+        ContextWindowBuilder.ContextWindow window = builder.build(history);
+
+        assertNull(window.getSummary());
+        assertNull(window.getSummaryTurn());
+        assertEquals(history, window.getRecentMessages());
+        assertTrue(window.getOverflow().isEmpty());
+        assertEquals(TokenEstimator.estimate(history), window.getRecentTokens());
+    }
+
+    /**
+     * Test that the recent window stays within budget no matter how long the history grows
+     */
+    @Test
+    void testRecentWindowStaysFlat() {
+        int budget = 100;
+        ContextWindowBuilder builder = new ContextWindowBuilder(budget);
+
+        for (int count : new int[] {5, 20, 80}) {
+            List<ChatMessage> history = turns(count);
+            ContextWindowBuilder.ContextWindow window = builder.build(history);
+
+            assertTrue(window.getRecentTokens() <= budget);
+            assertEquals(TokenEstimator.estimate(window.getRecentMessages()), window.getRecentTokens());
+            assertEquals(history.size(), window.getOverflow().size() + window.getRecentMessages().size());
+            // Overflow is the oldest part, recent the newest
+            assertEquals(history.get(history.size() - 1),
+                    window.getRecentMessages().get(window.getRecentMessages().size() - 1));
+            assertFalse(window.getRecentMessages().get(0) instanceof AiMessage,
+                    "Window should not start with a reply whose question was cut off");
+        }
+    }
+
+    /**
+     * Test that the stored summary is split out and not counted as history
+     */
+    @Test
+    void testSummaryIsSeparated() {
+        ContextWindowBuilder builder = new ContextWindowBuilder(1000);
+        List<ChatMessage> history = new ArrayList<>();
+        history.add(ContextWindowBuilder.summaryMessage("Client reports work stress."));
+        history.addAll(turns(2));
+
+        ContextWindowBuilder.ContextWindow window = builder.build(history);
+
+        assertNotNull(window.getSummary());
+        assertTrue(ContextWindowBuilder.isSummary(window.getSummary()));
+        assertEquals("Client reports work stress.", window.getSummaryText());
+        assertEquals(ContextWindowBuilder.SUMMARY_PREFIX + "Client reports work stress.",
+                window.getSummaryTurn().singleText());
+        assertEquals(4, window.getRecentMessages().size());
+        assertTrue(window.getOverflow().isEmpty());
+    }
+
+    /**
+     * Test that the newest message is kept even if it alone exceeds the budget
+     */
+    @Test
+    void testNewestMessageAlwaysKept() {
+        ContextWindowBuilder builder = new ContextWindowBuilder(5);
+        List<ChatMessage> history = turns(2);
+
+        ContextWindowBuilder.ContextWindow window = builder.build(history);
+
+        assertEquals(1, window.getRecentMessages().size());
+        assertEquals(history.get(3), window.getRecentMessages().get(0));
+        assertEquals(3, window.getOverflow().size());
+    }
+
+    /**
+     * Test that a non-positive budget is rejected
+     */
+    @Test
+    void testInvalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new ContextWindowBuilder(0));
+    }
+}
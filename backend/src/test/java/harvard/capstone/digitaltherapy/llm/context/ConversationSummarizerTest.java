@@ -0,0 +1,143 @@
+package harvard.capstone.digitaltherapy.llm.context;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import harvard.capstone.digitaltherapy.llm.routing.AdaptiveConcurrencyLimiter;
+import harvard.capstone.digitaltherapy.llm.routing.EndpointGuards;
+import harvard.capstone.digitaltherapy.llm.routing.HedgingChatRouter;
+import harvard.capstone.digitaltherapy.persistence.RedisChatMemoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class ConversationSummarizerTest {
+
+    private ChatLanguageModel chatModel;
+    private EndpointGuards guards;
+    private HedgingChatRouter chatRouter;
+    private RedisChatMemoryStore store;
+    private ContextWindowBuilder windowBuilder;
+    private ConversationSummarizer summarizer;
+
+    @BeforeEach
+    void setUp() {
+        chatModel = mock(ChatLanguageModel.class);
+        when(chatModel.chat(anyList())).thenReturn(ChatResponse.builder()
+                .aiMessage(AiMessage.from("Client reports work stress and catastrophizing."))
+                .build());
+        store = RedisChatMemoryStore.localOnly(Duration.ofMinutes(5), 10);
+        windowBuilder = new ContextWindowBuilder(60);
+        guards = new EndpointGuards();
+        chatRouter = new HedgingChatRouter("gemini", "gemini-1.5-flash", Collections.emptyList(),
+                Runnable::run, guards, 5000);
+        // Run refreshes on the calling thread
+        summarizer = new ConversationSummarizer(chatModel, chatRouter, store, windowBuilder, Runnable::run, 150);
+    }
+
+    private static List<ChatMessage> turns(int count) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(UserMessage.from("Client message number " + i + " about how the week went"));
+            messages.add(AiMessage.from("Therapist reply number " + i + " asking a follow-up question"));
+        }
+        return messages;
+    }
+
+    /**
+     * Test that overflow is folded into a summary at the front of the history
+     */
+    @Test
+    void testRefreshFoldsOverflow() {
+        List<ChatMessage> history = turns(6);
+        store.updateMessages("s1", history);
+        int overflow = windowBuilder.build(history).getOverflow().size();
+        assertTrue(overflow > 0);
+
+        assertTrue(summarizer.refreshAsync("s1").join());
+
+        List<ChatMessage> updated = store.getMessages("s1");
+        assertTrue(ContextWindowBuilder.isSummary(updated.get(0)));
+        assertEquals(history.size() - overflow + 1, updated.size());
+        assertEquals(history.subList(overflow, history.size()), updated.subList(1, updated.size()));
+
+        ContextWindowBuilder.ContextWindow window = windowBuilder.build(updated);
+        assertEquals("Client reports work stress and catastrophizing.", window.getSummaryText());
+        assertTrue(window.getOverflow().isEmpty());
+        assertEquals(1L, summarizer.getStats().get("refreshes"));
+    }
+
+    /**
+     * Test that summaries go through the router and leave the history alone when it rejects them
+     */
+    @Test
+    void testSummaryGoesThroughRouter() throws Exception {
+        List<ChatMessage> history = turns(6);
+        store.updateMessages("s1", history);
+        assertTrue(summarizer.refresh("s1"));
+        assertEquals(1L, chatRouter.getStats().get("requests"));
+
+        store.updateMessages("s1", history);
+        AdaptiveConcurrencyLimiter limiter = guards.limiter("gemini:gemini-1.5-flash");
+        while (limiter.getInFlight() < limiter.getLimit()) {
+            assertTrue(limiter.acquire(0));
+        }
+
+        assertTrue(summarizer.refreshAsync("s1").isCompletedExceptionally());
+        assertEquals(history, store.getMessages("s1"));
+        assertEquals(1L, summarizer.getStats().get("failures"));
+        verify(chatModel, times(1)).chat(anyList());
+    }
+
+    /**
+     * Test that nothing is summarized while the history fits the budget
+     */
+    @Test
+    void testRefreshWithoutOverflow() {
+        store.updateMessages("s1", turns(1));
+
+        assertFalse(summarizer.refreshAsync("s1").join());
+
+        verify(chatModel, never()).chat(anyList());
+        assertEquals(2, store.getMessages("s1").size());
+    }
+
+    /**
+     * Test that repeated refreshes keep the history bounded as the session grows
+     */
+    @Test
+    void testHistoryStaysBoundedAcrossTurns() {
+        for (int i = 0; i < 30; i++) {
+            List<ChatMessage> messages = store.getMessages("s1");
+            messages.add(UserMessage.from("Client message number " + i + " about how the week went"));
+            messages.add(AiMessage.from("Therapist reply number " + i + " asking a follow-up question"));
+            store.updateMessages("s1", messages);
+            summarizer.refresh("s1");
+        }
+
+        ContextWindowBuilder.ContextWindow window = windowBuilder.build(store.getMessages("s1"));
+        assertNotNull(window.getSummary());
+        assertTrue(window.getOverflow().isEmpty());
+        assertTrue(window.getRecentTokens() <= windowBuilder.getHistoryTokenBudget());
+        assertTrue(store.getMessages("s1").size() < 10);
+    }
+
+    /**
+     * Test that an overlong summary is cut to the word limit
+     */
+    @Test
+    void testTruncateWords() {
+        assertEquals("one two three", ConversationSummarizer.truncateWords("one two three", 3));
+        assertEquals("one two ...", ConversationSummarizer.truncateWords("one two three four", 2));
+    }
+}
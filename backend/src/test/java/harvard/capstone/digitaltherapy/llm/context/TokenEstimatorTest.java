@@ -0,0 +1,52 @@
+package harvard.capstone.digitaltherapy.llm.context;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenEstimatorTest {
+
+    /**
+     * Test that empty text costs nothing and longer text costs more
+     */
+    @Test
+    void testEstimateText() {
+        assertEquals(0, TokenEstimator.estimate((String) null));
+        assertEquals(0, TokenEstimator.estimate(""));
+
+        int shortText = TokenEstimator.estimate("I feel anxious.");
+        int longText = TokenEstimator.estimate("I feel anxious every morning before work and I can't stop thinking about it.");
+        assertTrue(shortText > 0);
+        assertTrue(longText > shortText);
+    }
+
+    /**
+     * Test that both the character and word heuristics are respected
+     */
+    @Test
+    void testEstimateUsesLargerHeuristic() {
+        // 10 short words: word heuristic (13) beats characters (20 chars -> 5)
+        assertEquals(13, TokenEstimator.estimate("a b c d e f g h i j"));
+        // One long word: character heuristic wins
+        assertEquals(10, TokenEstimator.estimate("supercalifragilisticexpialidocious!!!!!!"));
+    }
+
+    /**
+     * Test that message estimates include per-message overhead and add up
+     */
+    @Test
+    void testEstimateMessages() {
+        ChatMessage user = UserMessage.from("Hello there");
+        ChatMessage ai = AiMessage.from("Hi, how are you feeling today?");
+        List<ChatMessage> messages = Arrays.asList(user, ai);
+
+        assertTrue(TokenEstimator.estimate(user) > TokenEstimator.estimate("Hello there"));
+        assertEquals(TokenEstimator.estimate(user) + TokenEstimator.estimate(ai), TokenEstimator.estimate(messages));
+    }
+}
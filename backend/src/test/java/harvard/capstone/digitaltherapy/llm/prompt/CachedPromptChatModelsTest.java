@@ -0,0 +1,28 @@
+package harvard.capstone.digitaltherapy.llm.prompt;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import harvard.capstone.digitaltherapy.llm.context.TokenEstimator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedPromptChatModelsTest {
+
+    /**
+     * Test that only a leading system message counts as the cacheable prefix
+     */
+    @Test
+    void testStaticPrefixTokens() {
+        SystemMessage system = SystemMessage.from("You are a CBT therapist.");
+        List<ChatMessage> messages = List.of(system, UserMessage.from("Summary of the earlier part of this session:\n..."));
+
+        assertEquals(TokenEstimator.estimate(system), CachedPromptChatModels.staticPrefixTokens(messages));
+        assertEquals(0, CachedPromptChatModels.staticPrefixTokens(List.of(UserMessage.from("hi"))));
+        assertEquals(0, CachedPromptChatModels.staticPrefixTokens(List.of()));
+        assertTrue(CachedPromptChatModels.staticPrefixTokens(messages) < CachedPromptChatModels.MIN_CACHEABLE_PREFIX_TOKENS);
+    }
+}
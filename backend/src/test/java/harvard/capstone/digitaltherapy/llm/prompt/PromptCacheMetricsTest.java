@@ -0,0 +1,57 @@
+package harvard.capstone.digitaltherapy.llm.prompt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PromptCacheMetricsTest {
+
+    /**
+     * Test that hits, cached tokens and latencies are tallied separately
+     */
+    @Test
+    void testRecordHitsAndMisses() {
+        PromptCacheMetrics metrics = new PromptCacheMetrics("test");
+
+        metrics.record(1000, 0, 900, 800);
+        metrics.record(100, 900, 0, 200);
+        metrics.record(100, 900, 0, 400);
+
+        Map<String, Object> stats = metrics.getStats();
+        assertEquals(3L, stats.get("requests"));
+        assertEquals(2L, stats.get("cacheHits"));
+        assertEquals(2.0 / 3, metrics.getHitRate(), 1e-9);
+        assertEquals(1800L, stats.get("cacheReadTokens"));
+        assertEquals(900L, stats.get("cacheWriteTokens"));
+        assertEquals(1800.0 / (1800 + 900 + 1200), metrics.getCachedTokenRatio(), 1e-9);
+        assertEquals(300.0, (Double) stats.get("avgHitLatencyMillis"), 1e-9);
+        assertEquals(800.0, (Double) stats.get("avgMissLatencyMillis"), 1e-9);
+    }
+
+    /**
+     * Test that empty metrics report zero rather than dividing by zero
+     */
+    @Test
+    void testEmptyMetrics() {
+        PromptCacheMetrics metrics = new PromptCacheMetrics("empty");
+
+        assertEquals(0.0, metrics.getHitRate());
+        assertEquals(0.0, metrics.getCachedTokenRatio());
+        assertEquals(0.0, metrics.getStats().get("avgHitLatencyMillis"));
+    }
+
+    /**
+     * Test that metrics are shared per provider and show up in the snapshot
+     */
+    @Test
+    void testRegistry() {
+        PromptCacheMetrics first = PromptCacheMetrics.forProvider("registry-test");
+        assertSame(first, PromptCacheMetrics.forProvider("registry-test"));
+
+        first.record(10, 0, 0, 5);
+        assertTrue(PromptCacheMetrics.snapshot().containsKey("registry-test"));
+        assertEquals("registry-test", first.getProvider());
+    }
+}
@@ -0,0 +1,101 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    /**
+     * Test that slow or failed calls shrink the limit multiplicatively, down to the minimum
+     */
+    @Test
+    void testMultiplicativeDecrease() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 2, 50, 1000, 0.5);
+
+        assertTrue(limiter.acquire(0));
+        limiter.release(5000, true);
+        assertEquals(10, limiter.getLimit());
+
+        assertTrue(limiter.acquire(0));
+        limiter.release(10, false);
+        assertEquals(5, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.acquire(0));
+            limiter.release(10, false);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(7L, limiter.getStats().get("congestionEvents"));
+    }
+
+    /**
+     * Test that fast calls grow the limit additively while it is in use
+     */
+    @Test
+    void testAdditiveIncrease() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1000, 0.9);
+
+        for (int round = 0; round < 20; round++) {
+            int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++) {
+                assertTrue(limiter.acquire(0));
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(10, true);
+            }
+        }
+
+        assertTrue(limiter.getLimit() > 2);
+        assertTrue(limiter.getLimit() <= 10);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Test that callers beyond the limit are rejected after the bounded wait
+     */
+    @Test
+    void testRejectsWhenFull() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1000, 0.9);
+        assertTrue(limiter.acquire(0));
+
+        long start = System.nanoTime();
+        assertFalse(limiter.acquire(50));
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 40);
+        assertEquals(1L, limiter.getStats().get("rejected"));
+
+        limiter.release(10, true);
+        assertTrue(limiter.acquire(0));
+    }
+
+    /**
+     * Test that a waiting caller gets the slot as soon as it is released
+     */
+    @Test
+    void testWaiterIsWokenOnRelease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1000, 0.9);
+        assertTrue(limiter.acquire(0));
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            limiter.release(10, true);
+        });
+        releaser.start();
+
+        assertTrue(limiter.acquire(2000));
+        releaser.join();
+    }
+
+    /**
+     * Test that invalid configurations are rejected
+     */
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(0, 1, 5, 1000, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(5, 1, 5, 1000, 1.0));
+    }
+}
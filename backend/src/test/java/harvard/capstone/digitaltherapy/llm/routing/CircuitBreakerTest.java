@@ -0,0 +1,131 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker(10, 4, 0.5, 1000, 2, now::get);
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Test that the breaker opens once the failure rate crosses the threshold
+     */
+    @Test
+    void testOpensOnFailureRate() {
+        CircuitBreaker breaker = breaker();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1L, breaker.getStats().get("rejected"));
+    }
+
+    /**
+     * Test that the breaker does not open before the minimum number of calls
+     */
+    @Test
+    void testMinimumCalls() {
+        CircuitBreaker breaker = breaker();
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    /**
+     * Test that after the open period a limited number of probes pass and success closes it
+     */
+    @Test
+    void testHalfOpenProbesClose() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        advanceMillis(1000);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission(), "Only two probes are allowed");
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(0, breaker.getStats().get("callsInWindow"));
+    }
+
+    /**
+     * Test that a failed probe opens the breaker again
+     */
+    @Test
+    void testHalfOpenProbeFailureReopens() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        advanceMillis(1500);
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(2L, breaker.getStats().get("timesOpened"));
+    }
+
+    /**
+     * Test that a permission given back while half-open frees the probe slot
+     */
+    @Test
+    void testReleasePermission() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 1000, 1, now::get);
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        advanceMillis(1000);
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.releasePermission();
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    /**
+     * Test that old outcomes leave the window
+     */
+    @Test
+    void testWindowSlides() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        for (int i = 0; i < 10; i++) {
+            breaker.onSuccess();
+        }
+
+        assertEquals(0.0, breaker.getStats().get("failureRate"));
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,218 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class HedgingChatRouterTest {
+
+    private static final List<ChatMessage> MESSAGES = List.of(UserMessage.from("I feel stuck"));
+
+    private ExecutorService executor;
+    private ChatLanguageModel primaryModel;
+    private ChatLanguageModel alternateModel;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        primaryModel = mock(ChatLanguageModel.class);
+        alternateModel = mock(ChatLanguageModel.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static ChatResponse response(String text) {
+        return ChatResponse.builder().aiMessage(AiMessage.from(text)).build();
+    }
+
+    private static ChatResponse slowResponse(String text, long millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return response(text);
+    }
+
+    private HedgingChatRouter router(List<ModelEndpoint> alternates, long hedgeDelayMillis) {
+        return new HedgingChatRouter("gemini", "gemini-1.5-flash", alternates, executor, new EndpointGuards(),
+                hedgeDelayMillis);
+    }
+
+    /**
+     * Test that a fast primary answers without a hedge
+     */
+    @Test
+    void testFastPrimaryIsNotHedged() {
+        when(primaryModel.chat(anyList())).thenReturn(response("primary"));
+        HedgingChatRouter router = router(Collections.emptyList(), 1000);
+
+        ChatResponse result = router.chat("therapist-reply", primaryModel, MESSAGES);
+
+        assertEquals("primary", result.aiMessage().text());
+        assertEquals(0L, router.getStats().get("hedgesSent"));
+        verify(primaryModel, times(1)).chat(anyList());
+    }
+
+    /**
+     * Test that a stalled primary is hedged to the alternate and the faster answer wins
+     */
+    @Test
+    void testStalledPrimaryIsHedged() {
+        when(primaryModel.chat(anyList())).thenAnswer(invocation -> slowResponse("primary", 3000));
+        when(alternateModel.chat(anyList())).thenReturn(response("alternate"));
+        HedgingChatRouter router = router(
+                List.of(new ModelEndpoint("anthropic", "claude", alternateModel)), 50);
+
+        long start = System.nanoTime();
+        ChatResponse result = router.chat("therapist-reply", primaryModel, MESSAGES);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("alternate", result.aiMessage().text());
+        assertTrue(elapsedMillis < 2000, "Hedge should return before the stalled call");
+        assertEquals(1L, router.getStats().get("hedgesSent"));
+    }
+
+    /**
+     * Test that with a single endpoint the hedge is a duplicate request to the same model
+     */
+    @Test
+    void testSingleEndpointHedgesWithDuplicate() {
+        AtomicInteger calls = new AtomicInteger();
+        when(primaryModel.chat(anyList())).thenAnswer(invocation ->
+                calls.incrementAndGet() == 1 ? slowResponse("stalled", 3000) : response("duplicate"));
+        HedgingChatRouter router = router(Collections.emptyList(), 50);
+
+        ChatResponse result = router.chat("therapist-reply", primaryModel, MESSAGES);
+
+        assertEquals("duplicate", result.aiMessage().text());
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Test that a failing primary fails over to the alternate without waiting for the threshold
+     */
+    @Test
+    void testFailover() {
+        when(primaryModel.chat(anyList())).thenThrow(new RuntimeException("503"));
+        when(alternateModel.chat(anyList())).thenReturn(response("alternate"));
+        HedgingChatRouter router = router(
+                List.of(new ModelEndpoint("anthropic", "claude", alternateModel)), 5000);
+
+        ChatResponse result = router.chat("therapist-reply", primaryModel, MESSAGES);
+
+        assertEquals("alternate", result.aiMessage().text());
+        assertEquals(1L, router.getStats().get("failovers"));
+    }
+
+    /**
+     * Test that the original exception surfaces when every endpoint fails
+     */
+    @Test
+    void testAllEndpointsFail() {
+        when(primaryModel.chat(anyList())).thenThrow(new IllegalArgumentException("bad request"));
+        HedgingChatRouter router = router(Collections.emptyList(), 5000);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> router.chat("therapist-reply", primaryModel, MESSAGES));
+        assertEquals(1L, router.getStats().get("failures"));
+    }
+
+    /**
+     * Test that endpoints with enough samples are ranked by p50 and hedged at their p95
+     */
+    @Test
+    void testLatencyAwareRankingAndThreshold() {
+        ModelEndpoint primary = new ModelEndpoint("gemini", "gemini-1.5-flash", primaryModel);
+        ModelEndpoint alternate = new ModelEndpoint("anthropic", "claude", alternateModel);
+        HedgingChatRouter router = router(List.of(alternate), 2000);
+
+        // Without data the primary goes first and the configured threshold applies
+        assertSame(primary, router.rank("synthesis", primary).get(0));
+        router.setHedgeDelay("synthesis", 4000);
+        assertEquals(4000, router.hedgeDelayMillis("synthesis", primary));
+
+        for (int i = 0; i < HedgingChatRouter.MIN_SAMPLES; i++) {
+            primary.latency("synthesis").record(1200);
+            alternate.latency("synthesis").record(i < 18 ? 600 : 900);
+        }
+
+        assertSame(alternate, router.rank("synthesis", primary).get(0));
+        assertEquals(900, router.hedgeDelayMillis("synthesis", alternate));
+        // Other call types keep their own data
+        assertSame(primary, router.rank("therapist-reply", primary).get(0));
+    }
+
+    /**
+     * Test that an open circuit breaker rejects calls and the fallback answer is used
+     */
+    @Test
+    void testOpenCircuitDegradesToFallback() {
+        when(primaryModel.chat(anyList())).thenThrow(new RuntimeException("503"));
+        HedgingChatRouter router = router(Collections.emptyList(), 5000);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(RuntimeException.class, () -> router.chat("therapist-reply", primaryModel, MESSAGES));
+        }
+        ChatResponse result = router.chatOrFallback("therapist-reply", primaryModel, MESSAGES, "Tell me more.");
+
+        assertEquals("Tell me more.", result.aiMessage().text());
+        assertEquals(1L, router.getStats().get("degraded"));
+        assertTrue((Long) router.getStats().get("rejections") >= 1);
+        // The model was not called once the breaker opened
+        verify(primaryModel, times(10)).chat(anyList());
+    }
+
+    /**
+     * Test that an endpoint with an open breaker is ranked last
+     */
+    @Test
+    void testOpenCircuitIsRankedLast() {
+        ModelEndpoint primary = new ModelEndpoint("gemini", "gemini-1.5-flash", primaryModel);
+        ModelEndpoint alternate = new ModelEndpoint("anthropic", "claude", alternateModel);
+        HedgingChatRouter router = router(List.of(alternate), 2000);
+        for (int i = 0; i < 10; i++) {
+            primary.getCircuitBreaker().onFailure();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, primary.getCircuitBreaker().getState());
+        assertSame(alternate, router.rank("therapist-reply", primary).get(0));
+    }
+
+    /**
+     * Test that callers beyond the concurrency limit fail fast instead of queueing behind a stall
+     */
+    @Test
+    void testSaturatedLimiterFailsFast() throws Exception {
+        EndpointGuards guards = new EndpointGuards();
+        AdaptiveConcurrencyLimiter limiter = guards.limiter("gemini:gemini-1.5-flash");
+        while (limiter.getInFlight() < limiter.getLimit()) {
+            assertTrue(limiter.acquire(0));
+        }
+        when(primaryModel.chat(anyList())).thenReturn(response("primary"));
+        HedgingChatRouter router = new HedgingChatRouter("gemini", "gemini-1.5-flash", Collections.emptyList(),
+                executor, guards, 5000);
+
+        long start = System.nanoTime();
+        ChatResponse result = router.chatOrFallback("emotion", primaryModel, MESSAGES, "neutral");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("neutral", result.aiMessage().text());
+        assertTrue(elapsedMillis < 1000);
+        verify(primaryModel, never()).chat(anyList());
+    }
+}
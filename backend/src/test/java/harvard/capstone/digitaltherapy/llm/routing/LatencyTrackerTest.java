@@ -0,0 +1,53 @@
+package harvard.capstone.digitaltherapy.llm.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyTrackerTest {
+
+    /**
+     * Test percentiles over a full window
+     */
+    @Test
+    void testPercentiles() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+
+        assertEquals(100, tracker.sampleCount());
+        assertEquals(50, tracker.p50());
+        assertEquals(95, tracker.p95());
+        assertEquals(100, tracker.percentile(100));
+    }
+
+    /**
+     * Test that the window only keeps the most recent samples
+     */
+    @Test
+    void testWindowRollsOver() {
+        LatencyTracker tracker = new LatencyTracker(10);
+        for (int i = 0; i < 10; i++) {
+            tracker.record(5000);
+        }
+        for (int i = 0; i < 10; i++) {
+            tracker.record(100);
+        }
+
+        assertEquals(10, tracker.sampleCount());
+        assertEquals(100, tracker.p95());
+    }
+
+    /**
+     * Test that an empty tracker reports no latency
+     */
+    @Test
+    void testEmptyTracker() {
+        LatencyTracker tracker = new LatencyTracker(10);
+
+        assertEquals(0, tracker.sampleCount());
+        assertEquals(-1, tracker.p50());
+        assertThrows(IllegalArgumentException.class, () -> new LatencyTracker(0));
+    }
+}
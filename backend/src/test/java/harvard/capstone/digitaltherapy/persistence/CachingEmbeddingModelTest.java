@@ -0,0 +1,76 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CachingEmbeddingModelTest {
+
+    /**
+     * Counts texts sent to the underlying model and embeds them by length
+     */
+    private static class CountingEmbeddingModel implements EmbeddingModel {
+        final List<String> embeddedTexts = new ArrayList<>();
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (TextSegment segment : textSegments) {
+                embeddedTexts.add(segment.text());
+                embeddings.add(Embedding.from(new float[]{segment.text().length(), 1f}));
+            }
+            return Response.from(embeddings);
+        }
+    }
+
+    /**
+     * Test that repeated texts are only embedded once
+     */
+    @Test
+    public void testRepeatedTextUsesCache() {
+        // Arrange
+        CountingEmbeddingModel delegate = new CountingEmbeddingModel();
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, new EmbeddingCache(100, true));
+
+        // Act
+        Embedding first = model.embed("Therapeutic interventions for: catastrophizing").content();
+        Embedding second = model.embed("therapeutic interventions for:  catastrophizing").content();
+
+        // Assert
+        assertEquals(1, delegate.embeddedTexts.size(), "Underlying model should be called once");
+        assertArrayEquals(first.vector(), second.vector(), 0f, "Cached vector should match");
+        assertEquals(1, model.getCache().getHits(), "Second lookup should hit the cache");
+    }
+
+    /**
+     * Test that a batch only sends unique cache misses to the model, preserving order
+     */
+    @Test
+    public void testBatchEmbedsOnlyUniqueMisses() {
+        // Arrange
+        CountingEmbeddingModel delegate = new CountingEmbeddingModel();
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, new EmbeddingCache(100, false));
+        model.embed("cached");
+
+        // Act
+        List<Embedding> embeddings = model.embedAll(Arrays.asList(
+                TextSegment.from("cached"),
+                TextSegment.from("new text"),
+                TextSegment.from("New  text"))).content();
+
+        // Assert
+        assertEquals(Arrays.asList("cached", "new text"), delegate.embeddedTexts,
+                "Only the unique miss should reach the model");
+        assertEquals(3, embeddings.size(), "One embedding per input segment");
+        assertEquals(6f, embeddings.get(0).vector()[0], "First embedding should be the cached one");
+        assertEquals(8f, embeddings.get(1).vector()[0], "Second embedding should be computed");
+        assertEquals(8f, embeddings.get(2).vector()[0], "Duplicate should reuse the computed embedding");
+    }
+}
@@ -0,0 +1,92 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddingCacheTest {
+
+    /**
+     * Test that texts differing only in case and whitespace share one entry
+     */
+    @Test
+    public void testNormalizedTextsShareEntry() {
+        // Arrange
+        EmbeddingCache cache = new EmbeddingCache(10, false);
+        cache.put("I feel  anxious\n", new float[]{1f, 2f});
+
+        // Act
+        float[] cached = cache.get("  i FEEL anxious");
+
+        // Assert
+        assertNotNull(cached, "Normalized text should hit the cache");
+        assertArrayEquals(new float[]{1f, 2f}, cached, 0f, "Cached vector should be returned");
+        assertEquals(1, cache.getHits(), "One hit should be counted");
+        assertEquals(0, cache.getMisses(), "No misses should be counted");
+    }
+
+    /**
+     * Test that the least recently used entry is evicted when full
+     */
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            // Arrange
+            EmbeddingCache cache = new EmbeddingCache(2, offHeap);
+            cache.put("a", new float[]{1f, 0f});
+            cache.put("b", new float[]{0f, 1f});
+            cache.get("a");
+
+            // Act
+            cache.put("c", new float[]{1f, 1f});
+
+            // Assert
+            assertEquals(2, cache.size(), "Cache should stay bounded");
+            assertNull(cache.get("b"), "Least recently used entry should be evicted");
+            assertArrayEquals(new float[]{1f, 0f}, cache.get("a"), 0f, "Recently used entry should remain");
+            assertArrayEquals(new float[]{1f, 1f}, cache.get("c"), 0f, "New entry should be stored");
+            assertEquals(1, cache.getEvictions(), "One eviction should be counted");
+        }
+    }
+
+    /**
+     * Test that the hit rate reflects hits and misses
+     */
+    @Test
+    public void testHitRate() {
+        // Arrange
+        EmbeddingCache cache = new EmbeddingCache(10, true);
+        cache.put("hello", new float[]{0.5f, 0.5f, 0.5f});
+
+        // Act
+        cache.get("hello");
+        cache.get("hello");
+        cache.get("missing");
+        cache.get("hello");
+
+        // Assert
+        assertEquals(0.75, cache.getHitRate(), 1e-9, "Three of four lookups should hit");
+        assertEquals(0.75, (Double) cache.getStats().get("hitRate"), 1e-9, "Stats should expose the hit rate");
+    }
+
+    /**
+     * Test that off-heap mode rejects vectors of a different dimension
+     */
+    @Test
+    public void testOffHeapRejectsWrongDimension() {
+        EmbeddingCache cache = new EmbeddingCache(4, true);
+        cache.put("a", new float[]{1f, 2f, 3f});
+        assertThrows(IllegalArgumentException.class, () -> cache.put("b", new float[]{1f}));
+    }
+
+    /**
+     * Test that an off-heap slab too large for a direct buffer is rejected instead of overflowing
+     */
+    @Test
+    public void testOffHeapRejectsSlabOver2GiB() {
+        EmbeddingCache cache = new EmbeddingCache(200_000, true);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> cache.put("a", new float[3072]));
+        assertTrue(e.getMessage().contains("EMBEDDING_CACHE_SIZE"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,130 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class InterventionSnapshotTest {
+
+    /**
+     * Test that a written snapshot can be mapped back with its vectors and metadata
+     */
+    @Test
+    public void testWriteAndOpenRoundTrip() throws Exception {
+        // Arrange
+        Path file = Files.createTempFile("interventions-", ".snapshot");
+        List<InterventionSnapshot.Entry> entries = Arrays.asList(
+                new InterventionSnapshot.Entry("a", "Intervention for catastrophizing", Arrays.asList("catastrophizing")),
+                new InterventionSnapshot.Entry("b", "Intervention for labeling", Collections.emptyList()));
+        List<float[]> vectors = Arrays.asList(new float[]{3f, 4f, 0f}, new float[]{0f, 0f, 2f});
+
+        try {
+            // Act
+            InterventionSnapshot.write(file, entries, vectors);
+            InterventionSnapshot snapshot = InterventionSnapshot.open(file);
+
+            // Assert
+            assertEquals(3, snapshot.getDimension(), "Dimension should be read from the header");
+            assertEquals(2, snapshot.size(), "Both entries should be loaded");
+            assertEquals("a", snapshot.getEntries().get(0).getId(), "Entry id should round trip");
+            assertEquals(Arrays.asList("catastrophizing"), snapshot.getEntries().get(0).getDistortions(),
+                    "Distortions should round trip");
+            assertTrue(snapshot.getEntries().get(1).getDistortions().isEmpty(), "Empty distortions should round trip");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test that search ranks by cosine similarity and honours the limit and threshold
+     */
+    @Test
+    public void testSearchRanksByCosine() throws Exception {
+        // Arrange
+        Path file = Files.createTempFile("interventions-", ".snapshot");
+        List<InterventionSnapshot.Entry> entries = Arrays.asList(
+                new InterventionSnapshot.Entry("x", "x-axis", Collections.emptyList()),
+                new InterventionSnapshot.Entry("xy", "diagonal", Collections.emptyList()),
+                new InterventionSnapshot.Entry("y", "y-axis", Collections.emptyList()));
+        List<float[]> vectors = Arrays.asList(new float[]{1f, 0f}, new float[]{1f, 1f}, new float[]{0f, 1f});
+
+        try {
+            InterventionSnapshot.write(file, entries, vectors);
+            InterventionSnapshot snapshot = InterventionSnapshot.open(file);
+
+            // Act
+            List<InterventionSnapshot.Match> top = snapshot.search(new float[]{2f, 0f}, 2, -1.0);
+            List<InterventionSnapshot.Match> thresholded = snapshot.search(new float[]{2f, 0f}, 3, 0.5);
+
+            // Assert
+            assertEquals(2, top.size(), "Result count should be limited");
+            assertEquals("x", top.get(0).getEntry().getId(), "Closest entry should come first");
+            assertEquals(1.0, top.get(0).getCosine(), 1e-6, "Identical direction should score 1");
+            assertEquals("xy", top.get(1).getEntry().getId(), "Second closest entry should come next");
+            assertEquals(2, thresholded.size(), "Orthogonal entry should fall below the threshold");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test that a file without the snapshot header is rejected
+     */
+    @Test
+    public void testOpenRejectsInvalidFile() throws Exception {
+        Path file = Files.createTempFile("interventions-", ".snapshot");
+        try {
+            Files.write(file, "not a snapshot file".getBytes());
+            assertThrows(IOException.class, () -> InterventionSnapshot.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test that the bundled corpus parses into entries
+     */
+    @Test
+    public void testReadBundledCorpus() throws Exception {
+        // Act
+        List<InterventionSnapshot.Entry> entries = InterventionSnapshotBuilder.readCorpus(
+                Path.of(InterventionSnapshotBuilder.DEFAULT_CORPUS));
+
+        // Assert
+        assertFalse(entries.isEmpty(), "Corpus should contain interventions");
+        for (InterventionSnapshot.Entry entry : entries) {
+            assertFalse(entry.getId().isEmpty(), "Every entry should have an id");
+            assertFalse(entry.getText().isEmpty(), "Every entry should have text");
+        }
+    }
+
+    /**
+     * Test that the builder only treats a snapshot newer than its corpus as up to date
+     */
+    @Test
+    public void testIsUpToDate() throws Exception {
+        Path corpus = Files.createTempFile("interventions-", ".jsonl");
+        Path output = Files.createTempFile("interventions-", ".snapshot");
+        try {
+            Files.setLastModifiedTime(corpus, FileTime.fromMillis(1_000_000));
+            Files.setLastModifiedTime(output, FileTime.fromMillis(2_000_000));
+            assertTrue(InterventionSnapshotBuilder.isUpToDate(corpus, output), "A newer snapshot should be kept");
+
+            Files.setLastModifiedTime(corpus, FileTime.fromMillis(3_000_000));
+            assertFalse(InterventionSnapshotBuilder.isUpToDate(corpus, output), "An edited corpus should be rebuilt");
+
+            Files.delete(output);
+            assertFalse(InterventionSnapshotBuilder.isUpToDate(corpus, output), "A missing snapshot should be built");
+        } finally {
+            Files.deleteIfExists(corpus);
+            Files.deleteIfExists(output);
+        }
+    }
+}
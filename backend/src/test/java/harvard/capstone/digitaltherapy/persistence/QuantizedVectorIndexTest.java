@@ -0,0 +1,183 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class QuantizedVectorIndexTest {
+
+    private static final int DIMENSION = 384;
+
+    /**
+     * Test that every quantized mode keeps top-k recall close to exact search
+     */
+    @Test
+    public void testQuantizedRecallAgainstExactSearch() {
+        // Arrange
+        Random random = new Random(42);
+        float[][] centers = randomVectors(random, 50, 1.0f);
+        float[][] data = clusteredVectors(random, centers, 2000);
+
+        QuantizedVectorIndex exact = new QuantizedVectorIndex(DIMENSION, VectorStorageMode.FLOAT32, 1);
+        QuantizedVectorIndex int8 = new QuantizedVectorIndex(DIMENSION, VectorStorageMode.INT8, 10);
+        QuantizedVectorIndex int8Binary = new QuantizedVectorIndex(DIMENSION, VectorStorageMode.INT8_BINARY, 10);
+        QuantizedVectorIndex binary = new QuantizedVectorIndex(DIMENSION, VectorStorageMode.BINARY, 10);
+        for (float[] vector : data) {
+            exact.add(vector);
+            int8.add(vector);
+            int8Binary.add(vector);
+            binary.add(vector);
+        }
+
+        // Act
+        float[][] queries = clusteredVectors(new Random(7), centers, 100);
+        double int8Recall = recall(exact, int8, queries, 5);
+        double int8BinaryRecall = recall(exact, int8Binary, queries, 5);
+        double binaryRecall = recall(exact, binary, queries, 5);
+
+        // Assert
+        assertTrue(int8Recall >= 0.95, "INT8 recall@5 should be near exact, was " + int8Recall);
+        assertTrue(int8BinaryRecall >= 0.9, "INT8_BINARY recall@5 should be near exact, was " + int8BinaryRecall);
+        assertTrue(binaryRecall >= 0.7, "BINARY recall@5 should stay usable, was " + binaryRecall);
+    }
+
+    /**
+     * Test that the heap cost per vector shrinks by roughly 4x (int8) and 32x (binary)
+     */
+    @Test
+    public void testHeapBytesPerVector() {
+        // Arrange
+        QuantizedVectorIndex exact = new QuantizedVectorIndex(DIMENSION, VectorStorageMode.FLOAT32, 1);
+        QuantizedVectorIndex int8 = new QuantizedVectorIndex(DIMENSION, VectorStorageMode.INT8, 10);
+        QuantizedVectorIndex binary = new QuantizedVectorIndex(DIMENSION, VectorStorageMode.BINARY, 10);
+
+        // Act & Assert
+        assertEquals(1536, exact.heapBytesPerVector(), "Float vectors should cost 4 bytes per dimension");
+        assertEquals(388, int8.heapBytesPerVector(), "Int8 codes should cost 1 byte per dimension plus a scale");
+        assertEquals(48, binary.heapBytesPerVector(), "Binary codes should cost 1 bit per dimension");
+        assertEquals(0, exact.offHeapBytesPerVector(), "Float mode should not keep an off-heap copy");
+        assertEquals(1536, int8.offHeapBytesPerVector(), "Quantized modes keep full precision off-heap");
+    }
+
+    /**
+     * Test that the search honours the slot filter
+     */
+    @Test
+    public void testSearchWithSlotFilter() {
+        // Arrange
+        QuantizedVectorIndex index = new QuantizedVectorIndex(4, VectorStorageMode.INT8, 10);
+        int first = index.add(new float[]{1f, 0f, 0f, 0f});
+        int second = index.add(new float[]{0.9f, 0.1f, 0f, 0f});
+
+        // Act
+        List<QuantizedVectorIndex.Hit> hits = index.search(new float[]{1f, 0f, 0f, 0f}, 2, slot -> slot != first);
+
+        // Assert
+        assertEquals(1, hits.size(), "Filtered slot should not be returned");
+        assertEquals(second, hits.get(0).getSlot(), "Remaining slot should be returned");
+    }
+
+    /**
+     * Test that full-precision vectors can be memory-mapped from a backing file
+     */
+    @Test
+    public void testMemoryMappedBackingFile() throws Exception {
+        // Arrange
+        Path backingFile = Files.createTempFile("vectors-", ".bin");
+        try (QuantizedVectorIndex index = new QuantizedVectorIndex(4, VectorStorageMode.BINARY, 10, backingFile)) {
+            int slot = index.add(new float[]{3f, 0f, 4f, 0f});
+
+            // Act
+            float[] stored = index.vector(slot);
+
+            // Assert
+            assertArrayEquals(new float[]{0.6f, 0f, 0.8f, 0f}, stored, 1e-6f, "Stored vector should be normalized");
+            assertTrue(Files.size(backingFile) > 0, "Backing file should hold the mapped vectors");
+        } finally {
+            Files.deleteIfExists(backingFile);
+        }
+    }
+
+    /**
+     * Test that adding a vector of the wrong dimension is rejected
+     */
+    @Test
+    public void testAddRejectsWrongDimension() {
+        QuantizedVectorIndex index = new QuantizedVectorIndex(4, VectorStorageMode.INT8, 10);
+        assertThrows(IllegalArgumentException.class, () -> index.add(new float[]{1f, 2f}));
+    }
+
+    /**
+     * Test that deleted slots are skipped by search and reclaimed by compaction
+     */
+    @Test
+    public void testDeleteAndCompact() {
+        for (VectorStorageMode mode : VectorStorageMode.values()) {
+            // Arrange
+            QuantizedVectorIndex index = new QuantizedVectorIndex(4, mode, 10);
+            int first = index.add(new float[]{1f, 0f, 0f, 0f});
+            int second = index.add(new float[]{0f, 1f, 0f, 0f});
+            int third = index.add(new float[]{0f, 0f, 1f, 0f});
+
+            // Act
+            assertTrue(index.delete(second), "First delete should succeed for " + mode);
+            assertFalse(index.delete(second), "Second delete should be a no-op for " + mode);
+            List<QuantizedVectorIndex.Hit> beforeCompaction = index.search(new float[]{0f, 1f, 0f, 0f}, 3, null);
+            int[] remap = index.compact();
+
+            // Assert
+            for (QuantizedVectorIndex.Hit hit : beforeCompaction) {
+                assertNotEquals(second, hit.getSlot(), "Deleted slot should not be returned for " + mode);
+            }
+            assertEquals(0, remap[first], "First slot should keep its position for " + mode);
+            assertEquals(-1, remap[second], "Deleted slot should be dropped for " + mode);
+            assertEquals(1, remap[third], "Third slot should move down for " + mode);
+            assertEquals(2, index.size(), "Compaction should shrink the index for " + mode);
+            assertEquals(0, index.deletedCount(), "No tombstones should remain for " + mode);
+            assertArrayEquals(new float[]{0f, 0f, 1f, 0f}, index.vector(1), 1e-6f,
+                    "Moved vector should be intact for " + mode);
+            assertEquals(1, index.search(new float[]{0f, 0f, 1f, 0f}, 1, null).get(0).getSlot(),
+                    "Search should find the moved vector for " + mode);
+        }
+    }
+
+    private static double recall(QuantizedVectorIndex exact, QuantizedVectorIndex candidate, float[][] queries, int k) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Integer> truth = new HashSet<>();
+            for (QuantizedVectorIndex.Hit hit : exact.search(query, k, null)) {
+                truth.add(hit.getSlot());
+            }
+            for (QuantizedVectorIndex.Hit hit : candidate.search(query, k, null)) {
+                if (truth.contains(hit.getSlot())) {
+                    found++;
+                }
+            }
+        }
+        return found / (double) (queries.length * k);
+    }
+
+    private static float[][] randomVectors(Random random, int count, float sigma) {
+        float[][] vectors = new float[count][DIMENSION];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = (float) random.nextGaussian() * sigma;
+            }
+        }
+        return vectors;
+    }
+
+    private static float[][] clusteredVectors(Random random, float[][] centers, int count) {
+        float[][] vectors = new float[count][DIMENSION];
+        for (float[] vector : vectors) {
+            float[] center = centers[random.nextInt(centers.length)];
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = center[i] + (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,164 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RedisChatMemoryStoreTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    /**
+     * Test that the local-only store round trips messages and counts turns
+     */
+    @Test
+    public void testLocalOnlyStore() {
+        // Arrange
+        RedisChatMemoryStore store = RedisChatMemoryStore.localOnly(Duration.ofMinutes(5), 10);
+        List<ChatMessage> messages = Arrays.asList(UserMessage.from("Hello"), AiMessage.from("Hi there"));
+
+        // Act
+        store.updateMessages("session1", messages);
+        store.incrementTurn("session1");
+        store.incrementTurn("session1");
+
+        // Assert
+        assertEquals(messages, store.getMessages("session1"), "Messages should be returned from the local store");
+        assertEquals(2, store.getTurnCount("session1"), "Turns should be counted locally");
+        assertTrue(store.getMessages("unknown").isEmpty(), "Unknown session should have no messages");
+    }
+
+    /**
+     * Test that the local store is bounded and evicts the least recently used session
+     */
+    @Test
+    public void testNearCacheIsBounded() {
+        // Arrange
+        RedisChatMemoryStore store = RedisChatMemoryStore.localOnly(Duration.ofMinutes(5), 2);
+
+        // Act
+        store.updateMessages("a", Arrays.asList(UserMessage.from("a")));
+        store.updateMessages("b", Arrays.asList(UserMessage.from("b")));
+        store.getMessages("a");
+        store.updateMessages("c", Arrays.asList(UserMessage.from("c")));
+
+        // Assert
+        assertEquals(2, store.nearCacheSize(), "Near-cache should stay bounded");
+        assertTrue(store.getMessages("b").isEmpty(), "Least recently used session should be evicted");
+        assertFalse(store.getMessages("a").isEmpty(), "Recently used session should remain");
+    }
+
+    /**
+     * Test that idle sessions expire from the local store
+     */
+    @Test
+    public void testIdleSessionsExpire() {
+        RedisChatMemoryStore store = RedisChatMemoryStore.localOnly(Duration.ZERO, 10);
+        store.updateMessages("session1", Arrays.asList(UserMessage.from("Hello")));
+        assertTrue(store.getMessages("session1").isEmpty(), "Idle session should be evicted after the TTL");
+    }
+
+    /**
+     * Test that updates write messages and a version with the idle TTL in one script call
+     */
+    @Test
+    public void testUpdateWritesToRedisWithTtl() {
+        // Arrange
+        RedisChatMemoryStore store = new RedisChatMemoryStore(redisTemplate, Duration.ofMinutes(30), 10);
+        List<ChatMessage> messages = Arrays.asList(UserMessage.from("Hello"));
+        String json = ChatMessageSerializer.messagesToJson(messages);
+        List<String> keys = Arrays.asList("chat:memory:session1", "chat:memory:session1:version");
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(keys), eq(json), eq("1800")))
+                .thenReturn(1L);
+        when(valueOperations.get("chat:memory:session1:version")).thenReturn("1");
+
+        // Act
+        store.updateMessages("session1", messages);
+        List<ChatMessage> read = store.getMessages("session1");
+
+        // Assert
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(keys), eq(json), eq("1800"));
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), any());
+        verify(redisTemplate, never()).expire(anyString(), anyLong(), any());
+        assertEquals(messages, read, "The written version should be served from the near-cache");
+        verify(valueOperations, never()).get("chat:memory:session1");
+    }
+
+    /**
+     * Test that an unchanged version is served from the near-cache and a new version is re-read
+     */
+    @Test
+    public void testNearCacheValidatedByVersion() {
+        // Arrange
+        RedisChatMemoryStore store = new RedisChatMemoryStore(redisTemplate, Duration.ofMinutes(30), 10);
+        List<ChatMessage> first = Arrays.asList(UserMessage.from("Hello"));
+        List<ChatMessage> second = Arrays.asList(UserMessage.from("Hello"), AiMessage.from("Hi"));
+        when(valueOperations.get("chat:memory:session1:version")).thenReturn("1", "1", "2");
+        when(valueOperations.get("chat:memory:session1")).thenReturn(
+                ChatMessageSerializer.messagesToJson(first),
+                ChatMessageSerializer.messagesToJson(second));
+
+        // Act
+        List<ChatMessage> fromRedis = store.getMessages("session1");
+        List<ChatMessage> fromNearCache = store.getMessages("session1");
+        List<ChatMessage> afterRemoteUpdate = store.getMessages("session1");
+
+        // Assert
+        assertEquals(first, fromRedis, "First read should come from Redis");
+        assertEquals(first, fromNearCache, "Unchanged version should be served from the near-cache");
+        assertEquals(second, afterRemoteUpdate, "Changed version should be re-read from Redis");
+        verify(valueOperations, times(2)).get("chat:memory:session1");
+        assertEquals(1L, store.getStats().get("nearCacheHits"), "Near-cache hit should be counted");
+    }
+
+    /**
+     * Test that turn counters use the Redis increment script and fall back to local counting on failure
+     */
+    @Test
+    public void testTurnCounterFallsBackWhenRedisFails() {
+        // Arrange
+        RedisChatMemoryStore store = new RedisChatMemoryStore(redisTemplate, Duration.ofMinutes(30), 10);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(Collections.singletonList("chat:turns:session1")), eq("1800")))
+                .thenReturn(7L)
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(valueOperations.get("chat:turns:session1")).thenThrow(new RedisConnectionFailureException("down"));
+
+        // Act
+        int fromRedis = store.incrementTurn("session1");
+        int fromLocal = store.incrementTurn("session1");
+
+        // Assert
+        assertEquals(7, fromRedis, "Turn count should come from Redis");
+        assertEquals(8, fromLocal, "Local counter should continue from the last Redis value");
+        assertEquals(8, store.getTurnCount("session1"), "Turn count should fall back to the local counter");
+    }
+}
@@ -0,0 +1,77 @@
+package harvard.capstone.digitaltherapy.persistence;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class SessionCentroidIndexTest {
+
+    /**
+     * Test that sessions are ranked by centroid similarity and scoped to the user
+     */
+    @Test
+    public void testSearchRanksSessionsByCentroid() {
+        // Arrange
+        SessionCentroidIndex index = new SessionCentroidIndex();
+        index.add("s1", "user1", "e1", new float[]{1f, 0f, 0f}, "short");
+        index.add("s1", "user1", "e2", new float[]{1f, 0.2f, 0f}, "the longest text in s1");
+        index.add("s2", "user1", "e3", new float[]{0f, 1f, 0f}, "about something else");
+        index.add("s3", "user2", "e4", new float[]{1f, 0f, 0f}, "another user");
+
+        // Act
+        List<SessionCentroidIndex.Match> matches = index.search("user1", new float[]{1f, 0f, 0f}, 5, -1.0);
+
+        // Assert
+        assertEquals(2, matches.size(), "Only the user's sessions should be searched");
+        assertEquals("s1", matches.get(0).getSessionId(), "Closest centroid should come first");
+        assertEquals("the longest text in s1", matches.get(0).getText(), "Longest text should represent the session");
+        assertEquals("s2", matches.get(1).getSessionId(), "Further session should come second");
+    }
+
+    /**
+     * Test that the similarity threshold and result limit are applied
+     */
+    @Test
+    public void testSearchAppliesThresholdAndLimit() {
+        // Arrange
+        SessionCentroidIndex index = new SessionCentroidIndex();
+        index.add("s1", "user1", "e1", new float[]{1f, 0f}, "a");
+        index.add("s2", "user1", "e2", new float[]{0.8f, 0.6f}, "b");
+        index.add("s3", "user1", "e3", new float[]{0f, 1f}, "c");
+
+        // Act
+        List<SessionCentroidIndex.Match> thresholded = index.search("user1", new float[]{1f, 0f}, 5, 0.5);
+        List<SessionCentroidIndex.Match> limited = index.search("user1", new float[]{1f, 0f}, 1, -1.0);
+
+        // Assert
+        assertEquals(2, thresholded.size(), "Orthogonal session should fall below the threshold");
+        assertEquals(1, limited.size(), "Result count should be limited");
+        assertEquals("s1", limited.get(0).getSessionId(), "Best session should be kept");
+    }
+
+    /**
+     * Test that removing segments updates the centroid and drops empty sessions
+     */
+    @Test
+    public void testRemoveUpdatesCentroid() {
+        // Arrange
+        SessionCentroidIndex index = new SessionCentroidIndex();
+        index.add("s1", "user1", "e1", new float[]{1f, 0f}, "the longer x text");
+        index.add("s1", "user1", "e2", new float[]{0f, 1f}, "y text");
+
+        // Act
+        assertTrue(index.remove("s1", "e1", new float[]{1f, 0f}), "Known segment should be removed");
+        List<SessionCentroidIndex.Match> matches = index.search("user1", new float[]{0f, 1f}, 5, -1.0);
+
+        // Assert
+        assertEquals(1, matches.size(), "Session should remain while it has segments");
+        assertEquals(1.0, matches.get(0).getCosine(), 1e-9, "Centroid should now point at the remaining segment");
+        assertEquals("y text", matches.get(0).getText(), "Representative text should be recomputed");
+        assertFalse(index.remove("s1", "e1", new float[]{1f, 0f}), "Removing twice should be a no-op");
+
+        assertTrue(index.remove("s1", "e2", new float[]{0f, 1f}), "Last segment should be removed");
+        assertEquals(0, index.sessionCount(), "Empty session should be dropped");
+        assertTrue(index.search("user1", new float[]{0f, 1f}, 5, -1.0).isEmpty(), "No sessions should be found");
+    }
+}
@@ -5,6 +5,7 @@ import dev.langchain4j.store.embedding.EmbeddingMatch;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
 import java.util.*;
 
 public class VectorDatabaseServiceTest {
@@ -168,6 +169,59 @@ public class VectorDatabaseServiceTest {
                 "Session text should match");
     }
 
+    /**
+     * Test that deleting a session's only message removes it from similar sessions
+     */
+    @Test
+    public void testFindSimilarSessionsAfterDelete() {
+        // Arrange
+        VectorDatabaseService service = new VectorDatabaseService();
+        String userId = "user-456";
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("sessionId", "session-old");
+        metadata.put("userId", userId);
+        metadata.put("contentType", "message");
+        service.storeEmbedding("doc-old", "I keep worrying about my anxiety at work", metadata);
+
+        // Act
+        Map<String, String> before = service.findSimilarSessions(userId, "I keep worrying about my anxiety at work", 5);
+        service.deleteEmbedding("doc-old");
+        Map<String, String> after = service.findSimilarSessions(userId, "I keep worrying about my anxiety at work", 5);
+
+        // Assert
+        assertTrue(before.containsKey("session-old"), "Session should be found before deletion");
+        assertFalse(after.containsKey("session-old"), "Session should not be found after deletion");
+    }
+
+    /**
+     * Test that deleting from a session uses the stored vectors instead of embedding again
+     */
+    @Test
+    public void testDeleteFromSessionDoesNotReembed() {
+        for (VectorStorageMode mode : new VectorStorageMode[]{VectorStorageMode.FLOAT32, VectorStorageMode.INT8}) {
+            // Arrange
+            VectorDatabaseService service = new VectorDatabaseService(512, 0.7, 5, mode);
+            String userId = "user-" + mode;
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("sessionId", "session-" + mode);
+            metadata.put("userId", userId);
+            service.storeEmbedding("doc-keep", "I keep worrying about my anxiety at work", new HashMap<>(metadata));
+            service.storeEmbedding("doc-drop", "We talked about a walk in the park", new HashMap<>(metadata));
+            EmbeddingCache cache = VectorDatabaseService.getEmbeddingCache();
+            long lookupsBefore = cache.getHits() + cache.getMisses();
+
+            // Act
+            boolean deleted = service.deleteEmbedding("doc-drop");
+
+            // Assert
+            assertTrue(deleted, "Delete should succeed in " + mode + " mode");
+            assertEquals(lookupsBefore, cache.getHits() + cache.getMisses(),
+                    "Delete should not embed the removed text in " + mode + " mode");
+            Map<String, String> similar = service.findSimilarSessions(userId, "I keep worrying about my anxiety at work", 5);
+            assertTrue(similar.containsKey("session-" + mode), "Session should still be found from its remaining message");
+        }
+    }
+
     /**
      * Test findRelevantInterventions returns interventions for cognitive distortions
      */
@@ -258,7 +312,87 @@ public class VectorDatabaseServiceTest {
         boolean result = service.deleteEmbedding(docId);
 
         // Assert
-        assertFalse(result, "Delete should return false for in-memory store");
+        assertTrue(result, "Delete should return true for a stored document");
+        assertTrue(service.getAllStoredSegments().isEmpty(), "Deleted segment should no longer be stored");
+        assertTrue(service.findSimilarContent("Test content", 5).isEmpty(), "Deleted content should not be searchable");
+        assertEquals(1, service.getDeletedVectorCount(), "Deleted vector should be counted");
+        assertFalse(service.deleteEmbedding(docId), "Deleting twice should return false");
+    }
+
+    /**
+     * Test that deletion in a quantized store tombstones vectors until compaction
+     */
+    @Test
+    public void testDeleteAndCompactQuantizedStore() {
+        // Arrange
+        VectorDatabaseService service = new VectorDatabaseService(512, 0.7, 5, VectorStorageMode.INT8);
+        service.storeEmbedding("keep", "I have been feeling anxious about work", null);
+        service.storeEmbedding("drop", "I went for a walk in the park", null);
+
+        // Act
+        boolean deleted = service.deleteEmbedding("drop");
+        int pendingBeforeCompaction = service.getPendingCompactionCount();
+        int reclaimed = service.compact();
+
+        // Assert
+        assertTrue(deleted, "Delete should succeed in quantized mode");
+        assertEquals(1, pendingBeforeCompaction, "Deleted vector should be tombstoned");
+        assertEquals(1, reclaimed, "Compaction should reclaim the tombstoned slot");
+        assertEquals(0, service.getPendingCompactionCount(), "No tombstones should remain after compaction");
+        assertEquals(1, service.getLiveVectorCount(), "One live vector should remain");
+
+        List<EmbeddingMatch<TextSegment>> matches = service.findSimilarContent("feeling anxious about work", 5);
+        assertFalse(matches.isEmpty(), "Remaining content should still be searchable after compaction");
+        assertEquals("keep", matches.get(0).embedded().metadata().getString("documentId"),
+                "Remaining document should be returned");
+    }
+
+    /**
+     * Test that retention removes expired content types only
+     */
+    @Test
+    public void testPurgeExpiredByContentType() {
+        // Arrange
+        VectorDatabaseService service = new VectorDatabaseService();
+        service.indexSessionMessage("session1", "user1", "A message that expires", true);
+        Map<String, Object> analysis = new HashMap<>();
+        analysis.put("emotion", "calm");
+        service.indexSessionAnalysis("session1", "user1", analysis, "msg1");
+        service.setRetention("message", Duration.ZERO);
+
+        // Act
+        int purged = service.purgeExpired();
+
+        // Assert
+        assertEquals(1, purged, "Only the expired message should be purged");
+        List<TextSegment> remaining = service.getAllStoredSegments();
+        assertEquals(1, remaining.size(), "Analysis should be retained");
+        assertEquals("analysis", remaining.get(0).metadata().getString("contentType"),
+                "Remaining segment should be the analysis");
+        assertEquals(1, ((Number) service.getVectorStats().get("expiredVectors")).intValue(),
+                "Expired vector should be counted");
+    }
+
+    /**
+     * Test parsing of retention settings
+     */
+    @Test
+    public void testParseRetention() {
+        Map<String, Duration> retention = VectorDatabaseService.parseRetention("message=P30D, analysis=PT12H,bad=x");
+        assertEquals(Duration.ofDays(30), retention.get("message"), "Days should be parsed");
+        assertEquals(Duration.ofHours(12), retention.get("analysis"), "Hours should be parsed");
+        assertFalse(retention.containsKey("bad"), "Invalid durations should be ignored");
+    }
+
+    /**
+     * Test parsing of the storage mode setting
+     */
+    @Test
+    public void testParseStorageMode() {
+        assertEquals(VectorStorageMode.INT8_BINARY, VectorDatabaseService.parseStorageMode(" int8_binary "));
+        assertEquals(VectorStorageMode.BINARY, VectorDatabaseService.parseStorageMode("BINARY"));
+        assertEquals(VectorStorageMode.FLOAT32, VectorDatabaseService.parseStorageMode(null), "Unset means full precision");
+        assertEquals(VectorStorageMode.FLOAT32, VectorDatabaseService.parseStorageMode("int4"), "Unknown modes fall back");
     }
 
 
@@ -0,0 +1,74 @@
+package harvard.capstone.digitaltherapy.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryObjectStoreTest {
+
+    private final InMemoryObjectStore store = new InMemoryObjectStore();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void put_copiesTheDataAndGetReturnsAReadOnlyView() throws IOException {
+        byte[] bytes = "transcript".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("s3://dta-root/t.txt", store.put("dta-root", "t.txt", ByteBuffer.wrap(bytes), "text/plain"));
+        // Later changes to the caller's array do not reach the stored object
+        bytes[0] = 'X';
+
+        ByteBuffer stored = store.get("dta-root", "t.txt");
+        assertTrue(stored.isReadOnly());
+        assertEquals("transcript", StandardCharsets.UTF_8.decode(stored).toString());
+    }
+
+    @Test
+    void putFile_andCopyTo_roundTrip() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("a.txt"), "from disk");
+        store.put("b", "a.txt", file, "text/plain");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(9, store.copyTo("b", "a.txt", Channels.newChannel(out)));
+        assertEquals("from disk", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void bucketsAreSeparateAndMissingObjectsAreNotFound() throws IOException {
+        store.put("a", "k", ByteBuffer.wrap(new byte[1]), null);
+
+        assertTrue(store.exists("a", "k"));
+        assertFalse(store.exists("b", "k"));
+        assertThrows(FileNotFoundException.class, () -> store.get("b", "k"));
+
+        store.delete("a", "k");
+        assertFalse(store.exists("a", "k"));
+    }
+
+    @Test
+    void list_returnsTheKeysUnderAPrefixInOrder() {
+        ByteBuffer data = ByteBuffer.wrap(new byte[1]);
+        store.put("a", "fhir/2.json", data, null);
+        store.put("a", "fhir/1.json", data, null);
+        store.put("a", "other.json", data, null);
+        store.put("b", "fhir/3.json", data, null);
+
+        try (Stream<String> keys = store.list("a", "fhir/")) {
+            assertEquals(List.of("fhir/1.json", "fhir/2.json"), keys.collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package harvard.capstone.digitaltherapy.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalObjectStoreTest {
+
+    @TempDir
+    Path root;
+
+    private LocalObjectStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new LocalObjectStore(root);
+    }
+
+    @Test
+    void put_storesBuffersUnderTheBucketDirectory() throws IOException {
+        ByteBuffer data = ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8));
+
+        String uri = store.put("dta-root", "session/a.txt", data, "text/plain");
+
+        assertEquals("s3://dta-root/session/a.txt", uri);
+        assertEquals("hello", Files.readString(store.getRoot().resolve("dta-root/session/a.txt")));
+        // The caller's buffer is left as it was
+        assertEquals(0, data.position());
+        // No temporary files are left behind
+        try (Stream<Path> files = Files.list(store.getRoot().resolve("dta-root/session"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void put_copiesFilesAndReplacesExistingObjects() throws IOException {
+        Path source = Files.writeString(root.resolve("source.mp4"), "video");
+        store.put("dta-root", "v.mp4", ByteBuffer.wrap(new byte[] {1, 2, 3}), "video/mp4");
+
+        store.put("dta-root", "v.mp4", source, "video/mp4");
+
+        ByteBuffer stored = store.get("dta-root", "v.mp4");
+        assertEquals("video", StandardCharsets.UTF_8.decode(stored).toString());
+    }
+
+    @Test
+    void get_mapsLargeObjectsAndReadsSmallOnes() throws IOException {
+        store.put("b", "small", ByteBuffer.wrap(new byte[10]), null);
+        store.put("b", "large", ByteBuffer.wrap(new byte[LocalObjectStore.MAP_THRESHOLD]), null);
+
+        ByteBuffer small = store.get("b", "small");
+        ByteBuffer large = store.get("b", "large");
+
+        assertEquals(10, small.remaining());
+        assertTrue(small.isReadOnly());
+        assertTrue(large instanceof MappedByteBuffer);
+        assertEquals(LocalObjectStore.MAP_THRESHOLD, large.remaining());
+    }
+
+    @Test
+    void copyTo_transfersTheWholeObject() throws IOException {
+        byte[] content = new byte[200_000];
+        content[content.length - 1] = 7;
+        store.put("b", "audio.mp3", ByteBuffer.wrap(content), "audio/mpeg");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long copied = store.copyTo("b", "audio.mp3", Channels.newChannel(out));
+
+        assertEquals(content.length, copied);
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    void missingObjects_areReportedAsNotFound() throws IOException {
+        assertFalse(store.exists("b", "missing"));
+        assertThrows(FileNotFoundException.class, () -> store.get("b", "missing"));
+        assertThrows(FileNotFoundException.class,
+                () -> store.copyTo("b", "missing", Channels.newChannel(new ByteArrayOutputStream())));
+
+        store.put("b", "k", ByteBuffer.wrap(new byte[1]), null);
+        assertTrue(store.exists("b", "k"));
+        store.delete("b", "k");
+        store.delete("b", "k");
+        assertFalse(store.exists("b", "k"));
+    }
+
+    @Test
+    void keys_cannotEscapeTheirBucket() {
+        ByteBuffer data = ByteBuffer.wrap(new byte[1]);
+
+        assertThrows(IllegalArgumentException.class, () -> store.put("b", "../other/k", data, null));
+        assertThrows(IllegalArgumentException.class, () -> store.put("..", "k", data, null));
+        assertThrows(IllegalArgumentException.class, () -> store.get("b", "../../etc/passwd"));
+    }
+
+    @Test
+    void list_returnsSlashSeparatedKeysAndSkipsUnfinishedWrites() throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(new byte[1]);
+        store.put("b", "fhir/x/2.json", data, null);
+        store.put("b", "fhir/1.json", data, null);
+        store.put("b", "other.json", data, null);
+        Files.createFile(store.getRoot().resolve("b/fhir/.upload-123.tmp"));
+
+        try (Stream<String> keys = store.list("b", "fhir/")) {
+            assertEquals(List.of("fhir/1.json", "fhir/x/2.json"), keys.collect(Collectors.toList()));
+        }
+        try (Stream<String> keys = store.list("missing", "")) {
+            assertEquals(0, keys.count());
+        }
+    }
+}
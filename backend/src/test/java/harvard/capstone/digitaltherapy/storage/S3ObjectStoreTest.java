@@ -0,0 +1,113 @@
+package harvard.capstone.digitaltherapy.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class S3ObjectStoreTest {
+
+    private S3Client s3Client;
+    private S3ObjectStore store;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        store = new S3ObjectStore(s3Client);
+    }
+
+    @Test
+    void put_sendsTheBufferWithItsContentType() throws IOException {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn((PutObjectResponse) PutObjectResponse.builder()
+                        .sdkHttpResponse(SdkHttpResponse.builder().statusCode(200).build())
+                        .build());
+
+        String uri = store.put("dta-root", "a.mp3", ByteBuffer.wrap(new byte[4]), "audio/mpeg");
+
+        assertEquals("s3://dta-root/a.mp3", uri);
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client).putObject(request.capture(), any(RequestBody.class));
+        assertEquals("audio/mpeg", request.getValue().contentType());
+        assertEquals(Long.valueOf(4), request.getValue().contentLength());
+    }
+
+    @Test
+    void put_failsOnUnsuccessfulResponses() {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn((PutObjectResponse) PutObjectResponse.builder()
+                        .sdkHttpResponse(SdkHttpResponse.builder().statusCode(500).build())
+                        .build());
+
+        assertThrows(IOException.class, () -> store.put("b", "k", ByteBuffer.wrap(new byte[1]), null));
+    }
+
+    @Test
+    void getAndCopyTo_readTheObject() throws IOException {
+        byte[] content = "text".getBytes(StandardCharsets.UTF_8);
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), content));
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(content))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals("text", StandardCharsets.UTF_8.decode(store.get("b", "k")).toString());
+        assertEquals(4, store.copyTo("b", "k", Channels.newChannel(out)));
+        assertEquals("text", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void missingObjects_areReportedAsNotFound() throws IOException {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().message("missing").build());
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(404).build());
+
+        assertThrows(FileNotFoundException.class, () -> store.get("b", "k"));
+        assertFalse(store.exists("b", "k"));
+    }
+
+    @Test
+    void list_readsTheKeysOfEveryPage() throws IOException {
+        ListObjectsV2Request request = ListObjectsV2Request.builder().bucket("b").prefix("fhir/").build();
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenReturn(new ListObjectsV2Iterable(s3Client, request));
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class)))
+                .thenReturn(ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("fhir/1.json").build())
+                        .isTruncated(true).nextContinuationToken("next").build())
+                .thenReturn(ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("fhir/2.json").build())
+                        .isTruncated(false).build());
+
+        try (Stream<String> keys = store.list("b", "fhir/")) {
+            assertEquals(List.of("fhir/1.json", "fhir/2.json"), keys.collect(Collectors.toList()));
+        }
+        ArgumentCaptor<ListObjectsV2Request> sent = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(s3Client).listObjectsV2Paginator(sent.capture());
+        assertEquals("fhir/", sent.getValue().prefix());
+    }
+}
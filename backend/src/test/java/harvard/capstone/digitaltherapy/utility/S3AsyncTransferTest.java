@@ -0,0 +1,128 @@
+package harvard.capstone.digitaltherapy.utility;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3ServiceClientConfiguration;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class S3AsyncTransferTest {
+
+    private static final int PART_SIZE = S3MultipartOutputStream.MIN_PART_SIZE;
+
+    private S3AsyncClient s3Client;
+    private S3AsyncTransfer transfer;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3AsyncClient.class);
+        when(s3Client.headBucket(any(HeadBucketRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(HeadBucketResponse.builder().build()));
+        when(s3Client.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("upload-1").build()));
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(UploadPartResponse.builder()
+                        .eTag("etag-" + invocation.<UploadPartRequest>getArgument(0).partNumber()).build()));
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+        when(s3Client.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build()));
+        transfer = new S3AsyncTransfer(s3Client, "bucket", PART_SIZE, 2);
+    }
+
+    @Test
+    void upload_putsSmallBuffersAndChecksTheBucketOnce() {
+        ByteBuffer data = ByteBuffer.wrap("audio".getBytes());
+
+        assertEquals("s3://bucket/a.mp3", transfer.upload(data, "a.mp3", "audio/mpeg").join());
+        assertEquals("s3://bucket/b.txt", transfer.uploadText("text", "b.txt").join());
+
+        verify(s3Client, times(2)).putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class));
+        verify(s3Client, times(1)).headBucket(any(HeadBucketRequest.class));
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+        // The caller's buffer is left as it was
+        assertEquals(0, data.position());
+    }
+
+    @Test
+    void upload_splitsLargeBuffersIntoParallelParts() {
+        ByteBuffer data = ByteBuffer.allocate(2 * PART_SIZE + 10);
+
+        assertEquals("s3://bucket/video.mp4", transfer.upload(data, "video.mp4", "video/mp4").join());
+
+        ArgumentCaptor<UploadPartRequest> parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3Client, times(3)).uploadPart(parts.capture(), any(AsyncRequestBody.class));
+        List<Long> lengths = parts.getAllValues().stream()
+                .sorted((a, b) -> a.partNumber() - b.partNumber())
+                .map(UploadPartRequest::contentLength)
+                .collect(Collectors.toList());
+        assertEquals(List.of((long) PART_SIZE, (long) PART_SIZE, 10L), lengths);
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        List<CompletedPart> completed = complete.getValue().multipartUpload().parts();
+        assertEquals(3, completed.size());
+        assertEquals(Integer.valueOf(1), completed.get(0).partNumber());
+        assertEquals("etag-3", completed.get(2).eTag());
+        assertEquals(2L * PART_SIZE + 10, transfer.getStats().get("bytesUploaded"));
+    }
+
+    @Test
+    void upload_abortsWhenAPartFails() {
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().message("boom").build()));
+
+        CompletableFuture<String> result = transfer.upload(ByteBuffer.allocate(PART_SIZE + 1), "video.mp4", "video/mp4");
+
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertTrue(exception.getCause() instanceof S3Exception);
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertEquals(1L, transfer.getStats().get("failures"));
+    }
+
+    @Test
+    void upload_streamsInputOfUnknownLengthInParts() {
+        byte[] data = new byte[PART_SIZE + 100];
+
+        assertEquals("s3://bucket/stream.bin",
+                transfer.upload(new ByteArrayInputStream(data), "stream.bin", "application/octet-stream").join());
+
+        verify(s3Client, times(2)).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void upload_createsMissingBucketAndRetriesFailedChecks() {
+        when(s3Client.headBucket(any(HeadBucketRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().statusCode(500).message("down").build()))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().statusCode(404).build()));
+        when(s3Client.serviceClientConfiguration())
+                .thenReturn(S3ServiceClientConfiguration.builder().region(Region.US_WEST_2).build());
+        when(s3Client.createBucket(any(CreateBucketRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateBucketResponse.builder().build()));
+
+        assertThrows(CompletionException.class, () -> transfer.uploadText("a", "a.txt").join());
+        assertEquals("s3://bucket/b.txt", transfer.uploadText("b", "b.txt").join());
+        assertEquals("s3://bucket/c.txt", transfer.uploadText("c", "c.txt").join());
+
+        verify(s3Client, times(2)).headBucket(any(HeadBucketRequest.class));
+        verify(s3Client).createBucket(any(CreateBucketRequest.class));
+    }
+}
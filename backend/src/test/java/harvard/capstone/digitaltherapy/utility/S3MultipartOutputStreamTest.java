@@ -0,0 +1,85 @@
+package harvard.capstone.digitaltherapy.utility;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class S3MultipartOutputStreamTest {
+
+    private static final int PART_SIZE = S3MultipartOutputStream.MIN_PART_SIZE;
+
+    private S3Client s3Client;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+    }
+
+    @Test
+    void close_usesPlainPutForDataSmallerThanOnePart() throws IOException {
+        S3MultipartOutputStream out = new S3MultipartOutputStream(s3Client, "bucket", "key", "text/plain", PART_SIZE);
+        out.write("hello".getBytes());
+        out.close();
+
+        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+        assertEquals("s3://bucket/key", out.getS3Uri());
+        assertEquals(5, out.getBytesWritten());
+    }
+
+    @Test
+    void close_uploadsFullPartsAndCompletesInOrder() throws IOException {
+        S3MultipartOutputStream out = new S3MultipartOutputStream(s3Client, "bucket", "key", "text/plain", PART_SIZE);
+        byte[] chunk = new byte[PART_SIZE / 2 + 1];
+        for (int i = 0; i < 4; i++) {
+            out.write(chunk);
+        }
+        out.close();
+
+        ArgumentCaptor<UploadPartRequest> parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3Client, times(3)).uploadPart(parts.capture(), any(RequestBody.class));
+        assertEquals(Integer.valueOf(1), parts.getAllValues().get(0).partNumber());
+        assertEquals(Long.valueOf(PART_SIZE), parts.getAllValues().get(0).contentLength());
+        assertEquals(Integer.valueOf(3), parts.getAllValues().get(2).partNumber());
+        assertEquals(Long.valueOf(4L * chunk.length - 2L * PART_SIZE), parts.getAllValues().get(2).contentLength());
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertEquals("upload-1", complete.getValue().uploadId());
+        assertEquals(3, complete.getValue().multipartUpload().parts().size());
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void write_abortsUploadWhenPartFails() throws IOException {
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("boom").build());
+        S3MultipartOutputStream out = new S3MultipartOutputStream(s3Client, "bucket", "key", "text/plain", PART_SIZE);
+        out.write(new byte[PART_SIZE]);
+
+        assertThrows(IOException.class, () -> out.write(1));
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void constructor_rejectsPartsBelowTheS3Minimum() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3MultipartOutputStream(s3Client, "bucket", "key", "text/plain", PART_SIZE - 1));
+    }
+}
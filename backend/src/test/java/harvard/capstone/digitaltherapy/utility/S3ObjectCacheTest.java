@@ -0,0 +1,205 @@
+package harvard.capstone.digitaltherapy.utility;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class S3ObjectCacheTest {
+
+    @TempDir
+    Path diskDir;
+
+    private S3Client s3Client;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+    }
+
+    @Test
+    void read_revalidatesWithTheETagAndServesUnchangedObjectsFromMemory() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(1024, 100, diskDir, 0);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(object("transcript", "\"v1\""))
+                .thenThrow(notModified());
+
+        assertEquals("transcript", text(cache.read(s3Client, "dta-root", "t.txt")));
+        ByteBuffer cached = cache.read(s3Client, "dta-root", "t.txt");
+
+        assertEquals("transcript", text(cached));
+        assertTrue(cached.isReadOnly());
+        ArgumentCaptor<GetObjectRequest> requests = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client, times(2)).getObject(requests.capture());
+        assertNull(requests.getAllValues().get(0).ifNoneMatch());
+        assertEquals("\"v1\"", requests.getAllValues().get(1).ifNoneMatch());
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("memoryHits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0.5, stats.get("hitRate"));
+        assertEquals(10L, stats.get("bytesSaved"));
+    }
+
+    @Test
+    void read_replacesObjectsThatChangedInS3() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(1024, 100, diskDir, 0);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(object("old", "\"v1\""))
+                .thenReturn(object("new", "\"v2\""))
+                .thenThrow(notModified());
+
+        cache.read(s3Client, "b", "k");
+        assertEquals("new", text(cache.read(s3Client, "b", "k")));
+        assertEquals("new", text(cache.read(s3Client, "b", "k")));
+
+        ArgumentCaptor<GetObjectRequest> requests = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client, times(3)).getObject(requests.capture());
+        assertEquals("\"v2\"", requests.getAllValues().get(2).ifNoneMatch());
+        assertEquals(3L, cache.getStats().get("memoryBytes"));
+    }
+
+    @Test
+    void largeObjects_goToTheDiskTierAndAreMapped() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(1024, 4, diskDir, 1024);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(object("video bytes", "\"v1\""))
+                .thenThrow(notModified());
+
+        assertEquals("video bytes", text(cache.read(s3Client, "b", "v.mp4")));
+        ByteBuffer cached = cache.read(s3Client, "b", "v.mp4");
+
+        assertTrue(cached instanceof MappedByteBuffer);
+        assertEquals("video bytes", text(cached));
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("diskHits"));
+        assertEquals(0, stats.get("memoryEntries"));
+        assertEquals(11L, stats.get("diskBytes"));
+        assertEquals(List.of(".obj"), cachedFileSuffixes());
+    }
+
+    @Test
+    void tiers_evictTheLeastRecentlyUsedEntriesPastTheirLimits() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(8, 4, diskDir, 12);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(object("aaaa", "\"a\""), object("bbbb", "\"b\""), object("cccc", "\"c\""))
+                .thenReturn(object("media-1", "\"m1\""), object("media-2", "\"m2\""));
+
+        cache.read(s3Client, "b", "a");
+        cache.read(s3Client, "b", "b");
+        cache.read(s3Client, "b", "c");
+        cache.read(s3Client, "b", "m1");
+        cache.read(s3Client, "b", "m2");
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(2, stats.get("memoryEntries"));
+        assertEquals(1, stats.get("diskEntries"));
+        assertEquals(2L, stats.get("evictions"));
+        assertEquals(1, cachedFileSuffixes().size());
+    }
+
+    @Test
+    void errorsOtherThanNotModified_arePassedThrough() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(1024, 100, diskDir, 0);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(404).message("missing").build());
+
+        assertThrows(S3Exception.class, () -> cache.read(s3Client, "b", "k"));
+        assertEquals(0L, cache.getStats().get("misses"));
+    }
+
+    /**
+     * Test that a hit inside the revalidation window makes no request
+     */
+    @Test
+    void read_withinTheRevalidationWindow_skipsTheConditionalGet() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(1024, 100, diskDir, 0, 60000, new String[0]);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(object("transcript", "\"v1\""));
+
+        cache.read(s3Client, "b", "t.txt");
+        assertEquals("transcript", text(cache.read(s3Client, "b", "t.txt")));
+
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+        assertEquals(1L, cache.getStats().get("unrevalidatedHits"));
+    }
+
+    /**
+     * Test that keys under an immutable prefix are never revalidated, while other keys are
+     */
+    @Test
+    void read_immutablePrefix_isServedWithoutRevalidation() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(1024, 100, diskDir, 0, 0, new String[] {"fhir/"});
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(object("bundle", "\"v1\""), object("other", "\"v1\""))
+                .thenThrow(notModified());
+
+        cache.read(s3Client, "b", "fhir/a.json");
+        cache.read(s3Client, "b", "other.txt");
+        assertEquals("bundle", text(cache.read(s3Client, "b", "fhir/a.json")));
+        assertEquals("other", text(cache.read(s3Client, "b", "other.txt")));
+
+        verify(s3Client, times(3)).getObject(any(GetObjectRequest.class));
+    }
+
+    /**
+     * Test that an invalidated key is fetched again even inside the window
+     */
+    @Test
+    void invalidate_forcesAFreshFetch() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(1024, 100, diskDir, 0, 60000, new String[0]);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(object("old", "\"v1\""), object("new", "\"v2\""));
+
+        cache.read(s3Client, "b", "t.txt");
+        cache.invalidate("b", "t.txt");
+
+        assertEquals("new", text(cache.read(s3Client, "b", "t.txt")));
+        verify(s3Client, times(2)).getObject(any(GetObjectRequest.class));
+    }
+
+    private List<String> cachedFileSuffixes() throws IOException {
+        try (Stream<Path> files = Files.list(diskDir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .map(name -> name.substring(name.lastIndexOf('.')))
+                    .toList();
+        }
+    }
+
+    private static ResponseInputStream<GetObjectResponse> object(String content, String eTag) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        GetObjectResponse response = GetObjectResponse.builder()
+                .eTag(eTag)
+                .contentLength((long) bytes.length)
+                .build();
+        return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(bytes)));
+    }
+
+    private static S3Exception notModified() {
+        return (S3Exception) S3Exception.builder().statusCode(304).message("Not Modified").build();
+    }
+
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+}
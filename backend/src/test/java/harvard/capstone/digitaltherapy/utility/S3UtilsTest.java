@@ -1,11 +1,14 @@
 package harvard.capstone.digitaltherapy.utility;
 
+import harvard.capstone.digitaltherapy.storage.InMemoryObjectStore;
+import harvard.capstone.digitaltherapy.storage.S3ObjectStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
 import org.mockito.MockitoAnnotations;
 import org.springframework.web.socket.BinaryMessage;
 import software.amazon.awssdk.core.ResponseInputStream;
@@ -25,6 +28,7 @@ import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 public class S3UtilsTest {
@@ -46,8 +50,7 @@ public class S3UtilsTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        s3Utils = new S3Utils(bucketName, region);
-        s3Utils.s3Client = mockS3Client;
+        s3Utils = new S3Utils(bucketName, Region.of(region), mockS3Client, null, null, null);
 
         // Mock head bucket to indicate bucket exists
         when(mockS3Client.headBucket(any(HeadBucketRequest.class))).thenReturn(HeadBucketResponse.builder().build());
@@ -103,8 +106,8 @@ public class S3UtilsTest {
                         .statusCode(404)
                         .build());
 
-        // Assert that S3Exception is thrown
-        assertThrows(S3Exception.class, () ->
+        // A missing object is reported as FileNotFoundException
+        assertThrows(FileNotFoundException.class, () ->
                 s3Utils.downloadFileFromS3("testBucket", "testKey")
         );
     }
@@ -243,7 +246,7 @@ public class S3UtilsTest {
         GetObjectResponse mockGetResponse = GetObjectResponse.builder().build();
         InputStream mockStream = Mockito.mock(InputStream.class);
         try {
-            when(mockStream.read(any(byte[].class))).thenThrow(new IOException("Test IO error"));
+            when(mockStream.read(any(byte[].class), anyInt(), anyInt())).thenThrow(new IOException("Test IO error"));
         } catch (IOException e) {
             fail("Exception during test setup: " + e.getMessage());
         }
@@ -313,18 +316,34 @@ public class S3UtilsTest {
         assertEquals("s3://testBucket/test.txt", result);
     }
 
+    /**
+     * Test that the bucket is checked on the first upload only
+     */
+    @Test
+    void uploads_checkTheBucketOnce() {
+        when(mockS3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn((PutObjectResponse) PutObjectResponse.builder()
+                        .sdkHttpResponse(SdkHttpResponse.builder().statusCode(200).build())
+                        .build());
+
+        s3Utils.uploadText("one", "a.txt");
+        s3Utils.uploadBuffer(ByteBuffer.wrap(new byte[] {1}), "b.bin", "application/octet-stream");
+        s3Utils.uploadFile(new ByteArrayInputStream(new byte[] {2}), "c.bin", "application/octet-stream");
+
+        verify(mockS3Client, times(1)).headBucket(any(Consumer.class));
+        verify(mockS3Client, times(3)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
     @Test
     void downloadFileFromS3_Success() throws IOException {
-        // Mock successful response
-        ResponseInputStream<GetObjectResponse> mockResponse = mock(ResponseInputStream.class);
-        when(mockResponse.read(any(byte[].class)))
-                .thenReturn(10) // Return some bytes first
-                .thenReturn(-1); // Then signal end of stream
-        when(mockS3Client.getObject(any(GetObjectRequest.class))).thenReturn(mockResponse);
+        byte[] content = "test content".getBytes(StandardCharsets.UTF_8);
+        when(mockS3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(content))));
 
         File result = s3Utils.downloadFileFromS3("test-bucket", "test.txt");
         assertTrue(result.exists());
-        assertFalse(result.length() > 0);
+        assertArrayEquals(content, java.nio.file.Files.readAllBytes(result.toPath()));
     }
 
     @Test
@@ -378,10 +397,21 @@ public class S3UtilsTest {
     }
 
 
+    @Test
+    void keyOf_acceptsS3UrisAndBothHttpsStyles() {
+        assertEquals("a/b.txt", S3Utils.keyOf("s3://any-bucket/a/b.txt"));
+        assertEquals("out.json", S3Utils.keyOf("https://s3.amazonaws.com/any-bucket/out.json"));
+        assertEquals("speech/x.mp3", S3Utils.keyOf("https://any-bucket.s3.amazonaws.com/speech/x.mp3"));
+        assertEquals("plain-key.txt", S3Utils.keyOf("plain-key.txt"));
+        assertEquals("s3://testBucket/a.txt", s3Utils.uri("a.txt"));
+    }
+
     @Test
     void generatePresignedUrl_Success() {
-        String result = S3Utils.generatePresignedUrl("test-bucket", "test.txt", Duration.ofMinutes(5));
+        String result = s3Utils.generatePresignedUrl("test-bucket", "test.txt", Duration.ofMinutes(5));
         assertNotNull(result);
+        // Signed for the configured region rather than a fixed default
+        assertTrue(result.contains("us-west-2"), result);
     }
 
     @Test
@@ -399,4 +429,54 @@ public class S3UtilsTest {
         assertThrows(RuntimeException.class, () ->
                 s3Utils.uploadFile(tempFile.getAbsolutePath(), "test.txt"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void objectStoreBackend_replacesS3ForReadsAndWrites() throws IOException {
+        InMemoryObjectStore store = new InMemoryObjectStore();
+        S3Utils offline = new S3Utils(bucketName, Region.of(region), mockS3Client, null, store, null);
+        File tempFile = tempDir.resolve("test.txt").toFile();
+        try (FileWriter writer = new FileWriter(tempFile)) {
+            writer.write("line one\nline two");
+        }
+
+        assertEquals("s3://testBucket/audio_test.mp3",
+                offline.uploadAudioBinaryFile(new BinaryMessage(ByteBuffer.wrap("audio".getBytes())), "audio_test.mp3"));
+        assertEquals("s3://testBucket/test.txt", offline.uploadFile(tempFile.getAbsolutePath(), "test.txt"));
+        assertEquals("line oneline two", offline.downloadFileAsString("test.txt"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        offline.streamFileFromS3(bucketName, "audio_test.mp3", out);
+        assertEquals("audio", out.toString(StandardCharsets.UTF_8));
+
+        verifyNoInteractions(mockS3Client);
+    }
+
+    @Test
+    void s3ObjectStoreBackend_checksTheBucketAndWritesThroughTheStore() {
+        S3Utils direct = new S3Utils(bucketName, Region.of(region), mockS3Client, null, new S3ObjectStore(mockS3Client), null);
+        when(mockS3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn((PutObjectResponse) PutObjectResponse.builder()
+                        .sdkHttpResponse(SdkHttpResponse.builder().statusCode(200).build())
+                        .build());
+
+        assertEquals("s3://testBucket/a.txt", direct.uploadText("text", "a.txt"));
+        verify(mockS3Client).putObject(
+                argThat((PutObjectRequest request) -> request.contentType().startsWith("text/plain")),
+                any(RequestBody.class));
+        verify(mockS3Client).headBucket(any(Consumer.class));
+    }
+
+    @Test
+    void cache_servesUnchangedObjectsWithoutDownloadingThemAgain() throws IOException {
+        S3ObjectCache cache = new S3ObjectCache(1024, 1024, tempDir.resolve("cache"), 0);
+        S3Utils cached = new S3Utils(bucketName, Region.of(region), mockS3Client, null, null, cache);
+        byte[] content = "line one\nline two".getBytes(StandardCharsets.UTF_8);
+        when(mockS3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(new ResponseInputStream<>(GetObjectResponse.builder().eTag("\"e1\"").build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(content))))
+                .thenThrow(S3Exception.builder().statusCode(304).build());
+
+        assertEquals("line oneline two", cached.downloadFileAsString("fhir/bundle.json"));
+        assertEquals("line oneline two", cached.downloadFileAsString("fhir/bundle.json"));
+        assertEquals((long) content.length, cache.getStats().get("bytesSaved"));
+    }
+}
@@ -5,8 +5,17 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import harvard.capstone.digitaltherapy.burnout.controller.BurnoutController;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.springframework.web.socket.*;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class BurnoutWebSocketHandlerTest {
@@ -20,7 +29,7 @@ public class BurnoutWebSocketHandlerTest {
     void setup() {
         objectMapper = new ObjectMapper();
         burnoutController = mock(BurnoutController.class);
-        handler = new BurnoutWebSocketHandler(objectMapper, burnoutController);
+        handler = new BurnoutWebSocketHandler(objectMapper, burnoutController, Runnable::run, Runnable::run);
         session = mock(WebSocketSession.class);
         when(session.getId()).thenReturn("session-1");
     }
@@ -33,7 +42,7 @@ public class BurnoutWebSocketHandlerTest {
 
         handler.handleTextMessage(session, new TextMessage(msg.toString()));
 
-        verify(burnoutController).handleMessage(eq(session), any());
+        verify(burnoutController).handleMessage(any(WebSocketSession.class), any());
     }
 
     @Test
@@ -49,7 +58,7 @@ public class BurnoutWebSocketHandlerTest {
         BinaryMessage binaryMessage = new BinaryMessage(new byte[]{0x00});
         handler.handleBinaryMessage(session, binaryMessage);
 
-        verify(burnoutController).handleAudioMessage(eq(session), eq("sess-audio"), eq("q1"), eq(binaryMessage));
+        verify(burnoutController).handleAudioMessage(any(WebSocketSession.class), eq("sess-audio"), eq("q1"), eq(binaryMessage));
     }
 
     @Test
@@ -64,7 +73,7 @@ public class BurnoutWebSocketHandlerTest {
         BinaryMessage binaryMessage = new BinaryMessage(new byte[]{0x01});
         handler.handleBinaryMessage(session, binaryMessage);
 
-        verify(burnoutController).handleVideoMessage(eq(session), eq("sess-video"), eq("q2"), eq(binaryMessage));
+        verify(burnoutController).handleVideoMessage(any(WebSocketSession.class), eq("sess-video"), eq("q2"), eq(binaryMessage));
     }
 
     @Test
@@ -76,6 +85,97 @@ public class BurnoutWebSocketHandlerTest {
         verifyNoInteractions(burnoutController);
     }
 
+    @Test
+    void handleBinaryMessage_routesConcurrentUploadsByUploadId() throws Exception {
+        handler.handleTextMessage(session, new TextMessage(announce("video_upload", "q1", "up-1")));
+        handler.handleTextMessage(session, new TextMessage(announce("audio_upload", "q2", "up-2")));
+        when(burnoutController.handleAudioMessage(any(WebSocketSession.class), eq("sess"), eq("q2"), any()))
+                .thenReturn("s3://bucket/audio");
+
+        // Frames arrive in the opposite order to the announcements
+        handler.handleBinaryMessage(session, new BinaryMessage(frame("up-2", new byte[]{0x0A, 0x0B})));
+        handler.handleBinaryMessage(session, new BinaryMessage(frame("up-1", new byte[]{0x0C})));
+
+        verify(burnoutController).handleAudioMessage(any(WebSocketSession.class), eq("sess"), eq("q2"),
+                eq(new BinaryMessage(new byte[]{0x0A, 0x0B})));
+        verify(burnoutController).handleVideoMessage(any(WebSocketSession.class), eq("sess"), eq("q1"),
+                eq(new BinaryMessage(new byte[]{0x0C})));
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, times(4)).sendMessage(sent.capture());
+        List<TextMessage> acks = sent.getAllValues();
+        assertTrue(acks.get(0).getPayload().contains("\"upload-ready\""));
+        assertTrue(acks.get(1).getPayload().contains("\"upload-ready\""));
+        assertTrue(acks.get(2).getPayload().contains("\"upload-complete\""));
+        assertTrue(acks.get(2).getPayload().contains("s3://bucket/audio"));
+        // The video handler mock returns null, as the controller does after a failure
+        assertTrue(acks.get(3).getPayload().contains("\"upload-failed\""));
+        assertTrue(acks.get(3).getPayload().contains("up-1"));
+    }
+
+    @Test
+    void completionSentRightAfterAnUpload_waitsForTheUploadOffTheUploadPool() throws Exception {
+        Deque<Runnable> uploads = new ArrayDeque<>();
+        Deque<Runnable> messages = new ArrayDeque<>();
+        BurnoutWebSocketHandler queuedHandler = new BurnoutWebSocketHandler(objectMapper, burnoutController,
+                uploads::add, messages::add);
+        ObjectNode upload = objectMapper.createObjectNode();
+        upload.put("type", "video_upload");
+        upload.put("sessionId", "sess");
+        upload.put("questionId", "domain_multi_1");
+        ObjectNode complete = objectMapper.createObjectNode();
+        complete.put("type", "assessment-complete");
+        complete.put("sessionId", "sess");
+
+        queuedHandler.handleTextMessage(session, new TextMessage(upload.toString()));
+        queuedHandler.handleBinaryMessage(session, new BinaryMessage(new byte[]{0x01}));
+        queuedHandler.handleTextMessage(session, new TextMessage(complete.toString()));
+
+        // Nothing has run yet, so completion must not have overtaken the upload
+        verify(burnoutController, never()).handleMessage(any(WebSocketSession.class), any());
+        while (!uploads.isEmpty()) {
+            uploads.poll().run();
+        }
+        // The upload pool only finished the upload; the completion is handed to the message pool
+        verify(burnoutController, never()).handleMessage(any(WebSocketSession.class), any());
+        assertEquals(1, messages.size());
+        messages.poll().run();
+
+        InOrder order = inOrder(burnoutController);
+        order.verify(burnoutController).handleVideoMessage(any(WebSocketSession.class), eq("sess"),
+                eq("domain_multi_1"), any());
+        order.verify(burnoutController).handleMessage(any(WebSocketSession.class),
+                argThat(json -> "assessment-complete".equals(json.get("type").asText())));
+    }
+
+    @Test
+    void readUploadId_returnsNullForFramesWithoutHeader() {
+        ByteBuffer plain = ByteBuffer.wrap(new byte[]{0x01, 0x02, 0x03, 0x04, 0x05, 0x06});
+        assertNull(BurnoutWebSocketHandler.readUploadId(plain));
+        assertEquals(0, plain.position());
+
+        ByteBuffer framed = ByteBuffer.wrap(frame("abc", new byte[]{0x07}));
+        assertEquals("abc", BurnoutWebSocketHandler.readUploadId(framed));
+        assertEquals(1, framed.remaining());
+        assertEquals(0x07, framed.get());
+    }
+
+    private String announce(String type, String questionId, String uploadId) {
+        ObjectNode msg = objectMapper.createObjectNode();
+        msg.put("type", type);
+        msg.put("sessionId", "sess");
+        msg.put("questionId", questionId);
+        msg.put("uploadId", uploadId);
+        return msg.toString();
+    }
+
+    private static byte[] frame(String uploadId, byte[] media) {
+        byte[] id = uploadId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(BurnoutWebSocketHandler.UPLOAD_HEADER_MAGIC.length + 1 + id.length + media.length);
+        buffer.put(BurnoutWebSocketHandler.UPLOAD_HEADER_MAGIC).put((byte) id.length).put(id).put(media);
+        return buffer.array();
+    }
+
     // Optional: test logging only, no assertions needed
     @Test
     void afterConnectionEstablished_logsConnection() {
@@ -1,20 +1,30 @@
 package harvard.capstone.digitaltherapy.workers;
 
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.service.AiServices;
+import harvard.capstone.digitaltherapy.llm.context.TokenEstimator;
+import harvard.capstone.digitaltherapy.llm.routing.HedgingChatRouter;
+import harvard.capstone.digitaltherapy.persistence.RedisChatMemoryStore;
 import harvard.capstone.digitaltherapy.persistence.VectorDatabaseService;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -95,6 +105,43 @@ public class MessageWorkerTest {
         }, "Expected IllegalStateException when session context is not set");
     }
 
+    /**
+     * The explicit-session overload ignores the context set on the worker, so a draft
+     * running on another thread cannot pick up a different session's context.
+     */
+    @Test
+    public void testDraftResponse_usesTheGivenSessionNotTheWorkerContext() {
+        RedisChatMemoryStore store = spy(RedisChatMemoryStore.localOnly(Duration.ofMinutes(5), 10));
+        store.updateMessages("test-session",
+                List.of(UserMessage.from("I feel stuck at work"), AiMessage.from("What feels most stuck?")));
+        store.updateMessages("other-session", List.of(UserMessage.from("Another client's history")));
+        HedgingChatRouter router = mock(HedgingChatRouter.class);
+        when(router.chatOrFallback(eq("therapist-reply"), any(), anyList(), anyString()))
+                .thenReturn(ChatResponse.builder().aiMessage(AiMessage.from("Drafted reply")).build());
+        MessageWorker worker = new MessageWorker(store, MessageWorker.DEFAULT_HISTORY_TOKEN_BUDGET, model, router);
+        worker.setSessionContext("other-session", "otheruser");
+        clearInvocations(store);
+
+        MessageWorker.Draft draft = worker.draftResponse("test-session", "testuser", "Sample analysis", "Sample transcript");
+
+        assertEquals("test-session", draft.getSessionId(), "The draft should belong to the given session");
+        assertEquals("Drafted reply", draft.getText());
+        verify(store).getTurnCount("test-session");
+        verify(store, never()).getTurnCount("other-session");
+        verify(store, atLeastOnce()).getMessages("test-session");
+        verify(store, never()).getMessages("other-session");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ChatMessage>> context = ArgumentCaptor.forClass(List.class);
+        verify(router).chatOrFallback(eq("therapist-reply"), any(), context.capture(), anyString());
+        String prompt = context.getValue().stream().map(TokenEstimator::textOf).collect(Collectors.joining("\n"));
+        assertTrue(prompt.contains("I feel stuck at work"), "The given session's history should be in the prompt");
+        assertFalse(prompt.contains("Another client's history"), "The worker context's history must not leak in");
+
+        assertThrows(IllegalStateException.class, () -> {
+            worker.draftResponse("test-session", null, "Sample analysis", "Sample transcript");
+        }, "Should use the given (incomplete) session rather than the worker's context");
+    }
+
     /**
      * Tests the behavior of generateResponse when the session context is not set.
      * This test verifies that an IllegalStateException is thrown when attempting to